@@ -0,0 +1,35 @@
+package com.example.narayan.paymentsystem.actuator;
+
+import com.example.narayan.paymentsystem.worker.WorkerManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shutdown drain state, as the "drain" health contributor. Part of the readiness group,
+ * where DRAINING maps to 503 so load balancers move traffic off a node that is stopping.
+ */
+@Component
+public class DrainHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private WorkerManager workerManager;
+
+    @Override
+    public Health health() {
+        String state = workerManager.getDrainState();
+        if (WorkerManager.DRAIN_RUNNING.equals(state)) {
+            return Health.up().withDetail("state", state).build();
+        }
+
+        Health.Builder builder = Health.status(state).withDetail("state", state);
+        WorkerManager.DrainReport report = workerManager.getDrainReport();
+        if (report != null) {
+            builder.withDetail("report", report);
+        } else {
+            builder.withDetail("draining_workers", workerManager.getDrainingWorkerCount());
+        }
+        return builder.build();
+    }
+}
@@ -37,17 +37,28 @@ public class QueueStatsEndpoint {
             // Summary information
             Map<String, Object> summary = new HashMap<>();
             summary.put("current_queue_size", metrics.currentQueueSize);
+            summary.put("delayed_queue_size", metrics.delayedQueueSize);
+            summary.put("in_flight_jobs", metrics.inFlightJobs);
             summary.put("dead_letter_queue_size", metrics.deadLetterQueueSize);
             summary.put("total_jobs_processed", metrics.totalJobsProcessed);
             summary.put("total_jobs_enqueued", metrics.totalJobsEnqueued);
+            summary.put("duplicates_suppressed", metrics.duplicatesSuppressed);
             summary.put("average_processing_time_ms", metrics.averageProcessingTimeMs);
+            summary.put("queue_wait_by_priority", metrics.queueWaitByPriority);
+            summary.put("drain_state", metrics.drainState);
             summary.put("last_updated", metrics.lastUpdated);
 
             stats.put("summary", summary);
 
+            // Per-merchant sub-queues (fair queuing only)
+            if (metrics.merchantQueues != null) {
+                stats.put("merchants", metrics.merchantQueues);
+            }
+
             // Worker information
             Map<String, Object> workers = new HashMap<>();
             workers.put("total_workers", metrics.totalWorkers);
+            workers.put("busy_workers", metrics.busyWorkers);
             workers.put("active_workers", metrics.activeWorkers);
             workers.put("worker_stats", metrics.workerStats);
 
@@ -56,6 +67,30 @@ public class QueueStatsEndpoint {
             // Performance indicators
             stats.put("performance", metrics.performanceIndicators);
 
+            // Job processing-time percentiles: since start, and the last interval
+            Map<String, Object> latency = new HashMap<>();
+            latency.put("lifetime", metrics.processingLatency);
+            latency.put("recent", metrics.recentProcessingLatency);
+            stats.put("processing_latency", latency);
+
+            // Load shedding decisions
+            stats.put("admission", metrics.admission);
+
+            // Local journal taking enqueues while Redis is unreachable
+            stats.put("spill_journal", metrics.spill);
+
+            // Enqueues handed off by request threads and their outcome
+            stats.put("async_enqueue", metrics.asyncEnqueue);
+
+            // Shutdown drain: duration and jobs handed back
+            stats.put("drain", metrics.drain);
+
+            // Staged load -> gateway -> persist execution, per stage
+            stats.put("pipeline", metrics.pipeline);
+
+            // Worker pool sizing and recent scaling decisions
+            stats.put("autoscaler", metrics.autoscaler);
+
             // Current period metrics
             stats.put("current_period", metrics.currentPeriodMetrics);
 
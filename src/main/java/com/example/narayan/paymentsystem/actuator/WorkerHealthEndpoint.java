@@ -39,14 +39,24 @@ public class WorkerHealthEndpoint implements HealthIndicator {
             // Overall health summary
             Map<String, Object> summary = new HashMap<>();
             summary.put("overall_health", healthMetrics.overallHealth);
+            summary.put("executor", healthMetrics.executor);
             summary.put("total_workers", healthMetrics.totalWorkers);
             summary.put("active_workers", healthMetrics.activeWorkers);
+            summary.put("busy_workers", healthMetrics.busyWorkers);
+            summary.put("in_flight_jobs", healthMetrics.inFlightJobs);
             summary.put("healthy_workers", healthMetrics.healthyWorkers);
             summary.put("worker_utilization", String.format("%.1f%%", healthMetrics.workerUtilization * 100));
             summary.put("last_health_check", healthMetrics.lastHealthCheck);
 
             health.put("summary", summary);
 
+            if (healthMetrics.pinning != null) {
+                health.put("virtual_thread_pinning", healthMetrics.pinning);
+            }
+            if (healthMetrics.bulkheads != null) {
+                health.put("bulkheads", healthMetrics.bulkheads);
+            }
+
             // Individual worker details
             health.put("worker_details", healthMetrics.workerDetails);
 
@@ -56,6 +66,12 @@ public class WorkerHealthEndpoint implements HealthIndicator {
             indicators.put("all_workers_healthy",
                     healthMetrics.activeWorkers == healthMetrics.totalWorkers);
             indicators.put("sufficient_capacity", healthMetrics.workerUtilization < 0.9);
+            if (healthMetrics.bulkheads != null) {
+                indicators.put("bulkheads_rejecting", healthMetrics.bulkheads.stream()
+                        .filter(b -> b.laneDepth >= b.laneCapacity)
+                        .map(b -> b.bulkhead)
+                        .toList());
+            }
 
             health.put("indicators", indicators);
 
@@ -0,0 +1,35 @@
+package com.example.narayan.paymentsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "payment.admission")
+@Data
+public class AdmissionConfig {
+
+    // Shed new payments once the queue is projected to take longer than this to reach them
+    private boolean enabled = false;
+    private long maxWaitMs = 30000; // 30 seconds
+
+    // High-value and HIGH/CRITICAL priority payments are still admitted until the projected
+    // wait reaches this ceiling
+    private long highValueThreshold = 50000;
+    private long highValueMaxWaitMs = 120000; // 2 minutes
+
+    // Below this depth everything is admitted, so an idle or just-started node never sheds
+    private int minQueueDepth = 100;
+
+    // How often the cached depth and drain rate are refreshed (milliseconds)
+    private long refreshIntervalMs = 500;
+
+    // Weight of the newest drain-rate sample in the moving average (0-1]
+    private double drainRateSmoothing = 0.3;
+
+    // Bounds for the Retry-After hint sent with a 429 (seconds)
+    private int minRetryAfterSeconds = 1;
+    private int maxRetryAfterSeconds = 60;
+}
@@ -0,0 +1,45 @@
+package com.example.narayan.paymentsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "payment.worker.autoscale")
+@Data
+public class AutoscalerConfig {
+
+    // Size the worker pool from queue depth and job latency instead of leaving it fixed
+    private boolean enabled = false;
+
+    // Bounds for the pool, whatever the load
+    private int minWorkers = 1;
+    private int maxWorkers = 20;
+
+    // How often load is sampled and a decision made (milliseconds)
+    private long intervalMs = 5000;
+
+    // Fraction of the time each worker should be busy at the target size (0-1]
+    private double targetUtilization = 0.75;
+
+    // Size for clearing the current backlog within this long, on top of keeping up with arrivals (seconds)
+    private long drainTargetSeconds = 30;
+
+    // Weight of the newest arrival-rate and service-time samples in their moving averages (0-1]
+    private double smoothing = 0.3;
+
+    // Only shrink once the target is this fraction below the current size...
+    private double scaleDownHysteresis = 0.2;
+
+    // ...for this many samples in a row
+    private int scaleDownStableIntervals = 3;
+
+    // Most workers added or retired by a single decision
+    private int maxStepUp = 4;
+    private int maxStepDown = 2;
+
+    // Scaling decisions kept for the metrics endpoints
+    private int historySize = 20;
+}
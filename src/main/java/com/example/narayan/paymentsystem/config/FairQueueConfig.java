@@ -0,0 +1,36 @@
+package com.example.narayan.paymentsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "payment.queue.fair")
+@Data
+public class FairQueueConfig {
+
+    // Jobs a merchant of weight 1 may take per round-robin turn
+    private int quantum = 10;
+
+    // Weight of merchants not listed in weights
+    private int defaultWeight = 1;
+
+    // Per-merchant weights by merchant id, e.g. payment.queue.fair.weights.<merchant-id>=5
+    private Map<String, Integer> weights = new HashMap<>();
+
+    // How often the active-merchant set is re-read from Redis (milliseconds), so jobs
+    // enqueued on other nodes are picked up
+    private long activeRefreshMs = 200;
+
+    // Most merchants listed in queue stats, deepest first
+    private int statsLimit = 20;
+
+    public int weightOf(String merchant) {
+        return weights.getOrDefault(merchant, defaultWeight);
+    }
+}
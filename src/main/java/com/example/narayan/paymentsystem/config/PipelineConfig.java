@@ -0,0 +1,48 @@
+package com.example.narayan.paymentsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "payment.processor.pipeline")
+@Data
+public class PipelineConfig {
+
+    // Run payment jobs through separate load -> gateway -> persist stages instead of end to end on the worker
+    private boolean enabled = false;
+
+    // One IN query per batch; few threads, since each holds a DB connection while it runs
+    private Stage load = new Stage(2, 50, 500);
+
+    // Gateway calls, one payment at a time; the threads are what bound concurrent calls
+    private Stage gateway = new Stage(32, 1, 500);
+
+    // One JDBC batch of status updates per batch; failures (retry scheduling, dead letters) are handled here too
+    private Stage persist = new Stage(2, 100, 500);
+
+    // How long stop() waits for each stage to empty its queue (milliseconds)
+    private long drainTimeoutMs = 10000;
+
+    // Most a worker waits for its jobs to come out of the pipeline; ones not started by then are queued again (milliseconds)
+    private long resultTimeoutMs = 60000;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+
+        // Threads working the stage, so the most batches in progress at once
+        private int threads;
+
+        // Most items a thread takes from the queue at once
+        private int batchSize;
+
+        // Items waiting for the stage; when full, the stage feeding it blocks
+        private int queueCapacity;
+    }
+}
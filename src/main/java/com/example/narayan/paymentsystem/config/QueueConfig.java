@@ -0,0 +1,27 @@
+package com.example.narayan.paymentsystem.config;
+
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
+import com.example.narayan.paymentsystem.queue.codec.JsonJobCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueueConfig {
+
+    // json | binary - both codecs read either format, so once no node predates the binary
+    // codec this can be flipped on a live queue. Until then stay on json, which old nodes read.
+    @Value("${payment.queue.codec:json}")
+    private String codec;
+
+    @Bean
+    public JobCodec jobCodec() {
+        System.out.println("🧬 Using " + codec + " job codec for queue payloads");
+        return switch (codec.toLowerCase()) {
+            case "json" -> new JsonJobCodec();
+            case "binary" -> new BinaryJobCodec();
+            default -> throw new IllegalArgumentException("Unknown payment.queue.codec: " + codec);
+        };
+    }
+}
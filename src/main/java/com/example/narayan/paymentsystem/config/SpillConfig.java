@@ -0,0 +1,29 @@
+package com.example.narayan.paymentsystem.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import lombok.Data;
+
+@Configuration
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "payment.queue.spill")
+@Data
+public class SpillConfig {
+
+    // Journal enqueues locally while Redis is unreachable instead of failing the request
+    private boolean enabled = false;
+
+    // Directory holding the journal's segment files; must survive a restart to be useful
+    private String dir = System.getProperty("java.io.tmpdir") + "/payment-spill";
+
+    // Size of each memory-mapped segment file (bytes)
+    private int segmentBytes = 16 * 1024 * 1024; // 16 MB
+
+    // Flush every append to disk; without it a process crash loses nothing but an OS crash can
+    private boolean forceOnWrite = false;
+
+    // Jobs replayed into the queue per round trip, and the pause after a failed replay (milliseconds)
+    private int replayBatchSize = 200;
+    private long replayBackoffMs = 1000;
+}
@@ -5,6 +5,9 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Configuration;
 import lombok.Data;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @EnableConfigurationProperties
 @ConfigurationProperties(prefix = "payment.worker")
@@ -14,13 +17,43 @@ public class WorkerConfig {
     //Number of worker threads to run concurrently
     private int count = 3;
 
+    //"platform" runs count workers on a fixed thread pool; "virtual" runs each worker on its own virtual thread
+    private String executor = "platform";
+
+    //Settings used when executor=virtual
+    private Virtual virtual = new Virtual();
+
+    //Shutdown drain
+    private Drain drain = new Drain();
+
+    //Per-payment-method concurrency limits
+    private Bulkhead bulkhead = new Bulkhead();
+
     //How often workers should poll for jobs (milliseconds)
     private long pollingIntervalMs = 1000;
 
+    //Block in Redis (BZPOPMIN) waiting for jobs instead of sleep-polling
+    private boolean blockingDequeue = false;
+
+    //Max time a blocking dequeue waits before returning empty (milliseconds)
+    private long blockingTimeoutMs = 2000;
+
+    //Jobs each worker pops and processes together (one ZPOPMIN, one IN query, one JDBC batch); 1 disables batching
+    private int batchSize = 1;
+
+    //One fetcher thread pops batches into a local buffer and workers take from it instead of Redis
+    private boolean prefetchEnabled = false;
+
+    //Size of the local prefetch buffer; the fetcher tops it up to this many jobs
+    private int prefetchHighWatermark = 64;
+
+    //The fetcher refills once the buffer drains to this many jobs
+    private int prefetchLowWatermark = 16;
+
     //How long to wait before retrying after an error (milliseconds)
     private long errorBackoffMs = 2000;
 
-    //Maximum time to wait for workers to shutdown gracefully (seconds)
+    //Maximum time to wait for workers to finish their jobs at shutdown before handing them back (seconds)
     private long shutdownTimeoutSeconds = 30;
 
     //Whether to enable detailed stats reporting
@@ -31,7 +64,68 @@ public class WorkerConfig {
 
     /*
      Maximum number of jobs a single worker should process before restarting
-     (helps prevent memory leaks in long-running workers)
+     (helps prevent memory leaks in long-running workers); 0 never restarts them
     */
     private long maxJobsPerWorker = 10000;
+
+    //Length of the "recent" processing-time percentile window (seconds)
+    private long latencyIntervalSeconds = 60;
+
+    //Final stats kept for this many retired workers
+    private int retainedRetiredWorkers = 50;
+
+    //Sleep-polling workers double their sleep while the queue stays empty, up to this (milliseconds)
+    private long maxIdleBackoffMs = 30000;
+
+    //Enqueues publish a "work available" message that wakes a parked sleep-polling worker
+    private boolean wakeupEnabled = true;
+    private String wakeupChannel = "payment_jobs:work-available";
+
+    @Data
+    public static class Bulkhead {
+
+        //Cap the workers each payment method can hold, so one slow gateway can't take them all
+        private boolean enabled = false;
+
+        //Jobs run at once per bulkhead, keyed by payment method (CREDIT_CARD, UPI, ...) or METHOD:PRIORITY
+        private Map<String, Integer> limits = new HashMap<>();
+
+        //Limit for bulkheads not listed in limits, including UNKNOWN (jobs without a payment method)
+        private int defaultLimit = 2;
+
+        //One bulkhead per payment method and priority (UPI:CRITICAL, UPI:NORMAL, ...); a METHOD limit covers each of its priorities
+        private boolean byPriority = false;
+
+        //Jobs that may wait for a permit in each bulkhead's lane; beyond that they are rescheduled
+        private int laneCapacity = 100;
+
+        //A full bulkhead may run jobs on permits another isn't using
+        private boolean borrowingEnabled = true;
+
+        //Most permits one bulkhead holds borrowed at a time
+        private int maxBorrow = 2;
+
+        //How far out a job is rescheduled when its lane is full (milliseconds)
+        private long rejectBackoffMs = 1000;
+    }
+
+    @Data
+    public static class Drain {
+
+        //Readiness reports DRAINING this long before workers stop, so load balancers move traffic first (milliseconds)
+        private long readinessGraceMs = 5000;
+
+        //Jobs still running at shutdown-timeout-seconds are interrupted and scheduled to run again this much later (milliseconds)
+        private long interruptedRetryDelayMs = 30000;
+    }
+
+    @Data
+    public static class Virtual {
+
+        //Workers, and so jobs in progress at once; replaces count in virtual mode
+        private int maxConcurrency = 200;
+
+        //Report virtual threads pinned to their carrier for at least this long (milliseconds)
+        private long pinningThresholdMs = 20;
+    }
 }
\ No newline at end of file
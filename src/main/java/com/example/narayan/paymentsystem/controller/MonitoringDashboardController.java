@@ -42,14 +42,32 @@ public class MonitoringDashboardController {
             QueueMetricsService.QueueMetrics metrics = queueMetricsService.getQueueMetrics();
 
             overview.put("current_queue_size", metrics.currentQueueSize);
+            overview.put("delayed_queue_size", metrics.delayedQueueSize);
+            overview.put("in_flight_jobs", metrics.inFlightJobs);
+            overview.put("duplicates_suppressed", metrics.duplicatesSuppressed);
             overview.put("dead_letter_queue_size", metrics.deadLetterQueueSize);
+            if (metrics.spill != null) {
+                overview.put("spill_journal_depth", metrics.spill.journalDepth);
+                overview.put("spill_replay_lag_ms", metrics.spill.replayLagMs);
+            }
+            if (metrics.asyncEnqueue != null) {
+                overview.put("enqueue_failures", metrics.asyncEnqueue.failed + metrics.asyncEnqueue.rejected);
+            }
+            if (metrics.recentProcessingLatency != null) {
+                overview.put("p99_processing_time_ms", metrics.recentProcessingLatency.p99Ms);
+            }
             overview.put("active_workers", metrics.activeWorkers);
             overview.put("total_workers", metrics.totalWorkers);
+            overview.put("drain_state", metrics.drainState);
             overview.put("system_health", determineSystemHealth(metrics));
             overview.put("last_updated", LocalDateTime.now());
 
             dashboard.put("overview", overview);
 
+            if (metrics.merchantQueues != null) {
+                dashboard.put("merchant_queues", metrics.merchantQueues);
+            }
+
             // Performance metrics
             QueueMetricsService.ProcessingRateMetrics rates =
                     queueMetricsService.getProcessingRateMetrics();
@@ -60,6 +78,13 @@ public class MonitoringDashboardController {
             performance.put("current_throughput", rates.currentThroughput);
             performance.put("peak_throughput", rates.peakThroughput);
             performance.put("average_processing_time", metrics.averageProcessingTimeMs);
+            performance.put("processing_latency", metrics.processingLatency);
+            performance.put("recent_processing_latency", metrics.recentProcessingLatency);
+            performance.put("queue_wait_by_priority", metrics.queueWaitByPriority);
+            performance.put("admission", metrics.admission);
+            performance.put("spill_journal", metrics.spill);
+            performance.put("async_enqueue", metrics.asyncEnqueue);
+            performance.put("pipeline", metrics.pipeline);
 
             dashboard.put("performance", performance);
 
@@ -69,6 +94,10 @@ public class MonitoringDashboardController {
             workerStatus.put("active_workers", workerManager.getActiveWorkerCount());
             workerStatus.put("worker_details", workerManager.getAllWorkerStats());
             workerStatus.put("overall_stats", workerManager.getOverallStats());
+            workerStatus.put("draining_workers", workerManager.getDrainingWorkerCount());
+            workerStatus.put("lifetime", workerManager.getWorkerTotals());
+            workerStatus.put("retired_workers", workerManager.getRetiredWorkerStats());
+            workerStatus.put("autoscaler", metrics.autoscaler);
 
             dashboard.put("workers", workerStatus);
 
@@ -310,6 +339,7 @@ public class MonitoringDashboardController {
             Map<String, Object> workerHealthMap = new HashMap<>();
             workerHealthMap.put("total_workers", workerHealth.totalWorkers);
             workerHealthMap.put("active_workers", workerHealth.activeWorkers);
+            workerHealthMap.put("busy_workers", workerHealth.busyWorkers);
             workerHealthMap.put("worker_utilization", workerHealth.workerUtilization);
             workerHealthMap.put("status", workerHealth.overallHealth);
             healthStatus.put("worker_health", workerHealthMap);
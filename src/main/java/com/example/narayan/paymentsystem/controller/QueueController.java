@@ -0,0 +1,113 @@
+package com.example.narayan.paymentsystem.controller;
+
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import com.example.narayan.paymentsystem.queue.JobScanPage;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/queue")
+public class QueueController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private JobQueue jobQueue;
+
+    @GetMapping("/peek")
+    public ResponseEntity<Map<String, Object>> peek(@RequestParam(defaultValue = "10") int limit) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            response.put("error", "limit must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            List<PaymentJob> jobs = jobQueue.peek(limit);
+            response.put("jobs", jobs);
+            response.put("count", jobs.size());
+            response.put("queue_size", jobQueue.size());
+            return ResponseEntity.ok(response);
+        } catch (UnsupportedOperationException e) {
+            return notSupported(e);
+        }
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> scan(@RequestParam(defaultValue = JobScanPage.START) String cursor,
+                                                    @RequestParam(defaultValue = "100") int count) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
+            response.put("error", "count must be between 1 and " + MAX_PAGE_SIZE);
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            JobScanPage page = jobQueue.scan(cursor, count);
+            response.put("jobs", page.getJobs());
+            response.put("next_cursor", page.getCursor());
+            response.put("complete", page.isComplete());
+            return ResponseEntity.ok(response);
+        } catch (UnsupportedOperationException e) {
+            return notSupported(e);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * payment_id is optional; when given the queue can skip looking the job up first
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancel(@PathVariable String jobId,
+                                                      @RequestParam(name = "payment_id", required = false) UUID paymentId) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("job_id", jobId);
+
+        try {
+            if (!jobQueue.cancel(jobId, paymentId)) {
+                response.put("error", "Job not waiting in the queue (unknown, or already picked up by a worker)");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("status", "cancelled");
+            return ResponseEntity.ok(response);
+        } catch (UnsupportedOperationException e) {
+            return notSupported(e);
+        }
+    }
+
+    @PutMapping("/jobs/{jobId}/priority")
+    public ResponseEntity<Map<String, Object>> reprioritize(@PathVariable String jobId,
+                                                            @RequestParam PaymentJob.Priority priority) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("job_id", jobId);
+
+        try {
+            if (!jobQueue.reprioritize(jobId, priority)) {
+                response.put("error", "Job not waiting in the queue (unknown, or already picked up by a worker)");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("priority", priority);
+            return ResponseEntity.ok(response);
+        } catch (UnsupportedOperationException e) {
+            return notSupported(e);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> notSupported(UnsupportedOperationException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(response);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.narayan.paymentsystem.controller;
 
 import com.example.narayan.paymentsystem.worker.JobWorker;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
 import com.example.narayan.paymentsystem.worker.WorkerManager;
 import com.example.narayan.paymentsystem.queue.JobQueue;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +22,9 @@ public class WorkerController {
     @Autowired
     private JobQueue jobQueue;
 
+    @Autowired
+    private WorkAvailableSignal workAvailableSignal;
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getWorkerStats() {
         Map<String, Object> stats = new HashMap<>();
@@ -30,11 +34,15 @@ public class WorkerController {
         stats.put("manager_started", workerManager.isStarted());
         stats.put("total_workers", workerManager.getWorkerCount());
         stats.put("active_workers", workerManager.getActiveWorkerCount());
+        stats.put("draining_workers", workerManager.getDrainingWorkerCount());
         stats.put("queue_size", jobQueue.size());
+        stats.put("lifetime", workerManager.getWorkerTotals());
+        stats.put("work_signal", workAvailableSignal.getStats());
 
         // Individual worker stats
         List<JobWorker.WorkerStats> workerStats = workerManager.getAllWorkerStats();
         stats.put("workers", workerStats);
+        stats.put("retired_workers", workerManager.getRetiredWorkerStats());
 
         return ResponseEntity.ok(stats);
     }
@@ -83,6 +91,27 @@ public class WorkerController {
         }
     }
 
+    @PostMapping("/remove")
+    public ResponseEntity<Map<String, String>> removeWorkers(@RequestParam int count) {
+        Map<String, String> response = new HashMap<>();
+
+        if (count <= 0) {
+            response.put("error", "count must be positive");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        if (!workerManager.isStarted()) {
+            response.put("error", "WorkerManager not started");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        // Workers finish the job in hand before stopping, so this returns before they are gone
+        int removed = workerManager.removeWorkers(count);
+        response.put("message", "Draining " + removed + " workers");
+        response.put("total_workers", String.valueOf(workerManager.getWorkerCount()));
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/force-stats")
     public ResponseEntity<String> forceStatsReport() {
         workerManager.printWorkerStats();
@@ -15,6 +15,7 @@ import java.util.UUID;
 @NoArgsConstructor
 public class PaymentRequestDto {
     private UUID user_id;
+    private UUID merchant_id;
     private UUID paymentMethod_id;
 
     @Size(min = 3, max = 3)
@@ -0,0 +1,18 @@
+package com.example.narayan.paymentsystem.exception;
+
+/**
+ * Thrown when the queue is too far behind to take a new payment; maps to 429 Too Many Requests
+ */
+public class PaymentAdmissionRejected extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PaymentAdmissionRejected(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
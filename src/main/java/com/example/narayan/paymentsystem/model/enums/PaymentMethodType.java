@@ -1,5 +1,6 @@
 package com.example.narayan.paymentsystem.model.enums;
 
+// BinaryJobCodec stores the ordinal - only ever append new values
 public enum PaymentMethodType {
     CREDIT_CARD,
     DEBIT_CARD,
@@ -5,5 +5,12 @@ public enum PaymentStatus {
     PROCESSING,
     SUCCESS,
     FAILED,
-    CANCELLED
+    CANCELLED;
+
+    /**
+     * The payment has its outcome; a job for it must not charge it again
+     */
+    public boolean isFinal() {
+        return this == SUCCESS || this == FAILED || this == CANCELLED;
+    }
 }
@@ -0,0 +1,191 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.queue.spill.JobSpillover;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes enqueues off request threads. Callers get a future straight away; a few I/O
+ * threads drain whatever has piled up since their last round trip and send it as one
+ * pipelined bulk enqueue, so under load many requests share each Redis round trip.
+ *
+ * Jobs go through JobSpillover, so a Redis outage still ends up in the spill journal
+ * rather than as a failed future.
+ */
+@Component
+public class AsyncJobEnqueuer {
+
+    @AllArgsConstructor
+    private static class PendingEnqueue {
+        private final PaymentJob job;
+        private final CompletableFuture<Void> future;
+    }
+
+    @Autowired
+    private JobSpillover jobSpillover;
+
+    @Autowired(required = false)
+    private WorkAvailableSignal workAvailableSignal;
+
+    @Value("${payment.queue.async.io-threads:2}")
+    private int ioThreads = 2;
+
+    @Value("${payment.queue.async.max-batch:100}")
+    private int maxBatch = 100;
+
+    // Enqueues waiting for an I/O thread; past this, submissions fail fast
+    @Value("${payment.queue.async.capacity:10000}")
+    private int capacity = 10000;
+
+    private BlockingQueue<PendingEnqueue> pending;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running = false;
+
+    private final AtomicLong submitted = new AtomicLong(0);
+    private final AtomicLong enqueued = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong batches = new AtomicLong(0);
+    private volatile String lastError;
+
+    @PostConstruct
+    public void start() {
+        pending = new LinkedBlockingQueue<>(capacity);
+        running = true;
+        for (int i = 0; i < ioThreads; i++) {
+            Thread t = new Thread(this::ioLoop, "enqueue-io-" + i);
+            t.setDaemon(true);
+            threads.add(t);
+            t.start();
+        }
+        System.out.println("📮 Async enqueuer started (io threads=" + ioThreads + ", max batch=" + maxBatch + ")");
+    }
+
+    /**
+     * Stop taking new jobs, let the I/O threads finish the batch they are sending (they
+     * see running=false within one poll), then send what is still waiting. The threads
+     * aren't interrupted: that would break a send off mid-write.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread t : threads) {
+            try {
+                t.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Queue a job for enqueueing; completes once the job is in the queue (or the spill journal)
+     */
+    public CompletableFuture<Void> submit(PaymentJob job) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!running || !pending.offer(new PendingEnqueue(job, future))) {
+            rejected.incrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException(
+                    running ? "Async enqueue backlog full (" + capacity + ")" : "Async enqueuer is stopped"));
+            return future;
+        }
+        submitted.incrementAndGet();
+        return future;
+    }
+
+    private void ioLoop() {
+        List<PendingEnqueue> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                PendingEnqueue first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Everything that arrived during the last round trip rides along
+                pending.drainTo(batch, maxBatch - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush() {
+        List<PendingEnqueue> batch = new ArrayList<>(maxBatch);
+        while (pending.drainTo(batch, maxBatch) > 0) {
+            send(batch);
+            batch.clear();
+        }
+    }
+
+    private void send(List<PendingEnqueue> batch) {
+        List<PaymentJob> jobs = new ArrayList<>(batch.size());
+        for (PendingEnqueue entry : batch) {
+            jobs.add(entry.job);
+        }
+
+        try {
+            boolean queued = jobSpillover.enqueueAll(jobs);
+            batches.incrementAndGet();
+            enqueued.addAndGet(jobs.size());
+            for (PendingEnqueue entry : batch) {
+                entry.future.complete(null);
+            }
+            // One wakeup per batch; a woken worker that finds work wakes the next.
+            // Journaled jobs get theirs when they are replayed.
+            if (queued && workAvailableSignal != null) {
+                workAvailableSignal.publish();
+            }
+        } catch (Exception e) {
+            failed.addAndGet(jobs.size());
+            lastError = e.getMessage();
+            System.err.println("❌ Async enqueue of " + jobs.size() + " jobs failed: " + e.getMessage());
+            for (PendingEnqueue entry : batch) {
+                entry.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    public EnqueueStats getStats() {
+        long sentBatches = batches.get();
+        return new EnqueueStats(submitted.get(), enqueued.get(), failed.get(), rejected.get(),
+                pending != null ? pending.size() : 0, sentBatches,
+                sentBatches > 0 ? (double) enqueued.get() / sentBatches : 0, lastError);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class EnqueueStats {
+        public long submitted;
+        public long enqueued;
+        public long failed;
+        // Turned away because the backlog was full or the enqueuer was stopping
+        public long rejected;
+        public int waiting;
+        public long batches;
+        public double avgBatchSize;
+        public String lastError;
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.narayan.paymentsystem.queue;
 
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
 import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.util.SafeEncoder;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +18,7 @@ import java.util.Map;
 public class DeadLetterQueue {
 
     private static final String DEAD_LETTER_QUEUE_KEY = "job_queue:dead_letter";
+    private static final byte[] DEAD_LETTER_QUEUE_KEY_BYTES = SafeEncoder.encode(DEAD_LETTER_QUEUE_KEY);
     private static final String DEAD_LETTER_METADATA_KEY = "job_queue:dead_letter:metadata";
 
     @Autowired
@@ -23,16 +27,16 @@ public class DeadLetterQueue {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JobCodec jobCodec;
+
     /**
      * Add a job to the dead letter queue
      */
     public void addToDeadLetterQueue(PaymentJob job, String reason) {
         try (var jedis = jedisPool.getResource()) {
-            // Serialize the job
-            String jobJson = objectMapper.writeValueAsString(job);
-
-            // Add to dead letter queue
-            jedis.lpush(DEAD_LETTER_QUEUE_KEY, jobJson);
+            // Add to dead letter queue in the configured queue payload format
+            jedis.lpush(DEAD_LETTER_QUEUE_KEY_BYTES, jobCodec.encode(job));
 
             // Store metadata about why it failed
             Map<String, String> metadata = new HashMap<>();
@@ -54,11 +58,16 @@ public class DeadLetterQueue {
     }
 
     /**
-     * Get all jobs in the dead letter queue
+     * Get all jobs in the dead letter queue, rendered as JSON whatever the stored format
      */
     public List<String> getDeadLetterJobs() {
         try (var jedis = jedisPool.getResource()) {
-            return jedis.lrange(DEAD_LETTER_QUEUE_KEY, 0, -1);
+            List<byte[]> payloads = jedis.lrange(DEAD_LETTER_QUEUE_KEY_BYTES, 0, -1);
+            List<String> jobs = new ArrayList<>(payloads.size());
+            for (byte[] payload : payloads) {
+                jobs.add(objectMapper.writeValueAsString(jobCodec.decode(payload)));
+            }
+            return jobs;
         } catch (Exception e) {
             System.err.println("Failed to retrieve dead letter jobs: " + e.getMessage());
             return List.of();
@@ -0,0 +1,102 @@
+package com.example.narayan.paymentsystem.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Deficit round-robin over a ring of active flows (merchants). Each time a flow reaches
+ * the head of the ring its deficit grows by quantum * weight; it is served while the
+ * deficit lasts, then goes to the back. A flow that turns out empty leaves the ring and
+ * forfeits its deficit, so idle flows cost nothing until they are activated again.
+ *
+ * Every job costs 1. Several workers share one instance: grant() takes the allowance
+ * out of the deficit up front, so concurrent callers move on to the next flow instead
+ * of all serving the head, and settle() drops a flow that came up short.
+ */
+public class DeficitRoundRobin {
+
+    /**
+     * Permission to take up to allowance jobs from a flow
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Grant {
+        private String flow;
+        private int allowance;
+    }
+
+    private final int quantum;
+    private final ToIntFunction<String> weights;
+
+    private final ArrayDeque<String> ring = new ArrayDeque<>();
+    private final Map<String, Long> deficits = new HashMap<>();
+
+    public DeficitRoundRobin(int quantum, ToIntFunction<String> weights) {
+        if (quantum < 1) {
+            throw new IllegalArgumentException("quantum must be at least 1");
+        }
+        this.quantum = quantum;
+        this.weights = weights;
+    }
+
+    /**
+     * Put a flow on the ring if it isn't already there
+     */
+    public synchronized void activate(String flow) {
+        if (!deficits.containsKey(flow)) {
+            deficits.put(flow, 0L);
+            ring.addLast(flow);
+        }
+    }
+
+    /**
+     * The flow whose turn it is and how many jobs (at most max) it may hand out now,
+     * or null when no flow is active
+     */
+    public synchronized Grant grant(int max) {
+        String flow = ring.peekFirst();
+        if (flow == null) {
+            return null;
+        }
+
+        long deficit = deficits.get(flow);
+        if (deficit < 1) {
+            deficit += (long) quantum * Math.max(weights.applyAsInt(flow), 1);
+        }
+        int allowance = (int) Math.min(deficit, Math.max(max, 1));
+        deficit -= allowance;
+        deficits.put(flow, deficit);
+
+        if (deficit < 1) {
+            // Turn used up - the next caller starts on the following flow
+            ring.addLast(ring.pollFirst());
+        }
+        return new Grant(flow, allowance);
+    }
+
+    /**
+     * Report what was actually taken under a grant. Taking less than the allowance means
+     * the flow ran dry, so it leaves the ring.
+     */
+    public synchronized void settle(Grant grant, int taken) {
+        if (taken >= grant.getAllowance()) {
+            return;
+        }
+        if (deficits.remove(grant.getFlow()) != null) {
+            ring.remove(grant.getFlow());
+        }
+    }
+
+    public synchronized int activeCount() {
+        return ring.size();
+    }
+
+    public synchronized boolean isActive(String flow) {
+        return deficits.containsKey(flow);
+    }
+}
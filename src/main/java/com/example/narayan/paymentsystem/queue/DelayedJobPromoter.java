@@ -0,0 +1,121 @@
+package com.example.narayan.paymentsystem.queue;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread that moves due jobs from the delayed set into the ready queue.
+ *
+ * After each pass it parks until the earliest remaining due time (capped at maxIdleMs,
+ * so jobs scheduled by other nodes are still picked up), and is unparked early when a
+ * job with an earlier due time is scheduled locally.
+ */
+public class DelayedJobPromoter {
+
+    /**
+     * Outcome of one promotion pass
+     */
+    @Data
+    @AllArgsConstructor
+    public static class PromotionResult {
+        // Number of jobs moved into the ready queue
+        private int promoted;
+        // Due time of the earliest job still delayed, or -1 if none
+        private long nextDueMillis;
+    }
+
+    /**
+     * The queue operation the promoter drives
+     */
+    @FunctionalInterface
+    public interface Promotion {
+        PromotionResult promoteDueJobs(long nowMillis, int batchSize);
+    }
+
+    private final Promotion promotion;
+    private final int batchSize;
+    private final long maxIdleMs;
+    private final long errorBackoffMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Thread thread;
+    private volatile long wakeAtMillis = Long.MAX_VALUE;
+
+    public DelayedJobPromoter(Promotion promotion, int batchSize, long maxIdleMs, long errorBackoffMs) {
+        this.promotion = promotion;
+        this.batchSize = batchSize;
+        this.maxIdleMs = maxIdleMs;
+        this.errorBackoffMs = errorBackoffMs;
+    }
+
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            Thread t = new Thread(this::run);
+            t.setDaemon(true);
+            t.setName("delayed-job-promoter");
+            thread = t;
+            t.start();
+        }
+    }
+
+    public void stop() {
+        if (running.compareAndSet(true, false)) {
+            Thread t = thread;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+    }
+
+    /**
+     * Called when a job is scheduled on this node; wakes the promoter if it would
+     * otherwise sleep past the new due time.
+     */
+    public void onScheduled(long dueMillis) {
+        Thread t = thread;
+        if (t != null && dueMillis < wakeAtMillis) {
+            wakeAtMillis = dueMillis;
+            LockSupport.unpark(t);
+        }
+    }
+
+    private void run() {
+        System.out.println("⏰ DelayedJobPromoter started (batch=" + batchSize + ", max idle=" + maxIdleMs + "ms)");
+
+        while (running.get()) {
+            long now = System.currentTimeMillis();
+            try {
+                PromotionResult result = promotion.promoteDueJobs(now, batchSize);
+
+                if (result.getPromoted() >= batchSize) {
+                    // Backlog of due jobs - keep draining without sleeping
+                    continue;
+                }
+
+                long wakeAt = now + maxIdleMs;
+                if (result.getNextDueMillis() >= 0) {
+                    wakeAt = Math.min(wakeAt, result.getNextDueMillis());
+                }
+                parkUntil(wakeAt);
+
+            } catch (Exception e) {
+                System.err.println("⚠️ DelayedJobPromoter failed to promote jobs: " + e.getMessage());
+                parkUntil(System.currentTimeMillis() + errorBackoffMs);
+            }
+        }
+
+        System.out.println("🛑 DelayedJobPromoter stopped");
+    }
+
+    private void parkUntil(long wakeAt) {
+        wakeAtMillis = wakeAt;
+        // parkUntil can return spuriously; the loop just does another (cheap) pass
+        if (running.get() && wakeAt > System.currentTimeMillis()) {
+            LockSupport.parkUntil(wakeAt);
+        }
+        wakeAtMillis = Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,613 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.config.FairQueueConfig;
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * JobQueue that shares workers fairly between merchants, so one merchant's bulk batch
+ * can't hold up everyone else's checkouts. Each merchant gets its own
+ * RedisPriorityJobQueue sub-queue (priority order still holds within a merchant), and
+ * workers take from the merchants in deficit round-robin, weighted per merchant.
+ *
+ * A Redis set lists the merchants that have jobs queued. Enqueues add to it; a merchant
+ * leaves it once its ready, delayed and in-flight sets are all empty. Each node re-reads
+ * it every payment.queue.fair.active-refresh-ms, so idle merchants never get a turn.
+ *
+ * Keys, all under one hash tag so the scripts can touch a sub-queue and the set together:
+ *   keyPrefix:merchants         SET   merchants with queued jobs
+ *   keyPrefix:m:<merchantId>    the merchant's RedisPriorityJobQueue keys
+ */
+@Component
+@ConditionalOnProperty(name = "payment.queue.type", havingValue = "fair")
+public class FairQueuingJobQueue implements JobQueue {
+
+    public static final String DEFAULT_KEY_PREFIX = RedisPriorityJobQueue.DEFAULT_QUEUE_KEY + ":{fair}";
+
+    // Sub-queue for jobs that carry no merchant
+    public static final String NO_MERCHANT = "none";
+
+    // Drops merchant ARGV[1] from the KEYS[4] set if its ready (KEYS[1]), delayed (KEYS[2])
+    // and in-flight (KEYS[3]) sets are all empty. Returns 1 if it was dropped.
+    private static final LuaScript RETIRE_SCRIPT = new LuaScript("""
+            if redis.call('ZCARD', KEYS[1]) + redis.call('ZCARD', KEYS[2]) + redis.call('ZCARD', KEYS[3]) > 0 then
+                return 0
+            end
+            return redis.call('SREM', KEYS[4], ARGV[1])
+            """);
+
+    private final JedisPool jedisPool;
+    private final JobCodec jobCodec;
+    private final String redisHost;
+    private final int redisPort;
+    private final String keyPrefix;
+    private final String activeKey;
+    private final FairQueueConfig config;
+
+    private final DeficitRoundRobin scheduler;
+    private final Map<String, RedisPriorityJobQueue> merchantQueues = new ConcurrentHashMap<>();
+
+    // Last read of the active-merchant set
+    private volatile Set<String> activeMerchants = Set.of();
+    private final AtomicLong lastRefreshMillis = new AtomicLong(0);
+
+    // Jobs handed to workers on this node, per merchant
+    private final Map<String, LongAdder> served = new ConcurrentHashMap<>();
+
+    // Notified on local enqueues so blocked dequeues don't wait out a refresh
+    private final Object arrivals = new Object();
+
+    // Gives sub-queues the same payment.queue.* settings; null outside Spring
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Value("${payment.queue.delayed.promoter-enabled:true}")
+    private boolean promoterEnabled = true;
+
+    @Value("${payment.queue.delayed.promote-batch-size:500}")
+    private int promoteBatchSize = 500;
+
+    @Value("${payment.queue.delayed.max-idle-ms:1000}")
+    private long promoterMaxIdleMs = 1000;
+
+    @Value("${payment.queue.reliable.enabled:false}")
+    private boolean reliable = false;
+
+    @Value("${payment.queue.reliable.lease-ms:30000}")
+    private long leaseMs = 30000;
+
+    @Value("${payment.queue.reliable.reaper-interval-ms:5000}")
+    private long reaperIntervalMs = 5000;
+
+    private DelayedJobPromoter promoter;
+    private ScheduledExecutorService leaseKeeper;
+
+    @Autowired
+    public FairQueuingJobQueue(JedisPool jedisPool, JobCodec jobCodec,
+                               @Value("${spring.data.redis.host:redis}") String redisHost,
+                               @Value("${spring.data.redis.port:6379}") int redisPort,
+                               FairQueueConfig config,
+                               AutowireCapableBeanFactory beanFactory) {
+        this(jedisPool, jobCodec, redisHost, redisPort, DEFAULT_KEY_PREFIX, config);
+        this.beanFactory = beanFactory;
+    }
+
+    public FairQueuingJobQueue(JedisPool jedisPool, JobCodec jobCodec,
+                               String redisHost, int redisPort, String keyPrefix, FairQueueConfig config) {
+        this.jedisPool = jedisPool;
+        this.jobCodec = jobCodec;
+        this.redisHost = redisHost;
+        this.redisPort = redisPort;
+        this.keyPrefix = keyPrefix;
+        this.activeKey = keyPrefix + ":merchants";
+        this.config = config;
+        this.scheduler = new DeficitRoundRobin(config.getQuantum(), config::weightOf);
+    }
+
+    /**
+     * One promoter and one lease keeper for all merchants, rather than a pair of
+     * threads per sub-queue
+     */
+    @PostConstruct
+    public void startBackgroundTasks() {
+        System.out.println("⚖️ Fair job queue (quantum=" + config.getQuantum() +
+                ", weighted merchants=" + config.getWeights().size() + ")");
+        if (promoterEnabled) {
+            promoter = new DelayedJobPromoter(this::promoteDueJobs, promoteBatchSize, promoterMaxIdleMs, 2000);
+            promoter.start();
+        }
+        if (reliable) {
+            leaseKeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "lease-keeper[" + keyPrefix + "]");
+                t.setDaemon(true);
+                return t;
+            });
+            long heartbeatMs = Math.max(leaseMs / 3, 100);
+            leaseKeeper.scheduleWithFixedDelay(this::extendLeases, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+            leaseKeeper.scheduleWithFixedDelay(this::reapExpiredLeases,
+                    reaperIntervalMs, reaperIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (promoter != null) {
+            promoter.stop();
+        }
+        if (leaseKeeper != null) {
+            leaseKeeper.shutdownNow();
+        }
+    }
+
+    @Override
+    public void enqueue(PaymentJob job) {
+        String merchant = merchantOf(job);
+        merchantQueue(merchant).enqueue(job);
+        activate(List.of(merchant));
+    }
+
+    /**
+     * One bulk enqueue per merchant, then a single SADD for all of them
+     */
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        Map<String, List<PaymentJob>> byMerchant = groupByMerchant(jobs);
+        for (Map.Entry<String, List<PaymentJob>> entry : byMerchant.entrySet()) {
+            merchantQueue(entry.getKey()).enqueueAll(entry.getValue());
+        }
+        activate(byMerchant.keySet());
+    }
+
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs, ToLongFunction<PaymentJob> readyAtMillis) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+        Map<String, List<PaymentJob>> byMerchant = groupByMerchant(jobs);
+        for (Map.Entry<String, List<PaymentJob>> entry : byMerchant.entrySet()) {
+            merchantQueue(entry.getKey()).enqueueAll(entry.getValue(), readyAtMillis);
+        }
+        activate(byMerchant.keySet());
+    }
+
+    @Override
+    public void schedule(PaymentJob job, Instant dueAt) {
+        String merchant = merchantOf(job);
+        merchantQueue(merchant).schedule(job, dueAt);
+        activate(List.of(merchant));
+        if (promoter != null) {
+            promoter.onScheduled(dueAt.toEpochMilli());
+        }
+    }
+
+    @Override
+    public PaymentJob dequeue() throws InterruptedException {
+        List<PaymentJob> jobs = dequeueBatch(1);
+        return jobs.isEmpty() ? null : jobs.getFirst();
+    }
+
+    /**
+     * Takes jobs merchant by merchant as the round-robin grants them. A merchant that
+     * comes up short has run dry: it leaves the ring, and the active set too if it has
+     * nothing delayed or in flight either.
+     */
+    @Override
+    public List<PaymentJob> dequeueBatch(int max) {
+        refreshActiveMerchants();
+
+        List<PaymentJob> jobs = new ArrayList<>();
+        // Each turn either fills the batch, uses up a merchant's deficit or drops a dry merchant
+        int turns = scheduler.activeCount() + 1;
+        while (jobs.size() < max && turns-- > 0) {
+            DeficitRoundRobin.Grant grant = scheduler.grant(max - jobs.size());
+            if (grant == null) {
+                break;
+            }
+            List<PaymentJob> taken = merchantQueue(grant.getFlow()).dequeueBatch(grant.getAllowance());
+            scheduler.settle(grant, taken.size());
+            if (taken.size() < grant.getAllowance()) {
+                retire(grant.getFlow());
+            }
+            if (!taken.isEmpty()) {
+                served.computeIfAbsent(grant.getFlow(), merchant -> new LongAdder()).add(taken.size());
+                jobs.addAll(taken);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * No single key to block on, so this polls: woken early by enqueues on this node,
+     * and otherwise every active-refresh interval to catch enqueues on other nodes
+     */
+    @Override
+    public PaymentJob dequeue(Duration maxWait) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + maxWait.toMillis();
+        while (true) {
+            PaymentJob job = dequeue();
+            if (job != null) {
+                return job;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            synchronized (arrivals) {
+                arrivals.wait(Math.max(Math.min(remaining, config.getActiveRefreshMs()), 1));
+            }
+        }
+    }
+
+    @Override
+    public void ack(PaymentJob job) {
+        merchantQueue(merchantOf(job)).ack(job);
+    }
+
+    @Override
+    public void ackAll(Collection<PaymentJob> jobs) {
+        for (Map.Entry<String, List<PaymentJob>> entry : groupByMerchant(jobs).entrySet()) {
+            merchantQueue(entry.getKey()).ackAll(entry.getValue());
+        }
+    }
+
+    @Override
+    public void abandon(Collection<PaymentJob> jobs) {
+        for (Map.Entry<String, List<PaymentJob>> entry : groupByMerchant(jobs).entrySet()) {
+            merchantQueue(entry.getKey()).abandon(entry.getValue());
+        }
+    }
+
+    @Override
+    public void requeue(Collection<PaymentJob> jobs) {
+        Map<String, List<PaymentJob>> byMerchant = groupByMerchant(jobs);
+        for (Map.Entry<String, List<PaymentJob>> entry : byMerchant.entrySet()) {
+            merchantQueue(entry.getKey()).requeue(entry.getValue());
+        }
+        activate(byMerchant.keySet());
+    }
+
+    /**
+     * A jobId doesn't say which merchant it belongs to, so ask each in turn
+     */
+    @Override
+    public boolean cancel(String jobId) {
+        for (String merchant : knownMerchants()) {
+            if (merchantQueue(merchant).cancel(jobId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean cancel(String jobId, UUID paymentId) {
+        for (String merchant : knownMerchants()) {
+            if (merchantQueue(merchant).cancel(jobId, paymentId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean reprioritize(String jobId, PaymentJob.Priority priority) {
+        for (String merchant : knownMerchants()) {
+            if (merchantQueue(merchant).reprioritize(jobId, priority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The first n of each merchant, merged by priority and age. Workers take merchants
+     * in round-robin order, so this is only roughly the order they'd get jobs in.
+     */
+    @Override
+    public List<PaymentJob> peek(int n) {
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (String merchant : knownMerchants()) {
+            jobs.addAll(merchantQueue(merchant).peek(n));
+        }
+        jobs.sort(Comparator.comparingInt((PaymentJob job) -> job.getPriority() != null
+                        ? job.getPriority().getRank() : PaymentJob.Priority.NORMAL.getRank())
+                .thenComparing(PaymentJob::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return jobs.size() > n ? new ArrayList<>(jobs.subList(0, n)) : jobs;
+    }
+
+    /**
+     * Scans merchant after merchant in id order; the cursor is "<merchant>:<merchant cursor>"
+     */
+    @Override
+    public JobScanPage scan(String cursor, int count) {
+        TreeSet<String> merchants = new TreeSet<>(knownMerchants());
+        if (merchants.isEmpty()) {
+            return new JobScanPage(JobScanPage.START, List.of());
+        }
+
+        String merchant = merchants.first();
+        String merchantCursor = JobScanPage.START;
+        if (cursor != null && cursor.contains(":")) {
+            merchant = cursor.substring(0, cursor.lastIndexOf(':'));
+            merchantCursor = cursor.substring(cursor.lastIndexOf(':') + 1);
+        } else if (cursor != null && !JobScanPage.START.equals(cursor)) {
+            throw new IllegalArgumentException("Invalid scan cursor: " + cursor);
+        }
+
+        JobScanPage page = merchantQueue(merchant).scan(merchantCursor, count);
+        if (!page.isComplete()) {
+            return new JobScanPage(merchant + ":" + page.getCursor(), page.getJobs());
+        }
+        String next = merchants.higher(merchant);
+        return new JobScanPage(next != null ? next + ":" + JobScanPage.START : JobScanPage.START, page.getJobs());
+    }
+
+    @Override
+    public int size() {
+        return countAcrossMerchants(RedisPriorityJobQueue::getQueueKey);
+    }
+
+    @Override
+    public int delayedSize() {
+        return countAcrossMerchants(RedisPriorityJobQueue::getDelayedKey);
+    }
+
+    @Override
+    public int inFlightSize() {
+        return reliable ? countAcrossMerchants(RedisPriorityJobQueue::getInflightKey) : 0;
+    }
+
+    @Override
+    public long duplicatesSuppressed() {
+        long total = 0;
+        for (String merchant : knownMerchants()) {
+            total += merchantQueue(merchant).duplicatesSuppressed();
+        }
+        return total;
+    }
+
+    /**
+     * Depth and head-of-line wait of the deepest merchants, up to payment.queue.fair.stats-limit
+     */
+    public List<MerchantQueueStats> getMerchantStats() {
+        List<String> merchants = new ArrayList<>(knownMerchants());
+        List<MerchantQueueStats> stats = new ArrayList<>();
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> counts = new ArrayList<>(merchants.size() * 3);
+            for (String merchant : merchants) {
+                RedisPriorityJobQueue queue = merchantQueue(merchant);
+                counts.add(pipeline.zcard(queue.getQueueKey()));
+                counts.add(pipeline.zcard(queue.getDelayedKey()));
+                counts.add(pipeline.zcard(queue.getInflightKey()));
+            }
+            pipeline.sync();
+
+            for (int i = 0; i < merchants.size(); i++) {
+                long ready = counts.get(i * 3).get();
+                long delayed = counts.get(i * 3 + 1).get();
+                long inFlight = counts.get(i * 3 + 2).get();
+                if (ready + delayed + inFlight > 0) {
+                    String merchant = merchants.get(i);
+                    LongAdder servedHere = served.get(merchant);
+                    stats.add(new MerchantQueueStats(merchant, config.weightOf(merchant), ready, delayed, inFlight,
+                            0, servedHere != null ? servedHere.sum() : 0));
+                }
+            }
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get per-merchant queue stats: " + e.getMessage());
+            return List.of();
+        }
+
+        stats.sort(Comparator.comparingLong(MerchantQueueStats::getReady).reversed());
+        if (stats.size() > config.getStatsLimit()) {
+            stats = new ArrayList<>(stats.subList(0, config.getStatsLimit()));
+        }
+        for (MerchantQueueStats merchant : stats) {
+            merchant.setHeadWaitMs(merchantQueue(merchant.getMerchantId()).headWaitMs());
+        }
+        return stats;
+    }
+
+    /**
+     * Merchants the local round-robin is currently cycling through
+     */
+    public int getActiveMerchantCount() {
+        return scheduler.activeCount();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class MerchantQueueStats {
+        private String merchantId;
+        private int weight;
+        private long ready;
+        private long delayed;
+        private long inFlight;
+        // How long the merchant's next job has been waiting
+        private long headWaitMs;
+        // Jobs handed to workers on this node
+        private long servedHere;
+    }
+
+    /**
+     * Move due jobs into their merchants' ready queues
+     */
+    public DelayedJobPromoter.PromotionResult promoteDueJobs(long nowMillis, int batchSize) {
+        refreshActiveMerchants();
+        int promoted = 0;
+        long nextDue = -1;
+        for (String merchant : activeMerchants) {
+            DelayedJobPromoter.PromotionResult result = merchantQueue(merchant).promoteDueJobs(nowMillis, batchSize);
+            if (result.getPromoted() > 0) {
+                promoted += result.getPromoted();
+                scheduler.activate(merchant);
+            }
+            if (result.getNextDueMillis() >= 0 && (nextDue < 0 || result.getNextDueMillis() < nextDue)) {
+                nextDue = result.getNextDueMillis();
+            }
+        }
+        return new DelayedJobPromoter.PromotionResult(promoted, nextDue);
+    }
+
+    private void extendLeases() {
+        for (RedisPriorityJobQueue queue : merchantQueues.values()) {
+            queue.extendLeases();
+        }
+    }
+
+    private void reapExpiredLeases() {
+        long now = System.currentTimeMillis();
+        for (String merchant : activeMerchants) {
+            if (merchantQueue(merchant).reapExpiredLeases(now, promoteBatchSize) > 0) {
+                scheduler.activate(merchant);
+            }
+        }
+    }
+
+    /**
+     * Re-read the active-merchant set, at most once per refresh interval across all threads
+     */
+    private void refreshActiveMerchants() {
+        long now = System.currentTimeMillis();
+        long last = lastRefreshMillis.get();
+        if (now - last < config.getActiveRefreshMs() || !lastRefreshMillis.compareAndSet(last, now)) {
+            return;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Set<String> merchants = jedis.smembers(activeKey);
+            activeMerchants = merchants;
+            for (String merchant : merchants) {
+                scheduler.activate(merchant);
+            }
+        }
+        catch (Exception e) {
+            System.err.println("⚠️ Failed to refresh active merchants: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mark merchants as having work, in Redis for other nodes and locally for this one
+     */
+    private void activate(Collection<String> merchants) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.sadd(activeKey, merchants.toArray(new String[0]));
+        }
+        catch (Exception e) {
+            // The jobs are queued; this node still serves them, other nodes just won't see them yet
+            System.err.println("⚠️ Failed to mark merchants active: " + e.getMessage());
+        }
+        for (String merchant : merchants) {
+            scheduler.activate(merchant);
+        }
+        synchronized (arrivals) {
+            arrivals.notifyAll();
+        }
+    }
+
+    private void retire(String merchant) {
+        RedisPriorityJobQueue queue = merchantQueue(merchant);
+        try (Jedis jedis = jedisPool.getResource()) {
+            RETIRE_SCRIPT.eval(jedis,
+                    List.of(queue.getQueueKey(), queue.getDelayedKey(), queue.getInflightKey(), activeKey),
+                    List.of(merchant));
+        }
+        catch (Exception e) {
+            // Harmless - the merchant just gets one more empty turn after the next refresh
+            System.err.println("⚠️ Failed to retire merchant " + merchant + ": " + e.getMessage());
+        }
+    }
+
+    private Set<String> knownMerchants() {
+        refreshActiveMerchants();
+        Set<String> merchants = new HashSet<>(activeMerchants);
+        merchants.addAll(merchantQueues.keySet());
+        return merchants;
+    }
+
+    /**
+     * ZCARD of one key per merchant, all in a single pipeline
+     */
+    private int countAcrossMerchants(Function<RedisPriorityJobQueue, String> key) {
+        Set<String> merchants = knownMerchants();
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> counts = new ArrayList<>(merchants.size());
+            for (String merchant : merchants) {
+                counts.add(pipeline.zcard(key.apply(merchantQueue(merchant))));
+            }
+            pipeline.sync();
+
+            long total = 0;
+            for (Response<Long> count : counts) {
+                total += count.get();
+            }
+            return (int) total;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get fair queue size: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private RedisPriorityJobQueue merchantQueue(String merchant) {
+        return merchantQueues.computeIfAbsent(merchant, m -> {
+            RedisPriorityJobQueue queue = new RedisPriorityJobQueue(jedisPool, jobCodec, redisHost, redisPort,
+                    keyPrefix + ":m:" + m);
+            if (beanFactory != null) {
+                beanFactory.autowireBean(queue);
+            }
+            return queue;
+        });
+    }
+
+    private static String merchantOf(PaymentJob job) {
+        return job.getMerchantId() != null ? job.getMerchantId().toString() : NO_MERCHANT;
+    }
+
+    private static Map<String, List<PaymentJob>> groupByMerchant(Collection<PaymentJob> jobs) {
+        Map<String, List<PaymentJob>> byMerchant = new LinkedHashMap<>();
+        for (PaymentJob job : jobs) {
+            byMerchant.computeIfAbsent(merchantOf(job), merchant -> new ArrayList<>()).add(job);
+        }
+        return byMerchant;
+    }
+}
@@ -0,0 +1,413 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * In-process JobQueue for single-node deployments and load-test rigs, where producers
+ * and workers share a JVM and a Redis round trip per job is pure overhead.
+ *
+ * Ready jobs sit in a ConcurrentSkipListMap keyed by (priority rank, sequence), so the
+ * fast path is a lock-free insert / pollFirstEntry plus a CAS on the size counter.
+ * Blocked consumers (empty queue) and producers (full queue) park and are unparked by
+ * the other side. Jobs are held by reference and lost if the JVM dies.
+ *
+ * A jobId -> key index over both maps lets cancel and reprioritize find a waiting job
+ * without walking the queue; removing by key decides any race with a worker taking it.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.queue.type", havingValue = "memory")
+public class InMemoryPriorityJobQueue implements JobQueue {
+
+    // Sequence takes the low 56 bits of the key, priority rank the high byte
+    private static final int RANK_SHIFT = 56;
+    private static final long SEQUENCE_MASK = (1L << RANK_SHIFT) - 1;
+
+    // Scan cursors: position in the ready map, then in the delayed map
+    private static final String READY_CURSOR = "r";
+    private static final String DELAYED_CURSOR = "d";
+
+    @AllArgsConstructor
+    private static class QueuedJob {
+        private final PaymentJob job;
+        private final long readyAtMillis;
+    }
+
+    private final int capacity;
+    private final long offerTimeoutMs;
+
+    private final ConcurrentSkipListMap<Long, QueuedJob> ready = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger readyCount = new AtomicInteger();
+
+    // Delayed jobs keyed by (due millis, sequence)
+    private final ConcurrentSkipListMap<DueKey, PaymentJob> delayed = new ConcurrentSkipListMap<>();
+    private final AtomicInteger delayedCount = new AtomicInteger();
+
+    // Where each waiting job sits: its Long key in ready or its DueKey in delayed
+    private final ConcurrentHashMap<String, Object> index = new ConcurrentHashMap<>();
+
+    private final ConcurrentLinkedQueue<Thread> waitingConsumers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+
+    @Value("${payment.queue.delayed.max-idle-ms:1000}")
+    private long promoterMaxIdleMs = 1000;
+
+    @Autowired
+    private QueueWaitStats queueWaitStats = new QueueWaitStats();
+
+    private DelayedJobPromoter promoter;
+
+    // Wakes a parked sleep-polling worker when promoted retries become ready
+    @Autowired(required = false)
+    private WorkAvailableSignal workAvailableSignal;
+
+    @Autowired
+    public InMemoryPriorityJobQueue(@Value("${payment.queue.memory.capacity:10000}") int capacity,
+                                    @Value("${payment.queue.memory.offer-timeout-ms:5000}") long offerTimeoutMs) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("payment.queue.memory.capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    @PostConstruct
+    public void startBackgroundTasks() {
+        promoter = new DelayedJobPromoter(this::promoteDueJobs, 500, promoterMaxIdleMs, 1000);
+        promoter.start();
+        System.out.println("🧠 In-memory job queue (capacity=" + capacity + ")");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (promoter != null) {
+            promoter.stop();
+        }
+    }
+
+    /**
+     * Blocks while the queue is full, up to offerTimeoutMs, then fails like a Redis
+     * enqueue with Redis down would
+     */
+    @Override
+    public void enqueue(PaymentJob job) {
+        long deadline = System.nanoTime() + Duration.ofMillis(offerTimeoutMs).toNanos();
+        while (!reserveSlot()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                System.err.println("❌ In-memory queue full (" + capacity + " jobs), rejecting job " + job.getJobId());
+                throw new RuntimeException("Failed to enqueue job - queue full");
+            }
+            awaitSignal(waitingProducers, this::hasFreeSlot, remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("Interrupted while waiting for queue space");
+            }
+        }
+        insert(job, System.currentTimeMillis());
+    }
+
+    @Override
+    public void schedule(PaymentJob job, Instant dueAt) {
+        long dueMillis = dueAt.toEpochMilli();
+        if (dueMillis <= System.currentTimeMillis()) {
+            // Retries don't wait for space - they were already admitted once
+            readyCount.incrementAndGet();
+            insert(job, dueMillis);
+            return;
+        }
+
+        DueKey key = new DueKey(dueMillis, sequence.getAndIncrement());
+        index.put(job.getJobId(), key);
+        delayed.put(key, job);
+        delayedCount.incrementAndGet();
+        if (promoter != null) {
+            promoter.onScheduled(dueMillis);
+        }
+    }
+
+    public DelayedJobPromoter.PromotionResult promoteDueJobs(long nowMillis, int batchSize) {
+        int promoted = 0;
+        Map.Entry<DueKey, PaymentJob> due;
+        while (promoted < batchSize && (due = pollDue(nowMillis)) != null) {
+            delayedCount.decrementAndGet();
+            readyCount.incrementAndGet();
+            insert(due.getValue(), due.getKey().dueMillis);
+            promoted++;
+        }
+        if (promoted > 0 && workAvailableSignal != null) {
+            // The jobs are only on this node, so only its workers need waking
+            workAvailableSignal.wakeOne();
+        }
+
+        Map.Entry<DueKey, PaymentJob> next = delayed.firstEntry();
+        return new DelayedJobPromoter.PromotionResult(promoted, next != null ? next.getKey().dueMillis : -1);
+    }
+
+    private Map.Entry<DueKey, PaymentJob> pollDue(long nowMillis) {
+        Map.Entry<DueKey, PaymentJob> first = delayed.firstEntry();
+        if (first == null || first.getKey().dueMillis > nowMillis) {
+            return null;
+        }
+        // Another thread may have taken it; only a successful remove counts
+        return delayed.remove(first.getKey(), first.getValue()) ? first : pollDue(nowMillis);
+    }
+
+    @Override
+    public PaymentJob dequeue() {
+        Map.Entry<Long, QueuedJob> entry = ready.pollFirstEntry();
+        if (entry == null) {
+            return null;
+        }
+        readyCount.decrementAndGet();
+        signal(waitingProducers);
+
+        QueuedJob queued = entry.getValue();
+        index.remove(queued.job.getJobId(), entry.getKey());
+        queueWaitStats.record(queued.job.getPriority(), System.currentTimeMillis() - queued.readyAtMillis);
+        return queued.job;
+    }
+
+    /**
+     * Parks until a job arrives or maxWait elapses - no sleeping, no polling
+     */
+    @Override
+    public PaymentJob dequeue(Duration maxWait) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            PaymentJob job = dequeue();
+            if (job != null) {
+                return job;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            awaitSignal(waitingConsumers, () -> !ready.isEmpty(), remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public List<PaymentJob> dequeueBatch(int max) {
+        List<PaymentJob> jobs = new ArrayList<>(Math.min(max, 64));
+        PaymentJob job;
+        while (jobs.size() < max && (job = dequeue()) != null) {
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    @Override
+    public boolean cancel(String jobId) {
+        Object key = index.get(jobId);
+        if (key instanceof Long readyKey) {
+            if (ready.remove(readyKey) == null) {
+                return false; // A worker got there first
+            }
+            readyCount.decrementAndGet();
+            signal(waitingProducers);
+        } else if (key instanceof DueKey dueKey) {
+            if (delayed.remove(dueKey) == null) {
+                return false; // Promoted meanwhile; a retry finds it in ready
+            }
+            delayedCount.decrementAndGet();
+        } else {
+            return false;
+        }
+        index.remove(jobId, key);
+        System.out.println("🚫 Cancelled job " + jobId);
+        return true;
+    }
+
+    /**
+     * Keeps the job's place in its new band: a ready job keeps its sequence and the time
+     * it became ready, a delayed one its due time
+     */
+    @Override
+    public boolean reprioritize(String jobId, PaymentJob.Priority priority) {
+        Object key = index.get(jobId);
+        if (key instanceof Long readyKey) {
+            QueuedJob queued = ready.remove(readyKey);
+            if (queued == null) {
+                return false;
+            }
+            queued.job.setPriority(priority);
+            long newKey = ((long) priority.getRank() << RANK_SHIFT) | (readyKey & SEQUENCE_MASK);
+            index.put(jobId, newKey);
+            ready.put(newKey, queued);
+            signal(waitingConsumers);
+        } else if (key instanceof DueKey dueKey) {
+            PaymentJob job = delayed.remove(dueKey);
+            if (job == null) {
+                return false;
+            }
+            // The band is only applied at promotion
+            job.setPriority(priority);
+            delayed.put(dueKey, job);
+        } else {
+            return false;
+        }
+        System.out.println("🔀 Job " + jobId + " reprioritized to " + priority);
+        return true;
+    }
+
+    @Override
+    public List<PaymentJob> peek(int n) {
+        List<PaymentJob> jobs = new ArrayList<>(Math.max(Math.min(n, 64), 0));
+        for (QueuedJob queued : ready.values()) {
+            if (jobs.size() >= n) {
+                break;
+            }
+            jobs.add(queued.job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Ready jobs in priority order, then delayed ones by due time. The cursor is the key
+     * of the last job returned, so jobs removed meanwhile don't shift the next page.
+     */
+    @Override
+    public JobScanPage scan(String cursor, int count) {
+        int limit = Math.max(count, 1);
+        String position = cursor == null || JobScanPage.START.equals(cursor) ? READY_CURSOR : cursor;
+        List<PaymentJob> jobs = new ArrayList<>(Math.min(limit, 64));
+        try {
+            if (position.startsWith(READY_CURSOR)) {
+                Map<Long, QueuedJob> rest = position.length() == READY_CURSOR.length() ? ready
+                        : ready.tailMap(Long.parseLong(position.substring(READY_CURSOR.length())), false);
+                long last = -1;
+                for (Map.Entry<Long, QueuedJob> entry : rest.entrySet()) {
+                    if (jobs.size() == limit) {
+                        return new JobScanPage(READY_CURSOR + last, jobs);
+                    }
+                    jobs.add(entry.getValue().job);
+                    last = entry.getKey();
+                }
+                position = DELAYED_CURSOR;
+            }
+
+            if (!position.startsWith(DELAYED_CURSOR)) {
+                throw new IllegalArgumentException("Invalid scan cursor: " + cursor);
+            }
+            Map<DueKey, PaymentJob> rest = delayed;
+            if (position.length() > DELAYED_CURSOR.length()) {
+                String[] parts = position.substring(DELAYED_CURSOR.length()).split(":");
+                rest = delayed.tailMap(new DueKey(Long.parseLong(parts[0]), Long.parseLong(parts[1])), false);
+            }
+            DueKey last = null;
+            for (Map.Entry<DueKey, PaymentJob> entry : rest.entrySet()) {
+                if (jobs.size() == limit) {
+                    return new JobScanPage(DELAYED_CURSOR + last.dueMillis + ":" + last.sequence, jobs);
+                }
+                jobs.add(entry.getValue());
+                last = entry.getKey();
+            }
+            return new JobScanPage(JobScanPage.START, jobs);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid scan cursor: " + cursor);
+        }
+    }
+
+    @Override
+    public int size() {
+        return readyCount.get();
+    }
+
+    @Override
+    public int delayedSize() {
+        return delayedCount.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void insert(PaymentJob job, long readyAtMillis) {
+        long key = key(job);
+        // Indexed first, so a worker that takes it at once leaves no stale entry behind
+        index.put(job.getJobId(), key);
+        ready.put(key, new QueuedJob(job, readyAtMillis));
+        signal(waitingConsumers);
+    }
+
+    private long key(PaymentJob job) {
+        PaymentJob.Priority priority = job.getPriority() != null ? job.getPriority() : PaymentJob.Priority.NORMAL;
+        return ((long) priority.getRank() << RANK_SHIFT) | sequence.getAndIncrement();
+    }
+
+    private boolean reserveSlot() {
+        int current;
+        do {
+            current = readyCount.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!readyCount.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private boolean hasFreeSlot() {
+        return readyCount.get() < capacity;
+    }
+
+    /**
+     * Register as a waiter, re-check the condition (so a signal sent before we registered
+     * isn't lost), then park. Callers retry their operation after every wakeup, so a
+     * signal is never wasted even when it races with a timeout.
+     */
+    private void awaitSignal(ConcurrentLinkedQueue<Thread> waiters, BooleanSupplier condition, long timeoutNanos) {
+        Thread me = Thread.currentThread();
+        waiters.add(me);
+        try {
+            if (!condition.getAsBoolean()) {
+                LockSupport.parkNanos(this, timeoutNanos);
+            }
+        } finally {
+            // Still queued if nobody signalled us
+            waiters.remove(me);
+        }
+    }
+
+    private static void signal(ConcurrentLinkedQueue<Thread> waiters) {
+        Thread waiter = waiters.poll();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    @AllArgsConstructor
+    private static final class DueKey implements Comparable<DueKey> {
+        private final long dueMillis;
+        private final long sequence;
+
+        @Override
+        public int compareTo(DueKey other) {
+            int byDue = Long.compare(dueMillis, other.dueMillis);
+            return byDue != 0 ? byDue : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -2,12 +2,178 @@ package com.example.narayan.paymentsystem.queue;
 
 import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
 
 public interface JobQueue {
 
     public void enqueue(PaymentJob job);
 
+    /**
+     * Enqueue many jobs at once (backfills, bulk imports)
+     */
+    default void enqueueAll(Collection<PaymentJob> jobs) {
+        for (PaymentJob job : jobs) {
+            enqueue(job);
+        }
+    }
+
+    /**
+     * Enqueue jobs that were accepted earlier and held elsewhere (e.g. a local spill
+     * journal), each queued as if it had arrived at readyAtMillis(job) so it keeps its
+     * place in line. Queues that order by arrival alone just enqueue them in order.
+     */
+    default void enqueueAll(Collection<PaymentJob> jobs, ToLongFunction<PaymentJob> readyAtMillis) {
+        enqueueAll(jobs);
+    }
+
     public PaymentJob dequeue() throws InterruptedException;
 
+    /**
+     * Enqueue a job that must not be handed to workers before dueAt (e.g. a retry
+     * waiting out its backoff). A dueAt in the past behaves like enqueue.
+     */
+    void schedule(PaymentJob job, Instant dueAt);
+
+    /**
+     * Blocking dequeue - waits up to maxWait for a job to arrive.
+     * Returns null if the queue is still empty once maxWait elapses.
+     * Implementations without a native blocking pop fall back to a single poll.
+     */
+    default PaymentJob dequeue(Duration maxWait) throws InterruptedException {
+        PaymentJob job = dequeue();
+        if (job == null) {
+            Thread.sleep(maxWait.toMillis());
+        }
+        return job;
+    }
+
+    /**
+     * Non-blocking pop of up to max jobs in priority order; empty if none are ready
+     */
+    default List<PaymentJob> dequeueBatch(int max) throws InterruptedException {
+        List<PaymentJob> jobs = new ArrayList<>();
+        PaymentJob job;
+        while (jobs.size() < max && (job = dequeue()) != null) {
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /**
+     * Up to max jobs, waiting up to maxWait for the first one to arrive.
+     * The default pops a batch and, if nothing is ready, blocks for a single job.
+     */
+    default List<PaymentJob> dequeueBatch(int max, Duration maxWait) throws InterruptedException {
+        List<PaymentJob> jobs = dequeueBatch(max);
+        if (!jobs.isEmpty()) {
+            return jobs;
+        }
+        PaymentJob job = dequeue(maxWait);
+        return job != null ? List.of(job) : List.of();
+    }
+
+    /**
+     * Release any connection held by the calling thread for blocking dequeues.
+     * Workers call this once when they stop.
+     */
+    default void releaseBlockingConnection() {
+    }
+
+    /**
+     * Acknowledge a dequeued job as handled (completed, rescheduled or dead-lettered).
+     * Only queues that lease jobs to workers need this; elsewhere it's a no-op.
+     */
+    default void ack(PaymentJob job) {
+    }
+
+    /**
+     * Acknowledge several handled jobs at once
+     */
+    default void ackAll(Collection<PaymentJob> jobs) {
+        for (PaymentJob job : jobs) {
+            ack(job);
+        }
+    }
+
+    /**
+     * Give up on dequeued jobs whose processing failed without an outcome. They may have
+     * got part way, so they aren't requeued at once: queues that lease jobs stop renewing
+     * the lease and let their usual recovery hand them out again. Elsewhere a no-op.
+     */
+    default void abandon(Collection<PaymentJob> jobs) {
+    }
+
+    /**
+     * Hand back jobs that were dequeued but never started, e.g. a local prefetch buffer
+     * emptied at shutdown. The default enqueues them again and releases the originals;
+     * queues that remember where a job stood put it back in its old place.
+     */
+    default void requeue(Collection<PaymentJob> jobs) {
+        enqueueAll(jobs);
+        ackAll(jobs);
+    }
+
+    /**
+     * Remove a job that is waiting (ready or scheduled) before a worker picks it up.
+     * False if the queue doesn't hold it or it is already with a worker.
+     */
+    boolean cancel(String jobId);
+
+    /**
+     * cancel, for callers that know the job's payment; queues that index jobs by payment
+     * can then skip looking the job up first
+     */
+    default boolean cancel(String jobId, UUID paymentId) {
+        return cancel(jobId);
+    }
+
+    /**
+     * Move a waiting job to another priority band. False if the queue doesn't hold it
+     * or it is already with a worker; UnsupportedOperationException if the queue has no
+     * priorities.
+     */
+    boolean reprioritize(String jobId, PaymentJob.Priority priority);
+
+    /**
+     * The next n jobs workers would get, without removing them
+     */
+    List<PaymentJob> peek(int n);
+
+    /**
+     * Walk every job the queue holds, a page at a time. Start with JobScanPage.START and
+     * keep passing back the returned cursor until the page says it is complete; jobs
+     * added or removed meanwhile may or may not show up.
+     */
+    JobScanPage scan(String cursor, int count);
+
     int size();
+
+    /**
+     * Number of jobs scheduled for later and not yet ready
+     */
+    default int delayedSize() {
+        return 0;
+    }
+
+    /**
+     * Number of jobs handed to workers and not yet acknowledged
+     */
+    default int inFlightSize() {
+        return 0;
+    }
+
+    /**
+     * Enqueues dropped because the same payment already had a job queued.
+     * Queues that don't deduplicate report 0.
+     */
+    default long duplicatesSuppressed() {
+        return 0;
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of JobQueue.scan; pass cursor back for the next page. "0" means the scan is complete.
+ */
+@Data
+@AllArgsConstructor
+public class JobScanPage {
+    public static final String START = "0";
+
+    private String cursor;
+    private List<PaymentJob> jobs;
+
+    public boolean isComplete() {
+        return START.equals(cursor);
+    }
+}
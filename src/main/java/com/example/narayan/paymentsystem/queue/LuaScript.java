@@ -0,0 +1,70 @@
+package com.example.narayan.paymentsystem.queue;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * A Lua script run with EVALSHA, falling back to EVAL (which also caches it
+ * server-side) the first time a Redis node hasn't seen it.
+ */
+public class LuaScript {
+
+    private final String source;
+    private final String sha1;
+    private final byte[] sourceBytes;
+    private final byte[] sha1Bytes;
+
+    public LuaScript(String source) {
+        this.source = source;
+        this.sha1 = sha1Hex(source);
+        this.sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+        this.sha1Bytes = sha1.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public Object eval(Jedis jedis, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(source, keys, args);
+        }
+    }
+
+    /**
+     * Binary-safe variant for scripts that take or return raw job payloads
+     */
+    public Object evalBinary(Jedis jedis, List<byte[]> keys, List<byte[]> args) {
+        try {
+            return jedis.evalsha(sha1Bytes, keys, args);
+        } catch (JedisNoScriptException e) {
+            return jedis.eval(sourceBytes, keys, args);
+        }
+    }
+
+    /**
+     * Integer replies come back as Long, bulk replies as String or byte[]
+     */
+    public static long toLong(Object reply) {
+        if (reply instanceof Number number) {
+            return number.longValue();
+        }
+        if (reply instanceof byte[] bytes) {
+            return (long) Double.parseDouble(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return (long) Double.parseDouble(String.valueOf(reply));
+    }
+
+    private static String sha1Hex(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Two-tier dispatch: one fetcher thread pops jobs from the shared queue in batches into a
+ * bounded local ring buffer, and workers take from the buffer without touching Redis.
+ *
+ * The fetcher refills up to the high watermark whenever the buffer drains to the low
+ * watermark, fetching until the buffer is full or the shared queue runs dry. Buffered
+ * jobs are already out of the shared queue (leased in reliable mode), so stop() hands
+ * whatever is left back with requeue(). Everything except dequeuing goes straight to
+ * the wrapped queue.
+ */
+public class PrefetchingJobQueue implements JobQueue {
+
+    // Longest the fetcher sleeps above the low watermark before looking again
+    private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final JobQueue delegate;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final Duration fetchTimeout;
+    private final long errorBackoffMs;
+
+    private final ArrayBlockingQueue<PaymentJob> buffer;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // Buffered jobs handed back to the delegate on the way out
+    private final AtomicInteger returned = new AtomicInteger(0);
+    private volatile Thread fetcher;
+
+    public PrefetchingJobQueue(JobQueue delegate, int highWatermark, int lowWatermark,
+                               long fetchTimeoutMs, long errorBackoffMs) {
+        if (highWatermark < 1) {
+            throw new IllegalArgumentException("prefetch high watermark must be at least 1");
+        }
+        if (lowWatermark < 0 || lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("prefetch low watermark must be between 0 and the high watermark");
+        }
+        this.delegate = delegate;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.fetchTimeout = Duration.ofMillis(fetchTimeoutMs);
+        this.errorBackoffMs = errorBackoffMs;
+        this.buffer = new ArrayBlockingQueue<>(highWatermark);
+    }
+
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::fetchLoop);
+            thread.setDaemon(true);
+            thread.setName("job-prefetcher");
+            fetcher = thread;
+            thread.start();
+            System.out.println("📥 Prefetching jobs locally (high=" + highWatermark + ", low=" + lowWatermark + ")");
+        }
+    }
+
+    /**
+     * Stops the fetcher and returns every buffered job to the shared queue, giving the
+     * number returned (by this call or the exiting fetcher). Call once the workers have
+     * stopped taking jobs.
+     */
+    public int stop(long timeoutMs) {
+        if (!running.compareAndSet(true, false)) {
+            return 0;
+        }
+        Thread thread = fetcher;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                // A fetch already blocked in Redis finishes its wait first
+                thread.join(timeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        returnBuffered();
+        return returned.get();
+    }
+
+    private void fetchLoop() {
+        // A refill runs until the buffer is full or the shared queue has nothing more,
+        // not just until the buffer is back above the low watermark
+        boolean refilling = true;
+        while (running.get()) {
+            try {
+                if (buffer.size() <= lowWatermark) {
+                    refilling = true;
+                }
+                if (!refilling || buffer.size() >= highWatermark) {
+                    refilling = false;
+                    // Workers unpark us once they take the buffer down to the low watermark
+                    LockSupport.parkNanos(this, MAX_IDLE_NANOS);
+                    continue;
+                }
+
+                int wanted = highWatermark - buffer.size();
+                List<PaymentJob> jobs = delegate.dequeueBatch(wanted, fetchTimeout);
+                if (jobs.isEmpty()) {
+                    refilling = false;
+                }
+                List<PaymentJob> overflow = new ArrayList<>();
+                for (PaymentJob job : jobs) {
+                    // Only this thread adds, so the buffer can't have filled since we measured it
+                    if (!buffer.offer(job)) {
+                        overflow.add(job);
+                    }
+                }
+                if (!overflow.isEmpty()) {
+                    delegate.requeue(overflow);
+                }
+
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                System.err.println("❌ Prefetcher failed to fetch jobs: " + e.getMessage());
+                try {
+                    Thread.sleep(errorBackoffMs);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+
+        delegate.releaseBlockingConnection();
+        // Covers a fetch that landed after stop() stopped waiting for us
+        returnBuffered();
+    }
+
+    private void returnBuffered() {
+        List<PaymentJob> leftover = new ArrayList<>(buffer.size());
+        buffer.drainTo(leftover);
+        if (leftover.isEmpty()) {
+            return;
+        }
+        try {
+            delegate.requeue(leftover);
+            returned.addAndGet(leftover.size());
+            System.out.println("↩️ Prefetcher returned " + leftover.size() + " unprocessed jobs to the queue");
+        } catch (Exception e) {
+            System.err.println("❌ Failed to return " + leftover.size() + " prefetched jobs: " + e.getMessage());
+        }
+    }
+
+    private void afterTake() {
+        if (buffer.size() <= lowWatermark) {
+            Thread thread = fetcher;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    @Override
+    public PaymentJob dequeue() {
+        PaymentJob job = buffer.poll();
+        afterTake();
+        return job;
+    }
+
+    @Override
+    public PaymentJob dequeue(Duration maxWait) throws InterruptedException {
+        PaymentJob job = buffer.poll(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        afterTake();
+        return job;
+    }
+
+    @Override
+    public List<PaymentJob> dequeueBatch(int max) {
+        List<PaymentJob> jobs = new ArrayList<>(Math.min(max, highWatermark));
+        buffer.drainTo(jobs, max);
+        afterTake();
+        return jobs;
+    }
+
+    @Override
+    public List<PaymentJob> dequeueBatch(int max, Duration maxWait) throws InterruptedException {
+        PaymentJob first = buffer.poll(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            afterTake();
+            return List.of();
+        }
+        List<PaymentJob> jobs = new ArrayList<>(Math.min(max, highWatermark));
+        jobs.add(first);
+        buffer.drainTo(jobs, max - 1);
+        afterTake();
+        return jobs;
+    }
+
+    /**
+     * Workers never hold a Redis connection here; the fetcher releases its own on exit
+     */
+    @Override
+    public void releaseBlockingConnection() {
+    }
+
+    @Override
+    public void enqueue(PaymentJob job) {
+        delegate.enqueue(job);
+    }
+
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs) {
+        delegate.enqueueAll(jobs);
+    }
+
+    @Override
+    public void schedule(PaymentJob job, Instant dueAt) {
+        delegate.schedule(job, dueAt);
+    }
+
+    @Override
+    public void ack(PaymentJob job) {
+        delegate.ack(job);
+    }
+
+    @Override
+    public void ackAll(Collection<PaymentJob> jobs) {
+        delegate.ackAll(jobs);
+    }
+
+    @Override
+    public void abandon(Collection<PaymentJob> jobs) {
+        delegate.abandon(jobs);
+    }
+
+    @Override
+    public void requeue(Collection<PaymentJob> jobs) {
+        delegate.requeue(jobs);
+    }
+
+    /**
+     * A buffered job has left the shared queue, so it is cancelled here and released there
+     */
+    @Override
+    public boolean cancel(String jobId) {
+        return cancelBuffered(jobId) || delegate.cancel(jobId);
+    }
+
+    @Override
+    public boolean cancel(String jobId, UUID paymentId) {
+        return cancelBuffered(jobId) || delegate.cancel(jobId, paymentId);
+    }
+
+    private boolean cancelBuffered(String jobId) {
+        List<PaymentJob> removed = new ArrayList<>(1);
+        buffer.removeIf(job -> {
+            if (jobId.equals(job.getJobId())) {
+                removed.add(job);
+                return true;
+            }
+            return false;
+        });
+        if (!removed.isEmpty()) {
+            delegate.ackAll(removed);
+            System.out.println("🚫 Cancelled prefetched job " + jobId);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean reprioritize(String jobId, PaymentJob.Priority priority) {
+        return delegate.reprioritize(jobId, priority);
+    }
+
+    /**
+     * Buffered jobs go to workers first, so they lead
+     */
+    @Override
+    public List<PaymentJob> peek(int n) {
+        List<PaymentJob> jobs = new ArrayList<>(n);
+        for (PaymentJob job : buffer) {
+            if (jobs.size() >= n) {
+                return jobs;
+            }
+            jobs.add(job);
+        }
+        jobs.addAll(delegate.peek(n - jobs.size()));
+        return jobs;
+    }
+
+    @Override
+    public JobScanPage scan(String cursor, int count) {
+        return delegate.scan(cursor, count);
+    }
+
+    /**
+     * Jobs waiting in the shared queue plus those waiting in the local buffer
+     */
+    @Override
+    public int size() {
+        return delegate.size() + buffer.size();
+    }
+
+    @Override
+    public int delayedSize() {
+        return delegate.delayedSize();
+    }
+
+    @Override
+    public int inFlightSize() {
+        return delegate.inFlightSize();
+    }
+
+    @Override
+    public long duplicatesSuppressed() {
+        return delegate.duplicatesSuppressed();
+    }
+
+    public int getBufferedCount() {
+        return buffer.size();
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob.Priority;
+
+/**
+ * Ready-queue scores: strict priority bands, FIFO by ready time within a band.
+ *
+ * score = rank * BAND_WIDTH + (readyAtMillis - EPOCH_MILLIS), an exact integer in a
+ * double for centuries. ZPOPMIN takes the lowest score, so CRITICAL (rank 0) goes first.
+ * With aging on, LOW jobs share the NORMAL band shifted by the aging delay: a LOW job
+ * ready at t competes like a NORMAL job ready at t + lowAgingMs.
+ */
+public final class PriorityScore {
+
+    // 2024-01-01T00:00:00Z - keeps the offsets small
+    private static final long EPOCH_MILLIS = 1704067200000L;
+
+    // ~317 years of milliseconds per band
+    private static final double BAND_WIDTH = 1e13;
+
+    private PriorityScore() {
+    }
+
+    public static double of(Priority priority, long readyAtMillis, long lowAgingMs) {
+        return band(priority, lowAgingMs) * BAND_WIDTH + (readyAtMillis - EPOCH_MILLIS) + agingOffset(priority, lowAgingMs);
+    }
+
+    /**
+     * When the job became ready, recovered from its score; -1 for scores written
+     * before this encoding (plain 0/1 amount scores)
+     */
+    public static long readyAtMillis(double score, Priority priority, long lowAgingMs) {
+        double offset = score - band(priority, lowAgingMs) * BAND_WIDTH - agingOffset(priority, lowAgingMs);
+        if (offset < 2 || offset >= BAND_WIDTH) {
+            return -1;
+        }
+        return (long) offset + EPOCH_MILLIS;
+    }
+
+    private static int band(Priority priority, long lowAgingMs) {
+        if (priority == null) {
+            return Priority.NORMAL.getRank();
+        }
+        return (priority == Priority.LOW && lowAgingMs > 0) ? Priority.NORMAL.getRank() : priority.getRank();
+    }
+
+    private static long agingOffset(Priority priority, long lowAgingMs) {
+        return (priority == Priority.LOW && lowAgingMs > 0) ? lowAgingMs : 0;
+    }
+}
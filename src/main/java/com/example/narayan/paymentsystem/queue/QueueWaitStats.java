@@ -0,0 +1,83 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob.Priority;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time jobs spent in the ready queue before a worker took them, per priority.
+ * Percentiles are over the most recent WINDOW_SIZE dequeues of each priority.
+ */
+@Component
+public class QueueWaitStats {
+
+    private static final int WINDOW_SIZE = 1024;
+
+    @Data
+    @AllArgsConstructor
+    public static class WaitSummary {
+        private long samples;
+        private long p50Ms;
+        private long p99Ms;
+        private long maxMs;
+    }
+
+    private final Map<Priority, Window> windows = new EnumMap<>(Priority.class);
+
+    public QueueWaitStats() {
+        for (Priority priority : Priority.values()) {
+            windows.put(priority, new Window());
+        }
+    }
+
+    public void record(Priority priority, long waitMs) {
+        windows.get(priority != null ? priority : Priority.NORMAL).add(Math.max(waitMs, 0));
+    }
+
+    /**
+     * Summaries keyed by priority name, most urgent first
+     */
+    public Map<String, WaitSummary> snapshot() {
+        Map<String, WaitSummary> summaries = new LinkedHashMap<>();
+        Arrays.stream(Priority.values())
+                .sorted((a, b) -> Integer.compare(a.getRank(), b.getRank()))
+                .forEach(priority -> summaries.put(priority.name(), windows.get(priority).summarize()));
+        return summaries;
+    }
+
+    private static class Window {
+        private final AtomicLongArray samples = new AtomicLongArray(WINDOW_SIZE);
+        private final AtomicLong recorded = new AtomicLong(0);
+
+        void add(long waitMs) {
+            samples.set((int) (recorded.getAndIncrement() % WINDOW_SIZE), waitMs);
+        }
+
+        WaitSummary summarize() {
+            long total = recorded.get();
+            int n = (int) Math.min(total, WINDOW_SIZE);
+            if (n == 0) {
+                return new WaitSummary(0, 0, 0, 0);
+            }
+
+            long[] sorted = new long[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            return new WaitSummary(total, percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[n - 1]);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            return sorted[(int) Math.ceil(p * sorted.length) - 1];
+        }
+    }
+}
@@ -1,43 +1,399 @@
 package com.example.narayan.paymentsystem.queue;
 
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
 import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.ZAddParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.resps.Tuple;
+import redis.clients.jedis.util.KeyValue;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
+/**
+ * Priority queue on Redis. Sorted sets hold only jobIds and the payloads sit in a hash
+ * beside them, so a queued job can be found, cancelled or reprioritized by jobId in
+ * O(log n); pops take the id and its payload together in one script.
+ *
+ * Keys, all sharing queueKey's hash tag:
+ *   queueKey                  ZSET  jobId -> PriorityScore
+ *   queueKey:jobs             HASH  jobId -> payload
+ *   queueKey:delayed          ZSET  jobId -> due time, ready score in queueKey:delayed-scores
+ *   queueKey:inflight         ZSET  "<ready score>|<jobId>" -> lease expiry (reliable mode)
+ *
+ * Members written before payloads moved to the hash are the payload itself (ready set)
+ * or "<ready score>|<payload>" (delayed and in-flight sets). The scripts take a ready
+ * member with no hash entry to be such a payload, and promotion turns a delayed one back
+ * into a ready member, so jobs queued before an upgrade are still delivered.
+ */
 @Component
+@ConditionalOnProperty(name = "payment.queue.type", havingValue = "priority", matchIfMissing = true)
 public class RedisPriorityJobQueue implements JobQueue{
 
-    private static final String QUEUE_KEY = "payment_jobs";
+    public static final String DEFAULT_QUEUE_KEY = "payment_jobs";
+
+    // Members per ZADD when bulk enqueuing; keeps each command and reply reasonably sized
+    private static final int ENQUEUE_CHUNK_SIZE = 500;
+
+    // In-flight members are "<ready score>|<jobId>" so the ready-queue score can be
+    // restored when a lease is handed back
+    private static final String SCORE_SEPARATOR = "|";
+
+    // Moves up to ARGV[2] members of KEYS[1] scored at or below ARGV[1] into KEYS[2] with
+    // their ready score restored, in one atomic step. Used to requeue expired leases.
+    // Returns {moved count, score of the next remaining member or -1}
+    private static final LuaScript MOVE_DUE_SCRIPT = new LuaScript("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+            for _, member in ipairs(due) do
+                local sep = string.find(member, '|', 1, true)
+                redis.call('ZADD', KEYS[2], tonumber(string.sub(member, 1, sep - 1)), string.sub(member, sep + 1))
+            end
+            if #due > 0 then
+                redis.call('ZREM', KEYS[1], unpack(due))
+            end
+            local nextDue = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+            return {#due, nextDue[2] or '-1'}
+            """);
+
+    // Moves up to ARGV[2] jobs of the delayed set KEYS[1] due at or before ARGV[1] into the
+    // ready queue KEYS[2], scored from the KEYS[3] hash; an old "<score>|<payload>" member
+    // goes back as its payload. Returns the same shape as MOVE_DUE_SCRIPT.
+    private static final LuaScript PROMOTE_SCRIPT = new LuaScript("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+            for _, id in ipairs(due) do
+                local score = redis.call('HGET', KEYS[3], id)
+                if score then
+                    redis.call('ZADD', KEYS[2], score, id)
+                else
+                    local sep = string.find(id, '|', 1, true)
+                    if sep then
+                        redis.call('ZADD', KEYS[2], tonumber(string.sub(id, 1, sep - 1)), string.sub(id, sep + 1))
+                    end
+                end
+            end
+            if #due > 0 then
+                redis.call('ZREM', KEYS[1], unpack(due))
+                redis.call('HDEL', KEYS[3], unpack(due))
+            end
+            local nextDue = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+            return {#due, nextDue[2] or '-1'}
+            """);
+
+    // Pops up to ARGV[1] jobs from KEYS[1] and takes their payloads out of the KEYS[2] hash;
+    // a member with no payload there is an old-layout member, its own payload.
+    // Returns {score, payload, score, payload, ...}
+    private static final LuaScript POP_SCRIPT = new LuaScript("""
+            local popped = redis.call('ZPOPMIN', KEYS[1], tonumber(ARGV[1]))
+            local result = {}
+            for i = 1, #popped, 2 do
+                local payload = redis.call('HGET', KEYS[2], popped[i])
+                if payload then
+                    redis.call('HDEL', KEYS[2], popped[i])
+                else
+                    payload = popped[i]
+                end
+                result[#result + 1] = popped[i + 1]
+                result[#result + 1] = payload
+            end
+            return result
+            """);
+
+    // Pops up to ARGV[2] jobs and leases them until ARGV[1] in one atomic step, so a worker
+    // crash can't lose a job between the pop and the lease. The payload stays in the KEYS[3]
+    // hash until the job is acked; an old-layout member is stored there under itself, so
+    // ack and the reaper treat it like any other. Returns {member, payload, member, payload, ...}
+    private static final LuaScript LEASE_POP_SCRIPT = new LuaScript("""
+            local popped = redis.call('ZPOPMIN', KEYS[1], tonumber(ARGV[2]))
+            local leased = {}
+            for i = 1, #popped, 2 do
+                local payload = redis.call('HGET', KEYS[3], popped[i])
+                if not payload then
+                    payload = popped[i]
+                    redis.call('HSET', KEYS[3], popped[i], payload)
+                end
+                local member = popped[i + 1] .. '|' .. popped[i]
+                redis.call('ZADD', KEYS[2], tonumber(ARGV[1]), member)
+                leased[#leased + 1] = member
+                leased[#leased + 1] = payload
+            end
+            return leased
+            """);
+
+    // Drops the ARGV leases from KEYS[1] and their payloads from KEYS[2]. A lease the reaper
+    // already took back belongs to the ready queue again, so its payload is kept.
+    private static final LuaScript ACK_SCRIPT = new LuaScript("""
+            for _, member in ipairs(ARGV) do
+                if redis.call('ZREM', KEYS[1], member) == 1 then
+                    local sep = string.find(member, '|', 1, true)
+                    redis.call('HDEL', KEYS[2], string.sub(member, sep + 1))
+                end
+            end
+            return #ARGV
+            """);
+
+    // Removes job ARGV[1] if it is still ready (KEYS[1]) or scheduled (KEYS[2]), along with
+    // its payload (KEYS[3]), delayed score (KEYS[4]) and its payment's dedupe entry (KEYS[5])
+    // when that still names this job. Returns 1 if the job was removed.
+    private static final LuaScript CANCEL_SCRIPT = new LuaScript("""
+            local removed = redis.call('ZREM', KEYS[1], ARGV[1]) + redis.call('ZREM', KEYS[2], ARGV[1])
+            if removed == 0 then
+                return 0
+            end
+            redis.call('HDEL', KEYS[3], ARGV[1])
+            redis.call('HDEL', KEYS[4], ARGV[1])
+            if redis.call('GET', KEYS[5]) == ARGV[1] then
+                redis.call('DEL', KEYS[5])
+            end
+            return 1
+            """);
+
+    // Gives job ARGV[1] the ready score ARGV[2] and payload ARGV[3], provided it is still
+    // ready (KEYS[1]) or scheduled (KEYS[2], score kept in KEYS[4]). Returns 1 on success.
+    private static final LuaScript REPRIORITIZE_SCRIPT = new LuaScript("""
+            if redis.call('ZSCORE', KEYS[1], ARGV[1]) then
+                redis.call('ZADD', KEYS[1], 'XX', ARGV[2], ARGV[1])
+            elseif redis.call('ZSCORE', KEYS[2], ARGV[1]) then
+                redis.call('HSET', KEYS[4], ARGV[1], ARGV[2])
+            else
+                return 0
+            end
+            redis.call('HSET', KEYS[3], ARGV[1], ARGV[3])
+            return 1
+            """);
+
+    // Payloads of the first ARGV[1] jobs in KEYS[1], read from KEYS[2] (old-layout members are their own)
+    private static final LuaScript PEEK_SCRIPT = new LuaScript("""
+            local ids = redis.call('ZRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            if #ids == 0 then
+                return {}
+            end
+            local payloads = redis.call('HMGET', KEYS[2], unpack(ids))
+            for i = 1, #ids do
+                if not payloads[i] then
+                    payloads[i] = ids[i]
+                end
+            end
+            return payloads
+            """);
+
+    // Adds each job to KEYS[1] (payload into the KEYS[2] hash) unless KEYS[3 + i], its
+    // payment's dedupe index, already names a different jobId, in which case the KEYS[3]
+    // counter goes up instead. A job seen again under its own jobId (a retry or a requeue)
+    // passes. ARGV[1] is the index TTL in millis, then score, payload and jobId per job.
+    // Returns the number of jobs added.
+    private static final LuaScript DEDUPE_ENQUEUE_SCRIPT = new LuaScript("""
+            local added = 0
+            for i = 4, #KEYS do
+                local arg = 2 + (i - 4) * 3
+                local owner = redis.call('GET', KEYS[i])
+                if owner and owner ~= ARGV[arg + 2] then
+                    redis.call('INCR', KEYS[3])
+                else
+                    redis.call('SET', KEYS[i], ARGV[arg + 2], 'PX', ARGV[1])
+                    redis.call('HSET', KEYS[2], ARGV[arg + 2], ARGV[arg + 1])
+                    redis.call('ZADD', KEYS[1], ARGV[arg], ARGV[arg + 2])
+                    added = added + 1
+                end
+            end
+            return added
+            """);
+
     private final JedisPool jedisPool;
-    private final ObjectMapper objectMapper;
+    private final JobCodec jobCodec;
+
+    // Ready jobIds, scored by PriorityScore
+    private final String queueKey;
+    private final byte[] queueKeyBytes;
+
+    // Payload of every job the queue holds (ready, delayed or leased), by jobId
+    private final byte[] jobsKeyBytes;
+
+    // Retries waiting for their backoff, scored by due time (epoch millis), and the ready
+    // score each one gets once promoted
+    private final String delayedKey;
+    private final byte[] delayedKeyBytes;
+    private final byte[] delayedScoresKeyBytes;
+
+    // Reliable mode: jobs handed to a worker but not yet acked, scored by lease expiry (epoch millis)
+    private final String inflightKey;
+    private final byte[] inflightKeyBytes;
+
+    // Dedupe index entries are "<queueKey>:dedupe:<paymentId>" -> jobId; the counter
+    // tallies enqueues dropped as duplicates
+    private final String dedupePrefix;
+    private final byte[] suppressedKeyBytes;
+
+    // Blocking pops park a connection for the whole wait, so each worker thread
+    // gets its own connection outside the shared pool
+    private final String redisHost;
+    private final int redisPort;
+    private final ThreadLocal<Jedis> blockingConnection = new ThreadLocal<>();
+    private final Set<Jedis> blockingConnections = ConcurrentHashMap.newKeySet();
+
+    // Attempts an enqueue makes before giving up on an unreachable Redis, a second apart.
+    // With the spill journal on only one is made: the journal takes the job instead.
+    @Value("${payment.queue.enqueue-attempts:3}")
+    private int enqueueAttempts = 3;
+
+    @Value("${payment.queue.spill.enabled:false}")
+    private boolean spillEnabled = false;
+
+    @Value("${payment.queue.delayed.promoter-enabled:true}")
+    private boolean promoterEnabled = true;
 
-    public RedisPriorityJobQueue(JedisPool jedisPool) {
+    @Value("${payment.queue.delayed.promote-batch-size:500}")
+    private int promoteBatchSize = 500;
+
+    @Value("${payment.queue.delayed.max-idle-ms:1000}")
+    private long promoterMaxIdleMs = 1000;
+
+    private DelayedJobPromoter promoter;
+
+    // LOW jobs compete as NORMAL once they've waited this long; 0 keeps strict priority
+    @Value("${payment.queue.priority.low-aging-ms:0}")
+    private long lowAgingMs = 0;
+
+    @Autowired
+    private QueueWaitStats queueWaitStats = new QueueWaitStats();
+
+    // Wakes sleep-polling workers when jobs become ready without an enqueue behind them
+    @Autowired(required = false)
+    private WorkAvailableSignal workAvailableSignal;
+
+    // Drop an enqueue when its payment already has a different job queued within the TTL
+    @Value("${payment.queue.dedupe.enabled:true}")
+    private boolean dedupeEnabled = true;
+
+    @Value("${payment.queue.dedupe.ttl-ms:600000}")
+    private long dedupeTtlMs = 600000;
+
+    @Value("${payment.queue.reliable.enabled:false}")
+    private boolean reliable = false;
+
+    @Value("${payment.queue.reliable.lease-ms:30000}")
+    private long leaseMs = 30000;
+
+    @Value("${payment.queue.reliable.reaper-interval-ms:5000}")
+    private long reaperIntervalMs = 5000;
+
+    // Leases held by workers on this node, keyed by the dequeued job instance (jobs are
+    // mutable, so identity rather than equals) and holding the exact in-flight member
+    private final Map<PaymentJob, byte[]> leases = Collections.synchronizedMap(new IdentityHashMap<>());
+    private ScheduledExecutorService leaseKeeper;
+
+    @Autowired
+    public RedisPriorityJobQueue(JedisPool jedisPool, JobCodec jobCodec,
+                                 @Value("${spring.data.redis.host:redis}") String redisHost,
+                                 @Value("${spring.data.redis.port:6379}") int redisPort) {
+        this(jedisPool, jobCodec, redisHost, redisPort, DEFAULT_QUEUE_KEY);
+    }
+
+    /**
+     * A queue under a different key, e.g. one shard of a ShardedRedisJobQueue. The delayed
+     * and in-flight sets are named after it, so a hash tag in queueKey keeps all three
+     * in one cluster slot (the Lua scripts touch them together).
+     */
+    public RedisPriorityJobQueue(JedisPool jedisPool, JobCodec jobCodec,
+                                 String redisHost, int redisPort, String queueKey) {
         this.jedisPool = jedisPool;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-        this.objectMapper.findAndRegisterModules();
+        this.jobCodec = jobCodec;
+        this.redisHost = redisHost;
+        this.redisPort = redisPort;
+        this.queueKey = queueKey;
+        this.queueKeyBytes = SafeEncoder.encode(queueKey);
+        this.jobsKeyBytes = SafeEncoder.encode(queueKey + ":jobs");
+        this.delayedKey = queueKey + ":delayed";
+        this.delayedKeyBytes = SafeEncoder.encode(delayedKey);
+        this.delayedScoresKeyBytes = SafeEncoder.encode(queueKey + ":delayed-scores");
+        this.inflightKey = queueKey + ":inflight";
+        this.inflightKeyBytes = SafeEncoder.encode(inflightKey);
+        this.dedupePrefix = queueKey + ":dedupe:";
+        this.suppressedKeyBytes = SafeEncoder.encode(queueKey + ":dedupe-suppressed");
+    }
+
+    @PostConstruct
+    public void startBackgroundTasks() {
+        if (promoterEnabled) {
+            promoter = new DelayedJobPromoter(this::promoteDueJobs, promoteBatchSize, promoterMaxIdleMs, 2000);
+            promoter.start();
+        }
+        if (reliable) {
+            startLeaseKeeper();
+        }
+    }
+
+    /**
+     * Heartbeats this node's leases every third of the lease time, and periodically
+     * requeues leases that expired because their worker (or node) died
+     */
+    private void startLeaseKeeper() {
+        leaseKeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "lease-keeper[" + queueKey + "]");
+            t.setDaemon(true);
+            return t;
+        });
+        long heartbeatMs = Math.max(leaseMs / 3, 100);
+        leaseKeeper.scheduleWithFixedDelay(this::extendLeases, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        leaseKeeper.scheduleWithFixedDelay(() -> reapExpiredLeases(System.currentTimeMillis(), promoteBatchSize),
+                reaperIntervalMs, reaperIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("🔒 Reliable queue enabled (lease=" + leaseMs + "ms, heartbeat=" + heartbeatMs + "ms)");
     }
 
     @Override
     public void enqueue(PaymentJob job) {
-        int retries = 3;
+        int attempts = enqueueAttempts();
+        int retries = attempts;
         while (retries > 0) {
             try (Jedis jedis = jedisPool.getResource()) {
-                String json = objectMapper.writeValueAsString(job);
-                double priority = (job.getAmount() > 50000) ? 1 : 0;
-
-                jedis.zadd(QUEUE_KEY, priority, json);
+                EncodedJob encoded = encode(job, System.currentTimeMillis());
+                if (!dedupeEnabled) {
+                    Pipeline pipeline = jedis.pipelined();
+                    // Payload first, so a popper never finds an id without one
+                    pipeline.hset(jobsKeyBytes, encoded.id, encoded.payload);
+                    pipeline.zadd(queueKeyBytes, encoded.score, encoded.id);
+                    pipeline.sync();
+                } else if (addNew(jedis, List.of(encoded)) == 0) {
+                    System.out.println("⏭️ Suppressed duplicate job for payment " + job.getPaymentId());
+                }
+                handOverLease(jedis, job);
                 return; // Success
             }
             catch (JedisConnectionException e) {
                 retries--;
                 if (retries == 0) {
-                    System.err.println("❌ Failed to enqueue job after 3 attempts: " + e.getMessage());
+                    System.err.println("❌ Failed to enqueue job after " + attempts + " attempts: " + e.getMessage());
                     throw new RuntimeException("Failed to enqueue job - Redis unavailable", e);
                 }
                 System.err.println("⚠️ Redis connection failed, retrying... (" + retries + " attempts left)");
@@ -55,17 +411,218 @@ public class RedisPriorityJobQueue implements JobQueue{
         }
     }
 
+    /**
+     * Bulk enqueue: serializes jobs in parallel, then sends multi-member ZADDs in chunks
+     * through one pipeline, so N jobs cost one round trip instead of N. With dedupe on,
+     * each chunk is one script call instead.
+     */
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs) {
+        long now = System.currentTimeMillis();
+        enqueueAll(jobs, job -> now);
+    }
+
+    /**
+     * Bulk enqueue where each job is scored as if it became ready at readyAtMillis(job),
+     * so jobs replayed from elsewhere keep their place among the rest
+     */
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs, ToLongFunction<PaymentJob> readyAtMillis) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        List<List<EncodedJob>> chunks = toChunks(jobs, readyAtMillis);
+
+        int attempts = enqueueAttempts();
+        int retries = attempts;
+        while (retries > 0) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                if (dedupeEnabled) {
+                    int added = 0;
+                    for (List<EncodedJob> chunk : chunks) {
+                        added += addNew(jedis, chunk);
+                    }
+                    if (added < jobs.size()) {
+                        System.out.println("⏭️ Suppressed " + (jobs.size() - added) + " duplicate jobs in bulk enqueue");
+                    }
+                    return; // Success
+                }
+
+                Pipeline pipeline = jedis.pipelined();
+                for (List<EncodedJob> chunk : chunks) {
+                    // byte[] keys hash by identity, so every member stays distinct here
+                    Map<byte[], byte[]> payloads = new HashMap<>();
+                    Map<byte[], Double> members = new HashMap<>();
+                    for (EncodedJob encoded : chunk) {
+                        payloads.put(encoded.id, encoded.payload);
+                        members.put(encoded.id, encoded.score);
+                    }
+                    pipeline.hset(jobsKeyBytes, payloads);
+                    pipeline.zadd(queueKeyBytes, members);
+                }
+                pipeline.sync();
+                return; // Success
+            }
+            catch (JedisConnectionException e) {
+                // HSET/ZADD of the same jobIds is idempotent, and a job's own dedupe entry lets
+                // it through again, so resending every chunk is safe
+                retries--;
+                if (retries == 0) {
+                    System.err.println("❌ Failed to enqueue " + jobs.size() + " jobs after " + attempts + " attempts: " + e.getMessage());
+                    throw new RuntimeException("Failed to enqueue jobs - Redis unavailable", e);
+                }
+                System.err.println("⚠️ Redis connection failed, retrying bulk enqueue... (" + retries + " attempts left)");
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting to retry", ie);
+                }
+            }
+            catch (Exception e) {
+                System.err.println("❌ Failed to enqueue jobs: " + e.getMessage());
+                throw new RuntimeException("Failed to enqueue jobs", e);
+            }
+        }
+    }
+
+    /**
+     * During an outage every enqueue would sit out the retries; with the spill journal on,
+     * the first connection error goes straight to it instead
+     */
+    private int enqueueAttempts() {
+        return spillEnabled ? 1 : Math.max(enqueueAttempts, 1);
+    }
+
+    private List<List<EncodedJob>> toChunks(Collection<PaymentJob> jobs, ToLongFunction<PaymentJob> readyAtMillis) {
+        // Serialization is the CPU-heavy part, so spread it across cores
+        List<EncodedJob> members = jobs.parallelStream()
+                .map(job -> encode(job, readyAtMillis.applyAsLong(job)))
+                .toList();
+
+        List<List<EncodedJob>> chunks = new ArrayList<>();
+        for (int from = 0; from < members.size(); from += ENQUEUE_CHUNK_SIZE) {
+            chunks.add(members.subList(from, Math.min(from + ENQUEUE_CHUNK_SIZE, members.size())));
+        }
+        return chunks;
+    }
+
+    private EncodedJob encode(PaymentJob job, long readyAtMillis) {
+        if (job.getJobId() == null) {
+            // Builder-made jobs may lack an id, and the id is what the queue stores
+            job.setJobId(UUID.randomUUID().toString());
+        }
+        return new EncodedJob(job, SafeEncoder.encode(job.getJobId()), jobCodec.encode(job),
+                priorityScore(job, readyAtMillis));
+    }
+
+    /**
+     * Check-and-set each job's dedupe entry and add the new ones, in one script call
+     */
+    private int addNew(Jedis jedis, List<EncodedJob> chunk) {
+        List<byte[]> keys = new ArrayList<>(chunk.size() + 3);
+        List<byte[]> args = new ArrayList<>(chunk.size() * 3 + 1);
+        keys.add(queueKeyBytes);
+        keys.add(jobsKeyBytes);
+        keys.add(suppressedKeyBytes);
+        args.add(SafeEncoder.encode(String.valueOf(dedupeTtlMs)));
+        for (EncodedJob encoded : chunk) {
+            keys.add(dedupeKey(encoded.job));
+            args.add(SafeEncoder.encode(String.valueOf(encoded.score)));
+            args.add(encoded.payload);
+            args.add(encoded.id);
+        }
+        return (int) LuaScript.toLong(DEDUPE_ENQUEUE_SCRIPT.evalBinary(jedis, keys, args));
+    }
+
+    private byte[] dedupeKey(PaymentJob job) {
+        String id = job.getPaymentId() != null ? job.getPaymentId().toString() : job.getJobId();
+        return SafeEncoder.encode(dedupePrefix + id);
+    }
+
+    /**
+     * Enqueues dropped because the payment already had another job queued
+     */
+    @Override
+    public long duplicatesSuppressed() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] count = jedis.get(suppressedKeyBytes);
+            return count != null ? LuaScript.toLong(count) : 0;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get duplicate count: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Park a job in the delayed set until dueAt; the promoter moves it to the ready
+     * queue once due, so workers never pop a job that isn't ready yet.
+     */
+    @Override
+    public void schedule(PaymentJob job, Instant dueAt) {
+        long dueMillis = dueAt.toEpochMilli();
+        if (dueMillis <= System.currentTimeMillis()) {
+            enqueue(job);
+            return;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            EncodedJob encoded = encode(job, dueMillis);
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.hset(jobsKeyBytes, encoded.id, encoded.payload);
+            pipeline.hset(delayedScoresKeyBytes, encoded.id, SafeEncoder.encode(String.valueOf(encoded.score)));
+            pipeline.zadd(delayedKeyBytes, dueMillis, encoded.id);
+            pipeline.sync();
+            handOverLease(jedis, job);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to schedule job: " + e.getMessage());
+            throw new RuntimeException("Failed to schedule job", e);
+        }
+
+        if (promoter != null) {
+            promoter.onScheduled(dueMillis);
+        }
+    }
+
+    /**
+     * Move up to batchSize due jobs from the delayed set into the ready queue
+     */
+    public DelayedJobPromoter.PromotionResult promoteDueJobs(long nowMillis, int batchSize) {
+        DelayedJobPromoter.PromotionResult result;
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<?> reply = (List<?>) PROMOTE_SCRIPT.evalBinary(jedis,
+                    List.of(delayedKeyBytes, queueKeyBytes, delayedScoresKeyBytes),
+                    List.of(SafeEncoder.encode(String.valueOf(nowMillis)), SafeEncoder.encode(String.valueOf(batchSize))));
+            result = new DelayedJobPromoter.PromotionResult(
+                    (int) LuaScript.toLong(reply.get(0)), LuaScript.toLong(reply.get(1)));
+        }
+        if (result.getPromoted() > 0) {
+            signalWork();
+        }
+        return result;
+    }
+
+    /**
+     * Jobs promoted, reaped or handed back become ready with no producer to announce
+     * them; without this a sleep-polling worker finds them only at the end of its backoff
+     */
+    private void signalWork() {
+        if (workAvailableSignal != null) {
+            workAvailableSignal.publish();
+        }
+    }
+
     @Override
     public PaymentJob dequeue() throws InterruptedException {
         try (Jedis jedis = jedisPool.getResource()) {
-            var result = jedis.zpopmin(QUEUE_KEY, 1);
+            List<PaymentJob> result = pop(jedis, 1);
             if(result.isEmpty()){
                 return null;
             }
-            String json = result.getFirst().getElement();
-
-            PaymentJob job = objectMapper.readValue(json, PaymentJob.class);
-            return job;
+            return result.getFirst();
         }
         catch (JedisConnectionException e) {
             // Don't throw exception - let workers handle the retry logic
@@ -78,10 +635,492 @@ public class RedisPriorityJobQueue implements JobQueue{
         }
     }
 
+    /**
+     * Pop up to max jobs with a single script call (the lease script in reliable mode)
+     */
+    @Override
+    public List<PaymentJob> dequeueBatch(int max) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return pop(jedis, max);
+        }
+        catch (JedisConnectionException e) {
+            System.err.println("⚠️ Redis connection lost during batch dequeue: " + e.getMessage());
+            return List.of();
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to dequeue jobs: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<PaymentJob> pop(Jedis jedis, int max) {
+        if (!reliable) {
+            List<?> popped = (List<?>) POP_SCRIPT.evalBinary(jedis,
+                    List.of(queueKeyBytes, jobsKeyBytes),
+                    List.of(SafeEncoder.encode(String.valueOf(max))));
+            List<PaymentJob> jobs = new ArrayList<>(popped.size() / 2);
+            for (int i = 0; i < popped.size(); i += 2) {
+                try {
+                    PaymentJob job = jobCodec.decode((byte[]) popped.get(i + 1));
+                    recordWait(job, LuaScript.toLong(popped.get(i)));
+                    jobs.add(job);
+                } catch (Exception e) {
+                    System.err.println("❌ Failed to deserialize job, dropping it: " + e.getMessage());
+                }
+            }
+            return jobs;
+        }
+
+        long leaseExpiry = System.currentTimeMillis() + leaseMs;
+        List<?> leased = (List<?>) LEASE_POP_SCRIPT.evalBinary(jedis,
+                List.of(queueKeyBytes, inflightKeyBytes, jobsKeyBytes),
+                List.of(SafeEncoder.encode(String.valueOf(leaseExpiry)), SafeEncoder.encode(String.valueOf(max))));
+        List<PaymentJob> jobs = new ArrayList<>(leased.size() / 2);
+        for (int i = 0; i < leased.size(); i += 2) {
+            PaymentJob job = trackLease(jedis, (byte[]) leased.get(i), (byte[]) leased.get(i + 1));
+            if (job != null) {
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Decode a leased job and remember its member for heartbeats and ack. A payload that
+     * can't be decoded never will be, so the job is dropped instead of being reaped forever.
+     */
+    private PaymentJob trackLease(Jedis jedis, byte[] member, byte[] payload) {
+        try {
+            PaymentJob job = jobCodec.decode(payload);
+            leases.put(job, member);
+            recordWait(job, scoreOf(member));
+            return job;
+        } catch (Exception e) {
+            System.err.println("❌ Failed to deserialize job, dropping it: " + e.getMessage());
+            jedis.zrem(inflightKeyBytes, member);
+            jedis.hdel(jobsKeyBytes, jobIdOf(member));
+            return null;
+        }
+    }
+
+    /**
+     * A leased job that is rescheduled (a retry) or re-enqueued is queued again under the
+     * same jobId, so the lease has done its job: drop it without touching the payload, and
+     * the later ack becomes a no-op
+     */
+    private void handOverLease(Jedis jedis, PaymentJob job) {
+        if (!reliable) {
+            return;
+        }
+        byte[] member = leases.remove(job);
+        if (member != null) {
+            jedis.zrem(inflightKeyBytes, member);
+        }
+    }
+
+    /**
+     * Blocking dequeue using BZPOPMIN on the calling thread's dedicated connection.
+     * Connection errors are rethrown so the worker can back off instead of spinning.
+     */
+    @Override
+    public PaymentJob dequeue(Duration maxWait) throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+
+        Jedis jedis = getBlockingConnection();
+        try {
+            // BZPOPMIN takes fractional seconds; 0 would block forever
+            double timeoutSeconds = Math.max(maxWait.toMillis(), 1) / 1000.0;
+            KeyValue<byte[], Tuple> result = jedis.bzpopmin(timeoutSeconds, queueKeyBytes);
+            if (result == null) {
+                return null;
+            }
+            Tuple popped = result.getValue();
+            byte[] id = popped.getBinaryElement();
+
+            // Scripts can't block, so the payload (and lease) follow the pop on the same
+            // connection; only a crash in between this and the previous command can lose the job
+            Pipeline pipeline = jedis.pipelined();
+            Response<byte[]> payload = pipeline.hget(jobsKeyBytes, id);
+            byte[] member = scoredMember(popped.getScore(), id);
+            if (reliable) {
+                pipeline.zadd(inflightKeyBytes, System.currentTimeMillis() + leaseMs, member);
+            } else {
+                pipeline.hdel(jobsKeyBytes, id);
+            }
+            pipeline.sync();
+
+            byte[] body = payload.get();
+            if (body == null) {
+                // An old-layout member is its own payload; leased, it is stored under itself like LEASE_POP_SCRIPT does
+                body = id;
+                if (reliable) {
+                    jedis.hset(jobsKeyBytes, id, body);
+                }
+            }
+            if (!reliable) {
+                PaymentJob job = jobCodec.decode(body);
+                recordWait(job, popped.getScore());
+                return job;
+            }
+            return trackLease(jedis, member, body);
+        }
+        catch (JedisConnectionException e) {
+            System.err.println("⚠️ Redis connection lost during blocking dequeue: " + e.getMessage());
+            releaseBlockingConnection();
+            throw e;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to dequeue job: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Release the job's lease; in reliable mode, a job that is never acked goes back to
+     * the ready queue once its lease expires
+     */
+    @Override
+    public void ack(PaymentJob job) {
+        ackAll(List.of(job));
+    }
+
+    /**
+     * Release several leases, and the payloads behind them, with one script call
+     */
+    @Override
+    public void ackAll(Collection<PaymentJob> jobs) {
+        if (!reliable || jobs.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> members = new ArrayList<>(jobs.size());
+        for (PaymentJob job : jobs) {
+            byte[] member = leases.remove(job);
+            if (member != null) {
+                members.add(member);
+            }
+        }
+        if (members.isEmpty()) {
+            return;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            ACK_SCRIPT.evalBinary(jedis, List.of(inflightKeyBytes, jobsKeyBytes), members);
+        }
+        catch (Exception e) {
+            // The job is already handled; worst case the reaper hands it out once more
+            System.err.println("⚠️ Failed to ack " + members.size() + " jobs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop heartbeating the jobs' leases, so the reaper requeues them once they run out
+     */
+    @Override
+    public void abandon(Collection<PaymentJob> jobs) {
+        int dropped = 0;
+        for (PaymentJob job : jobs) {
+            if (leases.remove(job) != null) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            System.out.println("🪂 Abandoned " + dropped + " leased jobs; they are requeued within " + leaseMs + "ms");
+        }
+    }
+
+    /**
+     * In reliable mode a leased job goes back to the ready queue under its original
+     * score, so it keeps its place; the lease is dropped in the same MULTI
+     */
+    @Override
+    public void requeue(Collection<PaymentJob> jobs) {
+        if (!reliable) {
+            JobQueue.super.requeue(jobs);
+            signalWork();
+            return;
+        }
+
+        List<byte[]> members = new ArrayList<>(jobs.size());
+        List<PaymentJob> unleased = new ArrayList<>();
+        for (PaymentJob job : jobs) {
+            byte[] member = leases.remove(job);
+            if (member != null) {
+                members.add(member);
+            } else {
+                unleased.add(job);
+            }
+        }
+        if (!unleased.isEmpty()) {
+            enqueueAll(unleased);
+        }
+        if (members.isEmpty()) {
+            signalWork();
+            return;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            Transaction tx = jedis.multi();
+            for (byte[] member : members) {
+                tx.zadd(queueKeyBytes, scoreOf(member), jobIdOf(member));
+            }
+            tx.zrem(inflightKeyBytes, members.toArray(new byte[0][]));
+            tx.exec();
+            System.out.println("↩️ Returned " + members.size() + " jobs to " + queueKey);
+        }
+        catch (Exception e) {
+            // No longer heartbeated, so the reaper requeues them once the leases run out
+            System.err.println("⚠️ Failed to return " + members.size() + " jobs, leaving them to expire: " +
+                    e.getMessage());
+            return;
+        }
+        signalWork();
+    }
+
+    /**
+     * O(log n): one ZREM on each sorted set plus hash deletes. The dedupe key comes from the
+     * job's payment, so this reads the job first; cancel(jobId, paymentId) skips that read.
+     */
+    @Override
+    public boolean cancel(String jobId) {
+        return cancel(jobId, null);
+    }
+
+    /**
+     * One script call when paymentId is given. A wrong paymentId is harmless: the script
+     * only clears a dedupe entry that names this job.
+     */
+    @Override
+    public boolean cancel(String jobId, UUID paymentId) {
+        byte[] id = SafeEncoder.encode(jobId);
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] dedupeKey;
+            if (paymentId != null) {
+                dedupeKey = SafeEncoder.encode(dedupePrefix + paymentId);
+            } else {
+                byte[] payload = jedis.hget(jobsKeyBytes, id);
+                if (payload == null) {
+                    return false;
+                }
+                dedupeKey = dedupeKey(jobCodec.decode(payload));
+            }
+            // Clearing the dedupe entry lets the payment be enqueued again later
+            long removed = LuaScript.toLong(CANCEL_SCRIPT.evalBinary(jedis,
+                    List.of(queueKeyBytes, delayedKeyBytes, jobsKeyBytes, delayedScoresKeyBytes, dedupeKey),
+                    List.of(id)));
+            if (removed == 0) {
+                return false;
+            }
+            System.out.println("🚫 Cancelled job " + jobId);
+            return true;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to cancel job " + jobId + ": " + e.getMessage());
+            throw new RuntimeException("Failed to cancel job", e);
+        }
+    }
+
+    /**
+     * Keeps the job's place in its new band: a ready job keeps the time it became ready,
+     * a delayed one its due time
+     */
+    @Override
+    public boolean reprioritize(String jobId, PaymentJob.Priority priority) {
+        byte[] id = SafeEncoder.encode(jobId);
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            Response<byte[]> payload = pipeline.hget(jobsKeyBytes, id);
+            Response<Double> readyScore = pipeline.zscore(queueKeyBytes, id);
+            Response<Double> dueAt = pipeline.zscore(delayedKeyBytes, id);
+            pipeline.sync();
+
+            if (payload.get() == null || (readyScore.get() == null && dueAt.get() == null)) {
+                return false;
+            }
+            PaymentJob job = jobCodec.decode(payload.get());
+            long readyAtMillis;
+            if (readyScore.get() != null) {
+                readyAtMillis = PriorityScore.readyAtMillis(readyScore.get(), job.getPriority(), lowAgingMs);
+                if (readyAtMillis < 0) {
+                    readyAtMillis = System.currentTimeMillis();
+                }
+            } else {
+                readyAtMillis = dueAt.get().longValue();
+            }
+            job.setPriority(priority);
+
+            long updated = LuaScript.toLong(REPRIORITIZE_SCRIPT.evalBinary(jedis,
+                    List.of(queueKeyBytes, delayedKeyBytes, jobsKeyBytes, delayedScoresKeyBytes),
+                    List.of(id, SafeEncoder.encode(String.valueOf(priorityScore(job, readyAtMillis))), jobCodec.encode(job))));
+            if (updated == 0) {
+                return false;
+            }
+            System.out.println("🔀 Job " + jobId + " reprioritized to " + priority);
+            return true;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to reprioritize job " + jobId + ": " + e.getMessage());
+            throw new RuntimeException("Failed to reprioritize job", e);
+        }
+    }
+
+    @Override
+    public List<PaymentJob> peek(int n) {
+        if (n <= 0) {
+            return List.of();
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<?> payloads = (List<?>) PEEK_SCRIPT.evalBinary(jedis,
+                    List.of(queueKeyBytes, jobsKeyBytes),
+                    List.of(SafeEncoder.encode(String.valueOf(n))));
+            return decodeAll(payloads);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to peek at queue: " + e.getMessage());
+            throw new RuntimeException("Failed to peek at queue", e);
+        }
+    }
+
+    /**
+     * HSCAN over the payload hash, so pages cover ready, delayed and leased jobs alike
+     */
+    @Override
+    public JobScanPage scan(String cursor, int count) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            ScanResult<Map.Entry<byte[], byte[]>> page = jedis.hscan(jobsKeyBytes,
+                    SafeEncoder.encode(cursor == null ? ScanParams.SCAN_POINTER_START : cursor),
+                    new ScanParams().count(Math.max(count, 1)));
+            List<byte[]> payloads = new ArrayList<>(page.getResult().size());
+            for (Map.Entry<byte[], byte[]> entry : page.getResult()) {
+                payloads.add(entry.getValue());
+            }
+            return new JobScanPage(page.getCursor(), decodeAll(payloads));
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to scan queue: " + e.getMessage());
+            throw new RuntimeException("Failed to scan queue", e);
+        }
+    }
+
+    private List<PaymentJob> decodeAll(List<?> payloads) {
+        List<PaymentJob> jobs = new ArrayList<>(payloads.size());
+        for (Object payload : payloads) {
+            if (payload == null) {
+                continue;
+            }
+            try {
+                jobs.add(jobCodec.decode((byte[]) payload));
+            } catch (Exception e) {
+                System.err.println("❌ Failed to deserialize job: " + e.getMessage());
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Push the expiry of every lease held on this node forward by one lease period.
+     * ZADD XX never re-creates a lease the reaper already took back.
+     */
+    public int extendLeases() {
+        Map<byte[], Double> extended = new HashMap<>();
+        double expiry = System.currentTimeMillis() + leaseMs;
+        synchronized (leases) {
+            for (byte[] member : leases.values()) {
+                extended.put(member, expiry);
+            }
+        }
+        if (extended.isEmpty()) {
+            return 0;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.zadd(inflightKeyBytes, extended, ZAddParams.zAddParams().xx());
+            return extended.size();
+        }
+        catch (Exception e) {
+            System.err.println("⚠️ Failed to extend " + extended.size() + " leases: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Requeue jobs whose lease expired at nowMillis, in batches of batchSize
+     */
+    public int reapExpiredLeases(long nowMillis, int batchSize) {
+        int reaped = 0;
+        try (Jedis jedis = jedisPool.getResource()) {
+            long moved;
+            do {
+                List<?> reply = (List<?>) MOVE_DUE_SCRIPT.eval(jedis,
+                        List.of(inflightKey, queueKey),
+                        List.of(String.valueOf(nowMillis), String.valueOf(batchSize)));
+                moved = LuaScript.toLong(reply.get(0));
+                reaped += (int) moved;
+            } while (moved >= batchSize);
+        }
+        catch (Exception e) {
+            System.err.println("⚠️ Lease reaper failed: " + e.getMessage());
+        }
+
+        if (reaped > 0) {
+            System.out.println("♻️ Requeued " + reaped + " jobs with expired leases");
+            signalWork();
+        }
+        return reaped;
+    }
+
+    @Override
+    public void releaseBlockingConnection() {
+        Jedis jedis = blockingConnection.get();
+        if (jedis != null) {
+            blockingConnection.remove();
+            blockingConnections.remove(jedis);
+            closeQuietly(jedis);
+        }
+    }
+
+    private Jedis getBlockingConnection() {
+        Jedis jedis = blockingConnection.get();
+        if (jedis == null) {
+            jedis = new Jedis(redisHost, redisPort);
+            blockingConnection.set(jedis);
+            blockingConnections.add(jedis);
+        }
+        return jedis;
+    }
+
+    private void closeQuietly(Jedis jedis) {
+        try {
+            jedis.close();
+        } catch (Exception ignored) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (promoter != null) {
+            promoter.stop();
+        }
+        if (leaseKeeper != null) {
+            leaseKeeper.shutdownNow();
+        }
+        closeBlockingConnections();
+    }
+
+    public void closeBlockingConnections() {
+        for (Jedis jedis : blockingConnections) {
+            closeQuietly(jedis);
+        }
+        blockingConnections.clear();
+    }
+
     @Override
     public int size() {
         try (Jedis jedis = jedisPool.getResource()) {
-            return (int) (long) jedis.zcard(QUEUE_KEY);
+            return (int) (long) jedis.zcard(queueKey);
         }
         catch (JedisConnectionException e) {
             System.err.println("⚠️ Redis connection lost during size check: " + e.getMessage());
@@ -93,6 +1132,114 @@ public class RedisPriorityJobQueue implements JobQueue{
         }
     }
 
+    @Override
+    public int delayedSize() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return (int) (long) jedis.zcard(delayedKey);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get delayed queue size: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public int inFlightSize() {
+        if (!reliable) {
+            return 0;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            return (int) (long) jedis.zcard(inflightKey);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get in-flight count: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * How long the job workers would get next has been ready; 0 when nothing is
+     */
+    public long headWaitMs() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<Tuple> head = jedis.zrangeWithScores(queueKeyBytes, 0, 0);
+            if (head.isEmpty()) {
+                return 0;
+            }
+            byte[] payload = jedis.hget(jobsKeyBytes, head.getFirst().getBinaryElement());
+            if (payload == null) {
+                return 0;
+            }
+            long readyAt = PriorityScore.readyAtMillis(head.getFirst().getScore(),
+                    jobCodec.decode(payload).getPriority(), lowAgingMs);
+            return readyAt > 0 ? Math.max(System.currentTimeMillis() - readyAt, 0) : 0;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get head-of-queue wait: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class EncodedJob {
+        private final PaymentJob job;
+        private final byte[] id;
+        private final byte[] payload;
+        private final double score;
+    }
+
+    private static byte[] scoredMember(double readyScore, byte[] jobId) {
+        byte[] prefix = (readyScore + SCORE_SEPARATOR).getBytes(StandardCharsets.UTF_8);
+        byte[] member = new byte[prefix.length + jobId.length];
+        System.arraycopy(prefix, 0, member, 0, prefix.length);
+        System.arraycopy(jobId, 0, member, prefix.length, jobId.length);
+        return member;
+    }
+
+    private static double scoreOf(byte[] scoredMember) {
+        for (int i = 0; i < scoredMember.length; i++) {
+            if (scoredMember[i] == '|') {
+                return Double.parseDouble(new String(scoredMember, 0, i, StandardCharsets.UTF_8));
+            }
+        }
+        throw new IllegalArgumentException("Not a scored member");
+    }
+
+    private static byte[] jobIdOf(byte[] scoredMember) {
+        for (int i = 0; i < scoredMember.length; i++) {
+            if (scoredMember[i] == '|') {
+                return Arrays.copyOfRange(scoredMember, i + 1, scoredMember.length);
+            }
+        }
+        throw new IllegalArgumentException("Not a scored member");
+    }
+
+    /**
+     * Strict priority, then FIFO by the time the job became ready
+     */
+    private double priorityScore(PaymentJob job, long readyAtMillis) {
+        return PriorityScore.of(job.getPriority(), readyAtMillis, lowAgingMs);
+    }
+
+    private void recordWait(PaymentJob job, double score) {
+        long readyAt = PriorityScore.readyAtMillis(score, job.getPriority(), lowAgingMs);
+        if (readyAt > 0) {
+            queueWaitStats.record(job.getPriority(), System.currentTimeMillis() - readyAt);
+        }
+    }
+
+    public String getQueueKey() {
+        return queueKey;
+    }
+
+    public String getDelayedKey() {
+        return delayedKey;
+    }
+
+    public String getInflightKey() {
+        return inflightKey;
+    }
+
     public boolean isConnected() {
         try (Jedis jedis = jedisPool.getResource()) {
             String response = jedis.ping();
@@ -0,0 +1,887 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.XAutoClaimParams;
+import redis.clients.jedis.params.XClaimParams;
+import redis.clients.jedis.params.XPendingParams;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.ScanResult;
+import redis.clients.jedis.resps.StreamGroupInfo;
+import redis.clients.jedis.resps.Tuple;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JobQueue on a Redis Stream read through a consumer group, so several app nodes share
+ * one queue with pending-entry tracking per consumer.
+ *
+ * Jobs are delivered in arrival order (a stream has no priority). A job stays pending
+ * until acked; entries whose consumer died are taken over with XAUTOCLAIM once idle for
+ * claimIdleMs, and entries delivered more than maxDeliveries times go to the dead letter
+ * queue. Acked entries are deleted, so XLEN minus pending is the ready backlog.
+ *
+ * Each entry's id is indexed by jobId, so a job can be cancelled (XDEL) until a consumer
+ * is handed it. Without priorities there is nothing to reprioritize, so that isn't supported.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.queue.type", havingValue = "stream")
+public class RedisStreamJobQueue implements JobQueue {
+
+    public static final String DEFAULT_STREAM_KEY = "payment_jobs:{stream}";
+
+    private static final byte[] JOB_FIELD = SafeEncoder.encode("job");
+    private static final byte[] NEW_ENTRIES = SafeEncoder.encode(">");
+    private static final int ENQUEUE_CHUNK_SIZE = 500;
+    private static final String DELAYED_SCAN_START = "d:0";
+
+    // XADDs the payload of each ARGV (jobId, payload) pair to KEYS[1] and indexes the new
+    // entry id under the jobId in KEYS[2]. Returns the number of entries added.
+    private static final LuaScript ENQUEUE_SCRIPT = new LuaScript("""
+            for i = 1, #ARGV, 2 do
+                redis.call('HSET', KEYS[2], ARGV[i], redis.call('XADD', KEYS[1], '*', 'job', ARGV[i + 1]))
+            end
+            return #ARGV / 2
+            """);
+
+    // Moves up to ARGV[2] delayed jobs due at ARGV[1] onto the stream in one atomic step.
+    // Delayed members are jobIds with their payload in KEYS[3]; a member with no payload
+    // there was scheduled before the index existed and is the payload itself.
+    // Returns {moved count, due time of the next delayed job or -1}
+    private static final LuaScript PROMOTE_DUE_SCRIPT = new LuaScript("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+            for _, member in ipairs(due) do
+                local payload = redis.call('HGET', KEYS[3], member)
+                if payload then
+                    redis.call('HDEL', KEYS[3], member)
+                    redis.call('HSET', KEYS[4], member, redis.call('XADD', KEYS[2], '*', 'job', payload))
+                else
+                    redis.call('XADD', KEYS[2], '*', 'job', member)
+                end
+            end
+            if #due > 0 then
+                redis.call('ZREM', KEYS[1], unpack(due))
+            end
+            local nextDue = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+            return {#due, nextDue[2] or '-1'}
+            """);
+
+    // XACKs and XDELs each ARGV (entry id, jobId) pair after the group name ARGV[1], and drops
+    // the jobId's index entry (KEYS[2]) unless it already names a newer entry (a requeue)
+    private static final LuaScript ACK_SCRIPT = new LuaScript("""
+            for i = 2, #ARGV, 2 do
+                redis.call('XACK', KEYS[1], ARGV[1], ARGV[i])
+                redis.call('XDEL', KEYS[1], ARGV[i])
+                if redis.call('HGET', KEYS[2], ARGV[i + 1]) == ARGV[i] then
+                    redis.call('HDEL', KEYS[2], ARGV[i + 1])
+                end
+            end
+            return (#ARGV - 1) / 2
+            """);
+
+    // Removes job ARGV[1] if it is scheduled (KEYS[1], payload in KEYS[2]) or its stream
+    // entry (KEYS[3], indexed in KEYS[4]) hasn't been delivered: delivered entries are
+    // pending for group ARGV[2] until acked, and deleted then. Returns 1 if removed.
+    private static final LuaScript CANCEL_SCRIPT = new LuaScript("""
+            if redis.call('ZREM', KEYS[1], ARGV[1]) == 1 then
+                redis.call('HDEL', KEYS[2], ARGV[1])
+                return 1
+            end
+            local id = redis.call('HGET', KEYS[4], ARGV[1])
+            if not id or #redis.call('XPENDING', KEYS[3], ARGV[2], id, id, 1) > 0 then
+                return 0
+            end
+            redis.call('HDEL', KEYS[4], ARGV[1])
+            return redis.call('XDEL', KEYS[3], id)
+            """);
+
+    private final JedisPool jedisPool;
+    private final JobCodec jobCodec;
+    private final DeadLetterQueue deadLetterQueue;
+
+    private final String streamKey;
+    private final byte[] streamKeyBytes;
+    // Delayed jobs (payloads scored by due time); shares the stream's hash tag
+    private final String delayedKey;
+    private final byte[] delayedKeyBytes;
+    private final byte[] delayedJobsKeyBytes;
+    // Stream entry id of every job on the stream, by jobId
+    private final byte[] entriesKeyBytes;
+    private final byte[] group;
+    private final byte[] consumer;
+
+    // XREADGROUP BLOCK parks a connection, so each worker thread gets its own
+    private final String redisHost;
+    private final int redisPort;
+    private final ThreadLocal<Jedis> blockingConnection = new ThreadLocal<>();
+    private final Set<Jedis> blockingConnections = ConcurrentHashMap.newKeySet();
+
+    // Stream entry id of every job handed out on this node, keyed by job instance
+    private final Map<PaymentJob, byte[]> entryIds = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    // Entries taken over from dead consumers, handed out before new ones
+    private final ConcurrentLinkedQueue<PaymentJob> claimed = new ConcurrentLinkedQueue<>();
+
+    // Where the next XAUTOCLAIM picks up; back to 0-0 once it has gone through the whole PEL
+    private volatile byte[] claimCursor = SafeEncoder.encode("0-0");
+
+    @Value("${payment.queue.stream.claim-idle-ms:30000}")
+    private long claimIdleMs = 30000;
+
+    @Value("${payment.queue.stream.claim-interval-ms:5000}")
+    private long claimIntervalMs = 5000;
+
+    @Value("${payment.queue.stream.claim-batch-size:100}")
+    private int claimBatchSize = 100;
+
+    @Value("${payment.queue.stream.max-deliveries:5}")
+    private int maxDeliveries = 5;
+
+    @Value("${payment.queue.delayed.promoter-enabled:true}")
+    private boolean promoterEnabled = true;
+
+    @Value("${payment.queue.delayed.promote-batch-size:500}")
+    private int promoteBatchSize = 500;
+
+    @Value("${payment.queue.delayed.max-idle-ms:1000}")
+    private long promoterMaxIdleMs = 1000;
+
+    private DelayedJobPromoter promoter;
+    private ScheduledExecutorService claimer;
+
+    // Wakes sleep-polling workers when jobs become ready without an enqueue behind them
+    @Autowired(required = false)
+    private WorkAvailableSignal workAvailableSignal;
+
+    @Autowired
+    public RedisStreamJobQueue(JedisPool jedisPool, JobCodec jobCodec, DeadLetterQueue deadLetterQueue,
+                               @Value("${spring.data.redis.host:redis}") String redisHost,
+                               @Value("${spring.data.redis.port:6379}") int redisPort,
+                               @Value("${payment.queue.stream.group:payment-workers}") String group,
+                               @Value("${payment.queue.stream.consumer:}") String consumer) {
+        this(jedisPool, jobCodec, deadLetterQueue, redisHost, redisPort, DEFAULT_STREAM_KEY, group,
+                consumer.isBlank() ? defaultConsumerName() : consumer);
+    }
+
+    public RedisStreamJobQueue(JedisPool jedisPool, JobCodec jobCodec, DeadLetterQueue deadLetterQueue,
+                               String redisHost, int redisPort, String streamKey, String group, String consumer) {
+        this.jedisPool = jedisPool;
+        this.jobCodec = jobCodec;
+        this.deadLetterQueue = deadLetterQueue;
+        this.redisHost = redisHost;
+        this.redisPort = redisPort;
+        this.streamKey = streamKey;
+        this.streamKeyBytes = SafeEncoder.encode(streamKey);
+        this.delayedKey = streamKey + ":delayed";
+        this.delayedKeyBytes = SafeEncoder.encode(delayedKey);
+        this.delayedJobsKeyBytes = SafeEncoder.encode(streamKey + ":delayed-jobs");
+        this.entriesKeyBytes = SafeEncoder.encode(streamKey + ":entries");
+        this.group = SafeEncoder.encode(group);
+        this.consumer = SafeEncoder.encode(consumer);
+    }
+
+    private static String defaultConsumerName() {
+        try {
+            return InetAddress.getLocalHost().getHostName() + "-" + ProcessHandle.current().pid();
+        } catch (Exception e) {
+            return "consumer-" + ProcessHandle.current().pid();
+        }
+    }
+
+    @PostConstruct
+    public void startBackgroundTasks() {
+        createGroup();
+
+        if (promoterEnabled) {
+            promoter = new DelayedJobPromoter(this::promoteDueJobs, promoteBatchSize, promoterMaxIdleMs, 2000);
+            promoter.start();
+        }
+
+        claimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stream-claimer[" + streamKey + "]");
+            t.setDaemon(true);
+            return t;
+        });
+        long heartbeatMs = Math.max(claimIdleMs / 3, 100);
+        claimer.scheduleWithFixedDelay(this::touchPendingEntries, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        claimer.scheduleWithFixedDelay(() -> claimStaleEntries(claimIdleMs),
+                claimIntervalMs, claimIntervalMs, TimeUnit.MILLISECONDS);
+
+        System.out.println("🌊 Stream job queue " + streamKey + " (group=" + SafeEncoder.encode(group) +
+                ", consumer=" + SafeEncoder.encode(consumer) + ")");
+    }
+
+    /**
+     * XGROUP CREATE ... MKSTREAM from the start of the stream; an existing group is kept.
+     * If Redis is down at startup, the first read that hits NOGROUP creates it instead.
+     */
+    private void createGroup() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.xgroupCreate(streamKeyBytes, group, SafeEncoder.encode("0"), true);
+        }
+        catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("BUSYGROUP")) {
+                System.err.println("❌ Failed to create consumer group: " + e.getMessage());
+            }
+        }
+        catch (Exception e) {
+            System.err.println("⚠️ Could not create consumer group yet: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (promoter != null) {
+            promoter.stop();
+        }
+        if (claimer != null) {
+            claimer.shutdownNow();
+        }
+        for (Jedis jedis : blockingConnections) {
+            closeQuietly(jedis);
+        }
+        blockingConnections.clear();
+    }
+
+    @Override
+    public void enqueue(PaymentJob job) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            append(jedis, List.of(job), List.of(jobCodec.encode(job)));
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to enqueue job: " + e.getMessage());
+            throw new RuntimeException("Failed to enqueue job", e);
+        }
+    }
+
+    /**
+     * Serializes jobs in parallel, then one script call per chunk
+     */
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs) {
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        List<PaymentJob> ordered = List.copyOf(jobs);
+        List<byte[]> payloads = ordered.parallelStream().map(jobCodec::encode).toList();
+        try (Jedis jedis = jedisPool.getResource()) {
+            append(jedis, ordered, payloads);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to enqueue " + jobs.size() + " jobs: " + e.getMessage());
+            throw new RuntimeException("Failed to enqueue jobs", e);
+        }
+    }
+
+    /**
+     * XADD the payloads and index each entry under its job's id
+     */
+    private void append(Jedis jedis, List<PaymentJob> jobs, List<byte[]> payloads) {
+        for (int from = 0; from < jobs.size(); from += ENQUEUE_CHUNK_SIZE) {
+            int to = Math.min(from + ENQUEUE_CHUNK_SIZE, jobs.size());
+            List<byte[]> args = new ArrayList<>((to - from) * 2);
+            for (int i = from; i < to; i++) {
+                args.add(SafeEncoder.encode(jobIdOf(jobs.get(i))));
+                args.add(payloads.get(i));
+            }
+            ENQUEUE_SCRIPT.evalBinary(jedis, List.of(streamKeyBytes, entriesKeyBytes), args);
+        }
+    }
+
+    /**
+     * The id the job is indexed under; builder-made jobs may lack one
+     */
+    private static String jobIdOf(PaymentJob job) {
+        if (job.getJobId() == null) {
+            job.setJobId(UUID.randomUUID().toString());
+        }
+        return job.getJobId();
+    }
+
+    /**
+     * Streams can't hold entries back, so delayed jobs wait in a ZSET of jobIds (payloads
+     * alongside in a hash) until the promoter appends them to the stream
+     */
+    @Override
+    public void schedule(PaymentJob job, Instant dueAt) {
+        long dueMillis = dueAt.toEpochMilli();
+        if (dueMillis <= System.currentTimeMillis()) {
+            enqueue(job);
+            return;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            byte[] id = SafeEncoder.encode(jobIdOf(job));
+            // Together, so the promoter never finds a jobId without its payload
+            Transaction tx = jedis.multi();
+            tx.hset(delayedJobsKeyBytes, id, jobCodec.encode(job));
+            tx.zadd(delayedKeyBytes, dueMillis, id);
+            tx.exec();
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to schedule job: " + e.getMessage());
+            throw new RuntimeException("Failed to schedule job", e);
+        }
+
+        if (promoter != null) {
+            promoter.onScheduled(dueMillis);
+        }
+    }
+
+    public DelayedJobPromoter.PromotionResult promoteDueJobs(long nowMillis, int batchSize) {
+        DelayedJobPromoter.PromotionResult result;
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<?> reply = (List<?>) PROMOTE_DUE_SCRIPT.evalBinary(jedis,
+                    List.of(delayedKeyBytes, streamKeyBytes, delayedJobsKeyBytes, entriesKeyBytes),
+                    List.of(SafeEncoder.encode(String.valueOf(nowMillis)), SafeEncoder.encode(String.valueOf(batchSize))));
+            result = new DelayedJobPromoter.PromotionResult(
+                    (int) LuaScript.toLong(reply.get(0)), LuaScript.toLong(reply.get(1)));
+        }
+        if (result.getPromoted() > 0 && workAvailableSignal != null) {
+            // Promoted retries have no producer to announce them
+            workAvailableSignal.publish();
+        }
+        return result;
+    }
+
+    @Override
+    public PaymentJob dequeue() throws InterruptedException {
+        List<PaymentJob> jobs = dequeueBatch(1);
+        return jobs.isEmpty() ? null : jobs.getFirst();
+    }
+
+    @Override
+    public List<PaymentJob> dequeueBatch(int max) {
+        List<PaymentJob> jobs = takeClaimed(max);
+        if (jobs.size() >= max) {
+            return jobs;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            jobs.addAll(readGroup(jedis, max - jobs.size(), 0));
+        }
+        catch (JedisConnectionException e) {
+            System.err.println("⚠️ Redis connection lost during stream read: " + e.getMessage());
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to read from stream: " + e.getMessage());
+        }
+        return jobs;
+    }
+
+    @Override
+    public PaymentJob dequeue(Duration maxWait) throws InterruptedException {
+        List<PaymentJob> jobs = dequeueBatch(1, maxWait);
+        return jobs.isEmpty() ? null : jobs.getFirst();
+    }
+
+    /**
+     * One XREADGROUP COUNT max BLOCK maxWait on the calling thread's dedicated connection.
+     * Connection errors are rethrown so the worker can back off instead of spinning.
+     */
+    @Override
+    public List<PaymentJob> dequeueBatch(int max, Duration maxWait) throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+        }
+
+        List<PaymentJob> jobs = takeClaimed(max);
+        if (!jobs.isEmpty()) {
+            return jobs;
+        }
+
+        Jedis jedis = getBlockingConnection();
+        try {
+            // BLOCK 0 would wait forever
+            return readGroup(jedis, max, (int) Math.max(maxWait.toMillis(), 1));
+        }
+        catch (JedisConnectionException e) {
+            System.err.println("⚠️ Redis connection lost during blocking stream read: " + e.getMessage());
+            releaseBlockingConnection();
+            throw e;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to read from stream: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<PaymentJob> readGroup(Jedis jedis, int count, int blockMs) {
+        XReadGroupParams params = XReadGroupParams.xReadGroupParams().count(count);
+        if (blockMs > 0) {
+            params.block(blockMs);
+        }
+
+        List<Object> reply;
+        try {
+            reply = jedis.xreadGroup(group, consumer, params, Map.entry(streamKeyBytes, NEW_ENTRIES));
+        } catch (JedisDataException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("NOGROUP")) {
+                createGroup();
+                return List.of();
+            }
+            throw e;
+        }
+        if (reply == null || reply.isEmpty()) {
+            return List.of();
+        }
+
+        // [[stream key, entries]] - only one stream is read
+        List<?> streamReply = (List<?>) reply.getFirst();
+        return toJobs(jedis, (List<?>) streamReply.get(1));
+    }
+
+    /**
+     * Decode [[id, [field, value, ...]], ...] entries and remember their ids for ack.
+     * An entry that can't be decoded never will be, so it is acked and dropped.
+     */
+    private List<PaymentJob> toJobs(Jedis jedis, List<?> entries) {
+        List<PaymentJob> jobs = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            List<?> parts = (List<?>) entry;
+            byte[] id = (byte[]) parts.get(0);
+            byte[] payload = jobField((List<?>) parts.get(1));
+            try {
+                PaymentJob job = jobCodec.decode(payload);
+                entryIds.put(job, id);
+                jobs.add(job);
+            } catch (Exception e) {
+                System.err.println("❌ Failed to deserialize stream entry, dropping it: " + e.getMessage());
+                removeEntries(jedis, List.of(id), Collections.singletonList(null));
+            }
+        }
+        return jobs;
+    }
+
+    private static byte[] jobField(List<?> fields) {
+        if (fields == null) {
+            return null; // Entry was deleted while pending
+        }
+        for (int i = 0; i + 1 < fields.size(); i += 2) {
+            if (Arrays.equals((byte[]) fields.get(i), JOB_FIELD)) {
+                return (byte[]) fields.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private List<PaymentJob> takeClaimed(int max) {
+        List<PaymentJob> jobs = new ArrayList<>();
+        PaymentJob job;
+        while (jobs.size() < max && (job = claimed.poll()) != null) {
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    @Override
+    public void ack(PaymentJob job) {
+        ackAll(List.of(job));
+    }
+
+    /**
+     * XACK and XDEL for every job in one script call
+     */
+    @Override
+    public void ackAll(Collection<PaymentJob> jobs) {
+        List<byte[]> ids = new ArrayList<>(jobs.size());
+        List<String> jobIds = new ArrayList<>(jobs.size());
+        for (PaymentJob job : jobs) {
+            byte[] id = entryIds.remove(job);
+            if (id != null) {
+                ids.add(id);
+                jobIds.add(job.getJobId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            removeEntries(jedis, ids, jobIds);
+        }
+        catch (Exception e) {
+            // The jobs are already handled; worst case they are claimed and run once more
+            System.err.println("⚠️ Failed to ack " + ids.size() + " stream entries: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop refreshing the jobs' entries. They go idle, and claimStaleEntries hands them out
+     * again (counting the delivery) or dead-letters them once maxDeliveries is reached.
+     */
+    @Override
+    public void abandon(Collection<PaymentJob> jobs) {
+        int dropped = 0;
+        for (PaymentJob job : jobs) {
+            if (entryIds.remove(job) != null) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            System.out.println("🪂 Abandoned " + dropped + " stream entries; they are claimed again after " +
+                    claimIdleMs + "ms idle");
+        }
+    }
+
+    /**
+     * Ack and delete entries, and drop their jobIds' index entries; a null jobId (an entry
+     * that couldn't be decoded) leaves the index alone
+     */
+    private void removeEntries(Jedis jedis, List<byte[]> ids, List<String> jobIds) {
+        List<byte[]> args = new ArrayList<>(ids.size() * 2 + 1);
+        args.add(group);
+        for (int i = 0; i < ids.size(); i++) {
+            args.add(ids.get(i));
+            args.add(SafeEncoder.encode(jobIds.get(i) != null ? jobIds.get(i) : ""));
+        }
+        ACK_SCRIPT.evalBinary(jedis, List.of(streamKeyBytes, entriesKeyBytes), args);
+    }
+
+    /**
+     * Reset the idle time of entries this node is still working on (XCLAIM JUSTID to
+     * ourselves), so long-running jobs aren't claimed by another consumer
+     */
+    public int touchPendingEntries() {
+        byte[][] ids;
+        synchronized (entryIds) {
+            ids = entryIds.values().toArray(new byte[0][]);
+        }
+        if (ids.length == 0) {
+            return 0;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.xclaimJustId(streamKeyBytes, group, consumer, 0, XClaimParams.xClaimParams(), ids).size();
+        }
+        catch (Exception e) {
+            System.err.println("⚠️ Failed to refresh " + ids.length + " pending stream entries: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Take over entries another consumer left idle for minIdleMs. Entries already delivered
+     * more than maxDeliveries times go to the dead letter queue; the rest are handed to
+     * workers on this node before any new entries.
+     */
+    public int claimStaleEntries(long minIdleMs) {
+        if (!claimed.isEmpty()) {
+            return 0; // Still working through the last claim
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            List<Object> reply = jedis.xautoclaim(streamKeyBytes, group, consumer, minIdleMs,
+                    claimCursor, XAutoClaimParams.xAutoClaimParams().count(claimBatchSize));
+            claimCursor = (byte[]) reply.get(0);
+            List<?> entries = (List<?>) reply.get(1);
+            if (entries.isEmpty()) {
+                return 0;
+            }
+
+            Map<String, Long> deliveries = deliveryCounts(jedis, entries);
+            List<byte[]> exhausted = new ArrayList<>();
+            List<String> exhaustedJobIds = new ArrayList<>();
+            int reclaimed = 0;
+
+            for (PaymentJob job : toJobs(jedis, entries)) {
+                byte[] id = entryIds.get(job);
+                Long delivered = deliveries.get(SafeEncoder.encode(id));
+                if (delivered == null) {
+                    // Acked or deleted since it was claimed
+                    entryIds.remove(job);
+                } else if (delivered > maxDeliveries) {
+                    entryIds.remove(job);
+                    exhausted.add(id);
+                    exhaustedJobIds.add(job.getJobId());
+                    deadLetterQueue.addToDeadLetterQueue(job,
+                            "Delivered " + delivered + " times without being acked (consumer crashed?)");
+                } else {
+                    claimed.add(job);
+                    reclaimed++;
+                }
+            }
+
+            if (!exhausted.isEmpty()) {
+                removeEntries(jedis, exhausted, exhaustedJobIds);
+            }
+            System.out.println("♻️ Claimed " + reclaimed + " stale stream entries, dead-lettered " + exhausted.size());
+            if (reclaimed > 0 && workAvailableSignal != null) {
+                // Claimed for this node's workers only, so no need to tell the others
+                workAvailableSignal.wakeOne();
+            }
+            return reclaimed;
+        }
+        catch (Exception e) {
+            System.err.println("⚠️ Failed to claim stale stream entries: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Delivery counts of just-claimed entries, one XPENDING per id so this consumer's
+     * other pending entries can't crowd them out
+     */
+    private Map<String, Long> deliveryCounts(Jedis jedis, List<?> entries) {
+        List<Response<List<Object>>> replies = new ArrayList<>(entries.size());
+        Pipeline pipeline = jedis.pipelined();
+        for (Object entry : entries) {
+            byte[] id = (byte[]) ((List<?>) entry).get(0);
+            replies.add(pipeline.xpending(streamKeyBytes, group,
+                    XPendingParams.xPendingParams(id, id, 1).consumer(consumer)));
+        }
+        pipeline.sync();
+
+        // [[id, consumer, idle ms, delivery count]] per id, empty if no longer pending
+        Map<String, Long> counts = new HashMap<>();
+        for (Response<List<Object>> reply : replies) {
+            for (Object row : reply.get()) {
+                List<?> fields = (List<?>) row;
+                counts.put(SafeEncoder.encode((byte[]) fields.get(0)), (Long) fields.get(3));
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public void releaseBlockingConnection() {
+        Jedis jedis = blockingConnection.get();
+        if (jedis != null) {
+            blockingConnection.remove();
+            blockingConnections.remove(jedis);
+            closeQuietly(jedis);
+        }
+    }
+
+    private Jedis getBlockingConnection() {
+        Jedis jedis = blockingConnection.get();
+        if (jedis == null) {
+            jedis = new Jedis(redisHost, redisPort);
+            blockingConnection.set(jedis);
+            blockingConnections.add(jedis);
+        }
+        return jedis;
+    }
+
+    private void closeQuietly(Jedis jedis) {
+        try {
+            jedis.close();
+        } catch (Exception ignored) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    /**
+     * One script call; false once a consumer has been handed the job
+     */
+    @Override
+    public boolean cancel(String jobId) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            long removed = LuaScript.toLong(CANCEL_SCRIPT.evalBinary(jedis,
+                    List.of(delayedKeyBytes, delayedJobsKeyBytes, streamKeyBytes, entriesKeyBytes),
+                    List.of(SafeEncoder.encode(jobId), group)));
+            if (removed == 0) {
+                return false;
+            }
+            System.out.println("🚫 Cancelled job " + jobId);
+            return true;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to cancel job " + jobId + ": " + e.getMessage());
+            throw new RuntimeException("Failed to cancel job", e);
+        }
+    }
+
+    @Override
+    public boolean reprioritize(String jobId, PaymentJob.Priority priority) {
+        throw new UnsupportedOperationException(
+                "RedisStreamJobQueue delivers in arrival order and has no priorities to change");
+    }
+
+    /**
+     * Jobs this node claimed from dead consumers, then the entries after the group's last
+     * delivered id - what XREADGROUP hands out next
+     */
+    @Override
+    public List<PaymentJob> peek(int n) {
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (PaymentJob job : claimed) {
+            if (jobs.size() >= n) {
+                return jobs;
+            }
+            jobs.add(job);
+        }
+        if (jobs.size() >= n) {
+            return jobs;
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            String lastDelivered = "0-0";
+            String groupName = SafeEncoder.encode(group);
+            for (StreamGroupInfo info : jedis.xinfoGroups(streamKey)) {
+                if (info.getName().equals(groupName)) {
+                    lastDelivered = info.getLastDeliveredId().toString();
+                }
+            }
+            jobs.addAll(decodeEntries(jedis.xrange(streamKeyBytes, SafeEncoder.encode("(" + lastDelivered),
+                    SafeEncoder.encode("+"), n - jobs.size())));
+            return jobs;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to peek at stream: " + e.getMessage());
+            throw new RuntimeException("Failed to peek at stream", e);
+        }
+    }
+
+    /**
+     * Every stream entry in id order, pending ones included, then the delayed jobs. The
+     * cursor is "s:<last entry id>" while on the stream and "d:<ZSCAN cursor>" after it.
+     */
+    @Override
+    public JobScanPage scan(String cursor, int count) {
+        String at = cursor == null ? JobScanPage.START : cursor;
+        boolean onStream = at.equals(JobScanPage.START) || at.startsWith("s:");
+        if (!onStream && !at.startsWith("d:")) {
+            throw new IllegalArgumentException("Not a stream queue cursor: " + cursor);
+        }
+        int limit = Math.max(count, 1);
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            if (onStream) {
+                String start = at.equals(JobScanPage.START) ? "-" : "(" + at.substring(2);
+                List<Object> entries = jedis.xrange(streamKeyBytes, SafeEncoder.encode(start),
+                        SafeEncoder.encode("+"), limit);
+                String next = entries.size() < limit ? DELAYED_SCAN_START
+                        : "s:" + SafeEncoder.encode((byte[]) ((List<?>) entries.getLast()).get(0));
+                return new JobScanPage(next, decodeEntries(entries));
+            }
+
+            ScanResult<Tuple> page = jedis.zscan(delayedKeyBytes, SafeEncoder.encode(at.substring(2)),
+                    new ScanParams().count(limit));
+            List<PaymentJob> jobs = new ArrayList<>(page.getResult().size());
+            if (!page.getResult().isEmpty()) {
+                byte[][] members = page.getResult().stream().map(Tuple::getBinaryElement).toArray(byte[][]::new);
+                List<byte[]> payloads = jedis.hmget(delayedJobsKeyBytes, members);
+                for (int i = 0; i < members.length; i++) {
+                    // Scheduled before the index existed: the member is the payload
+                    decodeInto(jobs, payloads.get(i) != null ? payloads.get(i) : members[i]);
+                }
+            }
+            String next = page.isCompleteIteration() ? JobScanPage.START : "d:" + page.getCursor();
+            return new JobScanPage(next, jobs);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to scan stream queue: " + e.getMessage());
+            throw new RuntimeException("Failed to scan stream queue", e);
+        }
+    }
+
+    /**
+     * Decode XRANGE entries without taking them; entries that can't be read are skipped
+     */
+    private List<PaymentJob> decodeEntries(List<?> entries) {
+        List<PaymentJob> jobs = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            byte[] payload = jobField((List<?>) ((List<?>) entry).get(1));
+            if (payload != null) {
+                decodeInto(jobs, payload);
+            }
+        }
+        return jobs;
+    }
+
+    private void decodeInto(List<PaymentJob> jobs, byte[] payload) {
+        try {
+            jobs.add(jobCodec.decode(payload));
+        } catch (Exception e) {
+            System.err.println("⚠️ Skipping unreadable stream job: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Entries not yet delivered to any consumer: XLEN minus pending, in one pipeline
+     */
+    @Override
+    public int size() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            Response<Long> length = pipeline.xlen(streamKeyBytes);
+            Response<Object> pending = pipeline.xpending(streamKeyBytes, group);
+            pipeline.sync();
+            return (int) Math.max(length.get() - pendingCount(pending.get()), 0);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get stream queue size: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public int delayedSize() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return (int) (long) jedis.zcard(delayedKey);
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get delayed queue size: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public int inFlightSize() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return (int) pendingCount(jedis.xpending(streamKeyBytes, group));
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get pending entry count: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // XPENDING summary: [count, smallest id, greatest id, [[consumer, count], ...]]
+    private static long pendingCount(Object summary) {
+        return (Long) ((List<?>) summary).getFirst();
+    }
+
+    public String getStreamKey() {
+        return streamKey;
+    }
+
+    public String getDelayedKey() {
+        return delayedKey;
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * JobQueue spread over N RedisPriorityJobQueue shards, so producers and workers don't
+ * all hit one hot key. Jobs go to a shard by paymentId hash; each shard's keys share a
+ * cluster hash tag ("payment_jobs:{3}", "payment_jobs:{3}:jobs", ...) so its Lua
+ * scripts stay in one slot while different shards spread across the cluster.
+ *
+ * Workers pull round-robin, each thread starting from a random shard.
+ */
+@Component
+@ConditionalOnProperty(name = "payment.queue.type", havingValue = "sharded")
+public class ShardedRedisJobQueue implements JobQueue {
+
+    // Shortest time a blocking dequeue waits on one shard before moving to the next
+    private static final long MIN_BLOCKING_SLICE_MS = 100;
+
+    private final JedisPool jedisPool;
+    private final List<RedisPriorityJobQueue> shards;
+
+    // Shard each worker thread pulls from next
+    private final ThreadLocal<Integer> cursor;
+
+    @Autowired
+    public ShardedRedisJobQueue(JedisPool jedisPool, JobCodec jobCodec,
+                                @Value("${spring.data.redis.host:redis}") String redisHost,
+                                @Value("${spring.data.redis.port:6379}") int redisPort,
+                                @Value("${payment.queue.shards:8}") int shardCount,
+                                AutowireCapableBeanFactory beanFactory) {
+        this(jedisPool, jobCodec, redisHost, redisPort, shardCount);
+        // Shards aren't beans themselves; give them the same payment.queue.* settings
+        for (RedisPriorityJobQueue shard : shards) {
+            beanFactory.autowireBean(shard);
+        }
+    }
+
+    public ShardedRedisJobQueue(JedisPool jedisPool, JobCodec jobCodec,
+                                String redisHost, int redisPort, int shardCount) {
+        this(jedisPool, jobCodec, redisHost, redisPort, shardCount, RedisPriorityJobQueue.DEFAULT_QUEUE_KEY);
+    }
+
+    /**
+     * Shards under keyPrefix instead of the default queue key, e.g. for tests
+     */
+    public ShardedRedisJobQueue(JedisPool jedisPool, JobCodec jobCodec,
+                                String redisHost, int redisPort, int shardCount, String keyPrefix) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("payment.queue.shards must be at least 1");
+        }
+        this.jedisPool = jedisPool;
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new RedisPriorityJobQueue(jedisPool, jobCodec, redisHost, redisPort, shardKey(keyPrefix, i)));
+        }
+        this.cursor = ThreadLocal.withInitial(() -> ThreadLocalRandom.current().nextInt(shardCount));
+    }
+
+    public static String shardKey(int shard) {
+        return shardKey(RedisPriorityJobQueue.DEFAULT_QUEUE_KEY, shard);
+    }
+
+    private static String shardKey(String keyPrefix, int shard) {
+        return keyPrefix + ":{" + shard + "}";
+    }
+
+    @PostConstruct
+    public void startBackgroundTasks() {
+        System.out.println("🧩 Sharded job queue with " + shards.size() + " shards");
+        for (RedisPriorityJobQueue shard : shards) {
+            shard.startBackgroundTasks();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (RedisPriorityJobQueue shard : shards) {
+            shard.shutdown();
+        }
+    }
+
+    @Override
+    public void enqueue(PaymentJob job) {
+        shardFor(job).enqueue(job);
+    }
+
+    /**
+     * One pipelined bulk enqueue per shard
+     */
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs) {
+        for (Map.Entry<RedisPriorityJobQueue, List<PaymentJob>> entry : groupByShard(jobs).entrySet()) {
+            entry.getKey().enqueueAll(entry.getValue());
+        }
+    }
+
+    @Override
+    public void enqueueAll(Collection<PaymentJob> jobs, ToLongFunction<PaymentJob> readyAtMillis) {
+        for (Map.Entry<RedisPriorityJobQueue, List<PaymentJob>> entry : groupByShard(jobs).entrySet()) {
+            entry.getKey().enqueueAll(entry.getValue(), readyAtMillis);
+        }
+    }
+
+    @Override
+    public void schedule(PaymentJob job, Instant dueAt) {
+        shardFor(job).schedule(job, dueAt);
+    }
+
+    /**
+     * One pass over the shards, starting at this thread's cursor
+     */
+    @Override
+    public PaymentJob dequeue() throws InterruptedException {
+        int start = cursor.get();
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = (start + i) % shards.size();
+            PaymentJob job = shards.get(shard).dequeue();
+            if (job != null) {
+                // Next pull starts at the following shard so busy shards can't starve the rest
+                cursor.set((shard + 1) % shards.size());
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sweeps every shard, then blocks on the cursor's shard for a slice of maxWait, and
+     * again until maxWait is up. Workers start on different shards, so between them the
+     * idle shards all have a blocked waiter, and a worker never sits out the whole
+     * timeout on one empty shard.
+     */
+    @Override
+    public PaymentJob dequeue(Duration maxWait) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        long sliceMs = Math.max(maxWait.toMillis() / shards.size(), MIN_BLOCKING_SLICE_MS);
+        while (true) {
+            PaymentJob job = dequeue();
+            if (job != null) {
+                return job;
+            }
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMs <= 0) {
+                return null;
+            }
+
+            int shard = cursor.get();
+            cursor.set((shard + 1) % shards.size());
+            job = shards.get(shard).dequeue(Duration.ofMillis(Math.min(sliceMs, remainingMs)));
+            if (job != null) {
+                return job;
+            }
+        }
+    }
+
+    @Override
+    public List<PaymentJob> dequeueBatch(int max) throws InterruptedException {
+        List<PaymentJob> jobs = new ArrayList<>();
+        int start = cursor.get();
+        for (int i = 0; i < shards.size() && jobs.size() < max; i++) {
+            jobs.addAll(shards.get((start + i) % shards.size()).dequeueBatch(max - jobs.size()));
+        }
+        cursor.set((start + 1) % shards.size());
+        return jobs;
+    }
+
+    @Override
+    public void ack(PaymentJob job) {
+        shardFor(job).ack(job);
+    }
+
+    @Override
+    public void ackAll(Collection<PaymentJob> jobs) {
+        for (Map.Entry<RedisPriorityJobQueue, List<PaymentJob>> entry : groupByShard(jobs).entrySet()) {
+            entry.getKey().ackAll(entry.getValue());
+        }
+    }
+
+    @Override
+    public void abandon(Collection<PaymentJob> jobs) {
+        for (Map.Entry<RedisPriorityJobQueue, List<PaymentJob>> entry : groupByShard(jobs).entrySet()) {
+            entry.getKey().abandon(entry.getValue());
+        }
+    }
+
+    @Override
+    public void requeue(Collection<PaymentJob> jobs) {
+        for (Map.Entry<RedisPriorityJobQueue, List<PaymentJob>> entry : groupByShard(jobs).entrySet()) {
+            entry.getKey().requeue(entry.getValue());
+        }
+    }
+
+    /**
+     * The shard is picked by paymentId, which a jobId alone doesn't give us, so ask each in turn
+     */
+    @Override
+    public boolean cancel(String jobId) {
+        for (RedisPriorityJobQueue shard : shards) {
+            if (shard.cancel(jobId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The payment names the job's shard, so only that one is asked
+     */
+    @Override
+    public boolean cancel(String jobId, UUID paymentId) {
+        if (paymentId == null) {
+            return cancel(jobId);
+        }
+        return shards.get(Math.floorMod(paymentId.hashCode(), shards.size())).cancel(jobId, paymentId);
+    }
+
+    @Override
+    public boolean reprioritize(String jobId, PaymentJob.Priority priority) {
+        for (RedisPriorityJobQueue shard : shards) {
+            if (shard.reprioritize(jobId, priority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The first n of each shard, merged by priority and age. Workers pull shards
+     * round-robin, so this is the order they'd get jobs in only roughly.
+     */
+    @Override
+    public List<PaymentJob> peek(int n) {
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (RedisPriorityJobQueue shard : shards) {
+            jobs.addAll(shard.peek(n));
+        }
+        jobs.sort(Comparator.comparingInt((PaymentJob job) -> job.getPriority() != null
+                        ? job.getPriority().getRank() : PaymentJob.Priority.NORMAL.getRank())
+                .thenComparing(PaymentJob::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return jobs.size() > n ? new ArrayList<>(jobs.subList(0, n)) : jobs;
+    }
+
+    /**
+     * Scans shard after shard; the cursor is "<shard>:<shard cursor>"
+     */
+    @Override
+    public JobScanPage scan(String cursor, int count) {
+        int shard = 0;
+        String shardCursor = JobScanPage.START;
+        if (cursor != null && cursor.contains(":")) {
+            shard = Integer.parseInt(cursor.substring(0, cursor.indexOf(':')));
+            shardCursor = cursor.substring(cursor.indexOf(':') + 1);
+        }
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalArgumentException("Invalid scan cursor: " + cursor);
+        }
+
+        JobScanPage page = shards.get(shard).scan(shardCursor, count);
+        if (!page.isComplete()) {
+            return new JobScanPage(shard + ":" + page.getCursor(), page.getJobs());
+        }
+        String next = shard + 1 < shards.size() ? (shard + 1) + ":" + JobScanPage.START : JobScanPage.START;
+        return new JobScanPage(next, page.getJobs());
+    }
+
+    @Override
+    public void releaseBlockingConnection() {
+        for (RedisPriorityJobQueue shard : shards) {
+            shard.releaseBlockingConnection();
+        }
+    }
+
+    @Override
+    public int size() {
+        return countAcrossShards(RedisPriorityJobQueue::getQueueKey);
+    }
+
+    @Override
+    public int delayedSize() {
+        return countAcrossShards(RedisPriorityJobQueue::getDelayedKey);
+    }
+
+    @Override
+    public int inFlightSize() {
+        return countAcrossShards(RedisPriorityJobQueue::getInflightKey);
+    }
+
+    @Override
+    public long duplicatesSuppressed() {
+        long total = 0;
+        for (RedisPriorityJobQueue shard : shards) {
+            total += shard.duplicatesSuppressed();
+        }
+        return total;
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * ZCARD of one key per shard, all in a single pipeline
+     */
+    private int countAcrossShards(Function<RedisPriorityJobQueue, String> key) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> counts = new ArrayList<>(shards.size());
+            for (RedisPriorityJobQueue shard : shards) {
+                counts.add(pipeline.zcard(key.apply(shard)));
+            }
+            pipeline.sync();
+
+            long total = 0;
+            for (Response<Long> count : counts) {
+                total += count.get();
+            }
+            return (int) total;
+        }
+        catch (Exception e) {
+            System.err.println("❌ Failed to get sharded queue size: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private RedisPriorityJobQueue shardFor(PaymentJob job) {
+        return shards.get(Math.floorMod(Objects.hashCode(job.getPaymentId()), shards.size()));
+    }
+
+    private Map<RedisPriorityJobQueue, List<PaymentJob>> groupByShard(Collection<PaymentJob> jobs) {
+        Map<RedisPriorityJobQueue, List<PaymentJob>> byShard = new LinkedHashMap<>();
+        for (PaymentJob job : jobs) {
+            byShard.computeIfAbsent(shardFor(job), shard -> new ArrayList<>()).add(job);
+        }
+        return byShard;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.narayan.paymentsystem.queue.codec;
+
+import com.example.narayan.paymentsystem.model.enums.PaymentMethodType;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Compact versioned binary format for PaymentJob.
+ *
+ * Layout (version 1, big-endian):
+ *   byte    version (0x01)
+ *   byte    flags - which optional fields follow
+ *   long*2  paymentId                         [FLAG_PAYMENT_ID]
+ *   int     amount, retryCount, maxTries
+ *   byte    priority ordinal
+ *   long    createdAt epoch millis            [FLAG_CREATED_AT]
+ *   long    scheduledFor epoch millis (UTC)   [FLAG_SCHEDULED_FOR]
+ *   long*2  jobId as UUID                     [FLAG_JOB_ID_UUID]
+ *   str     jobId as text                     [FLAG_JOB_ID_TEXT]
+ *   str     lastError                         [FLAG_LAST_ERROR]
+ *   long*2  merchantId                        [FLAG_MERCHANT_ID]
+ *   byte    paymentMethodType ordinal         [FLAG_PAYMENT_METHOD]
+ * where str is an int length followed by UTF-8 bytes.
+ *
+ * Timestamps keep millisecond precision. Payloads that are not binary (JSON written
+ * before this codec existed) are handed to the JSON codec.
+ */
+public class BinaryJobCodec implements JobCodec {
+
+    static final byte VERSION_1 = 0x01;
+
+    private static final int FLAG_PAYMENT_ID = 1;
+    private static final int FLAG_CREATED_AT = 1 << 1;
+    private static final int FLAG_SCHEDULED_FOR = 1 << 2;
+    private static final int FLAG_JOB_ID_UUID = 1 << 3;
+    private static final int FLAG_JOB_ID_TEXT = 1 << 4;
+    private static final int FLAG_LAST_ERROR = 1 << 5;
+    private static final int FLAG_MERCHANT_ID = 1 << 6;
+    private static final int FLAG_PAYMENT_METHOD = 1 << 7;
+
+    private static final byte NO_PRIORITY = -1;
+    private static final PaymentJob.Priority[] PRIORITIES = PaymentJob.Priority.values();
+    private static final PaymentMethodType[] PAYMENT_METHODS = PaymentMethodType.values();
+
+    private final JsonJobCodec legacyCodec = new JsonJobCodec();
+
+    @Override
+    public byte[] encode(PaymentJob job) {
+        int flags = 0;
+        int size = 2 + 12 + 1;
+
+        if (job.getPaymentId() != null) {
+            flags |= FLAG_PAYMENT_ID;
+            size += 16;
+        }
+        if (job.getCreatedAt() != null) {
+            flags |= FLAG_CREATED_AT;
+            size += 8;
+        }
+        if (job.getScheduledFor() != null) {
+            flags |= FLAG_SCHEDULED_FOR;
+            size += 8;
+        }
+
+        UUID jobUuid = parseCanonicalUuid(job.getJobId());
+        byte[] jobIdText = null;
+        if (jobUuid != null) {
+            flags |= FLAG_JOB_ID_UUID;
+            size += 16;
+        } else if (job.getJobId() != null) {
+            flags |= FLAG_JOB_ID_TEXT;
+            jobIdText = job.getJobId().getBytes(StandardCharsets.UTF_8);
+            size += 4 + jobIdText.length;
+        }
+
+        byte[] lastError = null;
+        if (job.getLastError() != null) {
+            flags |= FLAG_LAST_ERROR;
+            lastError = job.getLastError().getBytes(StandardCharsets.UTF_8);
+            size += 4 + lastError.length;
+        }
+        if (job.getMerchantId() != null) {
+            flags |= FLAG_MERCHANT_ID;
+            size += 16;
+        }
+        if (job.getPaymentMethodType() != null) {
+            flags |= FLAG_PAYMENT_METHOD;
+            size += 1;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION_1);
+        buffer.put((byte) flags);
+        if (job.getPaymentId() != null) {
+            buffer.putLong(job.getPaymentId().getMostSignificantBits());
+            buffer.putLong(job.getPaymentId().getLeastSignificantBits());
+        }
+        buffer.putInt(job.getAmount());
+        buffer.putInt(job.getRetryCount());
+        buffer.putInt(job.getMaxTries());
+        buffer.put(job.getPriority() != null ? (byte) job.getPriority().ordinal() : NO_PRIORITY);
+        if (job.getCreatedAt() != null) {
+            buffer.putLong(job.getCreatedAt().toEpochMilli());
+        }
+        if (job.getScheduledFor() != null) {
+            buffer.putLong(job.getScheduledFor().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (jobUuid != null) {
+            buffer.putLong(jobUuid.getMostSignificantBits());
+            buffer.putLong(jobUuid.getLeastSignificantBits());
+        } else if (jobIdText != null) {
+            putBytes(buffer, jobIdText);
+        }
+        if (lastError != null) {
+            putBytes(buffer, lastError);
+        }
+        if (job.getMerchantId() != null) {
+            buffer.putLong(job.getMerchantId().getMostSignificantBits());
+            buffer.putLong(job.getMerchantId().getLeastSignificantBits());
+        }
+        if (job.getPaymentMethodType() != null) {
+            buffer.put((byte) job.getPaymentMethodType().ordinal());
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public PaymentJob decode(byte[] payload) {
+        if (isBinary(payload)) {
+            return decodeBinary(payload);
+        }
+        return legacyCodec.decode(payload);
+    }
+
+    /**
+     * JSON payloads always start with '{', binary ones with a version byte
+     */
+    static boolean isBinary(byte[] payload) {
+        return payload.length > 0 && payload[0] == VERSION_1;
+    }
+
+    static PaymentJob decodeBinary(byte[] payload) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            buffer.get(); // version - only version 1 exists so far
+            int flags = buffer.get() & 0xFF;
+
+            PaymentJob job = new PaymentJob();
+            if ((flags & FLAG_PAYMENT_ID) != 0) {
+                job.setPaymentId(new UUID(buffer.getLong(), buffer.getLong()));
+            }
+            job.setAmount(buffer.getInt());
+            job.setRetryCount(buffer.getInt());
+            job.setMaxTries(buffer.getInt());
+            byte priority = buffer.get();
+            job.setPriority(priority == NO_PRIORITY ? null : PRIORITIES[priority]);
+            job.setCreatedAt((flags & FLAG_CREATED_AT) != 0 ? Instant.ofEpochMilli(buffer.getLong()) : null);
+            job.setScheduledFor((flags & FLAG_SCHEDULED_FOR) != 0
+                    ? LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneOffset.UTC)
+                    : null);
+            if ((flags & FLAG_JOB_ID_UUID) != 0) {
+                job.setJobId(new UUID(buffer.getLong(), buffer.getLong()).toString());
+            } else if ((flags & FLAG_JOB_ID_TEXT) != 0) {
+                job.setJobId(getString(buffer));
+            } else {
+                job.setJobId(null);
+            }
+            job.setLastError((flags & FLAG_LAST_ERROR) != 0 ? getString(buffer) : null);
+            if ((flags & FLAG_MERCHANT_ID) != 0) {
+                job.setMerchantId(new UUID(buffer.getLong(), buffer.getLong()));
+            }
+            if ((flags & FLAG_PAYMENT_METHOD) != 0) {
+                job.setPaymentMethodType(PAYMENT_METHODS[buffer.get()]);
+            }
+            return job;
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt binary job payload", e);
+        }
+    }
+
+    private static UUID parseCanonicalUuid(String jobId) {
+        if (jobId == null || jobId.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(jobId);
+            // Only use the compact form if it decodes back to the exact same string
+            return uuid.toString().equals(jobId) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
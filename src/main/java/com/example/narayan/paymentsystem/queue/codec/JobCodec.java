@@ -0,0 +1,15 @@
+package com.example.narayan.paymentsystem.queue.codec;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+
+/**
+ * Serializes PaymentJobs to the bytes stored in Redis (queue members, dead letters).
+ * Every codec must also decode payloads written by the other codecs so the
+ * stored format can be switched without draining the queues first.
+ */
+public interface JobCodec {
+
+    byte[] encode(PaymentJob job);
+
+    PaymentJob decode(byte[] payload);
+}
@@ -0,0 +1,45 @@
+package com.example.narayan.paymentsystem.queue.codec;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+
+/**
+ * The original queue format: a Jackson JSON document per job
+ */
+public class JsonJobCodec implements JobCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonJobCodec() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.findAndRegisterModules();
+        // Older payloads carry a derived "readyToProcess" flag
+        this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public byte[] encode(PaymentJob job) {
+        try {
+            return objectMapper.writeValueAsBytes(job);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to encode job " + job.getJobId(), e);
+        }
+    }
+
+    @Override
+    public PaymentJob decode(byte[] payload) {
+        if (BinaryJobCodec.isBinary(payload)) {
+            return BinaryJobCodec.decodeBinary(payload);
+        }
+        try {
+            return objectMapper.readValue(payload, PaymentJob.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to decode job payload", e);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.narayan.paymentsystem.queue.jobs;
 
+import com.example.narayan.paymentsystem.model.enums.PaymentMethodType;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
@@ -60,11 +62,31 @@ public class PaymentJob implements Serializable {
     @JsonProperty("jobId")
     private String jobId = UUID.randomUUID().toString();
 
+    // Fair queuing keeps a sub-queue per merchant; null goes to a shared default one
+    @JsonProperty("merchantId")
+    private UUID merchantId;
+
+    // Workers run each payment method in its own bulkhead; null shares an UNKNOWN one
+    @JsonProperty("paymentMethodType")
+    private PaymentMethodType paymentMethodType;
+
+    // BinaryJobCodec stores the ordinal - only ever append new values.
+    // Queue order comes from rank (0 = most urgent), never from the ordinal.
     public enum Priority{
-        LOW,
-        NORMAL,
-        CRITICAL,
-        HIGH
+        LOW(3),
+        NORMAL(2),
+        CRITICAL(0),
+        HIGH(1);
+
+        private final int rank;
+
+        Priority(int rank) {
+            this.rank = rank;
+        }
+
+        public int getRank() {
+            return rank;
+        }
     }
 
     // Helper methods for retry logic
@@ -76,9 +98,10 @@ public class PaymentJob implements Serializable {
         this.retryCount++;
     }
 
+    @JsonIgnore
     public boolean isReadyToProcess() {
-        return LocalDateTime.now().isAfter(scheduledFor) ||
-                LocalDateTime.now().isEqual(scheduledFor);
+        // Builder-created jobs have no scheduledFor and are ready immediately
+        return scheduledFor == null || !LocalDateTime.now().isBefore(scheduledFor);
     }
 
     // Convenience factory method
@@ -89,4 +112,16 @@ public class PaymentJob implements Serializable {
                 .jobId(UUID.randomUUID().toString())
                 .build();
     }
+
+    public static PaymentJob of(UUID paymentId, int amount, UUID merchantId) {
+        PaymentJob job = of(paymentId, amount);
+        job.setMerchantId(merchantId);
+        return job;
+    }
+
+    public static PaymentJob of(UUID paymentId, int amount, UUID merchantId, PaymentMethodType paymentMethodType) {
+        PaymentJob job = of(paymentId, amount, merchantId);
+        job.setPaymentMethodType(paymentMethodType);
+        return job;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.example.narayan.paymentsystem.queue.processor;
+
+import com.example.narayan.paymentsystem.model.Payment;
+import com.example.narayan.paymentsystem.model.enums.PaymentStatus;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.repository.PaymentRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Recording what the gateway did to a batch of payments. Once charge() has run the
+ * outcome is final: a decline is saved as FAILED, and a payment that can't be saved is
+ * reported rather than retried, since a retry would charge it again.
+ */
+final class ChargeOutcomes {
+
+    private ChargeOutcomes() {
+    }
+
+    /**
+     * Save the payments charge() has settled as one JDBC batch, falling back to one save
+     * each if the batch fails. Returns the payments that still couldn't be saved.
+     */
+    static Map<UUID, Exception> save(PaymentRepository paymentRepository, List<Payment> charged) {
+        Map<UUID, Exception> unsaved = new HashMap<>();
+        try {
+            paymentRepository.batchUpdateStatus(charged);
+            return unsaved;
+        } catch (Exception e) {
+            System.err.println("❌ Batch status update failed, saving " + charged.size() + " payments one at a time: " +
+                    e.getMessage());
+        }
+
+        for (Payment payment : charged) {
+            try {
+                paymentRepository.batchUpdateStatus(List.of(payment));
+            } catch (Exception e) {
+                unsaved.put(payment.getId(), e);
+            }
+        }
+        return unsaved;
+    }
+
+    /**
+     * The job's result for a charged payment; saveError is set if its outcome wasn't saved
+     */
+    static JobResult resultOf(Payment payment, Exception saveError) {
+        if (saveError != null) {
+            // Not retried: the gateway has already been called. Logged for reconciliation.
+            System.err.println("💥 Payment " + payment.getId() + " was charged (" + payment.getStatus() + ", txn " +
+                    payment.getGatewayTransactionId() + ") but its status could not be saved: " + saveError.getMessage());
+            return new JobResult(JobStatus.FAILED, "Payment charged but status not saved: " + saveError.getMessage());
+        }
+        if (payment.getStatus() == PaymentStatus.SUCCESS) {
+            return new JobResult(JobStatus.COMPLETED, "Payment processed successfully");
+        }
+        return new JobResult(JobStatus.FAILED, "Payment declined: " + payment.getFailureReason());
+    }
+}
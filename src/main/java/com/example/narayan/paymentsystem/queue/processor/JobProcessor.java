@@ -3,7 +3,22 @@ package com.example.narayan.paymentsystem.queue.processor;
 import com.example.narayan.paymentsystem.queue.jobs.JobResult;
 import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface JobProcessor<P> {
 
     JobResult process(PaymentJob job);
+
+    /**
+     * Process several jobs at once. Results are returned in the same order as jobs.
+     * Processors that can share I/O across a batch should override this.
+     */
+    default List<JobResult> processBatch(List<PaymentJob> jobs) {
+        List<JobResult> results = new ArrayList<>(jobs.size());
+        for (PaymentJob job : jobs) {
+            results.add(process(job));
+        }
+        return results;
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.narayan.paymentsystem.queue.processor;
 
+import com.example.narayan.paymentsystem.config.PipelineConfig;
 import com.example.narayan.paymentsystem.model.Payment;
 import com.example.narayan.paymentsystem.model.enums.PaymentStatus;
 import com.example.narayan.paymentsystem.queue.DeadLetterQueue;
@@ -14,12 +15,20 @@ import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
 import com.example.narayan.paymentsystem.repository.PaymentRepository;
 import com.example.narayan.paymentsystem.service.PaymentGatewayService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.exceptions.JedisConnectionException;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Component
@@ -46,6 +55,12 @@ public class PaymentJobProcessor implements JobProcessor<PaymentJob> {
     @Autowired
     private FailureTrackingService failureTrackingService;
 
+    @Autowired
+    private PipelineConfig pipelineConfig;
+
+    // Staged load -> gateway -> persist execution; null when payment.processor.pipeline.enabled is off
+    private PaymentPipeline pipeline;
+
     // Retry configuration - matches the requirement: 1s, 2s, 4s, 8s
     private static final long INITIAL_BACKOFF_MS = 1000;  // 1 second
     private static final long MAX_BACKOFF_MS = 8000;      // 8 seconds max
@@ -53,68 +68,31 @@ public class PaymentJobProcessor implements JobProcessor<PaymentJob> {
 
     private final ExponentialBackoff exponentialBackoff = new ExponentialBackoff(INITIAL_BACKOFF_MS, MAX_BACKOFF_MS, BACKOFF_FACTOR);
 
-    public void startProcessor() {
-        Thread worker = new Thread(() -> {
-            System.out.println("🚀 PaymentJobProcessor started");
-
-            while (!Thread.currentThread().isInterrupted()) {
-                try (var jedis = jedisPool.getResource()) {
-                    // Check Redis connection
-                    jedis.ping();
-
-                    // Poll for jobs - this integrates with your existing JobQueue
-                    PaymentJob job = jobQueue.dequeue();
-
-                    if (job != null) {
-                        // Check if job is scheduled for future processing (retry delay)
-                        if (!job.isReadyToProcess()) {
-                            System.out.println("⏰ Job " + job.getJobId() + " not ready yet, requeuing for " +
-                                    job.getScheduledFor());
-                            // Put it back in the queue for later
-                            jobQueue.enqueue(job);
-                            Thread.sleep(1000); // Wait a bit before checking again
-                            continue;
-                        }
-
-                        // Process the job
-                        JobResult result = process(job);
-                        System.out.println("📊 Job " + job.getJobId() + " processed with status: " +
-                                result.getStatus());
-                    } else {
-                        // No jobs available, wait a bit
-                        Thread.sleep(1000);
-                    }
-
-                } catch (JedisConnectionException e) {
-                    System.err.println("⚠️ Redis connection failed, retrying in 2s");
-                    try {
-                        Thread.sleep(2000);
-                    } catch (InterruptedException ex) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    System.err.println("Unexpected error in processor: " + e.getMessage());
-                    e.printStackTrace();
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException ex) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            }
-            System.out.println("🛑 PaymentJobProcessor stopped");
-        });
-        worker.setDaemon(true);
-        worker.start();
+    @PostConstruct
+    public void startPipeline() {
+        if (pipelineConfig.isEnabled()) {
+            pipeline = new PaymentPipeline(pipelineConfig, paymentRepository, paymentGatewayService,
+                    this::handleBatchFailure, this::retryUnstarted);
+            pipeline.start();
+        }
+    }
+
+    /**
+     * Runs after WorkerManager has stopped its workers, since WorkerManager depends on this bean
+     */
+    @PreDestroy
+    public void stopPipeline() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
     }
 
     @Override
     public JobResult process(PaymentJob job) {
+        if (pipeline != null) {
+            return runInPipeline(List.of(job)).getFirst();
+        }
+
         System.out.println("🔄 Processing payment job: " + job.getJobId() +
                 " (attempt " + (job.getRetryCount() + 1) + "/" + job.getMaxTries() + ")");
 
@@ -122,6 +100,9 @@ public class PaymentJobProcessor implements JobProcessor<PaymentJob> {
             // Find the payment
             Payment payment = paymentRepository.findById(job.getPaymentId())
                     .orElseThrow(() -> new RuntimeException("Payment not found for job: " + job.getPaymentId()));
+            if (payment.getStatus().isFinal()) {
+                return alreadySettled(payment);
+            }
 
             // Process the payment
             paymentGatewayService.processPayment(payment.getId());
@@ -148,6 +129,102 @@ public class PaymentJobProcessor implements JobProcessor<PaymentJob> {
         }
     }
 
+    /**
+     * Batch version of process(): one IN query loads every payment, the gateway is
+     * called per payment, and the outcomes (paid or declined) go out as one JDBC batch.
+     * Jobs that fail before the gateway call take the same retry/dead-letter path as
+     * process(); once a payment is charged its job is never retried.
+     */
+    @Override
+    public List<JobResult> processBatch(List<PaymentJob> jobs) {
+        if (pipeline != null) {
+            return runInPipeline(jobs);
+        }
+
+        System.out.println("🔄 Processing batch of " + jobs.size() + " payment jobs");
+
+        List<UUID> paymentIds = jobs.stream().map(PaymentJob::getPaymentId).toList();
+        Map<UUID, Payment> payments = new HashMap<>();
+        for (Payment payment : paymentRepository.findAllById(paymentIds)) {
+            payments.put(payment.getId(), payment);
+        }
+
+        JobResult[] results = new JobResult[jobs.size()];
+        List<Integer> charged = new ArrayList<>();
+        List<Payment> toUpdate = new ArrayList<>();
+
+        for (int i = 0; i < jobs.size(); i++) {
+            PaymentJob job = jobs.get(i);
+            try {
+                Payment payment = payments.get(job.getPaymentId());
+                if (payment == null) {
+                    throw new RuntimeException("Payment not found for job: " + job.getPaymentId());
+                }
+                if (payment.getStatus().isFinal()) {
+                    results[i] = alreadySettled(payment);
+                    continue;
+                }
+
+                // charge() sets SUCCESS or FAILED (declined) along with its details
+                paymentGatewayService.charge(payment);
+                charged.add(i);
+                toUpdate.add(payment);
+
+            } catch (Exception e) {
+                results[i] = handleBatchFailure(job, e);
+            }
+        }
+
+        Map<UUID, Exception> unsaved = ChargeOutcomes.save(paymentRepository, toUpdate);
+        int paid = 0;
+        for (int i : charged) {
+            Payment payment = payments.get(jobs.get(i).getPaymentId());
+            results[i] = ChargeOutcomes.resultOf(payment, unsaved.get(payment.getId()));
+            if (results[i].getStatus() == JobStatus.COMPLETED) {
+                paid++;
+            }
+        }
+        System.out.println("✅ Batch persisted: " + paid + "/" + jobs.size() + " payments succeeded, " +
+                (toUpdate.size() - paid - unsaved.size()) + " declined" +
+                (unsaved.isEmpty() ? "" : ", " + unsaved.size() + " not saved"));
+
+        return Arrays.asList(results);
+    }
+
+    private List<JobResult> runInPipeline(List<PaymentJob> jobs) {
+        return pipeline.process(jobs);
+    }
+
+    /**
+     * A job the pipeline gave back before loading or charging it (stopping, or too busy to
+     * reach it within result-timeout-ms): queued again after the first backoff step,
+     * without using up an attempt
+     */
+    private JobResult retryUnstarted(PaymentJob job) {
+        Instant nextAttemptAt = Instant.now().plusMillis(INITIAL_BACKOFF_MS);
+        job.setScheduledFor(LocalDateTime.ofInstant(nextAttemptAt, ZoneId.systemDefault()));
+        jobQueue.schedule(job, nextAttemptAt);
+        System.out.println("↩️ Job " + job.getJobId() + " not started by the payment pipeline, retrying in " +
+                INITIAL_BACKOFF_MS + "ms");
+        return new JobResult(JobStatus.RETRY_SCHEDULED, "Not started by the payment pipeline, retry scheduled");
+    }
+
+    /**
+     * A redelivered job (lease expired, or a drain that timed out) whose payment already
+     * has its outcome: done, without calling the gateway again
+     */
+    static JobResult alreadySettled(Payment payment) {
+        System.out.println("⏭️ Payment " + payment.getId() + " is already " + payment.getStatus() + ", not charging again");
+        return new JobResult(JobStatus.COMPLETED, "Payment already " + payment.getStatus());
+    }
+
+    private JobResult handleBatchFailure(PaymentJob job, Exception e) {
+        System.err.println("❌ Payment processing failed: " + e.getMessage());
+        failureTrackingService.recordFailure(job, e);
+        job.setLastError(e.getMessage());
+        return handleJobFailure(job, e);
+    }
+
     /**
      * Handle job failure with enhanced retry logic and failure analysis
      */
@@ -163,15 +240,15 @@ public class PaymentJobProcessor implements JobProcessor<PaymentJob> {
         if (analysis.isRetryable() && job.hasRetriesRemaining()) {
             // Calculate backoff delay for next attempt
             long backoffMs = exponentialBackoff.calculateBackoffMillis(job.getRetryCount());
-            LocalDateTime nextAttemptTime = LocalDateTime.now().plusSeconds(backoffMs / 1000);
-            job.setScheduledFor(nextAttemptTime);
+            Instant nextAttemptAt = Instant.now().plusMillis(backoffMs);
+            job.setScheduledFor(LocalDateTime.ofInstant(nextAttemptAt, ZoneId.systemDefault()));
 
-            // Requeue the job for retry
+            // Park the job in the delayed set until its backoff has elapsed
             try {
-                jobQueue.enqueue(job);
+                jobQueue.schedule(job, nextAttemptAt);
 
                 System.out.println("🔄 Job " + job.getJobId() + " scheduled for retry " +
-                        job.getRetryCount() + " in " + (backoffMs/1000) + " seconds (Category: " +
+                        job.getRetryCount() + " in " + backoffMs + "ms (Category: " +
                         analysis.getCategory() + ")");
 
                 return new JobResult(JobStatus.RETRYING,
@@ -238,6 +315,13 @@ public class PaymentJobProcessor implements JobProcessor<PaymentJob> {
         }
     }
 
+    /**
+     * Per-stage depth, service time and utilization of the staged pipeline
+     */
+    public PaymentPipeline.PipelineStats getPipelineStats() {
+        return pipeline != null ? pipeline.getStats() : new PaymentPipeline.PipelineStats(false, List.of(), null);
+    }
+
     /**
      * Get processor statistics
      */
@@ -0,0 +1,341 @@
+package com.example.narayan.paymentsystem.queue.processor;
+
+import com.example.narayan.paymentsystem.config.PipelineConfig;
+import com.example.narayan.paymentsystem.model.Payment;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.repository.PaymentRepository;
+import com.example.narayan.paymentsystem.service.PaymentGatewayService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * PaymentJobProcessor's work split into three stages, each with its own threads:
+ *
+ *   load     - one findAllById per batch of jobs
+ *   gateway  - the gateway call, per payment
+ *   persist  - one JDBC batch of outcomes (paid or declined); jobs that failed before
+ *              the charge get their retry or dead-letter handling here too, so every
+ *              DB write happens in this stage
+ *
+ * The stages are joined by bounded queues, so a slow gateway fills its queue and holds
+ * back loading rather than tying up DB work, and the DB stages keep their few threads
+ * (and connections) busy whatever the gateway is doing. Workers hand jobs in and wait
+ * for the results, so acking is unchanged.
+ *
+ * A job the pipeline gives up on before its charge starts (stopping, a stage giving up
+ * on its batch, or result-timeout-ms running out) is withdrawn and handed to
+ * unstartedHandler to be queued again, so it is never both retried and charged.
+ */
+public class PaymentPipeline {
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentGatewayService paymentGatewayService;
+    // The processor's retry / dead-letter path for a job that failed with the given error
+    private final BiFunction<PaymentJob, Exception, JobResult> failureHandler;
+    // Queues a job again that was withdrawn before anything was done for it
+    private final Function<PaymentJob, JobResult> unstartedHandler;
+    private final long drainTimeoutMs;
+    private final long resultTimeoutMs;
+
+    private final PipelineStage<PipelineItem> loadStage;
+    private final PipelineStage<PipelineItem> gatewayStage;
+    private final PipelineStage<PipelineItem> persistStage;
+
+    PaymentPipeline(PipelineConfig config, PaymentRepository paymentRepository,
+                    PaymentGatewayService paymentGatewayService,
+                    BiFunction<PaymentJob, Exception, JobResult> failureHandler,
+                    Function<PaymentJob, JobResult> unstartedHandler) {
+        this.paymentRepository = paymentRepository;
+        this.paymentGatewayService = paymentGatewayService;
+        this.failureHandler = failureHandler;
+        this.unstartedHandler = unstartedHandler;
+        this.drainTimeoutMs = config.getDrainTimeoutMs();
+        this.resultTimeoutMs = config.getResultTimeoutMs();
+        this.persistStage = stage("persist", config.getPersist(), this::persist);
+        this.gatewayStage = stage("gateway", config.getGateway(), this::callGateway);
+        this.loadStage = stage("load", config.getLoad(), this::load);
+    }
+
+    private static PipelineStage<PipelineItem> stage(String name, PipelineConfig.Stage settings,
+                                                     PipelineStage.BatchHandler<PipelineItem> handler) {
+        return new PipelineStage<>(name, settings.getThreads(), settings.getBatchSize(),
+                settings.getQueueCapacity(), handler, PaymentPipeline::abandoned);
+    }
+
+    /**
+     * A stage gave up on its batch part way. Items already passed on finish downstream;
+     * the rest are released here so their workers stop waiting.
+     */
+    private static void abandoned(PipelineStage<PipelineItem> stage, PipelineItem item, Exception cause) {
+        if (item.stage == stage) {
+            release(item, cause);
+        }
+    }
+
+    /**
+     * Stop waiting on an item. Withdrawn if its charge hasn't started, so the worker
+     * queues it again; otherwise it fails and the worker doesn't ack it.
+     */
+    private static void release(PipelineItem item, Exception cause) {
+        item.withdraw();
+        item.result.completeExceptionally(cause);
+    }
+
+    void start() {
+        persistStage.start();
+        gatewayStage.start();
+        loadStage.start();
+        System.out.println("🚀 Payment pipeline started: " + describe(loadStage) + " -> " +
+                describe(gatewayStage) + " -> " + describe(persistStage));
+    }
+
+    /**
+     * Stop upstream first, so each stage has finished receiving before it drains
+     */
+    void stop() {
+        loadStage.stop(drainTimeoutMs);
+        gatewayStage.stop(drainTimeoutMs);
+        persistStage.stop(drainTimeoutMs);
+
+        int abandoned = 0;
+        for (PipelineStage<PipelineItem> stage : List.of(loadStage, gatewayStage, persistStage)) {
+            for (PipelineItem item : stage.drainRemaining()) {
+                release(item, new RejectedExecutionException("Payment pipeline stopped"));
+                abandoned++;
+            }
+        }
+        System.out.println("🛑 Payment pipeline stopped" + (abandoned > 0 ? ", " + abandoned + " jobs not finished" : ""));
+    }
+
+    /**
+     * Run jobs through the pipeline and wait for their results, in the order given.
+     * Blocks while the load stage is full. Jobs the pipeline can't take (it is stopping)
+     * or doesn't start on within result-timeout-ms go to unstartedHandler. A job whose
+     * charge is still running at the timeout is reported as PROCESSING; the persist stage
+     * saves its outcome once the gateway returns. Throws if a started job failed without
+     * an outcome, so the caller doesn't ack.
+     */
+    List<JobResult> process(List<PaymentJob> jobs) {
+        List<PipelineItem> items = new ArrayList<>(jobs.size());
+        boolean interrupted = false;
+        for (PaymentJob job : jobs) {
+            PipelineItem item = new PipelineItem(job);
+            items.add(item);
+            if (interrupted) {
+                release(item, new InterruptedException());
+                continue;
+            }
+            item.stage = loadStage;
+            try {
+                loadStage.put(item);
+            } catch (RejectedExecutionException e) {
+                release(item, e);
+            } catch (InterruptedException e) {
+                interrupted = true;
+                release(item, e);
+            }
+        }
+
+        List<JobResult> results = new ArrayList<>(jobs.size());
+        Exception failure = null;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(resultTimeoutMs);
+        for (PipelineItem item : items) {
+            try {
+                long waitNanos = interrupted ? 0 : Math.max(deadline - System.nanoTime(), 0);
+                results.add(item.result.get(waitNanos, TimeUnit.NANOSECONDS));
+                continue;
+            } catch (ExecutionException e) {
+                if (!item.isWithdrawn()) {
+                    failure = e.getCause() instanceof Exception cause ? cause : e;
+                    continue;
+                }
+            } catch (TimeoutException e) {
+                release(item, e);
+            } catch (InterruptedException e) {
+                // Stop waiting; what hasn't started is queued again below
+                interrupted = true;
+                release(item, e);
+            }
+
+            if (item.isWithdrawn()) {
+                results.add(unstartedHandler.apply(item.job));
+            } else if (item.result.isDone() && !item.result.isCompletedExceptionally()) {
+                results.add(item.result.join());
+            } else {
+                results.add(new JobResult(JobStatus.PROCESSING, "Charge still running after " + resultTimeoutMs +
+                        "ms; its outcome is saved when the gateway returns"));
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure instanceof RuntimeException runtime ? runtime : new IllegalStateException(failure);
+        }
+        return results;
+    }
+
+    private void load(List<PipelineItem> batch) throws InterruptedException {
+        try {
+            List<UUID> paymentIds = batch.stream().map(item -> item.job.getPaymentId()).toList();
+            Map<UUID, Payment> payments = new HashMap<>();
+            for (Payment payment : paymentRepository.findAllById(paymentIds)) {
+                payments.put(payment.getId(), payment);
+            }
+            for (PipelineItem item : batch) {
+                item.payment = payments.get(item.job.getPaymentId());
+                if (item.payment == null) {
+                    item.failure = new RuntimeException("Payment not found for job: " + item.job.getPaymentId());
+                } else if (item.payment.getStatus().isFinal()) {
+                    item.result.complete(PaymentJobProcessor.alreadySettled(item.payment));
+                }
+            }
+        } catch (Exception e) {
+            for (PipelineItem item : batch) {
+                item.failure = e;
+            }
+        }
+
+        for (PipelineItem item : batch) {
+            if (item.result.isDone()) {
+                continue;
+            }
+            // Nothing to charge: straight to persist for failure handling
+            forward(item.failure == null ? gatewayStage : persistStage, item);
+        }
+    }
+
+    private void callGateway(List<PipelineItem> batch) throws InterruptedException {
+        for (PipelineItem item : batch) {
+            if (!item.start()) {
+                continue; // Withdrawn while it waited; the worker has queued it again
+            }
+            try {
+                // charge() sets SUCCESS or FAILED (declined) along with its details
+                paymentGatewayService.charge(item.payment);
+            } catch (Exception e) {
+                item.failure = e;
+            }
+            forward(persistStage, item);
+        }
+    }
+
+    private void persist(List<PipelineItem> batch) {
+        List<PipelineItem> charged = new ArrayList<>();
+        List<Payment> toUpdate = new ArrayList<>();
+        for (PipelineItem item : batch) {
+            if (item.failure == null) {
+                charged.add(item);
+                toUpdate.add(item.payment);
+            }
+        }
+
+        // Charged payments are saved, never retried - a retry would charge them again
+        Map<UUID, Exception> unsaved = ChargeOutcomes.save(paymentRepository, toUpdate);
+        for (PipelineItem item : charged) {
+            item.result.complete(ChargeOutcomes.resultOf(item.payment, unsaved.get(item.payment.getId())));
+        }
+
+        for (PipelineItem item : batch) {
+            if (item.failure != null && item.start()) {
+                try {
+                    item.result.complete(failureHandler.apply(item.job, item.failure));
+                } catch (Exception e) {
+                    item.result.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void forward(PipelineStage<PipelineItem> next, PipelineItem item) throws InterruptedException {
+        PipelineStage<PipelineItem> from = item.stage;
+        // Set before the put, so the next stage owns the item as soon as it can see it
+        item.stage = next;
+        try {
+            next.put(item);
+        } catch (RejectedExecutionException e) {
+            release(item, e);
+        } catch (InterruptedException e) {
+            item.stage = from;
+            throw e;
+        }
+    }
+
+    private static String describe(PipelineStage<PipelineItem> stage) {
+        PipelineStage.StageStats stats = stage.getStats();
+        return stats.stage + "(" + stats.threads + " threads, batch " + stats.batchSize + ")";
+    }
+
+    public PipelineStats getStats() {
+        List<PipelineStage.StageStats> stages = List.of(loadStage.getStats(), gatewayStage.getStats(),
+                persistStage.getStats());
+        // The stage the others wait on: busiest threads, then the longest backpressure
+        String bottleneck = stages.stream()
+                .filter(stage -> stage.itemsProcessed > 0)
+                .max(Comparator.comparingDouble((PipelineStage.StageStats stage) -> stage.utilization)
+                        .thenComparingLong(stage -> stage.producerBlockedMs))
+                .map(stage -> stage.stage)
+                .orElse(null);
+        return new PipelineStats(true, stages, bottleneck);
+    }
+
+    private static class PipelineItem {
+        final PaymentJob job;
+        final CompletableFuture<JobResult> result = new CompletableFuture<>();
+        Payment payment;
+        Exception failure;
+        // The stage answering for the item: its queue holds it or one of its threads does
+        volatile PipelineStage<PipelineItem> stage;
+        // Set once, by whichever comes first: the charge (or failure handling) starting, or a withdrawal
+        private final AtomicReference<ItemState> state = new AtomicReference<>(ItemState.QUEUED);
+
+        PipelineItem(PaymentJob job) {
+            this.job = job;
+        }
+
+        /**
+         * Claim the item to work on it; false if it was withdrawn
+         */
+        boolean start() {
+            return state.compareAndSet(ItemState.QUEUED, ItemState.STARTED) || state.get() == ItemState.STARTED;
+        }
+
+        void withdraw() {
+            state.compareAndSet(ItemState.QUEUED, ItemState.WITHDRAWN);
+        }
+
+        boolean isWithdrawn() {
+            return state.get() == ItemState.WITHDRAWN;
+        }
+    }
+
+    private enum ItemState {
+        QUEUED, STARTED, WITHDRAWN
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class PipelineStats {
+        public boolean enabled;
+        // In flow order: load, gateway, persist
+        public List<PipelineStage.StageStats> stages;
+        public String bottleneck;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.narayan.paymentsystem.queue.processor;
+
+import com.example.narayan.paymentsystem.worker.LatencyHistogram;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One stage of a processing pipeline: a bounded queue worked by a fixed set of threads,
+ * each taking up to batchSize items at a time and handing them to the handler, which
+ * passes its output on with the next stage's put().
+ *
+ * A full queue blocks whoever is putting, so a slow stage holds back the stages feeding
+ * it instead of letting work pile up in memory. The time producers spend blocked is
+ * counted against this stage: the stage that makes others wait is the bottleneck.
+ */
+public class PipelineStage<T> {
+
+    interface BatchHandler<T> {
+        void handle(List<T> batch) throws InterruptedException;
+    }
+
+    // Told about each item of a batch whose handler threw, so whoever waits on it is released
+    interface AbandonHandler<T> {
+        void abandoned(PipelineStage<T> stage, T item, Exception cause);
+    }
+
+    private final String name;
+    private final int threads;
+    private final int batchSize;
+    private final BlockingQueue<T> queue;
+    private final BatchHandler<T> handler;
+    private final AbandonHandler<T> abandonHandler;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean accepting = false;
+    private volatile boolean running = false;
+    private final long startedNanos = System.nanoTime();
+
+    private final AtomicInteger busyThreads = new AtomicInteger(0);
+    private final AtomicLong items = new AtomicLong(0);
+    private final AtomicLong batches = new AtomicLong(0);
+    private final AtomicLong busyNanos = new AtomicLong(0);
+    private final AtomicLong producerBlockedNanos = new AtomicLong(0);
+    private final AtomicLong handlerErrors = new AtomicLong(0);
+    // Per-item service time: a batch's time split over its items
+    private final LatencyHistogram serviceTimes = new LatencyHistogram();
+
+    PipelineStage(String name, int threads, int batchSize, int queueCapacity, BatchHandler<T> handler,
+                  AbandonHandler<T> abandonHandler) {
+        this.name = name;
+        this.threads = Math.max(threads, 1);
+        this.batchSize = Math.max(batchSize, 1);
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+        this.handler = handler;
+        this.abandonHandler = abandonHandler;
+    }
+
+    void start() {
+        accepting = true;
+        running = true;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::workLoop, "pipeline-" + name + "-" + (i + 1));
+            thread.setDaemon(true);
+            workers.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queue an item, waiting for room; rejected once the stage is stopping
+     */
+    void put(T item) throws InterruptedException {
+        if (!accepting) {
+            throw new RejectedExecutionException("Pipeline stage " + name + " is stopped");
+        }
+        if (queue.offer(item)) {
+            return;
+        }
+        long start = System.nanoTime();
+        queue.put(item);
+        producerBlockedNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     * Stop taking new items, work off the queue, then stop the threads. Callers stop
+     * stages upstream first, so nothing arrives after the queue has emptied.
+     */
+    void stop(long timeoutMs) {
+        accepting = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Items still queued after stop(); the owner fails them so nothing waits forever
+     */
+    List<T> drainRemaining() {
+        List<T> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        return remaining;
+    }
+
+    private void workLoop() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                busyThreads.incrementAndGet();
+                long start = System.nanoTime();
+                try {
+                    handler.handle(batch);
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    busyThreads.decrementAndGet();
+                    busyNanos.addAndGet(elapsed);
+                    items.addAndGet(batch.size());
+                    batches.incrementAndGet();
+                    for (int i = 0; i < batch.size(); i++) {
+                        serviceTimes.recordNanos(elapsed / batch.size());
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stop() past its deadline; the batch in hand won't be finished
+                abandon(batch, e);
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                // Handlers settle their own items; this is a bug, not a job failure
+                handlerErrors.incrementAndGet();
+                System.err.println("❌ Pipeline stage " + name + " handler error: " + e.getMessage());
+                abandon(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void abandon(List<T> batch, Exception cause) {
+        for (T item : batch) {
+            try {
+                abandonHandler.abandoned(this, item, cause);
+            } catch (Exception e) {
+                System.err.println("❌ Pipeline stage " + name + " failed to release an item: " + e.getMessage());
+            }
+        }
+    }
+
+    StageStats getStats() {
+        long totalItems = items.get();
+        long totalBatches = batches.get();
+        double elapsedNanos = Math.max(System.nanoTime() - startedNanos, 1);
+        return new StageStats(name, threads, busyThreads.get(), batchSize, queue.size(),
+                queue.size() + queue.remainingCapacity(), totalItems, totalBatches,
+                totalBatches > 0 ? (double) totalItems / totalBatches : 0,
+                busyNanos.get() / (elapsedNanos * threads),
+                TimeUnit.NANOSECONDS.toMillis(producerBlockedNanos.get()), handlerErrors.get(),
+                serviceTimes.snapshot().summarize());
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class StageStats {
+        public String stage;
+        public int threads;
+        public int busyThreads;
+        public int batchSize;
+        public int queueDepth;
+        public int queueCapacity;
+        public long itemsProcessed;
+        public long batches;
+        public double averageBatchSize;
+        // Share of the stage's thread time spent handling batches since start (0-1)
+        public double utilization;
+        // Time stages feeding this one spent waiting for room in its queue
+        public long producerBlockedMs;
+        public long handlerErrors;
+        public LatencyHistogram.LatencySummary serviceTime;
+    }
+}
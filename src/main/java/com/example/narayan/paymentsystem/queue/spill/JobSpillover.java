@@ -0,0 +1,278 @@
+package com.example.narayan.paymentsystem.queue.spill;
+
+import com.example.narayan.paymentsystem.config.SpillConfig;
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps producers going through a Redis outage. An enqueue that finds Redis unreachable
+ * is written to a local SpillJournal instead, and so is every enqueue after it until a
+ * background replayer has drained the journal back into the queue. Routing everything
+ * through the journal meanwhile keeps jobs in arrival order: nothing enqueued after the
+ * outage can overtake a journaled job.
+ *
+ * Replayed jobs keep their original arrival time (JobQueue.enqueueAll with readyAt), and
+ * the reader only moves past a batch once the queue has taken it. A batch that fails
+ * part-way is sent again, which re-adds the same jobIds rather than duplicating them.
+ */
+@Component
+public class JobSpillover {
+
+    @Autowired
+    private JobQueue jobQueue;
+
+    @Autowired
+    private JobCodec jobCodec;
+
+    @Autowired
+    private SpillConfig spillConfig;
+
+    @Autowired(required = false)
+    private WorkAvailableSignal workAvailableSignal;
+
+    private SpillJournal journal;
+
+    // Guards the switch between direct and journaled enqueues
+    private final Object spillLock = new Object();
+    private volatile boolean spilling = false;
+
+    private volatile boolean running = false;
+    private Thread replayer;
+
+    private final AtomicLong spilled = new AtomicLong(0);
+    private final AtomicLong replayed = new AtomicLong(0);
+    private final AtomicLong replayFailures = new AtomicLong(0);
+    private volatile String lastReplayError;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!spillConfig.isEnabled()) {
+            return;
+        }
+
+        journal = new SpillJournal(Path.of(spillConfig.getDir()), spillConfig.getSegmentBytes(),
+                spillConfig.isForceOnWrite());
+        if (journal.size() > 0) {
+            // Left over from before a restart - replay it before taking new jobs directly
+            spilling = true;
+            System.out.println("💾 Found " + journal.size() + " spilled jobs in " + journal.getDir() + ", replaying");
+        }
+
+        running = true;
+        replayer = new Thread(this::replayLoop, "spill-replayer");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (replayer != null) {
+            LockSupport.unpark(replayer);
+            try {
+                replayer.join(spillConfig.getReplayBackoffMs() + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null && journal.size() > 0) {
+            System.out.println("💾 " + journal.size() + " jobs left in the spill journal; they are replayed on next start");
+        }
+    }
+
+    public boolean enqueue(PaymentJob job) {
+        return enqueueAll(List.of(job));
+    }
+
+    /**
+     * Enqueue directly, or into the journal while Redis is down or the journal still
+     * holds jobs. Only connection failures spill; anything else is the caller's problem.
+     * True if the queue took the jobs, false if they were journaled - there is then
+     * nothing for workers to find, and no point reaching for Redis to tell them.
+     */
+    public boolean enqueueAll(Collection<PaymentJob> jobs) {
+        if (journal == null) {
+            jobQueue.enqueueAll(jobs);
+            return true;
+        }
+        if (spillIfSpilling(jobs)) {
+            return false;
+        }
+
+        try {
+            if (jobs.size() == 1) {
+                jobQueue.enqueue(jobs.iterator().next());
+            } else {
+                jobQueue.enqueueAll(jobs);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            if (!isConnectionFailure(e)) {
+                throw e;
+            }
+            synchronized (spillLock) {
+                if (!spilling) {
+                    spilling = true;
+                    System.err.println("💾 Redis unavailable (" + e.getMessage() + ") - spilling enqueues to " +
+                            journal.getDir());
+                }
+                spill(jobs);
+            }
+            LockSupport.unpark(replayer);
+            return false;
+        }
+    }
+
+    private boolean spillIfSpilling(Collection<PaymentJob> jobs) {
+        if (!spilling) {
+            return false;
+        }
+        synchronized (spillLock) {
+            if (!spilling) {
+                return false;
+            }
+            spill(jobs);
+            return true;
+        }
+    }
+
+    /**
+     * Caller holds spillLock
+     */
+    private void spill(Collection<PaymentJob> jobs) {
+        long now = System.currentTimeMillis();
+        try {
+            for (PaymentJob job : jobs) {
+                if (job.getJobId() == null) {
+                    // Replays must re-add the same job, never a copy under a new id
+                    job.setJobId(UUID.randomUUID().toString());
+                }
+                journal.append(jobCodec.encode(job), now);
+            }
+            spilled.addAndGet(jobs.size());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Failed to spill " + jobs.size() + " jobs to the journal: " + e.getMessage());
+            throw new RuntimeException("Failed to enqueue job - Redis unavailable and spill journal failed", e);
+        }
+    }
+
+    private void replayLoop() {
+        System.out.println("💾 Spill replayer started (batch=" + spillConfig.getReplayBatchSize() + ")");
+
+        while (running) {
+            if (!spilling) {
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                continue;
+            }
+
+            try {
+                if (replayBatch() == 0) {
+                    synchronized (spillLock) {
+                        if (journal.size() == 0 && spilling) {
+                            spilling = false;
+                            System.out.println("✅ Spill journal drained - enqueuing directly again");
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                replayFailures.incrementAndGet();
+                lastReplayError = e.getMessage();
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(spillConfig.getReplayBackoffMs()));
+            }
+        }
+
+        System.out.println("🛑 Spill replayer stopped");
+    }
+
+    /**
+     * Send the next batch to the queue and commit it; returns how many jobs it held
+     */
+    private int replayBatch() throws IOException {
+        SpillJournal.Batch batch = journal.read(spillConfig.getReplayBatchSize());
+
+        List<PaymentJob> jobs = new ArrayList<>(batch.getEntries().size());
+        Map<PaymentJob, Long> readyAt = new IdentityHashMap<>();
+        for (SpillJournal.Entry entry : batch.getEntries()) {
+            try {
+                PaymentJob job = jobCodec.decode(entry.getPayload());
+                jobs.add(job);
+                readyAt.put(job, entry.getEnqueuedAtMillis());
+            } catch (Exception e) {
+                System.err.println("❌ Dropping unreadable spilled job: " + e.getMessage());
+            }
+        }
+
+        if (!jobs.isEmpty()) {
+            jobQueue.enqueueAll(jobs, readyAt::get);
+            // Their producers didn't signal while the jobs sat in the journal
+            if (workAvailableSignal != null) {
+                workAvailableSignal.publish();
+            }
+        }
+        journal.commit(batch);
+        replayed.addAndGet(jobs.size());
+        return batch.getEntries().size();
+    }
+
+    /**
+     * Redis errors arrive wrapped by the queue, so look down the cause chain
+     */
+    private static boolean isConnectionFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof JedisConnectionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isSpilling() {
+        return spilling;
+    }
+
+    public SpillStats getStats() {
+        if (journal == null) {
+            return new SpillStats(false, false, 0, 0, spilled.get(), replayed.get(), replayFailures.get(), null);
+        }
+        long oldest = journal.oldestEnqueuedAtMillis();
+        return new SpillStats(true, spilling, journal.size(),
+                oldest >= 0 ? Math.max(System.currentTimeMillis() - oldest, 0) : 0,
+                spilled.get(), replayed.get(), replayFailures.get(), lastReplayError);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SpillStats {
+        public boolean enabled;
+        public boolean spilling;
+        // Jobs in the journal waiting to be replayed
+        public long journalDepth;
+        // How long the oldest of them has been waiting
+        public long replayLagMs;
+        public long spilledTotal;
+        public long replayedTotal;
+        public long replayFailures;
+        public String lastReplayError;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.narayan.paymentsystem.queue.spill;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of job payloads in memory-mapped segment files, read back in
+ * order and trimmed as the reader commits.
+ *
+ * Segment files are "<index>.seg", each segmentBytes long and zero-filled when created.
+ * Records are packed from the start of a segment:
+ *   int   payload length (never 0, so a 0 marks the end of the segment's records)
+ *   int   CRC32 of the timestamp and payload
+ *   long  enqueuedAtMillis
+ *   byte[] payload
+ * The reader's position lives in a small mapped "checkpoint" file, so replayed records
+ * aren't replayed again after a restart. On open, records are scanned up to the first
+ * zero length or bad checksum, which also drops a record torn by a crash.
+ *
+ * Appends only touch mapped memory, so they cost microseconds; they reach disk when the
+ * OS writes the pages back, or at once with forceOnWrite.
+ */
+public class SpillJournal {
+
+    private static final int HEADER_BYTES = 16;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * One journaled record
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        private long enqueuedAtMillis;
+        private byte[] payload;
+    }
+
+    /**
+     * Records read from the journal but not yet committed, and where the reader stands after them
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Batch {
+        private List<Entry> entries;
+        private long endSegment;
+        private int endOffset;
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean forceOnWrite;
+
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private final MappedByteBuffer checkpoint;
+
+    private long writeSegment;
+    private int writeOffset;
+    private long readSegment;
+    private int readOffset;
+
+    // Records appended and not yet committed
+    private long pending;
+
+    public SpillJournal(Path dir, int segmentBytes, boolean forceOnWrite) throws IOException {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be larger than " + HEADER_BYTES);
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.forceOnWrite = forceOnWrite;
+
+        Files.createDirectories(dir);
+        this.checkpoint = map(dir.resolve(CHECKPOINT_FILE), 12);
+        recover();
+    }
+
+    /**
+     * Add a record at the end of the journal
+     */
+    public synchronized void append(byte[] payload, long enqueuedAtMillis) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (payload.length == 0 || recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Payload of " + payload.length + " bytes can't be journaled");
+        }
+        if (writeOffset + recordBytes > segmentBytes) {
+            writeSegment++;
+            writeOffset = 0;
+            segments.put(writeSegment, map(segmentPath(writeSegment), segmentBytes));
+        }
+
+        MappedByteBuffer segment = segments.get(writeSegment);
+        segment.putInt(writeOffset + 4, checksum(enqueuedAtMillis, payload));
+        segment.putLong(writeOffset + 8, enqueuedAtMillis);
+        segment.put(writeOffset + HEADER_BYTES, payload);
+        // Length last: until it is set, readers see the end of the segment here
+        segment.putInt(writeOffset, payload.length);
+        if (forceOnWrite) {
+            segment.force(writeOffset, recordBytes);
+        }
+
+        writeOffset += recordBytes;
+        pending++;
+    }
+
+    /**
+     * Up to max records from the reader's position, which only moves on commit.
+     * Each record's checksum is checked, as on open.
+     */
+    public synchronized Batch read(int max) {
+        List<Entry> entries = new ArrayList<>();
+        long segmentIndex = readSegment;
+        int offset = readOffset;
+
+        while (entries.size() < max) {
+            if (segmentIndex == writeSegment && offset >= writeOffset) {
+                break;
+            }
+            MappedByteBuffer segment = segments.get(segmentIndex);
+            int length = offset + HEADER_BYTES <= segmentBytes ? segment.getInt(offset) : 0;
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes) {
+                if (segmentIndex >= writeSegment) {
+                    break;
+                }
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+
+            byte[] payload = new byte[length];
+            segment.get(offset + HEADER_BYTES, payload);
+            long enqueuedAtMillis = segment.getLong(offset + 8);
+            if (segment.getInt(offset + 4) != checksum(enqueuedAtMillis, payload)) {
+                // Damaged on disk; recover() stopped counting this segment here too, so skip the rest of it
+                System.err.println("❌ Skipping damaged records in spill segment " + segmentIndex + " from offset " + offset);
+                if (segmentIndex >= writeSegment) {
+                    break;
+                }
+                segmentIndex++;
+                offset = 0;
+                continue;
+            }
+            entries.add(new Entry(enqueuedAtMillis, payload));
+            offset += HEADER_BYTES + length;
+        }
+        return new Batch(entries, segmentIndex, offset);
+    }
+
+    /**
+     * Move the reader past a batch and delete the segments it has left behind
+     */
+    public synchronized void commit(Batch batch) throws IOException {
+        readSegment = batch.getEndSegment();
+        readOffset = batch.getEndOffset();
+        pending -= batch.getEntries().size();
+
+        checkpoint.putLong(0, readSegment);
+        checkpoint.putInt(8, readOffset);
+        if (forceOnWrite) {
+            checkpoint.force();
+        }
+
+        while (!segments.isEmpty() && segments.firstKey() < readSegment) {
+            long done = segments.pollFirstEntry().getKey();
+            Files.deleteIfExists(segmentPath(done));
+        }
+    }
+
+    /**
+     * Records appended but not yet committed
+     */
+    public synchronized long size() {
+        return pending;
+    }
+
+    /**
+     * When the oldest uncommitted record was journaled, or -1 if there is none
+     */
+    public synchronized long oldestEnqueuedAtMillis() {
+        Batch next = read(1);
+        return next.getEntries().isEmpty() ? -1 : next.getEntries().getFirst().getEnqueuedAtMillis();
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * Rebuild the reader and writer positions from the checkpoint and the segments on disk
+     */
+    private void recover() throws IOException {
+        List<Long> onDisk = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> onDisk.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        onDisk.sort(null);
+
+        readSegment = checkpoint.getLong(0);
+        readOffset = checkpoint.getInt(8);
+        if (onDisk.isEmpty() || onDisk.getLast() < readSegment) {
+            // Nothing left to replay
+            writeSegment = readSegment;
+            writeOffset = readOffset;
+            segments.put(writeSegment, map(segmentPath(writeSegment), segmentBytes));
+            for (long stale : onDisk) {
+                Files.deleteIfExists(segmentPath(stale));
+            }
+            return;
+        }
+        if (onDisk.getFirst() > readSegment) {
+            // The checkpoint points at a segment that is gone - start from the oldest one left
+            readSegment = onDisk.getFirst();
+            readOffset = 0;
+        }
+
+        for (long index : onDisk) {
+            if (index < readSegment) {
+                Files.deleteIfExists(segmentPath(index));
+            } else {
+                segments.put(index, map(segmentPath(index), segmentBytes));
+            }
+        }
+
+        // Count what is left and find where the last segment's valid records end
+        pending = 0;
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+            int offset = segment.getKey() == readSegment ? readOffset : 0;
+            while (offset + HEADER_BYTES <= segmentBytes) {
+                int length = segment.getValue().getInt(offset);
+                if (length <= 0 || offset + HEADER_BYTES + length > segmentBytes || !isIntact(segment.getValue(), offset, length)) {
+                    break;
+                }
+                pending++;
+                offset += HEADER_BYTES + length;
+            }
+            writeSegment = segment.getKey();
+            writeOffset = offset;
+        }
+        if (writeOffset + HEADER_BYTES <= segmentBytes) {
+            // Clear whatever a torn append left behind the last good record
+            segments.get(writeSegment).putInt(writeOffset, 0);
+        }
+    }
+
+    private boolean isIntact(MappedByteBuffer segment, int offset, int length) {
+        byte[] payload = new byte[length];
+        segment.get(offset + HEADER_BYTES, payload);
+        return segment.getInt(offset + 4) == checksum(segment.getLong(offset + 8), payload);
+    }
+
+    private static int checksum(long enqueuedAtMillis, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (enqueuedAtMillis >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(long index) {
+        return dir.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path path, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.narayan.paymentsystem.repository;
+
+import com.example.narayan.paymentsystem.model.Payment;
+
+import java.util.List;
+
+/**
+ * Bulk writes that Spring Data's derived methods can't do in one round trip
+ */
+public interface PaymentBatchRepository {
+
+    /**
+     * Write each payment's status as it stands (paid or declined), with its gateway
+     * transaction id, failure reason and completion time, as a single JDBC batch
+     */
+    void batchUpdateStatus(List<Payment> payments);
+}
@@ -0,0 +1,37 @@
+package com.example.narayan.paymentsystem.repository;
+
+import com.example.narayan.paymentsystem.model.Payment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class PaymentBatchRepositoryImpl implements PaymentBatchRepository {
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE payments SET status = ?, gateway_transaction_id = ?, failure_reason = ?, completed_at = ?, updated_at = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PaymentBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchUpdateStatus(List<Payment> payments) {
+        if (payments.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_STATUS_SQL, payments, payments.size(), (ps, payment) -> {
+            ps.setString(1, payment.getStatus().name());
+            ps.setString(2, payment.getGatewayTransactionId());
+            ps.setString(3, payment.getFailureReason());
+            ps.setTimestamp(4, payment.getCompletedAt() != null ? Timestamp.valueOf(payment.getCompletedAt()) : null);
+            ps.setTimestamp(5, now);
+            ps.setObject(6, payment.getId());
+        });
+    }
+}
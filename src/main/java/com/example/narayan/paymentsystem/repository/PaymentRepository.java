@@ -8,7 +8,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, UUID> {
+public interface PaymentRepository extends JpaRepository<Payment, UUID>, PaymentBatchRepository {
     Optional<Payment> findByIdempotencyKey(String IdempotencyKey);
     Optional<Payment> findById(UUID id);
 }
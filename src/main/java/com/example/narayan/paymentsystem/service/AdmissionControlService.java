@@ -0,0 +1,156 @@
+package com.example.narayan.paymentsystem.service;
+
+import com.example.narayan.paymentsystem.config.AdmissionConfig;
+import com.example.narayan.paymentsystem.exception.PaymentAdmissionRejected;
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.worker.WorkerRegistry;
+import com.example.narayan.paymentsystem.worker.WorkerManager;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load shedding at the front door. A scheduled refresh caches the queue depth and a
+ * smoothed drain rate, so admitting a payment is a couple of volatile reads rather than
+ * a Redis call. A payment is turned away (429 + Retry-After) once depth / drain rate
+ * says it would wait longer than the SLO; high-value and HIGH/CRITICAL priority payments
+ * get a higher ceiling.
+ *
+ * The drain rate is this node's workers' completions, so with several nodes sharing a
+ * queue the projection is pessimistic, never optimistic. It is only sampled while there
+ * is work to drain, so an idle spell doesn't decay it, and until one has been measured
+ * payments are admitted rather than refused on a wait nobody can project.
+ */
+@Service
+public class AdmissionControlService {
+
+    @Autowired
+    private AdmissionConfig admissionConfig;
+
+    @Autowired
+    private JobQueue jobQueue;
+
+    @Autowired
+    private WorkerManager workerManager;
+
+    // Cached by refresh()
+    private volatile long queueDepth;
+    private volatile double drainRatePerSecond;
+    // False until some completions have been seen while work was waiting
+    private volatile boolean drainRateKnown;
+    private volatile long projectedWaitMs;
+
+    private long lastCompletedJobs = -1;
+    private long lastRefreshNanos;
+    private long lastQueueDepth;
+
+    private final AtomicLong admitted = new AtomicLong(0);
+    // High-value or high-priority payments, held to the higher ceiling
+    private final AtomicLong admittedHighValue = new AtomicLong(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong rejectedHighValue = new AtomicLong(0);
+
+    /**
+     * Admit or reject a new payment of the given amount and queue priority
+     */
+    public void admit(BigDecimal amount, PaymentJob.Priority priority) {
+        if (!admissionConfig.isEnabled()) {
+            return;
+        }
+
+        long waitMs = projectedWaitMs;
+        if (queueDepth < admissionConfig.getMinQueueDepth() || waitMs <= admissionConfig.getMaxWaitMs()) {
+            admitted.incrementAndGet();
+            return;
+        }
+
+        boolean highValue = (amount != null &&
+                amount.compareTo(BigDecimal.valueOf(admissionConfig.getHighValueThreshold())) >= 0) ||
+                priority == PaymentJob.Priority.HIGH || priority == PaymentJob.Priority.CRITICAL;
+        if (highValue && waitMs <= admissionConfig.getHighValueMaxWaitMs()) {
+            admittedHighValue.incrementAndGet();
+            return;
+        }
+
+        (highValue ? rejectedHighValue : rejected).incrementAndGet();
+        long ceilingMs = highValue ? admissionConfig.getHighValueMaxWaitMs() : admissionConfig.getMaxWaitMs();
+        throw new PaymentAdmissionRejected(
+                "Payment queue is overloaded (projected wait " + waitMs / 1000 + "s), please retry later",
+                retryAfterSeconds(waitMs - ceilingMs));
+    }
+
+    @Scheduled(fixedDelayString = "${payment.admission.refresh-interval-ms:500}")
+    public void refresh() {
+        long now = System.nanoTime();
+        WorkerRegistry.WorkerTotals totals = workerManager.getWorkerTotals();
+        long completed = totals.processedJobs + totals.failedJobs;
+
+        if (lastCompletedJobs >= 0) {
+            long drained = Math.max(completed - lastCompletedJobs, 0);
+            double elapsedSeconds = (now - lastRefreshNanos) / 1_000_000_000.0;
+            // An idle interval says nothing about how fast work drains
+            if (elapsedSeconds > 0 && (lastQueueDepth > 0 || drained > 0)) {
+                double sample = drained / elapsedSeconds;
+                if (!drainRateKnown) {
+                    if (drained > 0) {
+                        drainRatePerSecond = sample;
+                        drainRateKnown = true;
+                    }
+                } else {
+                    double alpha = admissionConfig.getDrainRateSmoothing();
+                    drainRatePerSecond = alpha * sample + (1 - alpha) * drainRatePerSecond;
+                }
+            }
+        }
+        lastCompletedJobs = completed;
+        lastRefreshNanos = now;
+
+        long depth = jobQueue.size();
+        queueDepth = depth;
+        lastQueueDepth = depth;
+        if (depth == 0 || !drainRateKnown) {
+            projectedWaitMs = 0;
+        } else if (drainRatePerSecond < 0.001) {
+            // Work has been waiting with nothing draining it for a while
+            projectedWaitMs = Long.MAX_VALUE;
+        } else {
+            projectedWaitMs = (long) (depth / drainRatePerSecond * 1000);
+        }
+    }
+
+    /**
+     * Roughly how long until the backlog is back under the SLO, within the configured bounds
+     */
+    private long retryAfterSeconds(long excessWaitMs) {
+        long seconds = (long) Math.ceil(Math.max(excessWaitMs, 0) / 1000.0);
+        return Math.min(Math.max(seconds, admissionConfig.getMinRetryAfterSeconds()),
+                admissionConfig.getMaxRetryAfterSeconds());
+    }
+
+    public AdmissionStats getStats() {
+        return new AdmissionStats(admissionConfig.isEnabled(), queueDepth, drainRatePerSecond,
+                projectedWaitMs == Long.MAX_VALUE ? -1 : projectedWaitMs, admissionConfig.getMaxWaitMs(),
+                admitted.get(), admittedHighValue.get(), rejected.get(), rejectedHighValue.get());
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class AdmissionStats {
+        public boolean enabled;
+        public long queueDepth;
+        public double drainRatePerSecond;
+        // -1 while jobs are waiting and nothing is draining them
+        public long projectedWaitMs;
+        public long maxWaitMs;
+        public long admitted;
+        public long admittedHighValue;
+        public long rejected;
+        public long rejectedHighValue;
+    }
+}
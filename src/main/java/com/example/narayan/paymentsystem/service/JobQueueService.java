@@ -1,30 +1,48 @@
 package com.example.narayan.paymentsystem.service;
 
-import com.example.narayan.paymentsystem.queue.RedisPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.AsyncJobEnqueuer;
+import com.example.narayan.paymentsystem.queue.JobQueue;
 import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
-import com.example.narayan.paymentsystem.queue.processor.PaymentJobProcessor;
+import com.example.narayan.paymentsystem.queue.spill.JobSpillover;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class JobQueueService {
 
     @Autowired
-    RedisPriorityJobQueue jobQueue;
+    JobQueue jobQueue;
+    @Autowired
+    JobSpillover jobSpillover;
     @Autowired
-    PaymentJobProcessor paymentJobProcessor;
+    AsyncJobEnqueuer asyncJobEnqueuer;
+    @Autowired
+    WorkAvailableSignal workAvailableSignal;
 
 
     private int processedCount = 0;
     private int failedCount = 0;
-    private boolean workerStarted = false;
 
-    //Add job into queue
+    //Add job into queue (or the local spill journal while Redis is down)
     public void enqueuePayment(PaymentJob job) {
-        jobQueue.enqueue(job);
-        if (!workerStarted) {
-            paymentJobProcessor.startProcessor();
-            workerStarted = true;
+        if (jobSpillover.enqueue(job)) {
+            workAvailableSignal.publish();
+        }
+    }
+
+    //Hand the job to the enqueue I/O threads; the future completes once it is queued
+    public CompletableFuture<Void> enqueueAsync(PaymentJob job) {
+        return asyncJobEnqueuer.submit(job);
+    }
+
+    //Add many jobs in one pipelined round trip (backfills, bulk imports)
+    public void enqueuePayments(Collection<PaymentJob> jobs) {
+        if (jobSpillover.enqueueAll(jobs)) {
+            workAvailableSignal.publish();
         }
     }
 
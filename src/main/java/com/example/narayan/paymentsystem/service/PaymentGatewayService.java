@@ -23,6 +23,13 @@ public class PaymentGatewayService {
         payment.setStatus(PaymentStatus.PROCESSING);
         paymentRepository.save(payment);
 
+        charge(payment);
+        paymentRepository.save(payment);
+        return payment;
+    }
+
+    //Simulate the gateway call on an already loaded payment, without touching the DB
+    public Payment charge(Payment payment) {
         Random random = new Random();
         //Randomly succeed or fail
         boolean success = random.nextBoolean();
@@ -45,7 +52,6 @@ public class PaymentGatewayService {
             }
         }
         payment.setCompletedAt(java.time.LocalDateTime.now());
-        paymentRepository.save(payment);
         return payment;
     }
 }
@@ -0,0 +1,36 @@
+package com.example.narayan.paymentsystem.service;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Picks the queue priority of a new payment's job from its amount, so large payments
+ * are processed ahead of routine ones. LOW is never derived here; it is left for bulk
+ * callers (backfills, imports) that set it themselves.
+ */
+@Component
+public class PaymentPriorityPolicy {
+
+    // Amounts at or above these get HIGH / CRITICAL; everything else is NORMAL
+    @Value("${payment.queue.priority.high-amount:50000}")
+    private long highAmount = 50000;
+
+    @Value("${payment.queue.priority.critical-amount:1000000}")
+    private long criticalAmount = 1000000;
+
+    public PaymentJob.Priority priorityFor(BigDecimal amount) {
+        if (amount == null) {
+            return PaymentJob.Priority.NORMAL;
+        }
+        if (amount.compareTo(BigDecimal.valueOf(criticalAmount)) >= 0) {
+            return PaymentJob.Priority.CRITICAL;
+        }
+        if (amount.compareTo(BigDecimal.valueOf(highAmount)) >= 0) {
+            return PaymentJob.Priority.HIGH;
+        }
+        return PaymentJob.Priority.NORMAL;
+    }
+}
@@ -28,6 +28,10 @@ public class PaymentService {
     UPIValidationService upiValidationService;
     @Autowired
     JobQueueService jobQueue;
+    @Autowired
+    AdmissionControlService admissionControlService;
+    @Autowired
+    PaymentPriorityPolicy paymentPriorityPolicy;
 
     //Initiate the payment and save in the db
     public PaymentResponseDto initiatePayment(PaymentRequestDto paymentRequestDto){
@@ -45,9 +49,14 @@ public class PaymentService {
             return mapToResponse(exist);
         }
 
+        // Shed load before creating anything - throws PaymentAdmissionRejected (429) when overloaded
+        admissionControlService.admit(paymentRequestDto.getAmount(),
+                paymentPriorityPolicy.priorityFor(paymentRequestDto.getAmount()));
+
         Payment payment = new Payment();
         payment.setAmount(paymentRequestDto.getAmount());
         payment.setCurrency(paymentRequestDto.getCurrency());
+        payment.setMerchant_id(paymentRequestDto.getMerchant_id());
         payment.setPaymentMethodId(paymentRequestDto.getPaymentMethod_id());
         payment.setPaymentMethodType(paymentRequestDto.getPaymentMethodType());
 
@@ -71,9 +80,8 @@ public class PaymentService {
 
                 paymentRepository.save(fresh);
 
-                // Create job and enqueue
-                PaymentJob job = PaymentJob.of(fresh.getId(), fresh.getAmount().intValue());
-                jobQueue.enqueuePayment(job);
+                // Create job and enqueue - off the request thread, the response doesn't wait on Redis
+                enqueueInBackground(fresh);
 
                 return mapToResponse(fresh);
             }
@@ -85,12 +93,38 @@ public class PaymentService {
 
             paymentRepository.save(saved);
 
-            jobQueue.enqueuePayment(PaymentJob.of(saved.getId(), saved.getAmount().intValue()));
+            enqueueInBackground(saved);
             return mapToResponse(saved);
         }
         return mapToResponse(saved);
     }
 
+    private void enqueueInBackground(Payment payment) {
+        PaymentJob job = PaymentJob.of(payment.getId(), payment.getAmount().intValue(), payment.getMerchant_id(),
+                payment.getPaymentMethodType());
+        job.setPriority(paymentPriorityPolicy.priorityFor(payment.getAmount()));
+        jobQueue.enqueueAsync(job).whenCompleteAsync((ignored, error) -> {
+            if (error != null) {
+                onEnqueueFailed(payment.getId(), error);
+            }
+        });
+    }
+
+    //The job never reached the queue - fail the payment rather than leave it PROCESSING forever
+    private void onEnqueueFailed(UUID paymentId, Throwable error) {
+        System.err.println("❌ Could not enqueue payment " + paymentId + ": " + error.getMessage());
+        try {
+            Payment payment = paymentRepository.findById(paymentId).orElse(null);
+            if (payment != null && payment.getStatus() == PaymentStatus.PROCESSING) {
+                payment.setStatus(PaymentStatus.FAILED);
+                payment.setFailureReason("Payment could not be queued for processing. Please retry.");
+                paymentRepository.save(payment);
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to mark payment " + paymentId + " as failed: " + e.getMessage());
+        }
+    }
+
     public PaymentResponseDto mapToResponse(Payment payment){
         PaymentResponseDto paymentResponseDto = new PaymentResponseDto();
 
@@ -148,12 +148,12 @@ public class AlertingService {
 
         // Check worker utilization
         if (metrics.totalWorkers > 0) {
-            double utilization = (double) metrics.activeWorkers / metrics.totalWorkers;
+            double utilization = (double) metrics.busyWorkers / metrics.totalWorkers;
 
             if (utilization >= alertingConfig.getWorkerUtilizationWarning()) {
                 generateAlert("HIGH_WORKER_UTILIZATION", AlertLevel.WARNING,
-                        String.format("High worker utilization: %.1f%% (%d/%d workers active)",
-                                utilization * 100, metrics.activeWorkers, metrics.totalWorkers));
+                        String.format("High worker utilization: %.1f%% (%d/%d workers busy)",
+                                utilization * 100, metrics.busyWorkers, metrics.totalWorkers));
             } else {
                 clearAlert("HIGH_WORKER_UTILIZATION");
             }
@@ -1,9 +1,20 @@
 package com.example.narayan.paymentsystem.service.monitoring;
 
+import com.example.narayan.paymentsystem.queue.AsyncJobEnqueuer;
 import com.example.narayan.paymentsystem.queue.JobQueue;
 import com.example.narayan.paymentsystem.queue.DeadLetterQueue;
+import com.example.narayan.paymentsystem.queue.FairQueuingJobQueue;
+import com.example.narayan.paymentsystem.queue.QueueWaitStats;
+import com.example.narayan.paymentsystem.queue.processor.PaymentJobProcessor;
+import com.example.narayan.paymentsystem.queue.processor.PaymentPipeline;
+import com.example.narayan.paymentsystem.queue.spill.JobSpillover;
+import com.example.narayan.paymentsystem.service.AdmissionControlService;
 import com.example.narayan.paymentsystem.worker.WorkerManager;
 import com.example.narayan.paymentsystem.worker.JobWorker;
+import com.example.narayan.paymentsystem.worker.VirtualThreadPinningMonitor;
+import com.example.narayan.paymentsystem.worker.WorkerBulkheads;
+import com.example.narayan.paymentsystem.worker.LatencyHistogram;
+import com.example.narayan.paymentsystem.worker.WorkerAutoscaler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -32,6 +43,24 @@ public class QueueMetricsService {
     @Autowired
     private WorkerManager workerManager;
 
+    @Autowired
+    private QueueWaitStats queueWaitStats;
+
+    @Autowired
+    private AdmissionControlService admissionControlService;
+
+    @Autowired
+    private JobSpillover jobSpillover;
+
+    @Autowired
+    private AsyncJobEnqueuer asyncJobEnqueuer;
+
+    @Autowired
+    private WorkerAutoscaler workerAutoscaler;
+
+    @Autowired
+    private PaymentJobProcessor paymentJobProcessor;
+
     @Autowired
     private JedisPool jedisPool;
 
@@ -47,6 +76,20 @@ public class QueueMetricsService {
 
             // Basic queue information
             metrics.currentQueueSize = jobQueue.size();
+            metrics.delayedQueueSize = jobQueue.delayedSize();
+            metrics.inFlightJobs = jobQueue.inFlightSize();
+            metrics.duplicatesSuppressed = jobQueue.duplicatesSuppressed();
+            metrics.admission = admissionControlService.getStats();
+            metrics.spill = jobSpillover.getStats();
+            metrics.asyncEnqueue = asyncJobEnqueuer.getStats();
+            metrics.autoscaler = workerAutoscaler.getStats();
+            metrics.pipeline = paymentJobProcessor.getPipelineStats();
+            metrics.drainState = workerManager.getDrainState();
+            metrics.drain = workerManager.getDrainReport();
+            metrics.queueWaitByPriority = queueWaitStats.snapshot();
+            if (jobQueue instanceof FairQueuingJobQueue fairQueue) {
+                metrics.merchantQueues = fairQueue.getMerchantStats();
+            }
             metrics.deadLetterQueueSize = deadLetterQueue.getDeadLetterCount();
 
             // Worker information
@@ -56,18 +99,19 @@ public class QueueMetricsService {
             // Get worker statistics
             List<JobWorker.WorkerStats> workerStats = workerManager.getAllWorkerStats();
             metrics.workerStats = workerStats;
+            metrics.busyWorkers = countBusyWorkers(workerStats);
 
             // Calculate aggregate stats
             long totalProcessed = workerStats.stream().mapToLong(w -> w.processedJobs).sum();
             long totalFailed = workerStats.stream().mapToLong(w -> w.failedJobs).sum();
-            double avgProcessingTime = workerStats.stream()
-                    .mapToLong(w -> w.avgProcessingTimeMs)
-                    .average()
-                    .orElse(0.0);
+            // Every worker's histogram merged, so the mean and percentiles are weighted by jobs
+            LatencyHistogram.Snapshot latency = workerManager.getLatencySnapshot();
 
             metrics.totalJobsProcessed = totalProcessed;
             metrics.totalJobsFailed = totalFailed;
-            metrics.averageProcessingTimeMs = (long) avgProcessingTime;
+            metrics.averageProcessingTimeMs = (long) latency.meanMicros() / 1000;
+            metrics.processingLatency = latency.summarize();
+            metrics.recentProcessingLatency = workerManager.getRecentLatencySnapshot().summarize();
             metrics.lastUpdated = LocalDateTime.now();
 
             // Performance indicators
@@ -127,15 +171,20 @@ public class QueueMetricsService {
         try {
             List<JobWorker.WorkerStats> workerStats = workerManager.getAllWorkerStats();
 
+            healthMetrics.executor = workerManager.getExecutorMode();
+            healthMetrics.pinning = workerManager.getPinningStats();
+            healthMetrics.bulkheads = workerManager.getBulkheadStats();
             healthMetrics.totalWorkers = workerManager.getWorkerCount();
             healthMetrics.activeWorkers = workerManager.getActiveWorkerCount();
             healthMetrics.healthyWorkers = (int) workerStats.stream()
                     .filter(w -> w.isRunning)
                     .count();
 
-            // Calculate worker utilization (active/total)
+            // Utilization counts workers holding jobs, not ones merely running (and waiting on the queue)
+            healthMetrics.busyWorkers = countBusyWorkers(workerStats);
+            healthMetrics.inFlightJobs = workerStats.stream().mapToInt(w -> w.inFlightJobs).sum();
             healthMetrics.workerUtilization = healthMetrics.totalWorkers > 0 ?
-                    (double) healthMetrics.activeWorkers / healthMetrics.totalWorkers : 0.0;
+                    (double) healthMetrics.busyWorkers / healthMetrics.totalWorkers : 0.0;
 
             // Convert worker stats to detailed format
             healthMetrics.workerDetails = workerStats.stream()
@@ -271,14 +320,22 @@ public class QueueMetricsService {
         return rates;
     }
 
+    private int countBusyWorkers(List<JobWorker.WorkerStats> workerStats) {
+        return (int) workerStats.stream()
+                .filter(w -> w.isRunning && w.inFlightJobs > 0)
+                .count();
+    }
+
     private WorkerDetail convertToWorkerDetail(JobWorker.WorkerStats stats) {
         WorkerDetail detail = new WorkerDetail();
         detail.workerId = stats.workerId;
         detail.isHealthy = stats.isRunning;
-        detail.status = stats.isRunning ? "RUNNING" : "STOPPED";
+        detail.status = !stats.isRunning ? "STOPPED" : stats.inFlightJobs > 0 ? "BUSY" : "IDLE";
+        detail.inFlightJobs = stats.inFlightJobs;
         detail.processedJobs = stats.processedJobs;
         detail.failedJobs = stats.failedJobs;
         detail.averageProcessingTime = stats.avgProcessingTimeMs;
+        detail.p99ProcessingTimeMs = stats.p99ProcessingTimeMs;
         detail.lastActivity = LocalDateTime.now(); // Would be tracked in real implementation
 
         return detail;
@@ -303,6 +360,7 @@ public class QueueMetricsService {
     private QueueMetrics createEmptyMetrics() {
         QueueMetrics metrics = new QueueMetrics();
         metrics.currentQueueSize = 0;
+        metrics.delayedQueueSize = 0;
         metrics.deadLetterQueueSize = 0;
         metrics.totalWorkers = 0;
         metrics.activeWorkers = 0;
@@ -310,11 +368,20 @@ public class QueueMetricsService {
         metrics.totalJobsFailed = 0;
         metrics.totalJobsEnqueued = 0;
         metrics.averageProcessingTimeMs = 0;
+        // Local, like the spill stats below
+        metrics.processingLatency = workerManager.getLatencySnapshot().summarize();
+        metrics.recentProcessingLatency = workerManager.getRecentLatencySnapshot().summarize();
         metrics.lastUpdated = LocalDateTime.now();
         metrics.workerStats = Collections.emptyList();
         metrics.performanceIndicators = Collections.emptyMap();
         metrics.currentPeriodMetrics = Collections.emptyMap();
         metrics.historicalTrends = Collections.emptyList();
+        // Local, so still there when Redis (and everything above) is not
+        metrics.spill = jobSpillover.getStats();
+        metrics.asyncEnqueue = asyncJobEnqueuer.getStats();
+        metrics.pipeline = paymentJobProcessor.getPipelineStats();
+        metrics.drainState = workerManager.getDrainState();
+        metrics.drain = workerManager.getDrainReport();
 
         return metrics;
     }
@@ -330,13 +397,31 @@ public class QueueMetricsService {
     @AllArgsConstructor
     public static class QueueMetrics {
         public long currentQueueSize;
+        public long delayedQueueSize;
         public long deadLetterQueueSize;
         public int totalWorkers;
         public int activeWorkers;
+        public int busyWorkers;
+        public long inFlightJobs;
         public long totalJobsProcessed;
         public long totalJobsFailed;
         public long totalJobsEnqueued;
+        public long duplicatesSuppressed;
+        public AdmissionControlService.AdmissionStats admission;
+        public JobSpillover.SpillStats spill;
+        public AsyncJobEnqueuer.EnqueueStats asyncEnqueue;
+        public WorkerAutoscaler.AutoscalerStats autoscaler;
+        public PaymentPipeline.PipelineStats pipeline;
+        // RUNNING, DRAINING or DRAINED; the report is null until a drain has finished
+        public String drainState;
+        public WorkerManager.DrainReport drain;
         public long averageProcessingTimeMs;
+        // Processing-time percentiles since start, and over the last latency interval
+        public LatencyHistogram.LatencySummary processingLatency;
+        public LatencyHistogram.LatencySummary recentProcessingLatency;
+        public Map<String, QueueWaitStats.WaitSummary> queueWaitByPriority;
+        // Deepest merchants' sub-queues; null unless payment.queue.type=fair
+        public List<FairQueuingJobQueue.MerchantQueueStats> merchantQueues;
         public LocalDateTime lastUpdated;
         public List<JobWorker.WorkerStats> workerStats;
         public Map<String, Object> performanceIndicators;
@@ -358,9 +443,16 @@ public class QueueMetricsService {
     @Data
     @NoArgsConstructor
     public static class WorkerHealthMetrics {
+        public String executor;
+        // Virtual thread pinning; null in platform mode
+        public VirtualThreadPinningMonitor.PinningStats pinning;
+        // Per-payment-method bulkheads; null when off
+        public List<WorkerBulkheads.BulkheadStats> bulkheads;
         public int totalWorkers;
         public int activeWorkers;
         public int healthyWorkers;
+        public int busyWorkers;
+        public int inFlightJobs;
         public double workerUtilization;
         public String overallHealth;
         public LocalDateTime lastHealthCheck;
@@ -373,9 +465,11 @@ public class QueueMetricsService {
         public long workerId;
         public boolean isHealthy;
         public String status;
+        public int inFlightJobs;
         public long processedJobs;
         public long failedJobs;
         public long averageProcessingTime;
+        public double p99ProcessingTimeMs;
         public LocalDateTime lastActivity;
     }
 
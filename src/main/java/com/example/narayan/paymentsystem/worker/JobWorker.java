@@ -7,8 +7,17 @@ import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
 import com.example.narayan.paymentsystem.queue.processor.JobProcessor;
 import redis.clients.jedis.exceptions.JedisConnectionException;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 public class JobWorker implements Runnable {
 
@@ -24,13 +33,48 @@ public class JobWorker implements Runnable {
     private final long pollingIntervalMs;
     private final long errorBackoffMs;
 
+    // Max time to block in the queue waiting for a job; null means sleep-polling
+    private final Duration blockingTimeout;
+
+    // Jobs popped and processed together; 1 disables batching
+    private final int batchSize;
+
+    // Leave the loop after this many jobs so the manager can start a fresh worker; 0 = never
+    private final long maxJobs;
+    private volatile boolean recycleDue = false;
+
+    // Sleep-polling only: empty polls double the sleep from pollingIntervalMs up to this,
+    // and a work-available signal (when given) cuts the sleep short
+    private final long maxIdleBackoffMs;
+    private final WorkAvailableSignal workSignal;
+    private long idleBackoffMs = 0;
+
+    // Per-payment-method concurrency limits shared by the pool; null when off
+    private final WorkerBulkheads bulkheads;
+
+    private volatile Thread runner;
+
     // Statistics with processing times
     private final AtomicLong processedJobs = new AtomicLong(0);
     private final AtomicLong failedJobs = new AtomicLong(0);
     private final AtomicLong emptyPolls = new AtomicLong(0);
-    private final AtomicLong totalProcessingTimeMs = new AtomicLong(0);
-    private volatile long minProcessingTimeMs = Long.MAX_VALUE;
-    private volatile long maxProcessingTimeMs = 0;
+    // Dequeued before their scheduledFor and handed back to the delayed set
+    private final AtomicLong deferredJobs = new AtomicLong(0);
+
+    // Per-job processing time; the worker's lifetime, read by snapshot and merged upstream
+    private final LatencyHistogram processingTimes = new LatencyHistogram();
+
+    // Jobs dequeued and not yet finished; > 0 means the worker is busy rather than waiting
+    private final AtomicInteger inFlightJobs = new AtomicInteger(0);
+
+    // Jobs in hand and not yet started, until claimed by whichever comes first: the worker
+    // starting them, or handOff() taking them back at shutdown - so a job is never both run
+    // and requeued. Started jobs are never handed back, since they may already be charged.
+    private final AtomicReference<List<PaymentJob>> unstartedJobs = new AtomicReference<>();
+    // Jobs claimed and being processed now; empty between jobs
+    private volatile List<PaymentJob> runningJobs = List.of();
+    // Dequeued after shutdown was requested and returned to the queue unstarted
+    private final AtomicLong returnedJobs = new AtomicLong(0);
 
     public JobWorker(JobQueue jobQueue, JobProcessor<PaymentJob> jobProcessor) {
         this(jobQueue, jobProcessor, 1000, 2000); // Default: 1s polling, 2s error backoff
@@ -38,29 +82,94 @@ public class JobWorker implements Runnable {
 
     public JobWorker(JobQueue jobQueue, JobProcessor<PaymentJob> jobProcessor,
                      long pollingIntervalMs, long errorBackoffMs) {
+        this(jobQueue, jobProcessor, pollingIntervalMs, errorBackoffMs, 0);
+    }
+
+    public JobWorker(JobQueue jobQueue, JobProcessor<PaymentJob> jobProcessor,
+                     long pollingIntervalMs, long errorBackoffMs, long blockingTimeoutMs) {
+        this(jobQueue, jobProcessor, pollingIntervalMs, errorBackoffMs, blockingTimeoutMs, 1);
+    }
+
+    public JobWorker(JobQueue jobQueue, JobProcessor<PaymentJob> jobProcessor,
+                     long pollingIntervalMs, long errorBackoffMs, long blockingTimeoutMs, int batchSize) {
+        this(jobQueue, jobProcessor, pollingIntervalMs, errorBackoffMs, blockingTimeoutMs, batchSize,
+                0, pollingIntervalMs, null, null);
+    }
+
+    public JobWorker(JobQueue jobQueue, JobProcessor<PaymentJob> jobProcessor,
+                     long pollingIntervalMs, long errorBackoffMs, long blockingTimeoutMs, int batchSize,
+                     long maxJobs, long maxIdleBackoffMs, WorkAvailableSignal workSignal,
+                     WorkerBulkheads bulkheads) {
         this.workerId = workerIdGenerator.getAndIncrement();
         this.jobQueue = jobQueue;
         this.jobProcessor = jobProcessor;
         this.pollingIntervalMs = pollingIntervalMs;
         this.errorBackoffMs = errorBackoffMs;
+        this.blockingTimeout = blockingTimeoutMs > 0 ? Duration.ofMillis(blockingTimeoutMs) : null;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxJobs = maxJobs;
+        this.maxIdleBackoffMs = Math.max(maxIdleBackoffMs, pollingIntervalMs);
+        this.workSignal = workSignal;
+        this.bulkheads = bulkheads;
     }
 
     @Override
     public void run() {
+        runner = Thread.currentThread();
         running.set(true);
-        System.out.println("🚀 JobWorker-" + workerId + " started (polling every " + pollingIntervalMs + "ms)");
+        if (blockingTimeout != null) {
+            System.out.println("🚀 JobWorker-" + workerId + " started (blocking dequeue, timeout " +
+                    blockingTimeout.toMillis() + "ms)");
+        } else {
+            System.out.println("🚀 JobWorker-" + workerId + " started (polling every " + pollingIntervalMs + "ms)");
+        }
 
         while (!shutdown.get()) {
+            List<PaymentJob> jobs = List.of();
             try {
-                // Poll for next job
-                PaymentJob job = jobQueue.dequeue();
+                // Jobs already waiting in a bulkhead lane go before new ones
+                PaymentJob waiting = bulkheads != null ? bulkheads.pollLane() : null;
+                List<PaymentJob> polled = waiting != null ? List.of(waiting) : nextJobs();
+                if (shutdown.get() && !polled.isEmpty()) {
+                    // A blocking dequeue can return a job after the drain began; it isn't ours to start
+                    jobs = polled;
+                    returnUnstarted(polled);
+                    break;
+                }
+                jobs = waiting != null ? polled : admit(deferNotReady(polled));
+                inFlightJobs.set(jobs.size());
+                if (!jobs.isEmpty()) {
+                    unstartedJobs.set(jobs);
+                }
+
+                if (!polled.isEmpty() && idleBackoffMs > 0) {
+                    // Back from idle with work in hand; there may be more, so pass the wakeup on
+                    idleBackoffMs = 0;
+                    if (workSignal != null) {
+                        workSignal.wakeOne();
+                    }
+                }
 
-                if (job != null) {
-                    processJob(job);
-                } else {
-                    // No jobs available - increment empty polls and wait
+                if (!jobs.isEmpty() && !claimForStart()) {
+                    // The drain requeued them before we got to them
+                    System.out.println("🤝 JobWorker-" + workerId + " jobs were handed off before starting");
+                } else if (jobs.size() == 1) {
+                    processJob(jobs.getFirst());
+                } else if (!jobs.isEmpty()) {
+                    processBatch(jobs);
+                } else if (polled.isEmpty()) {
+                    // No jobs available - a blocking dequeue has already waited
                     emptyPolls.incrementAndGet();
-                    Thread.sleep(pollingIntervalMs);
+                    if (blockingTimeout == null) {
+                        idleWait();
+                    }
+                }
+
+                if (maxJobs > 0 && processedJobs.get() + failedJobs.get() >= maxJobs) {
+                    // Between jobs, so nothing is left half done
+                    recycleDue = true;
+                    System.out.println("♻️ JobWorker-" + workerId + " reached " + maxJobs + " jobs, recycling");
+                    break;
                 }
 
             } catch (JedisConnectionException e) {
@@ -80,23 +189,190 @@ public class JobWorker implements Runnable {
                     Thread.currentThread().interrupt();
                     break;
                 }
+            } finally {
+                inFlightJobs.set(0);
+                unstartedJobs.set(null);
+                runningJobs = List.of();
+                if (bulkheads != null) {
+                    bulkheads.release(jobs);
+                }
             }
         }
 
+        jobQueue.releaseBlockingConnection();
         running.set(false);
         System.out.println("🛑 JobWorker-" + workerId + " stopped gracefully. Final stats: " + getStats());
     }
 
+    /**
+     * Sleep after an empty poll, twice as long as last time up to maxIdleBackoffMs
+     */
+    private void idleWait() throws InterruptedException {
+        idleBackoffMs = idleBackoffMs == 0 ? pollingIntervalMs : Math.min(idleBackoffMs * 2, maxIdleBackoffMs);
+        if (workSignal != null) {
+            // Woken early for new work; the next poll that finds some resets the backoff
+            workSignal.await(idleBackoffMs);
+        } else {
+            // Parked rather than slept, so shutdown() can cut it short
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(idleBackoffMs));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private List<PaymentJob> nextJobs() throws InterruptedException {
+        if (batchSize > 1) {
+            // A blocking batch read waits for the first job rather than polling for a batch
+            return blockingTimeout != null
+                    ? jobQueue.dequeueBatch(batchSize, blockingTimeout)
+                    : jobQueue.dequeueBatch(batchSize);
+        }
+
+        // Block in the queue when configured, otherwise poll for next job
+        PaymentJob job = blockingTimeout != null
+                ? jobQueue.dequeue(blockingTimeout)
+                : jobQueue.dequeue();
+        return job != null ? List.of(job) : List.of();
+    }
+
+    /**
+     * Jobs due later go back to the delayed set rather than running early. Retries are
+     * scheduled there to begin with, so this only catches jobs queued before that existed.
+     */
+    private List<PaymentJob> deferNotReady(List<PaymentJob> jobs) {
+        if (jobs.stream().allMatch(PaymentJob::isReadyToProcess)) {
+            return jobs;
+        }
+        List<PaymentJob> ready = new ArrayList<>(jobs.size());
+        for (PaymentJob job : jobs) {
+            if (job.isReadyToProcess()) {
+                ready.add(job);
+                continue;
+            }
+            System.out.println("⏰ JobWorker-" + workerId + " job " + job.getJobId() + " not ready yet, scheduling for " +
+                    job.getScheduledFor());
+            jobQueue.schedule(job, job.getScheduledFor().atZone(ZoneId.systemDefault()).toInstant());
+            jobQueue.ack(job);
+            deferredJobs.incrementAndGet();
+        }
+        return ready;
+    }
+
+    /**
+     * The jobs this worker may run now. The rest wait in their bulkhead's lane for a worker
+     * with a free permit, or, lane full, go back to the delayed set for a later try.
+     */
+    private List<PaymentJob> admit(List<PaymentJob> jobs) {
+        if (bulkheads == null || jobs.isEmpty()) {
+            return jobs;
+        }
+        List<PaymentJob> granted = new ArrayList<>(jobs.size());
+        List<PaymentJob> queued = new ArrayList<>();
+        try {
+            for (PaymentJob job : jobs) {
+                switch (bulkheads.admit(job)) {
+                    case GRANTED -> granted.add(job);
+                    case QUEUED -> {
+                        // Left with the bulkhead - still leased, and acked by whichever worker runs it
+                        queued.add(job);
+                    }
+                    case REJECTED -> {
+                        System.out.println("🚧 JobWorker-" + workerId + " bulkhead full for job " + job.getJobId() +
+                                " (" + job.getPaymentMethodType() + "), retrying in " + bulkheads.getRejectBackoffMs() + "ms");
+                        jobQueue.schedule(job, Instant.now().plusMillis(bulkheads.getRejectBackoffMs()));
+                        jobQueue.ack(job);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Not run after all; their permits go back now, and the jobs not left in a lane are
+            // abandoned so the queue hands them out again
+            bulkheads.release(granted);
+            List<PaymentJob> abandoned = new ArrayList<>(jobs);
+            abandoned.removeAll(queued);
+            jobQueue.abandon(abandoned);
+            throw e;
+        }
+        return granted;
+    }
+
+    private void returnUnstarted(List<PaymentJob> jobs) {
+        try {
+            jobQueue.requeue(jobs);
+            returnedJobs.addAndGet(jobs.size());
+            System.out.println("↩️ JobWorker-" + workerId + " returned " + jobs.size() + " unstarted jobs to the queue");
+        } catch (Exception e) {
+            // Not acked: in reliable mode their leases expire and they are handed out again
+            System.err.println("❌ JobWorker-" + workerId + " failed to return " + jobs.size() + " jobs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Claim the jobs in hand to run them; false if handOff() already gave them back
+     */
+    private boolean claimForStart() {
+        List<PaymentJob> claimed = unstartedJobs.getAndSet(null);
+        if (claimed == null) {
+            return false;
+        }
+        runningJobs = claimed;
+        return true;
+    }
+
+    private void processBatch(List<PaymentJob> jobs) {
+        long startNanos = System.nanoTime();
+        System.out.println("🔄 JobWorker-" + workerId + " processing batch of " + jobs.size() + " jobs");
+
+        try {
+            List<JobResult> results = jobProcessor.processBatch(jobs);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long processingTime = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+
+            // Every job has an outcome now (done, rescheduled or dead-lettered), so release them together
+            jobQueue.ackAll(jobs);
+
+            int completed = 0;
+            for (JobResult result : results) {
+                // Jobs in a batch share the wall time, so count each at its share
+                processingTimes.recordNanos(elapsedNanos / jobs.size());
+                if (result.getStatus() == JobStatus.COMPLETED) {
+                    completed++;
+                }
+            }
+            processedJobs.addAndGet(completed);
+            failedJobs.addAndGet(jobs.size() - completed);
+
+            System.out.println("✅ JobWorker-" + workerId + " finished batch: " + completed + "/" + jobs.size() +
+                    " completed in " + processingTime + "ms");
+
+        } catch (Exception e) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long processingTime = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            failedJobs.addAndGet(jobs.size());
+            for (int i = 0; i < jobs.size(); i++) {
+                processingTimes.recordNanos(elapsedNanos / jobs.size());
+            }
+
+            // Not acked: in reliable mode the jobs are handed out again once their leases expire
+            jobQueue.abandon(jobs);
+            System.err.println("💥 JobWorker-" + workerId + " exception processing batch of " +
+                    jobs.size() + " in " + processingTime + "ms: " + e.getMessage());
+        }
+    }
+
     private void processJob(PaymentJob job) {
-        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         System.out.println("🔄 JobWorker-" + workerId + " processing job: " + job.getPaymentId());
 
         try {
             JobResult result = jobProcessor.process(job);
-            long processingTime = System.currentTimeMillis() - startTime;
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long processingTime = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            jobQueue.ack(job);
 
             // Update processing time statistics
-            updateProcessingTimeStats(processingTime);
+            processingTimes.recordNanos(elapsedNanos);
 
             if (result.getStatus() == JobStatus.COMPLETED) {
                 processedJobs.incrementAndGet();
@@ -109,38 +385,18 @@ public class JobWorker implements Runnable {
             }
 
         } catch (Exception e) {
-            long processingTime = System.currentTimeMillis() - startTime;
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long processingTime = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
             failedJobs.incrementAndGet();
-            updateProcessingTimeStats(processingTime);
+            processingTimes.recordNanos(elapsedNanos);
 
+            // Not acked: in reliable mode the job is handed out again once its lease expires
+            jobQueue.abandon(List.of(job));
             System.err.println("💥 JobWorker-" + workerId + " exception processing job " +
                     job.getPaymentId() + " in " + processingTime + "ms: " + e.getMessage());
         }
     }
 
-    private void updateProcessingTimeStats(long processingTime) {
-        totalProcessingTimeMs.addAndGet(processingTime);
-
-        // Update min/max (thread-safe approach)
-        long currentMin = minProcessingTimeMs;
-        while (processingTime < currentMin) {
-            if (minProcessingTimeMs == currentMin) {
-                minProcessingTimeMs = processingTime;
-                break;
-            }
-            currentMin = minProcessingTimeMs;
-        }
-
-        long currentMax = maxProcessingTimeMs;
-        while (processingTime > currentMax) {
-            if (maxProcessingTimeMs == currentMax) {
-                maxProcessingTimeMs = processingTime;
-                break;
-            }
-            currentMax = maxProcessingTimeMs;
-        }
-    }
-
     private void handleRedisConnectionError(JedisConnectionException e) {
         System.err.println("⚠️ JobWorker-" + workerId + " Redis connection lost, waiting " +
                 (errorBackoffMs / 1000) + "s before retry...");
@@ -154,6 +410,56 @@ public class JobWorker implements Runnable {
     public void shutdown() {
         System.out.println("🔄 JobWorker-" + workerId + " shutdown requested");
         shutdown.set(true);
+        Thread thread = runner;
+        if (thread != null) {
+            // Cut an idle backoff short so the worker sees the flag now
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Take back the jobs this worker has dequeued but not started, so a shutdown that
+     * can't wait for it can requeue them; the worker then skips them. A job already being
+     * processed is left alone - its payment may be charged - and keeps its lease, so if
+     * the worker doesn't finish it the lease reaper recovers it.
+     */
+    public List<PaymentJob> handOff() {
+        List<PaymentJob> unstarted = unstartedJobs.getAndSet(null);
+        if (unstarted == null) {
+            return List.of();
+        }
+        System.out.println("🤝 JobWorker-" + workerId + " handing off " + unstarted.size() + " unstarted jobs");
+        return unstarted;
+    }
+
+    /**
+     * The jobs this worker is processing right now, so a shutdown about to interrupt it
+     * can schedule them to run again; empty between jobs
+     */
+    public List<PaymentJob> getRunningJobs() {
+        return runningJobs;
+    }
+
+    public long getReturnedJobs() {
+        return returnedJobs.get();
+    }
+
+    /**
+     * Left its loop because it reached maxJobs, not because it was told to stop
+     */
+    public boolean isRecycleDue() {
+        return recycleDue;
+    }
+
+    public long getTotalProcessingTimeMs() {
+        return processingTimes.getSumMicros() / 1000;
+    }
+
+    /**
+     * Processing-time histogram since the worker started
+     */
+    public LatencyHistogram.Snapshot getLatencySnapshot() {
+        return processingTimes.snapshot();
     }
 
     public boolean isRunning() {
@@ -164,18 +470,20 @@ public class JobWorker implements Runnable {
         return workerId;
     }
 
+    public int getInFlightJobs() {
+        return inFlightJobs.get();
+    }
+
     public String getStats() {
-        long totalJobs = processedJobs.get() + failedJobs.get();
-        long avgProcessingTime = totalJobs > 0 ? totalProcessingTimeMs.get() / totalJobs : 0;
+        LatencyHistogram.Snapshot latency = processingTimes.snapshot();
 
-        return String.format("Worker-%d: processed=%d, failed=%d, empty_polls=%d, avg_time=%dms",
-                workerId, processedJobs.get(), failedJobs.get(), emptyPolls.get(), avgProcessingTime);
+        return String.format("Worker-%d: processed=%d, failed=%d, deferred=%d, empty_polls=%d, avg_time=%dms, p99=%.1fms",
+                workerId, processedJobs.get(), failedJobs.get(), deferredJobs.get(), emptyPolls.get(),
+                (long) latency.meanMicros() / 1000, latency.valueAtQuantile(0.99) / 1000.0);
     }
 
     public WorkerStats getDetailedStats() {
-        long totalJobs = processedJobs.get() + failedJobs.get();
-        long avgProcessingTime = totalJobs > 0 ? totalProcessingTimeMs.get() / totalJobs : 0;
-        long safeMinTime = minProcessingTimeMs == Long.MAX_VALUE ? 0 : minProcessingTimeMs;
+        LatencyHistogram.Snapshot latency = processingTimes.snapshot();
 
         return new WorkerStats(
                 workerId,
@@ -183,9 +491,15 @@ public class JobWorker implements Runnable {
                 processedJobs.get(),
                 failedJobs.get(),
                 emptyPolls.get(),
-                avgProcessingTime,
-                safeMinTime,
-                maxProcessingTimeMs
+                deferredJobs.get(),
+                (long) latency.meanMicros() / 1000,
+                latency.minMicros() / 1000,
+                latency.getMaxMicros() / 1000,
+                inFlightJobs.get(),
+                latency.valueAtQuantile(0.50) / 1000.0,
+                latency.valueAtQuantile(0.90) / 1000.0,
+                latency.valueAtQuantile(0.99) / 1000.0,
+                latency.valueAtQuantile(0.999) / 1000.0
         );
     }
 
@@ -195,28 +509,44 @@ public class JobWorker implements Runnable {
         public final long processedJobs;
         public final long failedJobs;
         public final long emptyPolls;
+        public final long deferredJobs;
         public final long avgProcessingTimeMs;
         public final long minProcessingTimeMs;
         public final long maxProcessingTimeMs;
+        public final int inFlightJobs;
+        // Processing-time percentiles from the worker's histogram, accurate to ~3%
+        public final double p50ProcessingTimeMs;
+        public final double p90ProcessingTimeMs;
+        public final double p99ProcessingTimeMs;
+        public final double p999ProcessingTimeMs;
 
         public WorkerStats(long workerId, boolean isRunning, long processedJobs,
-                           long failedJobs, long emptyPolls, long avgProcessingTimeMs,
-                           long minProcessingTimeMs, long maxProcessingTimeMs) {
+                           long failedJobs, long emptyPolls, long deferredJobs, long avgProcessingTimeMs,
+                           long minProcessingTimeMs, long maxProcessingTimeMs, int inFlightJobs,
+                           double p50ProcessingTimeMs, double p90ProcessingTimeMs,
+                           double p99ProcessingTimeMs, double p999ProcessingTimeMs) {
             this.workerId = workerId;
             this.isRunning = isRunning;
             this.processedJobs = processedJobs;
             this.failedJobs = failedJobs;
             this.emptyPolls = emptyPolls;
+            this.deferredJobs = deferredJobs;
             this.avgProcessingTimeMs = avgProcessingTimeMs;
             this.minProcessingTimeMs = minProcessingTimeMs;
             this.maxProcessingTimeMs = maxProcessingTimeMs;
+            this.inFlightJobs = inFlightJobs;
+            this.p50ProcessingTimeMs = p50ProcessingTimeMs;
+            this.p90ProcessingTimeMs = p90ProcessingTimeMs;
+            this.p99ProcessingTimeMs = p99ProcessingTimeMs;
+            this.p999ProcessingTimeMs = p999ProcessingTimeMs;
         }
 
         @Override
         public String toString() {
-            return String.format("WorkerStats{id=%d, running=%s, processed=%d, failed=%d, empty=%d, avg=%dms, min=%dms, max=%dms}",
-                    workerId, isRunning, processedJobs, failedJobs, emptyPolls,
-                    avgProcessingTimeMs, minProcessingTimeMs, maxProcessingTimeMs);
+            return String.format("WorkerStats{id=%d, running=%s, processed=%d, failed=%d, empty=%d, deferred=%d, avg=%dms, min=%dms, max=%dms, p50=%.1fms, p90=%.1fms, p99=%.1fms, p999=%.1fms, in_flight=%d}",
+                    workerId, isRunning, processedJobs, failedJobs, emptyPolls, deferredJobs,
+                    avgProcessingTimeMs, minProcessingTimeMs, maxProcessingTimeMs,
+                    p50ProcessingTimeMs, p90ProcessingTimeMs, p99ProcessingTimeMs, p999ProcessingTimeMs, inFlightJobs);
         }
     }
 }
\ No newline at end of file
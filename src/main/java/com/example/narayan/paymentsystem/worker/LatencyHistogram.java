@@ -0,0 +1,213 @@
+package com.example.narayan.paymentsystem.worker;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear latency histogram in microseconds, in the style of HdrHistogram.
+ *
+ * Values below 64us get a bucket each; above that every power of two is split into 32
+ * equal buckets, so a reported percentile is within ~3% of the true value. Values past
+ * about 12 days land in the top bucket. That is 1,152 counters (9 KB) per histogram,
+ * allocated once.
+ *
+ * record() is a handful of arithmetic and atomic increments - no locks, no allocation.
+ * Readers take a Snapshot, which can be merged with other snapshots (other workers, other
+ * nodes - it serializes as plain JSON) and subtracted to get the counts for an interval.
+ */
+public class LatencyHistogram {
+
+    // 2^SUB_BITS linear buckets at the bottom, 2^(SUB_BITS-1) per power of two above
+    private static final int SUB_BITS = 6;
+    private static final int LINEAR = 1 << SUB_BITS;
+    private static final int HALF = LINEAR >> 1;
+    private static final int MAX_MAGNITUDE = 39;
+    private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+    static final int BUCKETS = LINEAR + (MAX_MAGNITUDE - (SUB_BITS - 1)) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong(0);
+    private final AtomicLong sumMicros = new AtomicLong(0);
+    private final AtomicLong maxMicros = new AtomicLong(0);
+
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        sumMicros.addAndGet(value);
+
+        long max = maxMicros.get();
+        while (value > max && !maxMicros.compareAndSet(max, value)) {
+            max = maxMicros.get();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    public long getSumMicros() {
+        return sumMicros.get();
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalCount.get(), sumMicros.get(), maxMicros.get());
+    }
+
+    /**
+     * Counts since the last reset, and start a new interval. Each bucket is swapped
+     * atomically, so a value recorded meanwhile is counted in exactly one interval; only
+     * the sum and max can be off by that one value.
+     */
+    public Snapshot snapshotAndReset() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.getAndSet(i, 0);
+            total += copy[i];
+        }
+        // Totals are re-derived from the buckets so they agree with them
+        totalCount.addAndGet(-total);
+        long sum = sumMicros.getAndSet(0);
+        long max = maxMicros.getAndSet(0);
+        return new Snapshot(copy, total, sum, max);
+    }
+
+    public void reset() {
+        snapshotAndReset();
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - (SUB_BITS - 1);
+        int sub = (int) (value >>> shift);
+        return LINEAR + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    /**
+     * Highest value that maps to the bucket; percentiles report this, so they never understate
+     */
+    static long highestValueAt(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / HALF + 1;
+        long sub = (index - LINEAR) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Point-in-time copy of a histogram's counts
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Snapshot {
+        private long[] counts = new long[BUCKETS];
+        private long totalCount;
+        private long sumMicros;
+        private long maxMicros;
+
+        public static Snapshot empty() {
+            return new Snapshot();
+        }
+
+        /**
+         * Add another snapshot's counts to this one
+         */
+        public Snapshot merge(Snapshot other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            totalCount += other.totalCount;
+            sumMicros += other.sumMicros;
+            maxMicros = Math.max(maxMicros, other.maxMicros);
+            return this;
+        }
+
+        /**
+         * Counts recorded since an earlier snapshot of the same (never reset) histograms.
+         * The max can't be un-merged, so it is the max of the later snapshot.
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                delta[i] = Math.max(counts[i] - earlier.counts[i], 0);
+            }
+            return new Snapshot(delta, Math.max(totalCount - earlier.totalCount, 0),
+                    Math.max(sumMicros - earlier.sumMicros, 0), maxMicros);
+        }
+
+        /**
+         * Value at the given quantile (0-1) in microseconds; 0 when empty
+         */
+        public long valueAtQuantile(double quantile) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max((long) Math.ceil(quantile * total), 1);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), maxMicros > 0 ? maxMicros : Long.MAX_VALUE);
+                }
+            }
+            return maxMicros;
+        }
+
+        public long minMicros() {
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) {
+                    return i < LINEAR ? i : highestValueAt(i - 1) + 1;
+                }
+            }
+            return 0;
+        }
+
+        public double meanMicros() {
+            return totalCount > 0 ? (double) sumMicros / totalCount : 0;
+        }
+
+        public LatencySummary summarize() {
+            return new LatencySummary(totalCount, meanMicros() / 1000.0,
+                    valueAtQuantile(0.50) / 1000.0, valueAtQuantile(0.90) / 1000.0,
+                    valueAtQuantile(0.99) / 1000.0, valueAtQuantile(0.999) / 1000.0, maxMicros / 1000.0);
+        }
+    }
+
+    /**
+     * Percentiles of a snapshot, in milliseconds
+     */
+    @Data
+    @AllArgsConstructor
+    public static class LatencySummary {
+        public long count;
+        public double meanMs;
+        public double p50Ms;
+        public double p90Ms;
+        public double p99Ms;
+        public double p999Ms;
+        public double maxMs;
+    }
+}
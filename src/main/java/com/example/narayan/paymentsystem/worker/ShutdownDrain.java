@@ -0,0 +1,69 @@
+package com.example.narayan.paymentsystem.worker;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains the node at shutdown, before anything it depends on goes away:
+ *
+ *   1. readiness turns DRAINING (and Spring's readinessState REFUSING_TRAFFIC), then we
+ *      wait readiness-grace-ms so load balancers stop sending new requests
+ *   2. WorkerManager.drain(): workers stop taking jobs and finish, hand back or return
+ *      what they hold
+ *
+ * As a SmartLifecycle in the last phase it is stopped first - before the web server's
+ * graceful shutdown and long before the Redis and DB pools are destroyed.
+ */
+@Component
+public class ShutdownDrain implements SmartLifecycle {
+
+    @Autowired
+    private WorkerManager workerManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // How long readiness reports DRAINING before workers stop; cover the load balancer's probe interval
+    @Value("${payment.worker.drain.readiness-grace-ms:5000}")
+    private long readinessGraceMs;
+
+    private volatile boolean running = false;
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        System.out.println("🚰 Shutdown: reporting DRAINING for " + readinessGraceMs + "ms before stopping workers");
+        workerManager.beginDrain();
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            Thread.sleep(readinessGraceMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        workerManager.drain();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+}
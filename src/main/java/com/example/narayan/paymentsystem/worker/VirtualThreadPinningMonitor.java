@@ -0,0 +1,116 @@
+package com.example.narayan.paymentsystem.worker;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Watches for virtual threads that block while pinned to their carrier - typically inside
+ * a synchronized block, in Jedis or in our own code. Listens to the JVM's
+ * jdk.VirtualThreadPinned flight recorder event in-process, so it needs no startup flags.
+ *
+ * Each pinning is charged to the first stack frame outside the JDK, which is the code
+ * that took the monitor (or called into the JDK code that did).
+ */
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int TOP_SITES = 10;
+
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    private final AtomicLong pinnedEvents = new AtomicLong(0);
+    private final AtomicLong pinnedNanos = new AtomicLong(0);
+    private final AtomicLong maxPinnedNanos = new AtomicLong(0);
+    private final Map<String, LongAdder> bySite = new ConcurrentHashMap<>();
+
+    public VirtualThreadPinningMonitor(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    public void start() {
+        try {
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::record);
+            stream.startAsync();
+            System.out.println("📌 Watching for virtual thread pinning longer than " + threshold.toMillis() + "ms");
+        } catch (Exception e) {
+            // JFR missing or disabled - run without pinning reports
+            System.err.println("⚠️ Virtual thread pinning detection unavailable: " + e.getMessage());
+            stream = null;
+        }
+    }
+
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinnedEvents.incrementAndGet();
+        pinnedNanos.addAndGet(nanos);
+        maxPinnedNanos.accumulateAndGet(nanos, Math::max);
+
+        String site = culprit(event);
+        LongAdder count = bySite.computeIfAbsent(site, key -> {
+            System.err.println("📌 Virtual thread pinned for " + Duration.ofNanos(nanos).toMillis() + "ms at " + key);
+            return new LongAdder();
+        });
+        count.increment();
+    }
+
+    private static String culprit(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.")) {
+                continue;
+            }
+            return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+        }
+        return "jdk";
+    }
+
+    public PinningStats getStats() {
+        Map<String, Long> topSites = new LinkedHashMap<>();
+        bySite.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                .limit(TOP_SITES)
+                .forEach(entry -> topSites.put(entry.getKey(), entry.getValue().sum()));
+
+        return new PinningStats(stream != null, threshold.toMillis(), pinnedEvents.get(),
+                pinnedNanos.get() / 1_000_000, maxPinnedNanos.get() / 1_000_000, topSites);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class PinningStats {
+        public boolean monitoring;
+        // Only pinnings at least this long are recorded
+        public long thresholdMs;
+        public long pinnedEvents;
+        public long totalPinnedMs;
+        public long maxPinnedMs;
+        // Code that pinned most often, with its count
+        public Map<String, Long> topSites;
+    }
+}
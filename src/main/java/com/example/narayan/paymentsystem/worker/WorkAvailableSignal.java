@@ -0,0 +1,168 @@
+package com.example.narayan.paymentsystem.worker;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * "Work available" wakeups for sleep-polling workers. Producers publish on a Redis
+ * channel after an enqueue; every node subscribes and wakes one of its parked workers,
+ * which polls at once and, if it finds work, wakes the next. Idle workers can then back
+ * off to long sleeps without making new jobs wait for them.
+ *
+ * Only used when workers sleep-poll; with blocking dequeue Redis already wakes them.
+ * Wakeups are best effort - a lost message costs one backoff interval, nothing more.
+ */
+@Component
+public class WorkAvailableSignal {
+
+    @Autowired
+    private JedisPool jedisPool;
+
+    @Value("${spring.data.redis.host:redis}")
+    private String redisHost;
+
+    @Value("${spring.data.redis.port:6379}")
+    private int redisPort;
+
+    @Value("${payment.worker.wakeup-enabled:true}")
+    private boolean wakeupEnabled;
+
+    @Value("${payment.worker.blocking-dequeue:false}")
+    private boolean blockingDequeue;
+
+    @Value("${payment.worker.wakeup-channel:payment_jobs:work-available}")
+    private String channel;
+
+    // Workers parked in await(), most recent first so the warmest thread is woken
+    private final Deque<Thread> waiters = new ConcurrentLinkedDeque<>();
+
+    private volatile boolean running = false;
+    private Thread subscriberThread;
+    private volatile JedisPubSub subscriber;
+
+    private final AtomicLong published = new AtomicLong(0);
+    private final AtomicLong received = new AtomicLong(0);
+    private final AtomicLong wakeups = new AtomicLong(0);
+
+    @PostConstruct
+    public void start() {
+        if (!isActive()) {
+            return;
+        }
+        running = true;
+        subscriberThread = new Thread(this::subscribeLoop, "work-available-subscriber");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        JedisPubSub current = subscriber;
+        if (current != null && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+        // Let parked workers see their shutdown flag
+        waiters.forEach(LockSupport::unpark);
+    }
+
+    public boolean isActive() {
+        return wakeupEnabled && !blockingDequeue;
+    }
+
+    /**
+     * Tell every node's workers that jobs were just enqueued
+     */
+    public void publish() {
+        if (!running) {
+            return;
+        }
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.publish(channel, "1");
+            published.incrementAndGet();
+        } catch (Exception e) {
+            // The workers' own backoff still finds the job
+        }
+    }
+
+    /**
+     * Park the calling worker for up to maxWaitMs; true if a signal woke it. May also return
+     * early without one (an unpark from shutdown), which to a polling worker is just an extra poll.
+     */
+    public boolean await(long maxWaitMs) throws InterruptedException {
+        Thread current = Thread.currentThread();
+        waiters.addFirst(current);
+        try {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(maxWaitMs));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            // wakeOne() takes the thread off the list before unparking it
+            return !waiters.contains(current);
+        } finally {
+            waiters.remove(current);
+        }
+    }
+
+    /**
+     * Wake one parked worker on this node, if any
+     */
+    public void wakeOne() {
+        Thread waiter = waiters.pollFirst();
+        if (waiter != null) {
+            wakeups.incrementAndGet();
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private void subscribeLoop() {
+        System.out.println("📣 Listening for work-available signals on " + channel);
+        while (running) {
+            try (Jedis jedis = new Jedis(redisHost, redisPort)) {
+                subscriber = new JedisPubSub() {
+                    @Override
+                    public void onMessage(String messageChannel, String message) {
+                        received.incrementAndGet();
+                        wakeOne();
+                    }
+                };
+                // Blocks until unsubscribed or the connection drops
+                jedis.subscribe(subscriber, channel);
+            } catch (Exception e) {
+                if (running) {
+                    System.err.println("⚠️ Work-available subscription lost: " + e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(2));
+                }
+            }
+        }
+    }
+
+    public SignalStats getStats() {
+        return new SignalStats(isActive(), published.get(), received.get(), wakeups.get(), waiters.size());
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SignalStats {
+        public boolean active;
+        public long published;
+        public long received;
+        // Received signals that found a parked worker to wake
+        public long wakeups;
+        public int parkedWorkers;
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.narayan.paymentsystem.worker;
+
+import com.example.narayan.paymentsystem.config.AutoscalerConfig;
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sizes the worker pool from what the queue is doing. Every interval it samples queue
+ * depth, this node's completions, the time workers spend per job and how many jobs they
+ * hold, and works out a target by Little's law:
+ *
+ *   busy workers needed = arrival rate x service time
+ *   plus enough to clear the current backlog within drainTargetSeconds,
+ *   divided by targetUtilization for headroom.
+ *
+ * Growth happens at once, up to maxStepUp per interval. Shrinking waits until the target
+ * has stayed scaleDownHysteresis below the current size for scaleDownStableIntervals
+ * samples, so a brief lull doesn't tear down workers that are needed again moments later.
+ * The pool never shrinks below the jobs currently in flight.
+ *
+ * Arrivals are estimated as completions plus growth in depth, so with several nodes on
+ * one queue each node sizes for the share of work it is already draining.
+ */
+@Component
+public class WorkerAutoscaler {
+
+    @Autowired
+    private AutoscalerConfig autoscalerConfig;
+
+    @Autowired
+    private WorkerManager workerManager;
+
+    @Autowired
+    private JobQueue jobQueue;
+
+    // Smoothed inputs
+    private volatile double arrivalRatePerSecond;
+    private volatile double serviceTimeMs;
+
+    // Latest sample and decision
+    private volatile long queueDepth;
+    private volatile int inFlightJobs;
+    private volatile int targetWorkers;
+
+    private long lastDepth = -1;
+    private long lastCompleted;
+    private long lastProcessingMs;
+    private long lastSampleNanos;
+    private int intervalsBelowTarget = 0;
+
+    private final AtomicLong scaleUps = new AtomicLong(0);
+    private final AtomicLong scaleDowns = new AtomicLong(0);
+    private final AtomicLong workersAdded = new AtomicLong(0);
+    private final AtomicLong workersRetired = new AtomicLong(0);
+    private final Deque<ScalingDecision> history = new ArrayDeque<>();
+
+    @Scheduled(fixedDelayString = "${payment.worker.autoscale.interval-ms:5000}",
+            initialDelayString = "${payment.worker.autoscale.interval-ms:5000}")
+    public void tick() {
+        if (!autoscalerConfig.isEnabled() || !workerManager.isStarted()
+                || !WorkerManager.DRAIN_RUNNING.equals(workerManager.getDrainState())) {
+            return;
+        }
+
+        try {
+            if (sample()) {
+                decide();
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Autoscaler failed to sample load: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Refresh the smoothed arrival rate and service time; false until there are two samples to compare
+     */
+    private boolean sample() {
+        long now = System.nanoTime();
+        // Lifetime totals include retired workers, so they only ever grow
+        WorkerRegistry.WorkerTotals totals = workerManager.getWorkerTotals();
+        long completed = totals.processedJobs + totals.failedJobs;
+        long processingMs = totals.processingTimeMs;
+        int inFlight = 0;
+        for (JobWorker.WorkerStats stats : workerManager.getAllWorkerStats()) {
+            inFlight += stats.inFlightJobs;
+        }
+        long depth = jobQueue.size();
+        queueDepth = depth;
+        inFlightJobs = inFlight;
+
+        boolean first = lastDepth < 0;
+        long completedDelta = completed - lastCompleted;
+        long processingDelta = processingMs - lastProcessingMs;
+        double elapsedSeconds = (now - lastSampleNanos) / 1_000_000_000.0;
+        long depthDelta = depth - lastDepth;
+
+        lastDepth = depth;
+        lastCompleted = completed;
+        lastProcessingMs = processingMs;
+        lastSampleNanos = now;
+
+        if (first || completedDelta < 0 || processingDelta < 0 || elapsedSeconds <= 0) {
+            return false;
+        }
+
+        double alpha = autoscalerConfig.getSmoothing();
+        double arrivals = Math.max(completedDelta + depthDelta, 0) / elapsedSeconds;
+        arrivalRatePerSecond = alpha * arrivals + (1 - alpha) * arrivalRatePerSecond;
+        if (completedDelta > 0) {
+            double perJob = (double) processingDelta / completedDelta;
+            serviceTimeMs = serviceTimeMs == 0 ? perJob : alpha * perJob + (1 - alpha) * serviceTimeMs;
+        }
+        return true;
+    }
+
+    private void decide() {
+        int current = workerManager.getWorkerCount();
+        int target = computeTarget();
+        targetWorkers = target;
+
+        if (target > current) {
+            intervalsBelowTarget = 0;
+            int step = Math.min(target - current, autoscalerConfig.getMaxStepUp());
+            workerManager.addMoreWorkers(step);
+            scaleUps.incrementAndGet();
+            workersAdded.addAndGet(step);
+            record(current, current + step, target, "scale-up");
+            return;
+        }
+
+        int shrinkBelow = (int) Math.floor(current * (1 - autoscalerConfig.getScaleDownHysteresis()));
+        if (target >= current || target > shrinkBelow) {
+            intervalsBelowTarget = 0;
+            return;
+        }
+        if (++intervalsBelowTarget < autoscalerConfig.getScaleDownStableIntervals()) {
+            return;
+        }
+
+        intervalsBelowTarget = 0;
+        int retired = workerManager.removeWorkers(Math.min(current - target, autoscalerConfig.getMaxStepDown()));
+        if (retired > 0) {
+            scaleDowns.incrementAndGet();
+            workersRetired.addAndGet(retired);
+            record(current, current - retired, target, "scale-down");
+        }
+    }
+
+    private int computeTarget() {
+        double serviceSeconds = serviceTimeMs / 1000.0;
+        // Little's law: jobs in service at once to keep up with arrivals
+        double steadyState = arrivalRatePerSecond * serviceSeconds;
+        double backlog = queueDepth * serviceSeconds / Math.max(autoscalerConfig.getDrainTargetSeconds(), 1);
+        int target = (int) Math.ceil((steadyState + backlog) / autoscalerConfig.getTargetUtilization());
+
+        // Never below what is busy right now
+        target = Math.max(target, inFlightJobs);
+        return Math.min(Math.max(target, autoscalerConfig.getMinWorkers()), autoscalerConfig.getMaxWorkers());
+    }
+
+    private void record(int from, int to, int target, String action) {
+        ScalingDecision decision = new ScalingDecision(LocalDateTime.now(), action, from, to, target,
+                arrivalRatePerSecond, serviceTimeMs, queueDepth, inFlightJobs);
+        System.out.println(String.format(
+                "%s Autoscaler %s: %d -> %d workers (target=%d, arrivals=%.1f/s, service=%.0fms, depth=%d, in_flight=%d)",
+                to > from ? "📈" : "📉", action, from, to, target, arrivalRatePerSecond, serviceTimeMs,
+                queueDepth, inFlightJobs));
+
+        synchronized (history) {
+            history.addFirst(decision);
+            while (history.size() > autoscalerConfig.getHistorySize()) {
+                history.removeLast();
+            }
+        }
+    }
+
+    public AutoscalerStats getStats() {
+        List<ScalingDecision> recent;
+        synchronized (history) {
+            recent = new ArrayList<>(history);
+        }
+        return new AutoscalerStats(autoscalerConfig.isEnabled(), workerManager.getWorkerCount(), targetWorkers,
+                autoscalerConfig.getMinWorkers(), autoscalerConfig.getMaxWorkers(), arrivalRatePerSecond,
+                serviceTimeMs, queueDepth, inFlightJobs, scaleUps.get(), scaleDowns.get(),
+                workersAdded.get(), workersRetired.get(), recent);
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class ScalingDecision {
+        public LocalDateTime at;
+        public String action;
+        public int fromWorkers;
+        public int toWorkers;
+        public int targetWorkers;
+        public double arrivalRatePerSecond;
+        public double serviceTimeMs;
+        public long queueDepth;
+        public int inFlightJobs;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class AutoscalerStats {
+        public boolean enabled;
+        public int currentWorkers;
+        // What the last sample called for, before bounds on step size and hysteresis
+        public int targetWorkers;
+        public int minWorkers;
+        public int maxWorkers;
+        public double arrivalRatePerSecond;
+        public double serviceTimeMs;
+        public long queueDepth;
+        public int inFlightJobs;
+        public long scaleUps;
+        public long scaleDowns;
+        public long workersAdded;
+        public long workersRetired;
+        // Newest first
+        public List<ScalingDecision> recentDecisions;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.narayan.paymentsystem.worker;
+
+import com.example.narayan.paymentsystem.config.WorkerConfig;
+import com.example.narayan.paymentsystem.model.enums.PaymentMethodType;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caps how many workers one kind of payment can hold at once, so a slow gateway for one
+ * payment method can't take every worker and stall the others.
+ *
+ * Each bulkhead (a payment method, or method and priority) has a limit on the jobs it
+ * runs at a time and a lane for jobs waiting to run. A worker that dequeues a job asks
+ * admit() for a permit: it runs the job now, leaves it in the bulkhead's lane for a
+ * worker that frees a permit, or - lane full - hands it back to be retried later.
+ *
+ * A full bulkhead may borrow a permit from one that has spare capacity and nothing
+ * waiting, up to max-borrow at a time. Borrowed permits go back when their jobs finish;
+ * they are never taken back early, which is why max-borrow is kept small.
+ */
+public class WorkerBulkheads {
+
+    // Jobs without a payment method (queued before it was carried on the job)
+    static final String UNKNOWN = "UNKNOWN";
+
+    public enum Admission {
+        // Permit held: run the job, then release() it
+        GRANTED,
+        // Waiting in its lane; a worker takes it with pollLane()
+        QUEUED,
+        // Lane full: reschedule it
+        REJECTED
+    }
+
+    private final Map<String, Integer> limits;
+    private final int defaultLimit;
+    private final boolean byPriority;
+    private final int laneCapacity;
+    private final boolean borrowingEnabled;
+    private final int maxBorrow;
+    private final long rejectBackoffMs;
+
+    private final Map<String, Bulkhead> bulkheads = new LinkedHashMap<>();
+    // Which bulkhead (and lender, when borrowed) each running job's permit came from
+    private final Map<PaymentJob, Permit> permits = new IdentityHashMap<>();
+    // Where the next pollLane() starts, so no lane is always served last
+    private int nextLane = 0;
+
+    public WorkerBulkheads(WorkerConfig.Bulkhead config) {
+        this.limits = config.getLimits();
+        this.defaultLimit = Math.max(config.getDefaultLimit(), 1);
+        this.byPriority = config.isByPriority();
+        this.laneCapacity = Math.max(config.getLaneCapacity(), 0);
+        this.borrowingEnabled = config.isBorrowingEnabled();
+        this.maxBorrow = Math.max(config.getMaxBorrow(), 0);
+        this.rejectBackoffMs = config.getRejectBackoffMs();
+
+        // Known up front so every method shows in the stats, busy or not
+        if (!byPriority) {
+            for (PaymentMethodType method : PaymentMethodType.values()) {
+                bulkheadFor(method.name());
+            }
+            bulkheadFor(UNKNOWN);
+        }
+    }
+
+    /**
+     * Get a permit for a dequeued job, or park it in its lane behind the jobs already waiting
+     */
+    public synchronized Admission admit(PaymentJob job) {
+        Bulkhead bulkhead = bulkheadFor(keyOf(job));
+        if (bulkhead.lane.isEmpty() && acquire(bulkhead, job)) {
+            return Admission.GRANTED;
+        }
+        if (bulkhead.lane.size() < laneCapacity) {
+            bulkhead.lane.addLast(job);
+            bulkhead.queued++;
+            return Admission.QUEUED;
+        }
+        bulkhead.rejected++;
+        return Admission.REJECTED;
+    }
+
+    /**
+     * The first lane job there is now a permit for, with the permit taken; null if none
+     */
+    public synchronized PaymentJob pollLane() {
+        List<Bulkhead> all = new ArrayList<>(bulkheads.values());
+        for (int i = 0; i < all.size(); i++) {
+            Bulkhead bulkhead = all.get((nextLane + i) % all.size());
+            PaymentJob job = bulkhead.lane.peekFirst();
+            if (job != null && acquire(bulkhead, job)) {
+                bulkhead.lane.removeFirst();
+                nextLane = (nextLane + i + 1) % all.size();
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Give back the permits of finished jobs; jobs without one are ignored
+     */
+    public synchronized void release(List<PaymentJob> jobs) {
+        for (PaymentJob job : jobs) {
+            Permit permit = permits.remove(job);
+            if (permit == null) {
+                continue;
+            }
+            if (permit.lender == null) {
+                permit.bulkhead.inUse--;
+            } else {
+                permit.bulkhead.borrowed--;
+                permit.lender.lentOut--;
+            }
+        }
+    }
+
+    /**
+     * Empty every lane, for the shutdown drain to requeue
+     */
+    public synchronized List<PaymentJob> drainLanes() {
+        List<PaymentJob> waiting = new ArrayList<>();
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            waiting.addAll(bulkhead.lane);
+            bulkhead.lane.clear();
+        }
+        return waiting;
+    }
+
+    public long getRejectBackoffMs() {
+        return rejectBackoffMs;
+    }
+
+    private boolean acquire(Bulkhead bulkhead, PaymentJob job) {
+        if (bulkhead.inUse + bulkhead.lentOut < bulkhead.limit) {
+            bulkhead.inUse++;
+            bulkhead.acquired++;
+            permits.put(job, new Permit(bulkhead, null));
+            return true;
+        }
+        if (!borrowingEnabled || bulkhead.borrowed >= maxBorrow) {
+            return false;
+        }
+        for (Bulkhead lender : bulkheads.values()) {
+            // Only capacity its own jobs aren't waiting for
+            if (lender != bulkhead && lender.lane.isEmpty() && lender.inUse + lender.lentOut < lender.limit) {
+                lender.lentOut++;
+                bulkhead.borrowed++;
+                bulkhead.acquired++;
+                bulkhead.borrowedTotal++;
+                permits.put(job, new Permit(bulkhead, lender));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Bulkhead bulkheadFor(String key) {
+        return bulkheads.computeIfAbsent(key, k -> new Bulkhead(k, limitFor(k)));
+    }
+
+    private int limitFor(String key) {
+        Integer limit = limits.get(key);
+        if (limit == null && byPriority) {
+            // METHOD:PRIORITY falls back to the method's limit
+            limit = limits.get(key.substring(0, key.indexOf(':')));
+        }
+        return limit != null ? Math.max(limit, 1) : defaultLimit;
+    }
+
+    private String keyOf(PaymentJob job) {
+        String method = job.getPaymentMethodType() != null ? job.getPaymentMethodType().name() : UNKNOWN;
+        if (!byPriority) {
+            return method;
+        }
+        return method + ":" + (job.getPriority() != null ? job.getPriority().name() : PaymentJob.Priority.NORMAL.name());
+    }
+
+    public synchronized List<BulkheadStats> getStats() {
+        List<BulkheadStats> stats = new ArrayList<>(bulkheads.size());
+        for (Bulkhead bulkhead : bulkheads.values()) {
+            stats.add(new BulkheadStats(bulkhead.key, bulkhead.limit, bulkhead.inUse, bulkhead.borrowed,
+                    bulkhead.lentOut, (double) (bulkhead.inUse + bulkhead.borrowed) / bulkhead.limit,
+                    bulkhead.lane.size(), laneCapacity, bulkhead.acquired, bulkhead.borrowedTotal,
+                    bulkhead.queued, bulkhead.rejected));
+        }
+        return stats;
+    }
+
+    private static class Bulkhead {
+        final String key;
+        final int limit;
+        final ArrayDeque<PaymentJob> lane = new ArrayDeque<>();
+        // Own permits running its jobs, own permits running other bulkheads' jobs, and borrowed ones running its jobs
+        int inUse;
+        int lentOut;
+        int borrowed;
+        long acquired;
+        long borrowedTotal;
+        long queued;
+        long rejected;
+
+        Bulkhead(String key, int limit) {
+            this.key = key;
+            this.limit = limit;
+        }
+    }
+
+    private static class Permit {
+        final Bulkhead bulkhead;
+        // Null for the bulkhead's own permit
+        final Bulkhead lender;
+
+        Permit(Bulkhead bulkhead, Bulkhead lender) {
+            this.bulkhead = bulkhead;
+            this.lender = lender;
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class BulkheadStats {
+        public String bulkhead;
+        public int limit;
+        public int inUse;
+        public int borrowed;
+        public int lentOut;
+        // Jobs running (own and borrowed permits) over the limit; above 1 while borrowing
+        public double utilization;
+        public int laneDepth;
+        public int laneCapacity;
+        public long acquired;
+        public long borrowedTotal;
+        public long queued;
+        public long rejected;
+    }
+}
@@ -1,22 +1,37 @@
 package com.example.narayan.paymentsystem.worker;
 
+import com.example.narayan.paymentsystem.config.WorkerConfig;
 import com.example.narayan.paymentsystem.queue.JobQueue;
+import com.example.narayan.paymentsystem.queue.PrefetchingJobQueue;
 import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
 import com.example.narayan.paymentsystem.queue.processor.JobProcessor;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The only consumer of the job queue on this node. Every job is dequeued by one of its
+ * workers, so pool size (and the autoscaler), prefetching, the executor mode and the
+ * per-worker stats all govern - and account for - everything that gets processed.
+ */
 @Component
 public class WorkerManager {
 
@@ -32,13 +47,94 @@ public class WorkerManager {
     @Value("${payment.worker.shutdown-timeout-seconds:30}")
     private long shutdownTimeoutSeconds;
 
+    // Jobs still running when the drain times out are interrupted and scheduled to run again this much later
+    @Value("${payment.worker.drain.interrupted-retry-delay-ms:30000}")
+    private long interruptedRetryDelayMs;
+
+    @Value("${payment.worker.blocking-dequeue:false}")
+    private boolean blockingDequeue;
+
+    @Value("${payment.worker.blocking-timeout-ms:2000}")
+    private long blockingTimeoutMs;
+
+    @Value("${payment.worker.batch-size:1}")
+    private int batchSize;
+
+    @Value("${payment.worker.prefetch-enabled:false}")
+    private boolean prefetchEnabled;
+
+    @Value("${payment.worker.prefetch-high-watermark:64}")
+    private int prefetchHighWatermark;
+
+    @Value("${payment.worker.prefetch-low-watermark:16}")
+    private int prefetchLowWatermark;
+
+    // "platform" runs workerCount workers on platform threads; "virtual" runs one virtual thread per worker
+    @Value("${payment.worker.executor:platform}")
+    private String executorMode;
+
+    // Workers (so jobs in progress at once) in virtual mode; takes the place of payment.worker.count
+    @Value("${payment.worker.virtual.max-concurrency:200}")
+    private int virtualMaxConcurrency;
+
+    // Pinned virtual threads blocked for at least this long are reported
+    @Value("${payment.worker.virtual.pinning-threshold-ms:20}")
+    private long pinningThresholdMs;
+
+    // Workers leave after this many jobs and are replaced, releasing whatever they held; 0 = never
+    @Value("${payment.worker.max-jobs-per-worker:10000}")
+    private long maxJobsPerWorker;
+
+    // Sleep-polling workers back off from polling-interval-ms up to this while the queue stays empty.
+    // With work-available wakeups they still pick up new jobs at once; without, this bounds the delay.
+    @Value("${payment.worker.max-idle-backoff-ms:30000}")
+    private long maxIdleBackoffMs;
+
+    @Value("${payment.worker.enable-stats:true}")
+    private boolean enableStats;
+
+    @Value("${payment.worker.stats-interval-seconds:30}")
+    private long statsIntervalSeconds;
+
+    // Final stats kept for this many retired workers
+    @Value("${payment.worker.retained-retired-workers:50}")
+    private int retainedRetiredWorkers = 50;
+
+    @Autowired(required = false)
+    private WorkAvailableSignal workAvailableSignal;
+
+    @Autowired(required = false)
+    private WorkerConfig workerConfig;
+
+    // Fleet processing-time histogram at the start of the current interval, and the last full interval
+    private volatile LatencyHistogram.Snapshot latencyIntervalStart = LatencyHistogram.Snapshot.empty();
+    private volatile LatencyHistogram.Snapshot lastIntervalLatency = LatencyHistogram.Snapshot.empty();
+
     private final JobQueue jobQueue;
+
+    // Local buffer the workers take from when prefetching; null otherwise
+    private PrefetchingJobQueue prefetcher;
+    // Per-payment-method limits the workers share; null when off
+    private WorkerBulkheads bulkheads;
     private final JobProcessor<PaymentJob> jobProcessor;
 
     private ExecutorService executorService;
-    private final List<JobWorker> workers = new ArrayList<>();
-    private final List<Future<?>> workerFutures = new ArrayList<>();
+    private VirtualThreadPinningMonitor pinningMonitor;
+    private WorkerRegistry registry;
     private final AtomicBoolean started = new AtomicBoolean(false);
+    // Set once shutdown begins, so exiting workers aren't replaced
+    private volatile boolean stopping = false;
+
+    // RUNNING, then DRAINING from the moment shutdown starts, DRAINED once the workers are gone
+    public static final String DRAIN_RUNNING = "RUNNING";
+    public static final String DRAIN_DRAINING = "DRAINING";
+    public static final String DRAIN_DRAINED = "DRAINED";
+    private volatile String drainState = DRAIN_RUNNING;
+    private volatile LocalDateTime drainStartedAt;
+    private volatile DrainReport drainReport;
+    private final AtomicBoolean drainStarted = new AtomicBoolean(false);
+    // Jobs workers dequeued after the drain began and returned unstarted
+    private final AtomicLong returnedByWorkers = new AtomicLong(0);
 
     @Autowired
     public WorkerManager(JobQueue jobQueue, JobProcessor<PaymentJob> jobProcessor) {
@@ -49,57 +145,212 @@ public class WorkerManager {
     @PostConstruct
     public void startWorkers(){
         if(started.compareAndSet(false, true)){
-            System.out.println("🚀 Starting WorkerManager with " + workerCount + " workers");
+            stopping = false;
+            registry = new WorkerRegistry(retainedRetiredWorkers);
+            if (workerConfig != null && workerConfig.getBulkhead().isEnabled()) {
+                bulkheads = new WorkerBulkheads(workerConfig.getBulkhead());
+                System.out.println("🚧 Worker bulkheads on: " + bulkheads.getStats().stream()
+                        .map(b -> b.bulkhead + "=" + b.limit).toList());
+            }
+            boolean virtual = isVirtual();
+            int concurrency = virtual ? virtualMaxConcurrency : workerCount;
+            System.out.println("🚀 Starting WorkerManager with " + concurrency + " " +
+                    (virtual ? "virtual-thread" : "platform-thread") + " workers");
+
+            if (prefetchEnabled || virtual) {
+                // Virtual workers always take from the local buffer: hundreds of them blocked in
+                // Redis would each need a pooled connection, one fetcher needs just one
+                prefetcher = new PrefetchingJobQueue(jobQueue,
+                        virtual ? Math.max(prefetchHighWatermark, concurrency) : prefetchHighWatermark,
+                        prefetchLowWatermark, blockingTimeoutMs, errorBackoffMs);
+                prefetcher.start();
+            }
 
             //Create thread pool for workers
-            executorService = Executors.newFixedThreadPool(workerCount, r -> {
-                Thread t = new Thread(r);
-                t.setDaemon(true);
-                t.setName("payment-worker-"+ t.getId());
-                return t;
-            });
+            if (virtual) {
+                pinningMonitor = new VirtualThreadPinningMonitor(Duration.ofMillis(pinningThresholdMs));
+                pinningMonitor.start();
+                executorService = Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("payment-vworker-", 1).factory());
+            } else {
+                // One thread per worker, including ones added later - a fixed pool would leave those queued
+                executorService = Executors.newCachedThreadPool(r -> {
+                    Thread t = new Thread(r);
+                    t.setDaemon(true);
+                    t.setName("payment-worker-"+ t.getId());
+                    return t;
+                });
+            }
 
             //Create and start workers
-            for(int i=0 ; i<workerCount ; i++){
-                JobWorker worker = new JobWorker(jobQueue, jobProcessor, pollingIntervalMs, errorBackoffMs);
-                workers.add(worker);
-
-                Future<?> future = executorService.submit(worker);
-                workerFutures.add(future);
+            for(int i=0 ; i<concurrency ; i++){
+                launch(createWorker());
             }
-            System.out.println("✅ WorkerManager started with " + workers.size() + " active workers");
+            System.out.println("✅ WorkerManager started with " + registry.liveCount() + " active workers");
 
             // Start stats reporter thread
-            startStatsReporter();
+            if (enableStats) {
+                startStatsReporter();
+            }
         }
     }
 
+    /**
+     * Last resort if nothing drained the workers first (ShutdownDrain normally has)
+     */
     @PreDestroy
     public void shutdownWorkers() {
         if (started.get()) {
             System.out.println("🔄 WorkerManager shutting down...");
+            drain();
+            if (pinningMonitor != null) {
+                pinningMonitor.stop();
+            }
+
+            started.set(false);
+            System.out.println("🛑 WorkerManager stopped");
+        }
+    }
 
-            // Signal all workers to stop
-            for (JobWorker worker : workers) {
-                worker.shutdown();
+    /**
+     * Mark the node as draining, for readiness, before the drain itself starts
+     */
+    public void beginDrain() {
+        if (drainState.equals(DRAIN_RUNNING)) {
+            drainState = DRAIN_DRAINING;
+            drainStartedAt = LocalDateTime.now();
+        }
+    }
+
+    /**
+     * Stop taking jobs and let the workers finish the ones they hold, for up to
+     * shutdown-timeout-seconds. After that, jobs workers hold but haven't started are
+     * taken back and requeued, so another node picks them up now, and jobs still running
+     * are scheduled to run again (see checkpointRunning) before the workers are interrupted.
+     * Then the prefetch buffer is returned. Runs once; later calls return the same report.
+     */
+    public DrainReport drain() {
+        // Not synchronized as a whole: a recycling worker may need this monitor to exit
+        if (!started.get() || !drainStarted.compareAndSet(false, true)) {
+            return drainReport;
+        }
+        beginDrain();
+        long startNanos = System.nanoTime();
+
+        int inFlightAtStart = 0;
+        // Held just long enough that no replacement or added worker can register after the
+        // snapshot - never over the wait below, which recycling workers would block
+        synchronized (this) {
+            stopping = true;
+            for (JobWorker worker : registry.liveWorkers()) {
+                inFlightAtStart += worker.getInFlightJobs();
+                registry.drain(worker);
+            }
+        }
+        System.out.println("🚰 Draining " + registry.drainingCount() + " workers with " + inFlightAtStart +
+                " jobs in flight (up to " + shutdownTimeoutSeconds + "s)");
+
+        boolean finished = true;
+        int handedOff = 0;
+        int checkpointed = 0;
+        if (executorService != null) {
+            executorService.shutdown();
+            try {
+                finished = executorService.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                finished = false;
+                Thread.currentThread().interrupt();
+            }
+            if (!finished) {
+                handedOff = handOffInFlight();
+                checkpointed = checkpointRunning();
+                System.out.println("⚠️ Force shutdown - some workers didn't finish gracefully");
+                executorService.shutdownNow();
             }
+        }
+
+        // Workers are done taking jobs; whatever is still buffered goes back to the queue
+        int returned = 0;
+        if (bulkheads != null) {
+            returned += returnLaneJobs();
+        }
+        if (prefetcher != null) {
+            returned += prefetcher.stop(blockingTimeoutMs + 1000);
+        }
+
+        drainState = DRAIN_DRAINED;
+        drainReport = new DrainReport(drainStartedAt, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                inFlightAtStart, !finished, handedOff, checkpointed, returned + (int) returnedByWorkers.get());
+        System.out.println("✅ Drain finished: " + drainReport);
+        return drainReport;
+    }
 
-            // Wait for workers to finish current jobs
-            if (executorService != null) {
-                executorService.shutdown();
+    /**
+     * Requeue the jobs that workers still busy at the drain timeout hold but haven't started
+     */
+    private int handOffInFlight() {
+        List<PaymentJob> held = new ArrayList<>();
+        for (JobWorker worker : registry.drainingWorkers()) {
+            held.addAll(worker.handOff());
+        }
+        if (held.isEmpty()) {
+            return 0;
+        }
+        try {
+            jobQueue.requeue(held);
+            System.out.println("🤝 Handed " + held.size() + " unstarted jobs back to the queue");
+            return held.size();
+        } catch (Exception e) {
+            // Still leased (reliable mode), so they come back when the leases expire
+            System.err.println("❌ Failed to hand back " + held.size() + " unstarted jobs: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Jobs still running at the drain timeout are about to be interrupted, and without
+     * reliable mode there is no lease to bring them back. Each is scheduled to run again
+     * after interrupted-retry-delay-ms, giving a charge already under way time to record
+     * its outcome; a payment that has one by then is skipped rather than charged again.
+     * In reliable mode the scheduled copy takes over the job's lease.
+     */
+    private int checkpointRunning() {
+        Instant dueAt = Instant.now().plusMillis(interruptedRetryDelayMs);
+        int checkpointed = 0;
+        for (JobWorker worker : registry.drainingWorkers()) {
+            for (PaymentJob job : worker.getRunningJobs()) {
                 try {
-                    if (!executorService.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
-                        System.out.println("⚠️ Force shutdown - some workers didn't finish gracefully");
-                        executorService.shutdownNow();
-                    }
-                } catch (InterruptedException e) {
-                    executorService.shutdownNow();
-                    Thread.currentThread().interrupt();
+                    jobQueue.schedule(job, dueAt);
+                    checkpointed++;
+                } catch (Exception e) {
+                    // Still leased (reliable mode), so it comes back when the lease expires
+                    System.err.println("❌ Failed to checkpoint running job " + job.getJobId() + ": " + e.getMessage());
                 }
             }
+        }
+        if (checkpointed > 0) {
+            System.out.println("📌 Scheduled " + checkpointed + " interrupted jobs to run again in " +
+                    interruptedRetryDelayMs + "ms");
+        }
+        return checkpointed;
+    }
 
-            started.set(false);
-            System.out.println("🛑 WorkerManager stopped");
+    /**
+     * Requeue jobs still waiting in bulkhead lanes
+     */
+    private int returnLaneJobs() {
+        List<PaymentJob> waiting = bulkheads.drainLanes();
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+        try {
+            jobQueue.requeue(waiting);
+            System.out.println("↩️ Returned " + waiting.size() + " jobs waiting in bulkhead lanes to the queue");
+            return waiting.size();
+        } catch (Exception e) {
+            // Still leased (reliable mode), so they come back when the leases expire
+            System.err.println("❌ Failed to return " + waiting.size() + " bulkhead lane jobs: " + e.getMessage());
+            return 0;
         }
     }
 
@@ -107,7 +358,7 @@ public class WorkerManager {
         Thread statsThread = new Thread(() ->{
             while (started.get()){
                 try{
-                    Thread.sleep(30000); //Report every 30 seconds
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(statsIntervalSeconds));
                     printWorkerStats();
                 }
                 catch (InterruptedException e){
@@ -121,6 +372,52 @@ public class WorkerManager {
         statsThread.start();
     }
 
+    private JobWorker createWorker() {
+        if (prefetcher != null) {
+            // Waiting on the local buffer costs no Redis connection, so prefetching workers always block
+            return new JobWorker(prefetcher, jobProcessor, pollingIntervalMs, errorBackoffMs,
+                    blockingTimeoutMs, batchSize, maxJobsPerWorker, pollingIntervalMs, null, bulkheads);
+        }
+        WorkAvailableSignal signal = workAvailableSignal != null && workAvailableSignal.isActive()
+                ? workAvailableSignal : null;
+        return new JobWorker(jobQueue, jobProcessor, pollingIntervalMs, errorBackoffMs,
+                blockingDequeue ? blockingTimeoutMs : 0, batchSize, maxJobsPerWorker, maxIdleBackoffMs, signal,
+                bulkheads);
+    }
+
+    /**
+     * Register a worker and start it; registered first, so one that exits at once still finds itself
+     */
+    private void launch(JobWorker worker) {
+        registry.register(worker);
+        try {
+            executorService.submit(() -> runWorker(worker));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            registry.retired(worker, false);
+        }
+    }
+
+    private void runWorker(JobWorker worker) {
+        try {
+            worker.run();
+        } finally {
+            returnedByWorkers.addAndGet(worker.getReturnedJobs());
+            boolean recycle = worker.isRecycleDue() && !stopping && registry.isLive(worker);
+            registry.retired(worker, recycle);
+            if (recycle) {
+                synchronized (this) {
+                    if (!stopping) {
+                        JobWorker replacement = createWorker();
+                        launch(replacement);
+                        System.out.println("♻️ JobWorker-" + worker.getWorkerId() + " replaced by JobWorker-" +
+                                replacement.getWorkerId());
+                    }
+                }
+            }
+        }
+    }
+
     public void printWorkerStats() {
         System.out.println("\n📊 === WORKER STATS ===");
 
@@ -128,7 +425,7 @@ public class WorkerManager {
         long totalFailed = 0;
         long activeWorkers = 0;
 
-        for(JobWorker worker : workers){
+        for(JobWorker worker : registry.liveWorkers()){
             JobWorker.WorkerStats stats = worker.getDetailedStats();
             System.out.println(" " + stats);
 
@@ -136,8 +433,16 @@ public class WorkerManager {
             totalFailed += stats.failedJobs;
             if(stats.isRunning) activeWorkers++;
         }
-        System.out.println(String.format("  TOTALS: active=%d/%d, processed=%d, failed=%d, queue_size=%d",
-                activeWorkers, workerCount, totalProcessed, totalFailed, jobQueue.size()));
+        System.out.println(String.format("  TOTALS: active=%d/%d, processed=%d, failed=%d, queue_size=%d, prefetched=%d",
+                activeWorkers, registry.liveCount(), totalProcessed, totalFailed, jobQueue.size(), getPrefetchedCount()));
+        System.out.println("  LIFETIME: " + registry.totals());
+        System.out.println("  LATENCY: " + registry.latency().summarize());
+        if (pinningMonitor != null) {
+            System.out.println("  PINNING: " + pinningMonitor.getStats());
+        }
+        if (bulkheads != null) {
+            System.out.println("  BULKHEADS: " + bulkheads.getStats());
+        }
         System.out.println("========================\n");
     }
 
@@ -146,7 +451,7 @@ public class WorkerManager {
         long totalFailed = 0;
         int activeWorkers = 0;
 
-        for (JobWorker worker : workers) {
+        for (JobWorker worker : registry.liveWorkers()) {
             JobWorker.WorkerStats stats = worker.getDetailedStats();
             totalProcessed += stats.processedJobs;
             totalFailed += stats.failedJobs;
@@ -154,43 +459,185 @@ public class WorkerManager {
         }
 
         return String.format("Workers: %d/%d active, Processed: %d, Failed: %d, Queue: %d",
-                activeWorkers, workerCount, totalProcessed, totalFailed, jobQueue.size());
+                activeWorkers, registry.liveCount(), totalProcessed, totalFailed, jobQueue.size());
     }
 
+    /**
+     * Stats of the live workers
+     */
     public List<JobWorker.WorkerStats> getAllWorkerStats() {
         List<JobWorker.WorkerStats> allStats = new ArrayList<>();
-        for (JobWorker worker : workers) {
+        if (registry == null) {
+            return allStats;
+        }
+        for (JobWorker worker : registry.liveWorkers()) {
             allStats.add(worker.getDetailedStats());
         }
         return allStats;
     }
 
+    /**
+     * Final stats of the most recently retired workers, newest first
+     */
+    public List<JobWorker.WorkerStats> getRetiredWorkerStats() {
+        return registry != null ? registry.retiredStats() : List.of();
+    }
+
+    /**
+     * Job counts over every worker since start, retired ones included, so they never go backwards
+     */
+    public WorkerRegistry.WorkerTotals getWorkerTotals() {
+        return registry != null ? registry.totals() : new WorkerRegistry.WorkerTotals(0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Processing-time histogram over every worker since start, retired ones included
+     */
+    public LatencyHistogram.Snapshot getLatencySnapshot() {
+        return registry != null ? registry.latency() : LatencyHistogram.Snapshot.empty();
+    }
+
+    /**
+     * Processing-time histogram of the last complete latency interval, so a slow spell
+     * shows up rather than being averaged into the lifetime figures
+     */
+    public LatencyHistogram.Snapshot getRecentLatencySnapshot() {
+        return lastIntervalLatency;
+    }
+
+    /**
+     * Close the current latency interval. Worker histograms are never reset - the interval
+     * is the difference between two fleet snapshots - so readers of lifetime stats and
+     * retiring workers never lose counts.
+     */
+    @Scheduled(fixedRateString = "${payment.worker.latency-interval-seconds:60}",
+            initialDelayString = "${payment.worker.latency-interval-seconds:60}", timeUnit = TimeUnit.SECONDS)
+    public void rollLatencyInterval() {
+        if (registry == null) {
+            return;
+        }
+        LatencyHistogram.Snapshot now = registry.latency();
+        lastIntervalLatency = now.since(latencyIntervalStart);
+        latencyIntervalStart = now;
+    }
+
+    public int getDrainingWorkerCount() {
+        return registry != null ? registry.drainingCount() : 0;
+    }
+
+    /**
+     * Jobs sitting in the local prefetch buffer; 0 when prefetching is off
+     */
+    public int getPrefetchedCount() {
+        return prefetcher != null ? prefetcher.getBufferedCount() : 0;
+    }
+
+    public boolean isVirtual() {
+        return "virtual".equalsIgnoreCase(executorMode);
+    }
+
+    public String getExecutorMode() {
+        return isVirtual() ? "virtual" : "platform";
+    }
+
+    /**
+     * Virtual thread pinning seen so far; null in platform mode
+     */
+    public VirtualThreadPinningMonitor.PinningStats getPinningStats() {
+        return pinningMonitor != null ? pinningMonitor.getStats() : null;
+    }
+
+    /**
+     * Per-bulkhead permits, lanes and rejections; null when bulkheads are off
+     */
+    public List<WorkerBulkheads.BulkheadStats> getBulkheadStats() {
+        return bulkheads != null ? bulkheads.getStats() : null;
+    }
+
     public boolean isStarted() {
         return started.get();
     }
 
     public int getWorkerCount() {
-        return workers.size();
+        return registry != null ? registry.liveCount() : 0;
     }
 
     public int getActiveWorkerCount() {
-        return (int) workers.stream().filter(JobWorker::isRunning).count();
+        return registry != null ? (int) registry.liveWorkers().stream().filter(JobWorker::isRunning).count() : 0;
     }
 
     //For testing/debugging
-    public void addMoreWorkers(int count) {
+    public synchronized void addMoreWorkers(int count) {
         if (!started.get()) {
             throw new IllegalStateException("WorkerManager not started");
         }
+        if (stopping) {
+            throw new IllegalStateException("WorkerManager is draining");
+        }
 
         for (int i = 0; i < count; i++) {
-            JobWorker worker = new JobWorker(jobQueue, jobProcessor, pollingIntervalMs, errorBackoffMs);
-            workers.add(worker);
+            launch(createWorker());
+        }
+
+        System.out.println("➕ Added " + count + " more workers. Total: " + registry.liveCount());
+    }
 
-            Future<?> future = executorService.submit(worker);
-            workerFutures.add(future);
+    /**
+     * Drain then stop up to count workers, idle ones first, never the last one. They stop
+     * counting towards the pool at once; each finishes the job it holds, releases its
+     * blocking connection and exits, and its stats move to the retired list.
+     * Returns how many were told to stop.
+     */
+    public synchronized int removeWorkers(int count) {
+        if (!started.get()) {
+            throw new IllegalStateException("WorkerManager not started");
+        }
+
+        List<JobWorker> candidates = registry.liveWorkers();
+        // Idle before busy, newest before oldest
+        candidates.sort(Comparator.comparingInt(JobWorker::getInFlightJobs)
+                .thenComparing(Comparator.comparingLong(JobWorker::getWorkerId).reversed()));
+
+        int removed = 0;
+        for (JobWorker worker : candidates) {
+            if (removed >= count || registry.liveCount() <= 1) {
+                break;
+            }
+            if (registry.drain(worker)) {
+                removed++;
+            }
         }
 
-        System.out.println("➕ Added " + count + " more workers. Total: " + workers.size());
+        if (removed > 0) {
+            System.out.println("➖ Draining " + removed + " workers. Total: " + registry.liveCount());
+        }
+        return removed;
+    }
+
+    public String getDrainState() {
+        return drainState;
+    }
+
+    /**
+     * Outcome of the shutdown drain; null until it has run
+     */
+    public DrainReport getDrainReport() {
+        return drainReport;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class DrainReport {
+        public LocalDateTime startedAt;
+        public long durationMs;
+        public int inFlightAtStart;
+        // Some workers were still busy at shutdown-timeout-seconds
+        public boolean timedOut;
+        // Jobs those workers held but hadn't started, taken back and requeued
+        public int handedOffJobs;
+        // Jobs those workers were running when interrupted, scheduled to run again
+        public int checkpointedJobs;
+        // Jobs taken but never started (prefetch buffer, dequeues that landed mid-drain), requeued
+        public int returnedJobs;
     }
 }
@@ -0,0 +1,167 @@
+package com.example.narayan.paymentsystem.worker;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The workers WorkerManager owns, through their whole life:
+ *   live      - taking jobs; what the pool size, health and utilization count
+ *   draining  - told to stop, finishing the job in hand
+ *   retired   - exited; their final stats are kept (the last few individually, all of
+ *               them in the totals) so lifetime counts never go backwards
+ *
+ * Safe to read while the scale endpoints, the autoscaler and exiting workers change it.
+ */
+public class WorkerRegistry {
+
+    private final int retainedRetired;
+
+    // Keyed by worker id, so iteration is oldest first
+    private final Map<Long, JobWorker> live = new ConcurrentSkipListMap<>();
+    private final Map<Long, JobWorker> draining = new ConcurrentSkipListMap<>();
+
+    private final Deque<JobWorker.WorkerStats> retired = new ArrayDeque<>();
+    private final AtomicLong retiredCount = new AtomicLong(0);
+    private final AtomicLong recycledCount = new AtomicLong(0);
+    private final AtomicLong retiredProcessed = new AtomicLong(0);
+    private final AtomicLong retiredFailed = new AtomicLong(0);
+    private final AtomicLong retiredProcessingMs = new AtomicLong(0);
+    // Retired workers' processing times, merged so fleet percentiles cover them too
+    private final LatencyHistogram.Snapshot retiredLatency = LatencyHistogram.Snapshot.empty();
+
+    WorkerRegistry(int retainedRetired) {
+        this.retainedRetired = retainedRetired;
+    }
+
+    void register(JobWorker worker) {
+        live.put(worker.getWorkerId(), worker);
+    }
+
+    /**
+     * Ask a live worker to stop after its current job; false if it wasn't live
+     */
+    boolean drain(JobWorker worker) {
+        if (live.remove(worker.getWorkerId()) == null) {
+            return false;
+        }
+        draining.put(worker.getWorkerId(), worker);
+        worker.shutdown();
+        return true;
+    }
+
+    /**
+     * Called from the worker's own thread once it has left its loop
+     */
+    void retired(JobWorker worker, boolean recycled) {
+        live.remove(worker.getWorkerId());
+        draining.remove(worker.getWorkerId());
+
+        JobWorker.WorkerStats stats = worker.getDetailedStats();
+        retiredCount.incrementAndGet();
+        if (recycled) {
+            recycledCount.incrementAndGet();
+        }
+        retiredProcessed.addAndGet(stats.processedJobs);
+        retiredFailed.addAndGet(stats.failedJobs);
+        retiredProcessingMs.addAndGet(worker.getTotalProcessingTimeMs());
+
+        synchronized (retired) {
+            retiredLatency.merge(worker.getLatencySnapshot());
+            retired.addFirst(stats);
+            while (retired.size() > retainedRetired) {
+                retired.removeLast();
+            }
+        }
+    }
+
+    boolean isLive(JobWorker worker) {
+        return live.containsKey(worker.getWorkerId());
+    }
+
+    /**
+     * Snapshot of the live workers, oldest first
+     */
+    List<JobWorker> liveWorkers() {
+        return new ArrayList<>(live.values());
+    }
+
+    /**
+     * Snapshot of the workers told to stop that haven't exited yet
+     */
+    List<JobWorker> drainingWorkers() {
+        return new ArrayList<>(draining.values());
+    }
+
+    int liveCount() {
+        return live.size();
+    }
+
+    int drainingCount() {
+        return draining.size();
+    }
+
+    /**
+     * Final stats of the most recently retired workers, newest first
+     */
+    List<JobWorker.WorkerStats> retiredStats() {
+        synchronized (retired) {
+            return new ArrayList<>(retired);
+        }
+    }
+
+    /**
+     * Totals over every worker this registry has seen, live, draining and retired
+     */
+    WorkerTotals totals() {
+        long processed = retiredProcessed.get();
+        long failed = retiredFailed.get();
+        long processingMs = retiredProcessingMs.get();
+        for (Map<Long, JobWorker> workers : List.of(live, draining)) {
+            for (JobWorker worker : workers.values()) {
+                JobWorker.WorkerStats stats = worker.getDetailedStats();
+                processed += stats.processedJobs;
+                failed += stats.failedJobs;
+                processingMs += worker.getTotalProcessingTimeMs();
+            }
+        }
+        return new WorkerTotals(live.size(), draining.size(), retiredCount.get(), recycledCount.get(),
+                processed, failed, processingMs);
+    }
+
+    /**
+     * Processing-time histogram merged over every worker this registry has seen
+     */
+    LatencyHistogram.Snapshot latency() {
+        LatencyHistogram.Snapshot merged = LatencyHistogram.Snapshot.empty();
+        synchronized (retired) {
+            merged.merge(retiredLatency);
+        }
+        for (Map<Long, JobWorker> workers : List.of(live, draining)) {
+            for (JobWorker worker : workers.values()) {
+                merged.merge(worker.getLatencySnapshot());
+            }
+        }
+        return merged;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class WorkerTotals {
+        public int liveWorkers;
+        public int drainingWorkers;
+        public long retiredWorkers;
+        // Retired because they reached max-jobs-per-worker, and replaced
+        public long recycledWorkers;
+        public long processedJobs;
+        public long failedJobs;
+        public long processingTimeMs;
+    }
+}
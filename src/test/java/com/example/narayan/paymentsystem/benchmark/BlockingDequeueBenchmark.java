@@ -0,0 +1,130 @@
+package com.example.narayan.paymentsystem.benchmark;
+
+import com.example.narayan.paymentsystem.queue.RedisPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares sleep-polling against BZPOPMIN blocking dequeue:
+ *  - enqueue-to-start latency (the benchmark score)
+ *  - idle Redis commands/sec while the workers have nothing to do (printed at setup)
+ *
+ * Needs a scratch Redis at localhost:6379 (override with -Dredis.host / -Dredis.port);
+ * it drains the payment_jobs key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class BlockingDequeueBenchmark {
+
+    @Param({"polling", "blocking"})
+    public String mode;
+
+    @Param({"3"})
+    public int workers;
+
+    @Param({"1000"})
+    public long pollingIntervalMs;
+
+    private JedisPool jedisPool;
+    private RedisPriorityJobQueue queue;
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final BlockingQueue<PaymentJob> started = new LinkedBlockingQueue<>();
+    private final List<Thread> consumers = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        String host = System.getProperty("redis.host", "localhost");
+        int port = Integer.getInteger("redis.port", 6379);
+
+        jedisPool = new JedisPool(new JedisPoolConfig(), host, port);
+        queue = new RedisPriorityJobQueue(jedisPool, new BinaryJobCodec(), host, port);
+
+        for (int i = 0; i < workers; i++) {
+            Thread consumer = new Thread(this::consume, "bench-consumer-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+
+        // Let the consumers sit idle and count what they cost Redis
+        long before = commandsProcessed();
+        long startNanos = System.nanoTime();
+        Thread.sleep(5000);
+        long after = commandsProcessed();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        // The second INFO sample also counts the first one
+        System.out.printf("%n[%s] idle Redis ops/sec with %d workers: %.2f%n",
+                mode, workers, (after - before - 1) / seconds);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        stopped.set(true);
+        for (Thread consumer : consumers) {
+            consumer.join(5000);
+        }
+        queue.closeBlockingConnections();
+        jedisPool.close();
+    }
+
+    @Benchmark
+    public PaymentJob enqueueToStart() throws InterruptedException {
+        queue.enqueue(PaymentJob.of(UUID.randomUUID(), 100));
+        return started.take();
+    }
+
+    private void consume() {
+        Duration maxWait = Duration.ofMillis(pollingIntervalMs);
+        try {
+            while (!stopped.get()) {
+                PaymentJob job = "blocking".equals(mode) ? queue.dequeue(maxWait) : queue.dequeue();
+                if (job != null) {
+                    started.put(job);
+                } else if (!"blocking".equals(mode)) {
+                    Thread.sleep(pollingIntervalMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queue.releaseBlockingConnection();
+        }
+    }
+
+    private long commandsProcessed() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (String line : jedis.info("stats").split("\r?\n")) {
+                if (line.startsWith("total_commands_processed:")) {
+                    return Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+                }
+            }
+        }
+        return 0;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BlockingDequeueBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.narayan.paymentsystem.benchmark;
+
+import com.example.narayan.paymentsystem.queue.RedisPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enqueue throughput in jobs/sec: one ZADD per job vs pipelined enqueueAll.
+ *
+ * Needs a scratch Redis at localhost:6379 (override with -Dredis.host / -Dredis.port);
+ * it clears the payment_jobs keys between iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class EnqueueThroughputBenchmark {
+
+    private static final int JOBS_PER_OP = 1000;
+
+    private JedisPool jedisPool;
+    private RedisPriorityJobQueue queue;
+    private List<PaymentJob> jobs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String host = System.getProperty("redis.host", "localhost");
+        int port = Integer.getInteger("redis.port", 6379);
+
+        jedisPool = new JedisPool(new JedisPoolConfig(), host, port);
+        queue = new RedisPriorityJobQueue(jedisPool, new BinaryJobCodec(), host, port);
+    }
+
+    @Setup(Level.Invocation)
+    public void newJobs() {
+        // Fresh jobs each time so ZADD inserts rather than updates existing members
+        jobs = new ArrayList<>(JOBS_PER_OP);
+        for (int i = 0; i < JOBS_PER_OP; i++) {
+            jobs.add(PaymentJob.of(UUID.randomUUID(), 100 + i));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearQueue() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.del("payment_jobs", "payment_jobs:jobs");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clearQueue();
+        jedisPool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOBS_PER_OP)
+    public void singleEnqueue() {
+        for (PaymentJob job : jobs) {
+            queue.enqueue(job);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOBS_PER_OP)
+    public void bulkEnqueue() {
+        queue.enqueueAll(jobs);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EnqueueThroughputBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.narayan.paymentsystem.benchmark;
+
+import com.example.narayan.paymentsystem.queue.InMemoryPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import com.example.narayan.paymentsystem.queue.RedisPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enqueue + dequeue pairs per second, in-process queue vs the Redis ZSET queue,
+ * with 1, 4 and 16 threads each acting as producer and consumer.
+ *
+ * The redis variant needs a scratch Redis at localhost:6379 (override with
+ * -Dredis.host / -Dredis.port) and uses its own key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class InMemoryQueueBenchmark {
+
+    private static final String BENCHMARK_KEY = "benchmark:payment_jobs";
+
+    @Param({"memory", "redis"})
+    public String queueType;
+
+    private JedisPool jedisPool;
+    private JobQueue queue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("memory".equals(queueType)) {
+            queue = new InMemoryPriorityJobQueue(100_000, 1000);
+            return;
+        }
+
+        String host = System.getProperty("redis.host", "localhost");
+        int port = Integer.getInteger("redis.port", 6379);
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(32);
+        jedisPool = new JedisPool(poolConfig, host, port);
+        queue = new RedisPriorityJobQueue(jedisPool, new BinaryJobCodec(), host, port, BENCHMARK_KEY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (jedisPool != null) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.del(BENCHMARK_KEY, BENCHMARK_KEY + ":jobs");
+            }
+            jedisPool.close();
+        }
+    }
+
+    private PaymentJob roundTrip() throws InterruptedException {
+        queue.enqueue(PaymentJob.of(UUID.randomUUID(), 2500));
+        return queue.dequeue();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public PaymentJob threads01() throws InterruptedException {
+        return roundTrip();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PaymentJob threads04() throws InterruptedException {
+        return roundTrip();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public PaymentJob threads16() throws InterruptedException {
+        return roundTrip();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InMemoryQueueBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
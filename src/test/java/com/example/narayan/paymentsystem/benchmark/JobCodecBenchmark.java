@@ -0,0 +1,64 @@
+package com.example.narayan.paymentsystem.benchmark;
+
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.codec.JobCodec;
+import com.example.narayan.paymentsystem.queue.codec.JsonJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost (ns/op) of the queue payload codecs; bytes per job are printed at setup.
+ * No Redis needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobCodecBenchmark {
+
+    @Param({"json", "binary"})
+    public String codecName;
+
+    private JobCodec codec;
+    private PaymentJob job;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = "json".equals(codecName) ? new JsonJobCodec() : new BinaryJobCodec();
+
+        // A job on its second attempt, the common shape for anything that lingers in Redis
+        job = PaymentJob.of(UUID.randomUUID(), 2500);
+        job.setRetryCount(1);
+        job.setScheduledFor(LocalDateTime.now().plusSeconds(2));
+        job.setLastError("Card declined or insufficient funds");
+
+        payload = codec.encode(job);
+        System.out.printf("%n[%s] bytes per job: %d%n", codecName, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(job);
+    }
+
+    @Benchmark
+    public PaymentJob decode() {
+        return codec.decode(payload);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JobCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
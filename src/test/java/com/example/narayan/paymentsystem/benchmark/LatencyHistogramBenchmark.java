@@ -0,0 +1,80 @@
+package com.example.narayan.paymentsystem.benchmark;
+
+import com.example.narayan.paymentsystem.worker.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording a job's processing time in a worker's LatencyHistogram:
+ *  - record: one worker, as in production (each worker owns its histogram)
+ *  - recordContended: 4 threads on one histogram, the worst case for the atomics
+ *  - snapshotAndSummarize: what one metrics read costs per worker
+ *
+ * Run with -prof gc to confirm record allocates nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @State(Scope.Thread)
+    public static class Latencies {
+        // Pre-generated so the benchmark measures recording, not the random source
+        final long[] micros = new long[4096];
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < micros.length; i++) {
+                // Mostly 1-50ms jobs with a long tail
+                micros[i] = random.nextInt(100) < 99
+                        ? 1_000 + random.nextInt(49_000)
+                        : 50_000 + random.nextInt(5_000_000);
+            }
+        }
+
+        long next() {
+            return micros[next++ & (micros.length - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(ThreadLocalRandom.current().nextLong(100_000));
+        }
+    }
+
+    @Benchmark
+    public void record(Latencies latencies) {
+        histogram.record(latencies.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended(Latencies latencies) {
+        histogram.record(latencies.next());
+    }
+
+    @Benchmark
+    public LatencyHistogram.LatencySummary snapshotAndSummarize() {
+        return histogram.snapshot().summarize();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LatencyHistogramBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
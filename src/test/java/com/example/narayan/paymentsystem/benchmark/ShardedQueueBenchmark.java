@@ -0,0 +1,77 @@
+package com.example.narayan.paymentsystem.benchmark;
+
+import com.example.narayan.paymentsystem.queue.ShardedRedisJobQueue;
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enqueue + dequeue round trips per second with 16 concurrent producer/consumer
+ * threads, by shard count. Shard 1 is the old single hot key.
+ *
+ * Needs a scratch Redis at localhost:6379 (override with -Dredis.host / -Dredis.port).
+ * A single Redis node runs commands on one thread, so there the shards only shrink
+ * per-key ZSETs; point it at a cluster proxy to see shards spread over nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(16)
+@Fork(1)
+public class ShardedQueueBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int shardCount;
+
+    private JedisPool jedisPool;
+    private ShardedRedisJobQueue queue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String host = System.getProperty("redis.host", "localhost");
+        int port = Integer.getInteger("redis.port", 6379);
+
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(32);
+        jedisPool = new JedisPool(poolConfig, host, port);
+        queue = new ShardedRedisJobQueue(jedisPool, new BinaryJobCodec(), host, port, shardCount);
+        clearShards();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clearShards();
+        jedisPool.close();
+    }
+
+    private void clearShards() {
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (int i = 0; i < shardCount; i++) {
+                jedis.del(ShardedRedisJobQueue.shardKey(i), ShardedRedisJobQueue.shardKey(i) + ":jobs");
+            }
+        }
+    }
+
+    @Benchmark
+    public PaymentJob enqueueThenDequeue() throws InterruptedException {
+        queue.enqueue(PaymentJob.of(UUID.randomUUID(), 2500));
+        return queue.dequeue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ShardedQueueBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.narayan.paymentsystem.benchmark;
+
+import com.example.narayan.paymentsystem.queue.InMemoryPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.worker.JobWorker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Jobs/sec through JobWorkers on a fixed platform-thread pool vs one virtual thread per
+ * worker, at the same number of workers. Each job blocks for ioMillis, standing in for
+ * the Redis, Postgres and gateway calls a real job waits on.
+ *
+ * After each iteration the process RSS, its high-water mark and the live thread count
+ * are printed from /proc/self/status (Linux only).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class WorkerExecutorBenchmark {
+
+    private static final int JOBS_PER_INVOCATION = 2000;
+
+    @Param({"platform", "virtual"})
+    public String executor;
+
+    @Param({"64", "512", "2048"})
+    public int concurrency;
+
+    @Param({"5"})
+    public long ioMillis;
+
+    private InMemoryPriorityJobQueue queue;
+    private ExecutorService executorService;
+    private final List<JobWorker> workers = new ArrayList<>();
+    private final AtomicLong done = new AtomicLong(0);
+    private PrintStream originalOut;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // JobWorker logs every job; keep that out of the measurement
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        queue = new InMemoryPriorityJobQueue(JOBS_PER_INVOCATION * 2, 1000);
+        executorService = "virtual".equals(executor)
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bench-vworker-", 1).factory())
+                : Executors.newFixedThreadPool(concurrency);
+
+        long ioNanos = TimeUnit.MILLISECONDS.toNanos(ioMillis);
+        for (int i = 0; i < concurrency; i++) {
+            JobWorker worker = new JobWorker(queue, job -> {
+                LockSupport.parkNanos(ioNanos);
+                done.incrementAndGet();
+                return new JobResult(JobStatus.COMPLETED, "ok");
+            }, 1000, 1000, 100, 1);
+            workers.add(worker);
+            executorService.submit(worker);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        workers.forEach(JobWorker::shutdown);
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+        System.setOut(originalOut);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportMemory() throws Exception {
+        long threads = Thread.getAllStackTraces().size();
+        for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+            if (line.startsWith("VmRSS") || line.startsWith("VmHWM") || line.startsWith("Threads")) {
+                originalOut.println("  [" + executor + " x" + concurrency + "] " + line.replaceAll("\\s+", " "));
+            }
+        }
+        originalOut.println("  [" + executor + " x" + concurrency + "] platform threads seen by the JVM: " + threads);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOBS_PER_INVOCATION)
+    public long jobs() {
+        long target = done.get() + JOBS_PER_INVOCATION;
+        for (int i = 0; i < JOBS_PER_INVOCATION; i++) {
+            queue.enqueue(PaymentJob.of(UUID.randomUUID(), 2500));
+        }
+        while (done.get() < target) {
+            LockSupport.parkNanos(100_000);
+        }
+        return target;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WorkerExecutorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
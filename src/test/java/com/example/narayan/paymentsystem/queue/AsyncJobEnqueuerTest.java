@@ -0,0 +1,125 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.queue.spill.JobSpillover;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AsyncJobEnqueuerTest {
+
+    private final JobSpillover jobSpillover = mock(JobSpillover.class);
+    // Batches handed to the spillover, in order
+    private final List<List<PaymentJob>> sent = Collections.synchronizedList(new ArrayList<>());
+    // Entered by the first send, which then waits for release
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean sendInterrupted;
+    private AsyncJobEnqueuer enqueuer;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        enqueuer.stop();
+    }
+
+    /**
+     * One I/O thread sending batches of up to 10
+     */
+    private AsyncJobEnqueuer enqueuer() {
+        when(jobSpillover.enqueueAll(any())).thenAnswer(invocation -> {
+            Collection<PaymentJob> jobs = invocation.getArgument(0);
+            sent.add(List.copyOf(jobs));
+            sending.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                sendInterrupted = true;
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        });
+
+        enqueuer = new AsyncJobEnqueuer();
+        ReflectionTestUtils.setField(enqueuer, "jobSpillover", jobSpillover);
+        ReflectionTestUtils.setField(enqueuer, "ioThreads", 1);
+        ReflectionTestUtils.setField(enqueuer, "maxBatch", 10);
+        ReflectionTestUtils.setField(enqueuer, "capacity", 100);
+        enqueuer.start();
+        return enqueuer;
+    }
+
+    private static PaymentJob newJob() {
+        return PaymentJob.of(UUID.randomUUID(), 2500);
+    }
+
+    @Test
+    void stopLetsTheBatchInFlightFinishAndSendsWhatIsWaiting() throws Exception {
+        AsyncJobEnqueuer enqueuer = enqueuer();
+        PaymentJob inFlight = newJob();
+        CompletableFuture<Void> first = enqueuer.submit(inFlight);
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        // Arrives while the I/O thread is busy, so it waits for the next batch
+        PaymentJob waiting = newJob();
+        CompletableFuture<Void> second = enqueuer.submit(waiting);
+
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(enqueuer::stop);
+        Thread.sleep(200);
+        assertThat(stopped).isNotDone();
+        release.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+
+        assertThat(sendInterrupted).isFalse();
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        assertThat(sent).containsExactly(List.of(inFlight), List.of(waiting));
+        assertThat(enqueuer.getStats().getEnqueued()).isEqualTo(2);
+        assertThat(enqueuer.getStats().getWaiting()).isZero();
+    }
+
+    @Test
+    void submissionsAfterStopAreRejected() {
+        AsyncJobEnqueuer enqueuer = enqueuer();
+        release.countDown();
+        enqueuer.stop();
+
+        CompletableFuture<Void> late = enqueuer.submit(newJob());
+
+        assertThat(late).isCompletedExceptionally();
+        assertThat(late.exceptionNow()).isInstanceOf(RejectedExecutionException.class);
+        assertThat(enqueuer.getStats().getRejected()).isEqualTo(1);
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    void jobsThatPileUpShareOneSend() throws Exception {
+        AsyncJobEnqueuer enqueuer = enqueuer();
+        enqueuer.submit(newJob());
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            queued.add(enqueuer.submit(newJob()));
+        }
+
+        release.countDown();
+        CompletableFuture.allOf(queued.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        assertThat(sent).extracting(List::size).containsExactly(1, 5);
+        assertThat(enqueuer.getStats().getBatches()).isEqualTo(2);
+    }
+}
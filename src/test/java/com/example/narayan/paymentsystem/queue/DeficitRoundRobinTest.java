@@ -0,0 +1,117 @@
+package com.example.narayan.paymentsystem.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeficitRoundRobinTest {
+
+    private static DeficitRoundRobin drr(int quantum, Map<String, Integer> weights) {
+        return new DeficitRoundRobin(quantum, flow -> weights.getOrDefault(flow, 1));
+    }
+
+    @Test
+    void serviceFollowsTheWeights() {
+        DeficitRoundRobin drr = drr(2, Map.of("checkout", 3));
+        drr.activate("bulk");
+        drr.activate("checkout");
+        drr.activate("small");
+
+        Map<String, Integer> served = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            DeficitRoundRobin.Grant grant = drr.grant(1);
+            served.merge(grant.getFlow(), grant.getAllowance(), Integer::sum);
+            drr.settle(grant, grant.getAllowance());
+        }
+
+        // Quantum 2 at weights 1 : 3 : 1 is 10 jobs a round
+        assertThat(served).containsEntry("bulk", 100).containsEntry("checkout", 300).containsEntry("small", 100);
+    }
+
+    @Test
+    void grantTakesTheWholeTurnWhenMaxAllows() {
+        DeficitRoundRobin drr = drr(2, Map.of("checkout", 3));
+        drr.activate("checkout");
+        drr.activate("bulk");
+
+        DeficitRoundRobin.Grant first = drr.grant(100);
+        DeficitRoundRobin.Grant second = drr.grant(100);
+
+        assertThat(first).isEqualTo(new DeficitRoundRobin.Grant("checkout", 6));
+        assertThat(second).isEqualTo(new DeficitRoundRobin.Grant("bulk", 2));
+    }
+
+    @Test
+    void concurrentCallersMoveOnOnceTheTurnIsGrantedAway() {
+        DeficitRoundRobin drr = drr(4, Map.of());
+        drr.activate("a");
+        drr.activate("b");
+
+        // Two workers ask before either settles: the turn is split, then the next flow starts
+        assertThat(drr.grant(3).getFlow()).isEqualTo("a");
+        DeficitRoundRobin.Grant rest = drr.grant(3);
+        assertThat(rest.getFlow()).isEqualTo("a");
+        assertThat(rest.getAllowance()).isEqualTo(1);
+        assertThat(drr.grant(3).getFlow()).isEqualTo("b");
+    }
+
+    @Test
+    void flowThatRunsDryLeavesTheRingAndForfeitsItsDeficit() {
+        DeficitRoundRobin drr = drr(5, Map.of());
+        drr.activate("a");
+        drr.activate("b");
+
+        DeficitRoundRobin.Grant grant = drr.grant(2);
+        drr.settle(grant, 1);
+
+        assertThat(drr.isActive("a")).isFalse();
+        assertThat(drr.activeCount()).isEqualTo(1);
+        assertThat(drr.grant(10).getFlow()).isEqualTo("b");
+
+        // Back with a fresh turn, not the three jobs it left unused
+        drr.activate("a");
+        drr.grant(10); // b again, its new turn
+        assertThat(drr.grant(10)).isEqualTo(new DeficitRoundRobin.Grant("a", 5));
+    }
+
+    @Test
+    void settlingInFullKeepsTheFlowActive() {
+        DeficitRoundRobin drr = drr(1, Map.of());
+        drr.activate("a");
+
+        DeficitRoundRobin.Grant grant = drr.grant(1);
+        drr.settle(grant, 1);
+
+        assertThat(drr.isActive("a")).isTrue();
+    }
+
+    @Test
+    void activatingTwiceDoesNotDoubleTheService() {
+        DeficitRoundRobin drr = drr(1, Map.of());
+        drr.activate("a");
+        drr.activate("a");
+        drr.activate("b");
+
+        assertThat(drr.activeCount()).isEqualTo(2);
+        assertThat(drr.grant(1).getFlow()).isEqualTo("a");
+        assertThat(drr.grant(1).getFlow()).isEqualTo("b");
+    }
+
+    @Test
+    void nonPositiveWeightCountsAsOne() {
+        DeficitRoundRobin drr = drr(2, Map.of("a", 0));
+        drr.activate("a");
+
+        assertThat(drr.grant(10).getAllowance()).isEqualTo(2);
+    }
+
+    @Test
+    void emptyRingGrantsNothing() {
+        assertThat(drr(1, Map.of()).grant(10)).isNull();
+        assertThatThrownBy(() -> drr(0, Map.of())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.config.FairQueueConfig;
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairQueuingJobQueueContractTest extends JobQueueContractTest {
+
+    private static final UUID BULK_MERCHANT = UUID.randomUUID();
+    private static final UUID CHECKOUT_MERCHANT = UUID.randomUUID();
+
+    private FairQueuingJobQueue fairQueue;
+
+    @Override
+    protected JobQueue createQueue(String queueKey) {
+        FairQueueConfig config = new FairQueueConfig();
+        config.setQuantum(2);
+        config.getWeights().put(CHECKOUT_MERCHANT.toString(), 3);
+        fairQueue = new FairQueuingJobQueue(jedisPool, new BinaryJobCodec(), REDIS_HOST, REDIS_PORT, queueKey, config);
+        fairQueue.startBackgroundTasks();
+        return fairQueue;
+    }
+
+    @Override
+    protected void stopQueue() {
+        fairQueue.shutdown();
+    }
+
+    private static List<PaymentJob> jobsFor(UUID merchant, int count) {
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            jobs.add(PaymentJob.of(UUID.randomUUID(), 2500, merchant));
+        }
+        return jobs;
+    }
+
+    @Test
+    void bulkMerchantDoesNotStarveOthers() throws Exception {
+        queue.enqueueAll(jobsFor(BULK_MERCHANT, 200));
+        UUID other = UUID.randomUUID();
+        queue.enqueue(PaymentJob.of(UUID.randomUUID(), 2500, other));
+
+        List<UUID> firstTen = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            firstTen.add(queue.dequeue().getMerchantId());
+        }
+
+        assertThat(firstTen).contains(other);
+    }
+
+    @Test
+    void merchantsAreServedInProportionToTheirWeights() throws Exception {
+        queue.enqueueAll(jobsFor(BULK_MERCHANT, 100));
+        queue.enqueueAll(jobsFor(CHECKOUT_MERCHANT, 100));
+
+        int checkout = 0;
+        for (int i = 0; i < 40; i++) {
+            if (CHECKOUT_MERCHANT.equals(queue.dequeue().getMerchantId())) {
+                checkout++;
+            }
+        }
+
+        // Weight 3 against 1: three in four jobs
+        assertThat(checkout).isEqualTo(30);
+    }
+
+    @Test
+    void drainedMerchantLeavesTheActiveSet() throws Exception {
+        queue.enqueueAll(jobsFor(BULK_MERCHANT, 3));
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertThat(jedis.smembers(queueKey + ":merchants")).containsExactly(BULK_MERCHANT.toString());
+        }
+
+        while (queue.dequeue() != null) {
+            // drain
+        }
+
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertThat(jedis.smembers(queueKey + ":merchants")).isEmpty();
+        }
+        assertThat(fairQueue.getActiveMerchantCount()).isZero();
+    }
+
+    @Test
+    void merchantStatsListDeepestMerchantsFirst() {
+        queue.enqueueAll(jobsFor(BULK_MERCHANT, 5));
+        queue.enqueueAll(jobsFor(CHECKOUT_MERCHANT, 2));
+
+        List<FairQueuingJobQueue.MerchantQueueStats> stats = fairQueue.getMerchantStats();
+
+        assertThat(stats).extracting(FairQueuingJobQueue.MerchantQueueStats::getMerchantId)
+                .containsExactly(BULK_MERCHANT.toString(), CHECKOUT_MERCHANT.toString());
+        assertThat(stats.get(0).getReady()).isEqualTo(5);
+        assertThat(stats.get(1).getWeight()).isEqualTo(3);
+    }
+}
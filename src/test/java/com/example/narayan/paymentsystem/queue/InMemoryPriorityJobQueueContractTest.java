@@ -0,0 +1,156 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryPriorityJobQueueContractTest extends JobQueueContractTest {
+
+    private static final int CAPACITY = 8;
+
+    private InMemoryPriorityJobQueue memoryQueue;
+
+    @Override
+    protected boolean usesRedis() {
+        return false;
+    }
+
+    @Override
+    protected JobQueue createQueue(String queueKey) {
+        memoryQueue = new InMemoryPriorityJobQueue(CAPACITY, 200);
+        memoryQueue.startBackgroundTasks();
+        return memoryQueue;
+    }
+
+    @Override
+    protected void stopQueue() {
+        memoryQueue.shutdown();
+    }
+
+    @Test
+    void higherPriorityJobsOvertakeOlderOnes() throws Exception {
+        PaymentJob normal = newJob();
+        PaymentJob critical = newJob();
+        critical.setPriority(PaymentJob.Priority.CRITICAL);
+
+        queue.enqueue(normal);
+        queue.enqueue(critical);
+
+        assertThat(queue.dequeue().getJobId()).isEqualTo(critical.getJobId());
+        assertThat(queue.dequeue().getJobId()).isEqualTo(normal.getJobId());
+    }
+
+    @Test
+    void fullQueueRejectsAfterOfferTimeout() {
+        for (int i = 0; i < CAPACITY; i++) {
+            queue.enqueue(newJob());
+        }
+
+        assertThatThrownBy(() -> queue.enqueue(newJob())).hasMessageContaining("queue full");
+        assertThat(queue.size()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void blockedProducerProceedsOnceAJobIsTaken() throws Exception {
+        for (int i = 0; i < CAPACITY; i++) {
+            queue.enqueue(newJob());
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                queue.dequeue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+
+        queue.enqueue(newJob());
+
+        assertThat(queue.size()).isEqualTo(CAPACITY);
+    }
+
+    @Test
+    void cancelRemovesReadyAndScheduledJobsOnly() throws Exception {
+        PaymentJob ready = newJob();
+        PaymentJob scheduled = newJob();
+        PaymentJob taken = newJob();
+        queue.enqueue(ready);
+        queue.schedule(scheduled, Instant.now().plusSeconds(60));
+
+        assertThat(queue.cancel(ready.getJobId())).isTrue();
+        assertThat(queue.cancel(scheduled.getJobId())).isTrue();
+        assertThat(queue.cancel(ready.getJobId())).isFalse();
+        assertThat(queue.size()).isZero();
+        assertThat(queue.delayedSize()).isZero();
+
+        queue.enqueue(taken);
+        assertThat(queue.dequeue().getJobId()).isEqualTo(taken.getJobId());
+        assertThat(queue.cancel(taken.getJobId())).isFalse();
+    }
+
+    @Test
+    void reprioritizedJobKeepsItsPlaceInTheNewBand() throws Exception {
+        PaymentJob low = newJob();
+        low.setPriority(PaymentJob.Priority.LOW);
+        PaymentJob high = newJob();
+        high.setPriority(PaymentJob.Priority.HIGH);
+        queue.enqueue(low);
+        queue.enqueue(high);
+
+        assertThat(queue.reprioritize(low.getJobId(), PaymentJob.Priority.HIGH)).isTrue();
+
+        PaymentJob first = queue.dequeue();
+        assertThat(first.getJobId()).isEqualTo(low.getJobId());
+        assertThat(first.getPriority()).isEqualTo(PaymentJob.Priority.HIGH);
+        assertThat(queue.dequeue().getJobId()).isEqualTo(high.getJobId());
+        assertThat(queue.reprioritize("no-such-job", PaymentJob.Priority.HIGH)).isFalse();
+    }
+
+    @Test
+    void peekShowsJobsInDequeueOrderWithoutRemovingThem() {
+        PaymentJob normal = newJob();
+        PaymentJob high = newJob();
+        high.setPriority(PaymentJob.Priority.HIGH);
+        queue.enqueue(normal);
+        queue.enqueue(high);
+
+        List<PaymentJob> peeked = queue.peek(5);
+
+        assertThat(peeked).extracting(PaymentJob::getJobId).containsExactly(high.getJobId(), normal.getJobId());
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    void scanVisitsReadyAndScheduledJobsAcrossPages() {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < CAPACITY; i++) {
+            PaymentJob job = newJob();
+            queue.enqueue(job);
+            expected.add(job.getJobId());
+        }
+        for (int i = 0; i < 4; i++) {
+            PaymentJob job = newJob();
+            queue.schedule(job, Instant.now().plusSeconds(60 + i));
+            expected.add(job.getJobId());
+        }
+
+        Set<String> seen = new HashSet<>();
+        String cursor = JobScanPage.START;
+        do {
+            JobScanPage page = queue.scan(cursor, 5);
+            page.getJobs().forEach(job -> seen.add(job.getJobId()));
+            cursor = page.getCursor();
+        } while (!JobScanPage.START.equals(cursor));
+
+        assertThat(seen).isEqualTo(expected);
+        assertThatThrownBy(() -> queue.scan("bogus", 5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Behaviour every JobQueue must share. Redis-backed queues run against a local Redis
+ * (-Dredis.host / -Dredis.port, default localhost:6379) under throwaway keys, and are
+ * skipped when no Redis is reachable.
+ */
+abstract class JobQueueContractTest {
+
+    protected static final String REDIS_HOST = System.getProperty("redis.host", "localhost");
+    protected static final int REDIS_PORT = Integer.getInteger("redis.port", 6379);
+
+    protected JedisPool jedisPool;
+    protected JobQueue queue;
+    protected String queueKey;
+
+    /**
+     * A started queue keeping all its keys under the given prefix
+     */
+    protected abstract JobQueue createQueue(String queueKey);
+
+    /**
+     * Stop the queue's background threads
+     */
+    protected abstract void stopQueue();
+
+    protected boolean usesRedis() {
+        return true;
+    }
+
+    /**
+     * Wait until count enqueued jobs can be dequeued without blocking. Queues that hand
+     * jobs to workers through a background thread override this.
+     */
+    protected void awaitReady(int count) throws InterruptedException {
+    }
+
+    @BeforeEach
+    void setUp() {
+        if (usesRedis()) {
+            assumeTrue(redisAvailable(), "No Redis at " + REDIS_HOST + ":" + REDIS_PORT);
+            jedisPool = new JedisPool(new JedisPoolConfig(), REDIS_HOST, REDIS_PORT);
+        }
+        queueKey = "test:{" + UUID.randomUUID() + "}";
+        queue = createQueue(queueKey);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.releaseBlockingConnection();
+            stopQueue();
+        }
+        if (jedisPool != null) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                Set<String> keys = jedis.keys(queueKey + "*");
+                if (!keys.isEmpty()) {
+                    jedis.del(keys.toArray(new String[0]));
+                }
+            }
+            jedisPool.close();
+        }
+    }
+
+    private static boolean redisAvailable() {
+        try (Jedis jedis = new Jedis(REDIS_HOST, REDIS_PORT, 500)) {
+            return "PONG".equals(jedis.ping());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    protected static PaymentJob newJob() {
+        return PaymentJob.of(UUID.randomUUID(), 2500);
+    }
+
+    @Test
+    void dequeueReturnsTheEnqueuedJob() throws Exception {
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+        awaitReady(1);
+
+        PaymentJob dequeued = queue.dequeue();
+
+        assertThat(dequeued).isNotNull();
+        assertThat(dequeued.getJobId()).isEqualTo(job.getJobId());
+        assertThat(dequeued.getPaymentId()).isEqualTo(job.getPaymentId());
+        assertThat(dequeued.getAmount()).isEqualTo(job.getAmount());
+    }
+
+    @Test
+    void dequeueOnEmptyQueueReturnsNull() throws Exception {
+        assertThat(queue.dequeue()).isNull();
+        assertThat(queue.dequeueBatch(10)).isEmpty();
+    }
+
+    @Test
+    void jobsOfEqualPriorityComeOutInArrivalOrder() throws Exception {
+        List<String> enqueued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PaymentJob job = newJob();
+            queue.enqueue(job);
+            enqueued.add(job.getJobId());
+            Thread.sleep(2); // Distinct enqueue timestamps
+        }
+        awaitReady(enqueued.size());
+
+        List<String> dequeued = new ArrayList<>();
+        PaymentJob job;
+        while ((job = queue.dequeue()) != null) {
+            dequeued.add(job.getJobId());
+            queue.ack(job);
+        }
+
+        assertThat(dequeued).containsExactlyElementsOf(enqueued);
+    }
+
+    @Test
+    void sizeCountsJobsWaitingToBeDequeued() throws Exception {
+        queue.enqueueAll(List.of(newJob(), newJob(), newJob()));
+        awaitReady(3);
+        assertThat(queue.size()).isEqualTo(3);
+
+        PaymentJob job = queue.dequeue();
+        queue.ack(job);
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.inFlightSize()).isZero();
+    }
+
+    @Test
+    void bulkEnqueuedJobsComeBackInBatches() throws Exception {
+        List<PaymentJob> jobs = List.of(newJob(), newJob(), newJob(), newJob(), newJob());
+        queue.enqueueAll(jobs);
+        awaitReady(jobs.size());
+
+        List<PaymentJob> first = queue.dequeueBatch(3);
+        List<PaymentJob> rest = queue.dequeueBatch(3);
+        queue.ackAll(first);
+        queue.ackAll(rest);
+
+        assertThat(first).hasSize(3);
+        assertThat(rest).hasSize(2);
+        Set<String> dequeued = new HashSet<>();
+        first.forEach(job -> dequeued.add(job.getJobId()));
+        rest.forEach(job -> dequeued.add(job.getJobId()));
+        assertThat(dequeued).isEqualTo(jobs.stream().map(PaymentJob::getJobId).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void scheduledJobIsHeldBackUntilDue() throws Exception {
+        PaymentJob job = newJob();
+        queue.schedule(job, Instant.now().plusMillis(500));
+
+        assertThat(queue.dequeue()).isNull();
+        assertThat(queue.delayedSize()).isEqualTo(1);
+
+        PaymentJob dequeued = queue.dequeue(Duration.ofSeconds(5));
+
+        assertThat(dequeued).isNotNull();
+        assertThat(dequeued.getJobId()).isEqualTo(job.getJobId());
+        assertThat(queue.delayedSize()).isZero();
+    }
+
+    @Test
+    void blockingDequeueWakesUpWhenAJobArrives() throws Exception {
+        PaymentJob job = newJob();
+        CompletableFuture.runAsync(() -> queue.enqueue(job),
+                CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+
+        PaymentJob dequeued = queue.dequeue(Duration.ofSeconds(5));
+
+        assertThat(dequeued).isNotNull();
+        assertThat(dequeued.getJobId()).isEqualTo(job.getJobId());
+    }
+
+    @Test
+    void blockingDequeueReturnsNullAfterTimeout() throws Exception {
+        long start = System.currentTimeMillis();
+
+        assertThat(queue.dequeue(Duration.ofMillis(300))).isNull();
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(250);
+    }
+
+    @Test
+    void blockingBatchDequeueReturnsEverythingReady() throws Exception {
+        queue.enqueueAll(List.of(newJob(), newJob(), newJob()));
+        awaitReady(3);
+
+        assertThat(queue.dequeueBatch(10, Duration.ofSeconds(1))).hasSize(3);
+    }
+}
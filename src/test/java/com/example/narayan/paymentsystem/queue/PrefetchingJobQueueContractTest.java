@@ -0,0 +1,102 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefetchingJobQueueContractTest extends JobQueueContractTest {
+
+    private static final int HIGH_WATERMARK = 8;
+    private static final int LOW_WATERMARK = 2;
+
+    private InMemoryPriorityJobQueue sharedQueue;
+    private PrefetchingJobQueue prefetchingQueue;
+
+    @Override
+    protected boolean usesRedis() {
+        return false;
+    }
+
+    @Override
+    protected JobQueue createQueue(String queueKey) {
+        sharedQueue = new InMemoryPriorityJobQueue(100, 200);
+        sharedQueue.startBackgroundTasks();
+        prefetchingQueue = new PrefetchingJobQueue(sharedQueue, HIGH_WATERMARK, LOW_WATERMARK, 100, 50);
+        prefetchingQueue.start();
+        return prefetchingQueue;
+    }
+
+    @Override
+    protected void stopQueue() {
+        prefetchingQueue.stop(1000);
+        sharedQueue.shutdown();
+    }
+
+    @Override
+    protected void awaitReady(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (prefetchingQueue.getBufferedCount() < Math.min(count, HIGH_WATERMARK)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private List<PaymentJob> enqueueJobs(int count) {
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            jobs.add(newJob());
+        }
+        queue.enqueueAll(jobs);
+        return jobs;
+    }
+
+    @Test
+    void fetcherFillsTheBufferUpToTheHighWatermark() throws Exception {
+        enqueueJobs(20);
+        awaitReady(HIGH_WATERMARK);
+
+        assertThat(prefetchingQueue.getBufferedCount()).isEqualTo(HIGH_WATERMARK);
+        assertThat(sharedQueue.size()).isEqualTo(20 - HIGH_WATERMARK);
+        assertThat(queue.size()).isEqualTo(20);
+    }
+
+    @Test
+    void bufferIsRefilledOnceItDrainsToTheLowWatermark() throws Exception {
+        enqueueJobs(20);
+        awaitReady(HIGH_WATERMARK);
+
+        queue.dequeueBatch(HIGH_WATERMARK - LOW_WATERMARK);
+        awaitReady(HIGH_WATERMARK);
+
+        assertThat(prefetchingQueue.getBufferedCount()).isEqualTo(HIGH_WATERMARK);
+        assertThat(sharedQueue.size()).isEqualTo(20 - 2 * HIGH_WATERMARK + LOW_WATERMARK);
+    }
+
+    @Test
+    void stopReturnsBufferedJobsToTheSharedQueue() throws Exception {
+        List<PaymentJob> jobs = enqueueJobs(5);
+        awaitReady(jobs.size());
+
+        assertThat(prefetchingQueue.stop(1000)).isEqualTo(5);
+
+        assertThat(prefetchingQueue.getBufferedCount()).isZero();
+        assertThat(sharedQueue.size()).isEqualTo(5);
+        assertThat(sharedQueue.dequeueBatch(10)).extracting(PaymentJob::getJobId)
+                .containsExactlyInAnyOrderElementsOf(jobs.stream().map(PaymentJob::getJobId).toList());
+    }
+
+    @Test
+    void cancelTakesABufferedJobOutOfTheBuffer() throws Exception {
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+        awaitReady(1);
+
+        assertThat(queue.cancel(job.getJobId())).isTrue();
+        assertThat(queue.dequeue()).isNull();
+        assertThat(queue.size()).isZero();
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.codec.JsonJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.queue.processor.JobProcessor;
+import com.example.narayan.paymentsystem.worker.JobWorker;
+import com.example.narayan.paymentsystem.worker.WorkAvailableSignal;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisPriorityJobQueueContractTest extends JobQueueContractTest {
+
+    private final BinaryJobCodec codec = new BinaryJobCodec();
+    private RedisPriorityJobQueue priorityQueue;
+
+    @Override
+    protected JobQueue createQueue(String queueKey) {
+        priorityQueue = new RedisPriorityJobQueue(jedisPool, codec, REDIS_HOST, REDIS_PORT, queueKey);
+        priorityQueue.startBackgroundTasks();
+        return priorityQueue;
+    }
+
+    @Override
+    protected void stopQueue() {
+        priorityQueue.shutdown();
+    }
+
+    @Test
+    void enqueueFailsAtTheFirstConnectionErrorWhenSpilling() {
+        // Nothing listens on port 1
+        try (JedisPool unreachable = new JedisPool(REDIS_HOST, 1)) {
+            RedisPriorityJobQueue down = new RedisPriorityJobQueue(unreachable, codec, REDIS_HOST, 1, queueKey);
+            ReflectionTestUtils.setField(down, "spillEnabled", true);
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> down.enqueue(newJob())).hasMessageContaining("Redis unavailable");
+            assertThatThrownBy(() -> down.enqueueAll(List.of(newJob(), newJob()))).hasMessageContaining("Redis unavailable");
+
+            // No second attempt, so neither waited out the one-second retry pause
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        }
+    }
+
+    @Test
+    void jobsThatBecomeReadyWithoutAnEnqueueWakeTheWorkers() throws Exception {
+        WorkAvailableSignal signal = mock(WorkAvailableSignal.class);
+        ReflectionTestUtils.setField(priorityQueue, "workAvailableSignal", signal);
+
+        queue.schedule(newJob(), Instant.now().plusSeconds(60));
+        verify(signal, never()).publish();
+
+        priorityQueue.promoteDueJobs(System.currentTimeMillis() + 120_000, 10);
+        verify(signal, times(1)).publish();
+
+        queue.requeue(List.of(queue.dequeue()));
+        verify(signal, times(2)).publish();
+    }
+
+    @Test
+    void higherPriorityJobsOvertakeOlderOnes() throws Exception {
+        PaymentJob normal = newJob();
+        PaymentJob critical = newJob();
+        critical.setPriority(PaymentJob.Priority.CRITICAL);
+
+        queue.enqueue(normal);
+        queue.enqueue(critical);
+
+        assertThat(queue.dequeue().getJobId()).isEqualTo(critical.getJobId());
+        assertThat(queue.dequeue().getJobId()).isEqualTo(normal.getJobId());
+    }
+
+    @Test
+    void cancelRemovesReadyAndScheduledJobsOnly() throws Exception {
+        PaymentJob ready = newJob();
+        PaymentJob scheduled = newJob();
+        PaymentJob taken = newJob();
+        queue.enqueue(ready);
+        queue.schedule(scheduled, Instant.now().plusSeconds(60));
+
+        assertThat(queue.cancel(ready.getJobId())).isTrue();
+        assertThat(queue.cancel(scheduled.getJobId())).isTrue();
+        assertThat(queue.cancel(ready.getJobId())).isFalse();
+        assertThat(queue.size()).isZero();
+        assertThat(queue.delayedSize()).isZero();
+
+        queue.enqueue(taken);
+        assertThat(queue.dequeue().getJobId()).isEqualTo(taken.getJobId());
+        assertThat(queue.cancel(taken.getJobId())).isFalse();
+    }
+
+    @Test
+    void duplicatePaymentsAreSuppressedAndCounted() throws Exception {
+        PaymentJob first = newJob();
+        PaymentJob other = newJob();
+        queue.enqueue(first);
+
+        queue.enqueue(PaymentJob.of(first.getPaymentId(), first.getAmount()));
+        // Within one batch as well as against what is already queued
+        queue.enqueueAll(List.of(PaymentJob.of(first.getPaymentId(), first.getAmount()), other,
+                PaymentJob.of(other.getPaymentId(), other.getAmount())));
+        // The same job again (a retry or replay) is not a duplicate
+        queue.enqueue(first);
+
+        assertThat(queue.duplicatesSuppressed()).isEqualTo(3);
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(List.of(queue.dequeue().getJobId(), queue.dequeue().getJobId()))
+                .containsExactlyInAnyOrder(first.getJobId(), other.getJobId());
+    }
+
+    @Test
+    void nothingIsSuppressedWithDedupeOff() {
+        ReflectionTestUtils.setField(priorityQueue, "dedupeEnabled", false);
+        PaymentJob first = newJob();
+
+        queue.enqueue(first);
+        queue.enqueueAll(List.of(PaymentJob.of(first.getPaymentId(), first.getAmount())));
+
+        assertThat(queue.duplicatesSuppressed()).isZero();
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelledPaymentCanBeEnqueuedAgain() throws Exception {
+        PaymentJob first = newJob();
+        queue.enqueue(first);
+        queue.cancel(first.getJobId());
+
+        PaymentJob again = PaymentJob.of(first.getPaymentId(), first.getAmount());
+        queue.enqueue(again);
+
+        assertThat(queue.dequeue().getJobId()).isEqualTo(again.getJobId());
+        assertThat(queue.duplicatesSuppressed()).isZero();
+    }
+
+    @Test
+    void cancelWithThePaymentIdClearsItsDedupeEntry() throws Exception {
+        PaymentJob first = newJob();
+        PaymentJob other = newJob();
+        queue.enqueue(first);
+        queue.enqueue(other);
+
+        // Someone else's payment id leaves that payment's dedupe entry alone
+        assertThat(queue.cancel(first.getJobId(), other.getPaymentId())).isTrue();
+        queue.enqueue(PaymentJob.of(other.getPaymentId(), other.getAmount()));
+        assertThat(queue.duplicatesSuppressed()).isEqualTo(1);
+
+        assertThat(queue.cancel(other.getJobId(), other.getPaymentId())).isTrue();
+        assertThat(queue.cancel(other.getJobId(), other.getPaymentId())).isFalse();
+        PaymentJob again = PaymentJob.of(other.getPaymentId(), other.getAmount());
+        queue.enqueue(again);
+        assertThat(queue.dequeue().getJobId()).isEqualTo(again.getJobId());
+    }
+
+    @Test
+    void reprioritizedJobMovesToItsNewBand() throws Exception {
+        PaymentJob normal = newJob();
+        PaymentJob low = newJob();
+        low.setPriority(PaymentJob.Priority.LOW);
+        queue.enqueue(normal);
+        queue.enqueue(low);
+
+        assertThat(queue.reprioritize(low.getJobId(), PaymentJob.Priority.CRITICAL)).isTrue();
+
+        PaymentJob first = queue.dequeue();
+        assertThat(first.getJobId()).isEqualTo(low.getJobId());
+        assertThat(first.getPriority()).isEqualTo(PaymentJob.Priority.CRITICAL);
+        assertThat(queue.reprioritize("no-such-job", PaymentJob.Priority.HIGH)).isFalse();
+    }
+
+    @Test
+    void peekShowsJobsInDequeueOrderWithoutRemovingThem() throws Exception {
+        PaymentJob normal = newJob();
+        PaymentJob high = newJob();
+        high.setPriority(PaymentJob.Priority.HIGH);
+        queue.enqueue(normal);
+        queue.enqueue(high);
+
+        List<PaymentJob> peeked = queue.peek(5);
+
+        assertThat(peeked).extracting(PaymentJob::getJobId).containsExactly(high.getJobId(), normal.getJobId());
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    void scanVisitsEveryJobAcrossPages() {
+        Set<String> expected = new HashSet<>();
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            PaymentJob job = newJob();
+            jobs.add(job);
+            expected.add(job.getJobId());
+        }
+        queue.enqueueAll(jobs);
+
+        Set<String> seen = new HashSet<>();
+        String cursor = JobScanPage.START;
+        do {
+            JobScanPage page = queue.scan(cursor, 50);
+            page.getJobs().forEach(job -> seen.add(job.getJobId()));
+            cursor = page.getCursor();
+        } while (!JobScanPage.START.equals(cursor));
+
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void retryOfLeasedJobKeepsItsPayloadAfterAck() throws Exception {
+        ReflectionTestUtils.setField(priorityQueue, "reliable", true);
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+
+        PaymentJob leased = queue.dequeue();
+        leased.incrementRetryCount();
+        queue.schedule(leased, Instant.now().minusSeconds(1));
+        queue.ack(leased);
+
+        assertThat(queue.inFlightSize()).isZero();
+        PaymentJob retried = queue.dequeue();
+        assertThat(retried.getJobId()).isEqualTo(job.getJobId());
+        assertThat(retried.getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leasedJobWhoseProcessingThrowsIsReapedAndHandedOutAgain() throws Exception {
+        ReflectionTestUtils.setField(priorityQueue, "reliable", true);
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+
+        JobProcessor<PaymentJob> processor = mock(JobProcessor.class);
+        CountDownLatch attempted = new CountDownLatch(1);
+        when(processor.process(any())).thenAnswer(invocation -> {
+            attempted.countDown();
+            throw new IllegalStateException("Gateway client blew up");
+        });
+        JobWorker worker = new JobWorker(queue, processor, 50, 50);
+        Thread thread = new Thread(worker);
+        thread.start();
+        assertThat(attempted.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.shutdown();
+        thread.join(5000);
+
+        // The failed job is no longer heartbeated, so its lease runs out and the reaper takes it back
+        assertThat(priorityQueue.extendLeases()).isZero();
+        assertThat(queue.inFlightSize()).isEqualTo(1);
+        assertThat(priorityQueue.reapExpiredLeases(System.currentTimeMillis() + 60_000, 10)).isEqualTo(1);
+
+        PaymentJob redelivered = queue.dequeue();
+        assertThat(redelivered.getJobId()).isEqualTo(job.getJobId());
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void jobsQueuedInTheOldLayoutAreStillDelivered() throws Exception {
+        // Before payloads moved to the :jobs hash, the ready member was the payload itself
+        PaymentJob legacy = newJob();
+        PaymentJob blocking = newJob();
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.zadd(queueKey.getBytes(StandardCharsets.UTF_8), 1, new JsonJobCodec().encode(legacy));
+            jedis.zadd(queueKey.getBytes(StandardCharsets.UTF_8), 2, codec.encode(blocking));
+        }
+
+        assertThat(queue.dequeue().getJobId()).isEqualTo(legacy.getJobId());
+        assertThat(queue.dequeue(Duration.ofMillis(500)).getJobId()).isEqualTo(blocking.getJobId());
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void oldLayoutJobsAreLeasedAndAckedInReliableMode() throws Exception {
+        ReflectionTestUtils.setField(priorityQueue, "reliable", true);
+        PaymentJob legacy = newJob();
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.zadd(queueKey.getBytes(StandardCharsets.UTF_8), 1, codec.encode(legacy));
+        }
+
+        PaymentJob leased = queue.dequeue();
+        assertThat(leased.getJobId()).isEqualTo(legacy.getJobId());
+        assertThat(queue.inFlightSize()).isEqualTo(1);
+
+        queue.ack(leased);
+        assertThat(queue.inFlightSize()).isZero();
+        try (Jedis jedis = jedisPool.getResource()) {
+            assertThat(jedis.hlen(queueKey + ":jobs")).isZero();
+        }
+    }
+
+    @Test
+    void oldLayoutScheduledJobsArePromoted() throws Exception {
+        // The old delayed member was "<ready score>|<payload>", scored by due time
+        PaymentJob legacy = newJob();
+        byte[] payload = codec.encode(legacy);
+        byte[] member = new byte[payload.length + 2];
+        member[0] = '5';
+        member[1] = '|';
+        System.arraycopy(payload, 0, member, 2, payload.length);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.zadd((queueKey + ":delayed").getBytes(StandardCharsets.UTF_8), System.currentTimeMillis() - 1000, member);
+        }
+
+        priorityQueue.promoteDueJobs(System.currentTimeMillis(), 10);
+
+        assertThat(queue.delayedSize()).isZero();
+        assertThat(queue.peek(1)).extracting(PaymentJob::getJobId).containsExactly(legacy.getJobId());
+        assertThat(queue.dequeue().getJobId()).isEqualTo(legacy.getJobId());
+    }
+
+    @Test
+    void replayedJobsTakeTheirPlaceByOriginalArrival() throws Exception {
+        long now = System.currentTimeMillis();
+        PaymentJob replayedEarlier = newJob();
+        PaymentJob live = newJob();
+        PaymentJob replayedLater = newJob();
+        queue.enqueue(live);
+
+        Map<PaymentJob, Long> arrivedAt = new IdentityHashMap<>();
+        arrivedAt.put(replayedLater, now + 60_000);
+        arrivedAt.put(replayedEarlier, now - 60_000);
+        queue.enqueueAll(List.of(replayedLater, replayedEarlier), arrivedAt::get);
+
+        assertThat(queue.dequeue().getJobId()).isEqualTo(replayedEarlier.getJobId());
+        assertThat(queue.dequeue().getJobId()).isEqualTo(live.getJobId());
+        assertThat(queue.dequeue().getJobId()).isEqualTo(replayedLater.getJobId());
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RedisStreamJobQueueContractTest extends JobQueueContractTest {
+
+    private final DeadLetterQueue deadLetterQueue = mock(DeadLetterQueue.class);
+    private RedisStreamJobQueue streamQueue;
+    private RedisStreamJobQueue otherConsumer;
+
+    @Override
+    protected JobQueue createQueue(String queueKey) {
+        streamQueue = newConsumer(queueKey, "consumer-a");
+        return streamQueue;
+    }
+
+    private RedisStreamJobQueue newConsumer(String streamKey, String consumer) {
+        RedisStreamJobQueue q = new RedisStreamJobQueue(jedisPool, new BinaryJobCodec(), deadLetterQueue,
+                REDIS_HOST, REDIS_PORT, streamKey, "test-workers", consumer);
+        q.startBackgroundTasks();
+        return q;
+    }
+
+    @Override
+    protected void stopQueue() {
+        streamQueue.shutdown();
+        if (otherConsumer != null) {
+            otherConsumer.shutdown();
+        }
+    }
+
+    @Test
+    void unackedEntryIsClaimedByAnotherConsumer() throws Exception {
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+        assertThat(queue.dequeue()).isNotNull(); // consumer-a "crashes" without acking
+        assertThat(queue.inFlightSize()).isEqualTo(1);
+
+        otherConsumer = newConsumer(queueKey, "consumer-b");
+        assertThat(otherConsumer.claimStaleEntries(0)).isEqualTo(1);
+
+        PaymentJob claimed = otherConsumer.dequeue();
+        assertThat(claimed.getJobId()).isEqualTo(job.getJobId());
+
+        otherConsumer.ack(claimed);
+        assertThat(queue.inFlightSize()).isZero();
+    }
+
+    @Test
+    void entryDeliveredTooOftenGoesToDeadLetterQueue() throws Exception {
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+        assertThat(queue.dequeue()).isNotNull();
+
+        otherConsumer = newConsumer(queueKey, "consumer-b");
+        ReflectionTestUtils.setField(otherConsumer, "maxDeliveries", 1);
+
+        // First delivery plus the claim makes two
+        assertThat(otherConsumer.claimStaleEntries(0)).isZero();
+
+        verify(deadLetterQueue).addToDeadLetterQueue(argThat(j -> j.getJobId().equals(job.getJobId())), anyString());
+        assertThat(otherConsumer.dequeue()).isNull();
+        assertThat(queue.inFlightSize()).isZero();
+    }
+
+    @Test
+    void abandonedEntryGoesIdleAndIsClaimedAgainUntilDeadLettered() throws Exception {
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+        PaymentJob failed = queue.dequeue();
+        assertThat(streamQueue.touchPendingEntries()).isEqualTo(1);
+
+        queue.abandon(List.of(failed));
+        assertThat(streamQueue.touchPendingEntries()).isZero();
+
+        Thread.sleep(200);
+        assertThat(streamQueue.claimStaleEntries(100)).isEqualTo(1);
+        PaymentJob redelivered = queue.dequeue();
+        assertThat(redelivered.getJobId()).isEqualTo(job.getJobId());
+
+        // Delivered, then claimed twice
+        ReflectionTestUtils.setField(streamQueue, "maxDeliveries", 2);
+        queue.abandon(List.of(redelivered));
+        Thread.sleep(200);
+        assertThat(streamQueue.claimStaleEntries(100)).isZero();
+        verify(deadLetterQueue).addToDeadLetterQueue(argThat(j -> j.getJobId().equals(job.getJobId())), anyString());
+        assertThat(queue.inFlightSize()).isZero();
+    }
+
+    @Test
+    void claimersOwnPendingEntriesDontHideDeliveryCounts() throws Exception {
+        PaymentJob first = newJob();
+        PaymentJob mine = newJob();
+        PaymentJob last = newJob();
+        queue.enqueue(first);
+        queue.enqueue(mine);
+        queue.enqueue(last);
+
+        otherConsumer = newConsumer(queueKey, "consumer-b");
+        assertThat(queue.dequeue().getJobId()).isEqualTo(first.getJobId());
+        assertThat(otherConsumer.dequeue().getJobId()).isEqualTo(mine.getJobId());
+        assertThat(queue.dequeue().getJobId()).isEqualTo(last.getJobId());
+
+        // consumer-b's own entry sits between the two it claims, but isn't stale
+        Thread.sleep(200);
+        otherConsumer.touchPendingEntries();
+        ReflectionTestUtils.setField(otherConsumer, "maxDeliveries", 1);
+
+        assertThat(otherConsumer.claimStaleEntries(100)).isZero();
+        verify(deadLetterQueue).addToDeadLetterQueue(argThat(j -> j.getJobId().equals(first.getJobId())), anyString());
+        verify(deadLetterQueue).addToDeadLetterQueue(argThat(j -> j.getJobId().equals(last.getJobId())), anyString());
+    }
+
+    @Test
+    void cancelRemovesReadyAndScheduledJobsOnly() throws Exception {
+        PaymentJob ready = newJob();
+        PaymentJob scheduled = newJob();
+        PaymentJob taken = newJob();
+        queue.enqueue(ready);
+        queue.schedule(scheduled, Instant.now().plusSeconds(60));
+
+        assertThat(queue.cancel(ready.getJobId())).isTrue();
+        assertThat(queue.cancel(scheduled.getJobId())).isTrue();
+        assertThat(queue.cancel(ready.getJobId())).isFalse();
+        assertThat(queue.size()).isZero();
+        assertThat(queue.delayedSize()).isZero();
+
+        queue.enqueue(taken);
+        PaymentJob dequeued = queue.dequeue();
+        assertThat(dequeued.getJobId()).isEqualTo(taken.getJobId());
+        assertThat(queue.cancel(taken.getJobId())).isFalse();
+        // Acking clears the index, so the job is unknown from then on
+        queue.ack(dequeued);
+        assertThat(queue.cancel(taken.getJobId())).isFalse();
+        try (var jedis = jedisPool.getResource()) {
+            assertThat(jedis.hlen(queueKey + ":entries")).isZero();
+        }
+    }
+
+    @Test
+    void promotedJobCanStillBeCancelled() throws Exception {
+        PaymentJob job = newJob();
+        queue.schedule(job, Instant.now().plusSeconds(60));
+        assertThat(streamQueue.promoteDueJobs(System.currentTimeMillis() + 120_000, 10).getPromoted()).isEqualTo(1);
+
+        assertThat(queue.peek(1)).extracting(PaymentJob::getJobId).containsExactly(job.getJobId());
+        assertThat(queue.cancel(job.getJobId())).isTrue();
+        assertThat(queue.dequeue()).isNull();
+    }
+
+    @Test
+    void peekShowsUndeliveredEntriesInOrder() throws Exception {
+        PaymentJob first = newJob();
+        PaymentJob second = newJob();
+        PaymentJob third = newJob();
+        queue.enqueueAll(List.of(first, second, third));
+
+        assertThat(queue.dequeue().getJobId()).isEqualTo(first.getJobId());
+
+        assertThat(queue.peek(5)).extracting(PaymentJob::getJobId)
+                .containsExactly(second.getJobId(), third.getJobId());
+        assertThat(queue.peek(1)).extracting(PaymentJob::getJobId).containsExactly(second.getJobId());
+        assertThat(queue.dequeue().getJobId()).isEqualTo(second.getJobId());
+    }
+
+    @Test
+    void scanWalksTheStreamThenTheDelayedJobs() throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PaymentJob job = newJob();
+            queue.enqueue(job);
+            expected.add(job.getJobId());
+        }
+        PaymentJob later = newJob();
+        queue.schedule(later, Instant.now().plusSeconds(60));
+        expected.add(later.getJobId());
+        // Delivered but unacked entries are still held
+        queue.dequeue();
+
+        List<String> seen = new ArrayList<>();
+        JobScanPage page = queue.scan(JobScanPage.START, 2);
+        int pages = 1;
+        seen.addAll(page.getJobs().stream().map(PaymentJob::getJobId).toList());
+        while (!page.isComplete()) {
+            page = queue.scan(page.getCursor(), 2);
+            seen.addAll(page.getJobs().stream().map(PaymentJob::getJobId).toList());
+            pages++;
+        }
+
+        assertThat(seen).containsExactlyElementsOf(expected);
+        assertThat(pages).isGreaterThan(3);
+        assertThatThrownBy(() -> queue.scan("nope", 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void reprioritizeIsNotSupported() {
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+
+        assertThatThrownBy(() -> queue.reprioritize(job.getJobId(), PaymentJob.Priority.HIGH))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.narayan.paymentsystem.queue;
+
+import com.example.narayan.paymentsystem.queue.codec.BinaryJobCodec;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedRedisJobQueueContractTest extends JobQueueContractTest {
+
+    private static final int SHARDS = 4;
+
+    private ShardedRedisJobQueue shardedQueue;
+
+    @Override
+    protected JobQueue createQueue(String queueKey) {
+        shardedQueue = new ShardedRedisJobQueue(jedisPool, new BinaryJobCodec(), REDIS_HOST, REDIS_PORT, SHARDS, queueKey);
+        shardedQueue.startBackgroundTasks();
+        return shardedQueue;
+    }
+
+    @Override
+    protected void stopQueue() {
+        shardedQueue.shutdown();
+    }
+
+    private static int shardOf(PaymentJob job) {
+        return Math.floorMod(job.getPaymentId().hashCode(), SHARDS);
+    }
+
+    /**
+     * Arrival order only holds within a shard; workers pull the shards round-robin
+     */
+    @Test
+    @Override
+    void jobsOfEqualPriorityComeOutInArrivalOrder() throws Exception {
+        Map<Integer, List<String>> enqueued = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            PaymentJob job = newJob();
+            queue.enqueue(job);
+            enqueued.computeIfAbsent(shardOf(job), shard -> new ArrayList<>()).add(job.getJobId());
+            Thread.sleep(2); // Distinct enqueue timestamps
+        }
+
+        Map<Integer, List<String>> dequeued = new HashMap<>();
+        PaymentJob job;
+        while ((job = queue.dequeue()) != null) {
+            dequeued.computeIfAbsent(shardOf(job), shard -> new ArrayList<>()).add(job.getJobId());
+            queue.ack(job);
+        }
+
+        assertThat(dequeued).isEqualTo(enqueued);
+    }
+
+    @Test
+    void jobsAreSpreadOverTheShardKeys() {
+        for (int i = 0; i < 40; i++) {
+            queue.enqueue(newJob());
+        }
+
+        int used = 0;
+        try (Jedis jedis = jedisPool.getResource()) {
+            for (int shard = 0; shard < SHARDS; shard++) {
+                if (jedis.zcard(queueKey + ":{" + shard + "}") > 0) {
+                    used++;
+                }
+            }
+        }
+        assertThat(used).isGreaterThan(1);
+        assertThat(queue.size()).isEqualTo(40);
+    }
+
+    @Test
+    void cancelAndReprioritizeFindTheJobOnItsShard() throws Exception {
+        PaymentJob cancelled = newJob();
+        PaymentJob promoted = newJob();
+        queue.enqueue(cancelled);
+        queue.enqueue(promoted);
+
+        assertThat(queue.cancel(cancelled.getJobId())).isTrue();
+        assertThat(queue.cancel(cancelled.getJobId())).isFalse();
+        assertThat(queue.reprioritize(promoted.getJobId(), PaymentJob.Priority.CRITICAL)).isTrue();
+
+        PaymentJob next = queue.dequeue();
+        assertThat(next.getJobId()).isEqualTo(promoted.getJobId());
+        assertThat(next.getPriority()).isEqualTo(PaymentJob.Priority.CRITICAL);
+        assertThat(queue.dequeue()).isNull();
+    }
+
+    @Test
+    void scanVisitsEveryShard() {
+        Set<String> expected = new HashSet<>();
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            PaymentJob job = newJob();
+            jobs.add(job);
+            expected.add(job.getJobId());
+        }
+        queue.enqueueAll(jobs);
+
+        Set<String> seen = new HashSet<>();
+        String cursor = JobScanPage.START;
+        do {
+            JobScanPage page = queue.scan(cursor, 10);
+            page.getJobs().forEach(job -> seen.add(job.getJobId()));
+            cursor = page.getCursor();
+        } while (!JobScanPage.START.equals(cursor));
+
+        assertThat(seen).isEqualTo(expected);
+    }
+
+    @Test
+    void duplicatesAreCountedAcrossShards() {
+        List<PaymentJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            jobs.add(newJob());
+        }
+        queue.enqueueAll(jobs);
+
+        // A payment's jobs always land on its own shard, so every copy is caught there
+        for (PaymentJob job : jobs) {
+            queue.enqueue(PaymentJob.of(job.getPaymentId(), job.getAmount()));
+        }
+
+        assertThat(queue.duplicatesSuppressed()).isEqualTo(8);
+        assertThat(queue.size()).isEqualTo(8);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.narayan.paymentsystem.queue.codec;
+
+import com.example.narayan.paymentsystem.model.enums.PaymentMethodType;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryJobCodecTest {
+
+    private final BinaryJobCodec codec = new BinaryJobCodec();
+
+    /**
+     * Every field set, timestamps already at the millisecond precision the format keeps
+     */
+    private static PaymentJob fullJob() {
+        PaymentJob job = PaymentJob.of(UUID.randomUUID(), 2500, UUID.randomUUID());
+        job.setRetryCount(2);
+        job.setMaxTries(5);
+        job.setPriority(PaymentJob.Priority.HIGH);
+        job.setCreatedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+        job.setScheduledFor(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).plusSeconds(30));
+        job.setLastError("Gateway timeout – retrying");
+        job.setPaymentMethodType(PaymentMethodType.UPI);
+        return job;
+    }
+
+    @Test
+    void everyFieldSurvivesARoundTrip() {
+        PaymentJob job = fullJob();
+
+        assertThat(codec.decode(codec.encode(job))).isEqualTo(job);
+    }
+
+    @Test
+    void missingOptionalFieldsStayMissing() {
+        PaymentJob job = new PaymentJob();
+        job.setAmount(100);
+        job.setJobId("retry-of-42");
+        job.setPriority(null);
+        job.setCreatedAt(null);
+        job.setScheduledFor(null);
+
+        PaymentJob decoded = codec.decode(codec.encode(job));
+
+        assertThat(decoded).isEqualTo(job);
+        assertThat(decoded.getJobId()).isEqualTo("retry-of-42");
+        assertThat(decoded.getPaymentId()).isNull();
+        assertThat(decoded.getMerchantId()).isNull();
+        assertThat(decoded.getPaymentMethodType()).isNull();
+    }
+
+    @Test
+    void nonCanonicalUuidJobIdIsKeptVerbatim() {
+        PaymentJob job = fullJob();
+        job.setJobId(job.getJobId().toUpperCase());
+
+        assertThat(codec.decode(codec.encode(job)).getJobId()).isEqualTo(job.getJobId());
+    }
+
+    @Test
+    void jsonWrittenBeforeTheBinaryFormatStillDecodes() {
+        PaymentJob job = fullJob();
+        byte[] json = new JsonJobCodec().encode(job);
+        assertThat(json[0]).isEqualTo((byte) '{');
+
+        assertThat(codec.decode(json)).isEqualTo(job);
+    }
+
+    @Test
+    void legacyJsonWithUnknownFieldsDecodes() {
+        String json = "{\"paymentId\":\"" + UUID.randomUUID() + "\",\"amount\":700,\"retryCount\":1,"
+                + "\"maxTries\":4,\"priority\":\"LOW\",\"jobId\":\"old-job\",\"readyToProcess\":true}";
+
+        PaymentJob decoded = codec.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(decoded.getJobId()).isEqualTo("old-job");
+        assertThat(decoded.getAmount()).isEqualTo(700);
+        assertThat(decoded.getPriority()).isEqualTo(PaymentJob.Priority.LOW);
+    }
+
+    @Test
+    void jsonCodecReadsBinaryPayloads() {
+        PaymentJob job = fullJob();
+
+        assertThat(new JsonJobCodec().decode(codec.encode(job))).isEqualTo(job);
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        PaymentJob job = fullJob();
+
+        assertThat(codec.encode(job).length).isLessThan(new JsonJobCodec().encode(job).length / 2);
+    }
+
+    @Test
+    void truncatedPayloadIsRejected() {
+        byte[] payload = codec.encode(fullJob());
+
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(payload, payload.length - 3)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.narayan.paymentsystem.queue.processor;
+
+import com.example.narayan.paymentsystem.model.Payment;
+import com.example.narayan.paymentsystem.model.enums.PaymentStatus;
+import com.example.narayan.paymentsystem.queue.DeadLetterQueue;
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import com.example.narayan.paymentsystem.queue.failure.FailureTrackingService;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.repository.PaymentRepository;
+import com.example.narayan.paymentsystem.service.PaymentGatewayService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentJobProcessorTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PaymentGatewayService gateway = mock(PaymentGatewayService.class);
+    private final JobQueue jobQueue = mock(JobQueue.class);
+    private final DeadLetterQueue deadLetterQueue = mock(DeadLetterQueue.class);
+    private final PaymentJobProcessor processor = new PaymentJobProcessor();
+
+    PaymentJobProcessorTest() {
+        ReflectionTestUtils.setField(processor, "paymentRepository", paymentRepository);
+        ReflectionTestUtils.setField(processor, "paymentGatewayService", gateway);
+        ReflectionTestUtils.setField(processor, "jobQueue", jobQueue);
+        ReflectionTestUtils.setField(processor, "deadLetterQueue", deadLetterQueue);
+        ReflectionTestUtils.setField(processor, "failureTrackingService", mock(FailureTrackingService.class));
+    }
+
+    private static Payment payment(PaymentStatus status) {
+        Payment payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setStatus(status);
+        return payment;
+    }
+
+    private static PaymentJob jobFor(UUID paymentId) {
+        return PaymentJob.of(paymentId, 2500);
+    }
+
+    @Test
+    void batchWithFoundMissingAndSettledPayments() {
+        Payment paid = payment(PaymentStatus.PROCESSING);
+        Payment declined = payment(PaymentStatus.PROCESSING);
+        Payment settled = payment(PaymentStatus.SUCCESS);
+        UUID missing = UUID.randomUUID();
+        when(paymentRepository.findAllById(anyIterable())).thenReturn(List.of(settled, declined, paid));
+        doAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            payment.setStatus(payment == paid ? PaymentStatus.SUCCESS : PaymentStatus.FAILED);
+            payment.setFailureReason(payment == paid ? null : "Card declined or insufficient funds");
+            return payment;
+        }).when(gateway).charge(any());
+
+        PaymentJob missingJob = jobFor(missing);
+        List<JobResult> results = processor.processBatch(List.of(
+                jobFor(paid.getId()), missingJob, jobFor(settled.getId()), jobFor(declined.getId())));
+
+        // One result per job, in the order given
+        assertThat(results).extracting(JobResult::getStatus).containsExactly(
+                JobStatus.COMPLETED, JobStatus.RETRYING, JobStatus.COMPLETED, JobStatus.FAILED);
+        assertThat(results.get(2).getMessage()).contains("already SUCCESS");
+
+        // One load, a charge for each unsettled payment that was found, and one batch save
+        verify(paymentRepository, times(1)).findAllById(anyIterable());
+        verify(gateway).charge(paid);
+        verify(gateway).charge(declined);
+        verify(gateway, never()).charge(settled);
+        verify(paymentRepository).batchUpdateStatus(List.of(paid, declined));
+
+        // The missing payment's job waits out its backoff; nothing is dead-lettered
+        verify(jobQueue).schedule(eq(missingJob), any(Instant.class));
+        assertThat(missingJob.getRetryCount()).isEqualTo(1);
+        verify(deadLetterQueue, never()).addToDeadLetterQueue(any(), any());
+    }
+
+    @Test
+    void paymentsThatCantBeSavedAreReportedNotRetried() {
+        Payment paid = payment(PaymentStatus.PROCESSING);
+        when(paymentRepository.findAllById(anyIterable())).thenReturn(List.of(paid));
+        doAnswer(invocation -> {
+            paid.setStatus(PaymentStatus.SUCCESS);
+            return paid;
+        }).when(gateway).charge(any());
+        doAnswer(invocation -> {
+            throw new IllegalStateException("db down");
+        }).when(paymentRepository).batchUpdateStatus(any());
+
+        List<JobResult> results = processor.processBatch(List.of(jobFor(paid.getId())));
+
+        assertThat(results).extracting(JobResult::getStatus).containsExactly(JobStatus.FAILED);
+        assertThat(results.getFirst().getMessage()).contains("charged but status not saved");
+        verify(jobQueue, never()).schedule(any(), any());
+    }
+}
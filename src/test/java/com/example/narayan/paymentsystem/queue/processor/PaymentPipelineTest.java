@@ -0,0 +1,177 @@
+package com.example.narayan.paymentsystem.queue.processor;
+
+import com.example.narayan.paymentsystem.config.PipelineConfig;
+import com.example.narayan.paymentsystem.model.Payment;
+import com.example.narayan.paymentsystem.model.enums.PaymentStatus;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.repository.PaymentRepository;
+import com.example.narayan.paymentsystem.service.PaymentGatewayService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentPipelineTest {
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PaymentGatewayService gateway = mock(PaymentGatewayService.class);
+    private final List<Payment> payments = new ArrayList<>();
+    // Payments the gateway was asked to charge
+    private final Set<UUID> charged = ConcurrentHashMap.newKeySet();
+    private final List<PaymentJob> failed = Collections.synchronizedList(new ArrayList<>());
+    private final List<PaymentJob> requeued = Collections.synchronizedList(new ArrayList<>());
+    // Holds the first charge, and the first failure handled, until it opens
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PaymentPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    /**
+     * One thread per stage, taking one item at a time
+     */
+    private PaymentPipeline pipeline(long resultTimeoutMs, int persistQueueCapacity, long drainTimeoutMs) {
+        PipelineConfig config = new PipelineConfig();
+        config.setLoad(new PipelineConfig.Stage(1, 1, 10));
+        config.setGateway(new PipelineConfig.Stage(1, 1, 10));
+        config.setPersist(new PipelineConfig.Stage(1, 1, persistQueueCapacity));
+        config.setResultTimeoutMs(resultTimeoutMs);
+        config.setDrainTimeoutMs(drainTimeoutMs);
+
+        when(paymentRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Payment> found = new ArrayList<>();
+            for (Object id : (Iterable<?>) invocation.getArgument(0)) {
+                payments.stream().filter(p -> p.getId().equals(id)).forEach(found::add);
+            }
+            return found;
+        });
+        doAnswer(invocation -> {
+            Payment payment = invocation.getArgument(0);
+            charged.add(payment.getId());
+            if (payment == payments.getFirst()) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            payment.setStatus(PaymentStatus.SUCCESS);
+            return payment;
+        }).when(gateway).charge(any());
+
+        pipeline = new PaymentPipeline(config, paymentRepository, gateway,
+                (job, e) -> {
+                    failed.add(job);
+                    if (failed.size() == 1) {
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException interrupted) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return new JobResult(JobStatus.RETRYING, e.getMessage());
+                },
+                job -> {
+                    requeued.add(job);
+                    return new JobResult(JobStatus.RETRY_SCHEDULED, "requeued");
+                });
+        pipeline.start();
+        return pipeline;
+    }
+
+    private PaymentJob newPayment() {
+        Payment payment = new Payment();
+        payment.setId(UUID.randomUUID());
+        payment.setStatus(PaymentStatus.PROCESSING);
+        payments.add(payment);
+        return PaymentJob.of(payment.getId(), 2500);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static PipelineStage.StageStats stage(PaymentPipeline pipeline, String name) {
+        return pipeline.getStats().getStages().stream().filter(s -> s.getStage().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void jobStillWaitingAtTheTimeoutIsRequeuedAndNeverCharged() throws Exception {
+        PaymentPipeline pipeline = pipeline(300, 10, 1000);
+        PaymentJob slow = newPayment();
+        PaymentJob waiting = newPayment();
+
+        List<JobResult> results = pipeline.process(List.of(slow, waiting));
+
+        // The first charge is under way, so it can't be retried; the second never started
+        assertThat(results.get(0).getStatus()).isEqualTo(JobStatus.PROCESSING);
+        assertThat(results.get(1).getStatus()).isEqualTo(JobStatus.RETRY_SCHEDULED);
+        assertThat(requeued).containsExactly(waiting);
+
+        release.countDown();
+        await(() -> stage(pipeline, "persist").getItemsProcessed() == 1);
+        assertThat(charged).containsExactly(slow.getPaymentId());
+        assertThat(failed).isEmpty();
+    }
+
+    @Test
+    void jobsRefusedWhileStoppingAreRequeued() {
+        PaymentPipeline pipeline = pipeline(1000, 10, 100);
+        pipeline.stop();
+        PaymentJob job = newPayment();
+
+        List<JobResult> results = pipeline.process(List.of(job));
+
+        assertThat(results).extracting(JobResult::getStatus).containsExactly(JobStatus.RETRY_SCHEDULED);
+        assertThat(requeued).containsExactly(job);
+        assertThat(charged).isEmpty();
+    }
+
+    @Test
+    void jobsAStageGivesUpOnAtStopAreRequeued() throws Exception {
+        // Unknown payments go from load straight to persist, which has room for one waiting
+        // job, so the load thread blocks forwarding the third
+        PaymentPipeline pipeline = pipeline(10_000, 1, 100);
+        PaymentJob handling = PaymentJob.of(UUID.randomUUID(), 2500);
+        PaymentJob queued = PaymentJob.of(UUID.randomUUID(), 2500);
+        PaymentJob blocked = PaymentJob.of(UUID.randomUUID(), 2500);
+
+        CompletableFuture<List<JobResult>> results = CompletableFuture.supplyAsync(
+                () -> pipeline.process(List.of(handling, queued, blocked)));
+        await(() -> stage(pipeline, "persist").getQueueDepth() == 1 && stage(pipeline, "load").getBusyThreads() == 1);
+
+        // Past the drain timeout the load thread is interrupted and gives up on its batch, and
+        // the persist thread is interrupted before it gets to the job waiting for it
+        pipeline.stop();
+
+        List<JobResult> done = results.get(5, TimeUnit.SECONDS);
+        assertThat(done).extracting(JobResult::getStatus)
+                .containsExactly(JobStatus.RETRYING, JobStatus.RETRY_SCHEDULED, JobStatus.RETRY_SCHEDULED);
+        assertThat(failed).containsExactly(handling);
+        assertThat(requeued).containsExactly(queued, blocked);
+        assertThat(charged).isEmpty();
+    }
+}
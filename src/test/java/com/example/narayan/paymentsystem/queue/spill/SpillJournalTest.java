@@ -0,0 +1,136 @@
+package com.example.narayan.paymentsystem.queue.spill;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpillJournalTest {
+
+    private static final int SEGMENT_BYTES = 256;
+
+    @TempDir
+    Path dir;
+
+    private static byte[] payload(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> texts(SpillJournal.Batch batch) {
+        return batch.getEntries().stream()
+                .map(entry -> new String(entry.getPayload(), StandardCharsets.UTF_8))
+                .toList();
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    void recordsComeBackInOrderUntilCommitted() throws Exception {
+        SpillJournal journal = new SpillJournal(dir, SEGMENT_BYTES, false);
+        journal.append(payload("a"), 1);
+        journal.append(payload("b"), 2);
+        journal.append(payload("c"), 3);
+
+        SpillJournal.Batch first = journal.read(2);
+        assertThat(texts(first)).containsExactly("a", "b");
+        assertThat(texts(journal.read(2))).containsExactly("a", "b");
+        assertThat(journal.oldestEnqueuedAtMillis()).isEqualTo(1);
+
+        journal.commit(first);
+
+        assertThat(texts(journal.read(10))).containsExactly("c");
+        assertThat(journal.size()).isEqualTo(1);
+        assertThat(journal.oldestEnqueuedAtMillis()).isEqualTo(3);
+    }
+
+    @Test
+    void reopenedJournalResumesAfterTheLastCommit() throws Exception {
+        SpillJournal journal = new SpillJournal(dir, SEGMENT_BYTES, false);
+        journal.append(payload("a"), 1);
+        journal.append(payload("b"), 2);
+        journal.commit(journal.read(1));
+
+        SpillJournal reopened = new SpillJournal(dir, SEGMENT_BYTES, false);
+        reopened.append(payload("c"), 3);
+
+        assertThat(reopened.size()).isEqualTo(2);
+        assertThat(texts(reopened.read(10))).containsExactly("b", "c");
+    }
+
+    @Test
+    void fullSegmentsRollOverAndAreDeletedOnceReplayed() throws Exception {
+        SpillJournal journal = new SpillJournal(dir, SEGMENT_BYTES, false);
+        for (int i = 0; i < 20; i++) {
+            journal.append(payload("job-" + i + "-".repeat(40)), i);
+        }
+        assertThat(segmentFiles()).isGreaterThan(1);
+
+        SpillJournal.Batch all = journal.read(100);
+        assertThat(all.getEntries()).hasSize(20);
+        assertThat(texts(all).getFirst()).startsWith("job-0-");
+        assertThat(texts(all).getLast()).startsWith("job-19-");
+
+        journal.commit(all);
+
+        assertThat(journal.size()).isZero();
+        assertThat(segmentFiles()).isEqualTo(1);
+    }
+
+    @Test
+    void corruptRecordEndsTheJournalOnReopen() throws Exception {
+        SpillJournal journal = new SpillJournal(dir, SEGMENT_BYTES, false);
+        journal.append(payload("good"), 1);
+        journal.append(payload("torn"), 2);
+
+        // Flip a payload byte of the second record, as a crash mid-append might leave it
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(path -> path.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[16 + 4 + 16] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        SpillJournal reopened = new SpillJournal(dir, SEGMENT_BYTES, false);
+
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(texts(reopened.read(10))).containsExactly("good");
+    }
+
+    @Test
+    void damagedRecordInAnEarlierSegmentIsSkippedWithTheRestOfThatSegment() throws Exception {
+        SpillJournal journal = new SpillJournal(dir, SEGMENT_BYTES, false);
+        // 62-byte records, four to a segment
+        for (int i = 0; i < 8; i++) {
+            journal.append(payload("job-" + i + "-".repeat(40)), i);
+        }
+
+        Path first;
+        try (Stream<Path> files = Files.list(dir)) {
+            first = files.filter(path -> path.toString().endsWith(".seg")).sorted().findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[62 + 16] ^= 0x7f;
+        Files.write(first, bytes);
+
+        SpillJournal reopened = new SpillJournal(dir, SEGMENT_BYTES, false);
+        SpillJournal.Batch all = reopened.read(100);
+
+        assertThat(texts(all)).extracting(text -> text.substring(0, 5))
+                .containsExactly("job-0", "job-4", "job-5", "job-6", "job-7");
+        assertThat(reopened.size()).isEqualTo(all.getEntries().size());
+
+        reopened.commit(all);
+        assertThat(reopened.size()).isZero();
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.narayan.paymentsystem.service;
+
+import com.example.narayan.paymentsystem.config.AdmissionConfig;
+import com.example.narayan.paymentsystem.exception.ErrorResponse;
+import com.example.narayan.paymentsystem.exception.GlobalExceptionHandler;
+import com.example.narayan.paymentsystem.exception.PaymentAdmissionRejected;
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.worker.WorkerManager;
+import com.example.narayan.paymentsystem.worker.WorkerRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlServiceTest {
+
+    private static final BigDecimal ROUTINE = BigDecimal.valueOf(2500);
+
+    private final AdmissionConfig config = new AdmissionConfig();
+    private final JobQueue jobQueue = mock(JobQueue.class);
+    private final WorkerManager workerManager = mock(WorkerManager.class);
+    private final AdmissionControlService admission = new AdmissionControlService();
+
+    @BeforeEach
+    void setUp() {
+        config.setEnabled(true);
+        config.setMaxWaitMs(30_000);
+        config.setHighValueMaxWaitMs(120_000);
+        config.setMinQueueDepth(100);
+        config.setDrainRateSmoothing(0.3);
+        ReflectionTestUtils.setField(admission, "admissionConfig", config);
+        ReflectionTestUtils.setField(admission, "jobQueue", jobQueue);
+        ReflectionTestUtils.setField(admission, "workerManager", workerManager);
+    }
+
+    private void completed(long jobs) {
+        when(workerManager.getWorkerTotals()).thenReturn(new WorkerRegistry.WorkerTotals(1, 0, 0, 0, jobs, 0, 0));
+    }
+
+    /**
+     * What refresh() would have cached for this depth and projected wait
+     */
+    private void cached(long depth, long projectedWaitMs) {
+        ReflectionTestUtils.setField(admission, "queueDepth", depth);
+        ReflectionTestUtils.setField(admission, "projectedWaitMs", projectedWaitMs);
+    }
+
+    @Test
+    void refreshCachesTheDepthAndMeasuresTheDrainRate() throws Exception {
+        when(jobQueue.size()).thenReturn(1000);
+        completed(0);
+        admission.refresh();
+        // Nothing drained yet, so no wait can be projected
+        assertThat(admission.getStats().getProjectedWaitMs()).isZero();
+
+        long start = System.nanoTime();
+        Thread.sleep(100);
+        completed(100);
+        admission.refresh();
+        double maxRate = 100 / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+        AdmissionControlService.AdmissionStats stats = admission.getStats();
+        assertThat(stats.getQueueDepth()).isEqualTo(1000);
+        assertThat(stats.getDrainRatePerSecond()).isBetween(maxRate * 0.5, 1000.0);
+        assertThat(stats.getProjectedWaitMs()).isEqualTo((long) (1000 / stats.getDrainRatePerSecond() * 1000));
+
+        // Admitting reads the cached values; only refresh goes to the queue
+        admission.admit(ROUTINE, PaymentJob.Priority.NORMAL);
+        admission.admit(ROUTINE, PaymentJob.Priority.NORMAL);
+        verify(jobQueue, times(2)).size();
+    }
+
+    @Test
+    void laterSamplesAreSmoothedIntoTheDrainRate() throws Exception {
+        when(jobQueue.size()).thenReturn(1000);
+        completed(0);
+        admission.refresh();
+        Thread.sleep(100);
+        completed(100);
+        admission.refresh();
+        double first = admission.getStats().getDrainRatePerSecond();
+
+        // An interval with work waiting but nothing drained pulls the rate down by the smoothing weight
+        Thread.sleep(50);
+        admission.refresh();
+
+        assertThat(admission.getStats().getDrainRatePerSecond()).isCloseTo(first * 0.7, within(0.001));
+    }
+
+    @Test
+    void overloadedQueueRejectsWithRetryAfter() {
+        cached(5000, 45_000);
+
+        PaymentAdmissionRejected rejected = catchThrowableOfType(
+                () -> admission.admit(ROUTINE, PaymentJob.Priority.NORMAL), PaymentAdmissionRejected.class);
+
+        // 15s past the 30s SLO
+        assertThat(rejected.getRetryAfterSeconds()).isEqualTo(15);
+        assertThat(admission.getStats().getRejected()).isEqualTo(1);
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/api/v1/payments");
+        ResponseEntity<ErrorResponse> response = new GlobalExceptionHandler().handleAdmissionRejected(rejected, request);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("15");
+    }
+
+    @Test
+    void retryAfterStaysWithinItsBounds() {
+        cached(5000, Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> admission.admit(ROUTINE, PaymentJob.Priority.NORMAL))
+                .isInstanceOfSatisfying(PaymentAdmissionRejected.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(config.getMaxRetryAfterSeconds()));
+    }
+
+    @Test
+    void highPriorityAndHighValuePaymentsGetTheHigherCeiling() {
+        cached(5000, 60_000);
+
+        admission.admit(ROUTINE, PaymentJob.Priority.HIGH);
+        admission.admit(ROUTINE, PaymentJob.Priority.CRITICAL);
+        admission.admit(BigDecimal.valueOf(config.getHighValueThreshold()), PaymentJob.Priority.NORMAL);
+        assertThatThrownBy(() -> admission.admit(ROUTINE, PaymentJob.Priority.NORMAL))
+                .isInstanceOf(PaymentAdmissionRejected.class);
+        assertThat(admission.getStats().getAdmittedHighValue()).isEqualTo(3);
+
+        // Past the higher ceiling they are shed too
+        cached(5000, 150_000);
+        assertThatThrownBy(() -> admission.admit(ROUTINE, PaymentJob.Priority.CRITICAL))
+                .isInstanceOf(PaymentAdmissionRejected.class);
+        assertThat(admission.getStats().getRejectedHighValue()).isEqualTo(1);
+    }
+
+    @Test
+    void shallowQueueIsAlwaysAdmitted() {
+        cached(50, Long.MAX_VALUE);
+
+        admission.admit(ROUTINE, PaymentJob.Priority.LOW);
+
+        assertThat(admission.getStats().getAdmitted()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.narayan.paymentsystem.service;
+
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentPriorityPolicyTest {
+
+    private final PaymentPriorityPolicy policy = new PaymentPriorityPolicy();
+
+    @Test
+    void priorityRisesWithTheAmount() {
+        assertThat(policy.priorityFor(BigDecimal.valueOf(2500))).isEqualTo(PaymentJob.Priority.NORMAL);
+        assertThat(policy.priorityFor(new BigDecimal("49999.99"))).isEqualTo(PaymentJob.Priority.NORMAL);
+        assertThat(policy.priorityFor(BigDecimal.valueOf(50000))).isEqualTo(PaymentJob.Priority.HIGH);
+        assertThat(policy.priorityFor(BigDecimal.valueOf(1000000))).isEqualTo(PaymentJob.Priority.CRITICAL);
+    }
+
+    @Test
+    void missingAmountIsNormal() {
+        assertThat(policy.priorityFor(null)).isEqualTo(PaymentJob.Priority.NORMAL);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.narayan.paymentsystem.worker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+    private static LatencyHistogram recording(long from, long to) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = from; value <= to; value++) {
+            histogram.record(value);
+        }
+        return histogram;
+    }
+
+    @Test
+    void bucketBoundsAreContiguous() {
+        assertThat(LatencyHistogram.indexOf(0)).isZero();
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            long highest = LatencyHistogram.highestValueAt(i);
+            assertThat(LatencyHistogram.indexOf(highest)).as("highest value of bucket %d", i).isEqualTo(i);
+            if (i + 1 < LatencyHistogram.BUCKETS) {
+                assertThat(LatencyHistogram.indexOf(highest + 1)).as("value after bucket %d", i).isEqualTo(i + 1);
+            }
+        }
+    }
+
+    @Test
+    void bucketsAreExactBelow64AndWithinAbout3PercentAbove() {
+        for (int i = 0; i < 64; i++) {
+            assertThat(LatencyHistogram.highestValueAt(i)).isEqualTo(i);
+        }
+        for (int i = 64; i < LatencyHistogram.BUCKETS; i++) {
+            long lowest = LatencyHistogram.highestValueAt(i - 1) + 1;
+            long width = LatencyHistogram.highestValueAt(i) - lowest + 1;
+            assertThat((double) width / lowest).as("bucket %d", i).isLessThanOrEqualTo(1.0 / 32);
+        }
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCounts()[0]).isEqualTo(1);
+        assertThat(snapshot.getCounts()[LatencyHistogram.BUCKETS - 1]).isEqualTo(1);
+        assertThat(snapshot.getTotalCount()).isEqualTo(2);
+    }
+
+    @Test
+    void quantilesAreWithinBucketPrecisionAndNeverUnderstate() {
+        LatencyHistogram.Snapshot snapshot = recording(1, 10_000).snapshot();
+
+        long p50 = snapshot.valueAtQuantile(0.50);
+        long p99 = snapshot.valueAtQuantile(0.99);
+        assertThat(p50).isBetween(5_000L, 5_000L + 5_000L / 32);
+        assertThat(p99).isBetween(9_900L, 10_000L);
+        assertThat(snapshot.valueAtQuantile(1.0)).isEqualTo(10_000);
+        assertThat(snapshot.minMicros()).isEqualTo(1);
+        assertThat(snapshot.meanMicros()).isCloseTo(5_000.5, within(0.001));
+    }
+
+    @Test
+    void emptySnapshotReportsZeros() {
+        LatencyHistogram.Snapshot snapshot = LatencyHistogram.Snapshot.empty();
+
+        assertThat(snapshot.valueAtQuantile(0.99)).isZero();
+        assertThat(snapshot.minMicros()).isZero();
+        assertThat(snapshot.meanMicros()).isZero();
+    }
+
+    @Test
+    void mergeAddsCountsAndKeepsTheLargerMax() {
+        LatencyHistogram.Snapshot merged = recording(1, 100).snapshot().merge(recording(1_000, 1_099).snapshot());
+
+        assertThat(merged.getTotalCount()).isEqualTo(200);
+        assertThat(merged.getMaxMicros()).isEqualTo(1_099);
+        assertThat(merged.valueAtQuantile(0.25)).isEqualTo(50);
+        assertThat(merged.valueAtQuantile(0.75)).isBetween(1_049L, 1_049L + 1_049L / 32);
+    }
+
+    @Test
+    void sinceGivesTheCountsOfTheInterval() {
+        LatencyHistogram histogram = recording(1, 100);
+        LatencyHistogram.Snapshot before = histogram.snapshot();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(20_000);
+        }
+
+        LatencyHistogram.Snapshot interval = histogram.snapshot().since(before);
+
+        assertThat(interval.getTotalCount()).isEqualTo(100);
+        assertThat(interval.getSumMicros()).isEqualTo(100 * 20_000L);
+        assertThat(interval.valueAtQuantile(0.01)).isBetween(20_000L, 20_000L + 20_000L / 32);
+    }
+
+    @Test
+    void snapshotAndResetStartsANewInterval() {
+        LatencyHistogram histogram = recording(1, 50);
+
+        LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+        histogram.record(7);
+
+        assertThat(first.getTotalCount()).isEqualTo(50);
+        assertThat(first.getMaxMicros()).isEqualTo(50);
+        assertThat(histogram.getTotalCount()).isEqualTo(1);
+        assertThat(histogram.snapshot().valueAtQuantile(0.5)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.narayan.paymentsystem.worker;
+
+import com.example.narayan.paymentsystem.config.AutoscalerConfig;
+import com.example.narayan.paymentsystem.queue.JobQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkerAutoscalerTest {
+
+    private final AutoscalerConfig config = new AutoscalerConfig();
+    private final WorkerManager workerManager = mock(WorkerManager.class);
+    private final JobQueue jobQueue = mock(JobQueue.class);
+    private final WorkerAutoscaler autoscaler = new WorkerAutoscaler();
+
+    @BeforeEach
+    void setUp() {
+        config.setEnabled(true);
+        ReflectionTestUtils.setField(autoscaler, "autoscalerConfig", config);
+        ReflectionTestUtils.setField(autoscaler, "workerManager", workerManager);
+        ReflectionTestUtils.setField(autoscaler, "jobQueue", jobQueue);
+        when(workerManager.isStarted()).thenReturn(true);
+        when(workerManager.getDrainState()).thenReturn(WorkerManager.DRAIN_RUNNING);
+        when(workerManager.removeWorkers(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    /**
+     * What the last samples measured
+     */
+    private void load(double arrivalsPerSecond, double serviceTimeMs, long depth, int inFlight) {
+        ReflectionTestUtils.setField(autoscaler, "arrivalRatePerSecond", arrivalsPerSecond);
+        ReflectionTestUtils.setField(autoscaler, "serviceTimeMs", serviceTimeMs);
+        ReflectionTestUtils.setField(autoscaler, "queueDepth", depth);
+        ReflectionTestUtils.setField(autoscaler, "inFlightJobs", inFlight);
+    }
+
+    private int target() {
+        return ReflectionTestUtils.invokeMethod(autoscaler, "computeTarget");
+    }
+
+    private void decide() {
+        ReflectionTestUtils.invokeMethod(autoscaler, "decide");
+    }
+
+    @Test
+    void targetCoversArrivalsAndBacklogWithHeadroom() {
+        // 10/s x 0.5s = 5 busy, plus 60 queued x 0.5s over 30s = 1, at 75% utilization
+        load(10, 500, 60, 0);
+        assertThat(target()).isEqualTo(8);
+
+        // Bounded by min and max, and never below what is in flight
+        load(100, 500, 0, 0);
+        assertThat(target()).isEqualTo(config.getMaxWorkers());
+        load(0, 500, 0, 0);
+        assertThat(target()).isEqualTo(config.getMinWorkers());
+        load(0, 500, 0, 6);
+        assertThat(target()).isEqualTo(6);
+    }
+
+    @Test
+    void samplesMeasureServiceTimeFromCompletions() {
+        config.setSmoothing(1.0);
+        when(workerManager.getAllWorkerStats()).thenReturn(List.of());
+        when(workerManager.getWorkerCount()).thenReturn(1);
+        when(jobQueue.size()).thenReturn(0);
+
+        when(workerManager.getWorkerTotals()).thenReturn(new WorkerRegistry.WorkerTotals(1, 0, 0, 0, 0, 0, 0));
+        autoscaler.tick();
+        // One sample is nothing to compare against, so no decision yet
+        verify(workerManager, never()).getWorkerCount();
+
+        when(workerManager.getWorkerTotals()).thenReturn(new WorkerRegistry.WorkerTotals(1, 0, 0, 0, 8, 2, 5000));
+        autoscaler.tick();
+
+        WorkerAutoscaler.AutoscalerStats stats = autoscaler.getStats();
+        assertThat(stats.getServiceTimeMs()).isEqualTo(500.0);
+        assertThat(stats.getArrivalRatePerSecond()).isPositive();
+        assertThat(stats.getTargetWorkers()).isGreaterThanOrEqualTo(config.getMinWorkers());
+    }
+
+    @Test
+    void growsAtOnceByAtMostMaxStepUp() {
+        when(workerManager.getWorkerCount()).thenReturn(2);
+        load(10, 500, 60, 0);
+
+        decide();
+
+        verify(workerManager).addMoreWorkers(config.getMaxStepUp());
+        WorkerAutoscaler.AutoscalerStats stats = autoscaler.getStats();
+        assertThat(stats.getScaleUps()).isEqualTo(1);
+        assertThat(stats.getRecentDecisions())
+                .extracting(d -> d.action, d -> d.fromWorkers, d -> d.toWorkers, d -> d.targetWorkers)
+                .containsExactly(tuple("scale-up", 2, 6, 8));
+    }
+
+    @Test
+    void targetWithinTheHysteresisBandNeverShrinks() {
+        when(workerManager.getWorkerCount()).thenReturn(10);
+        // 6.5 / 0.75 rounds up to 9: below the current size, but not 20% below
+        load(13, 500, 0, 0);
+
+        for (int i = 0; i < config.getScaleDownStableIntervals() + 2; i++) {
+            decide();
+        }
+
+        verify(workerManager, never()).removeWorkers(anyInt());
+        assertThat(autoscaler.getStats().getTargetWorkers()).isEqualTo(9);
+    }
+
+    @Test
+    void shrinksOnlyAfterTheTargetStaysLowForStableIntervals() {
+        when(workerManager.getWorkerCount()).thenReturn(10);
+        load(3, 500, 0, 0);
+
+        decide();
+        decide();
+        // A busy spell in between starts the count again
+        load(15, 500, 0, 0);
+        decide();
+        load(3, 500, 0, 0);
+        decide();
+        decide();
+        verify(workerManager, never()).removeWorkers(anyInt());
+
+        decide();
+        verify(workerManager).removeWorkers(config.getMaxStepDown());
+        assertThat(autoscaler.getStats().getScaleDowns()).isEqualTo(1);
+        assertThat(autoscaler.getStats().getWorkersRetired()).isEqualTo(config.getMaxStepDown());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.narayan.paymentsystem.worker;
+
+import com.example.narayan.paymentsystem.config.WorkerConfig;
+import com.example.narayan.paymentsystem.model.enums.PaymentMethodType;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkerBulkheadsTest {
+
+    private static WorkerConfig.Bulkhead config(boolean borrowing) {
+        WorkerConfig.Bulkhead config = new WorkerConfig.Bulkhead();
+        config.setEnabled(true);
+        config.getLimits().put("UPI", 1);
+        config.getLimits().put("CREDIT_CARD", 2);
+        config.setDefaultLimit(1);
+        config.setLaneCapacity(2);
+        config.setBorrowingEnabled(borrowing);
+        config.setMaxBorrow(1);
+        return config;
+    }
+
+    private static PaymentJob job(PaymentMethodType method) {
+        return PaymentJob.of(UUID.randomUUID(), 2500, UUID.randomUUID(), method);
+    }
+
+    private static WorkerBulkheads.BulkheadStats stats(WorkerBulkheads bulkheads, String key) {
+        return bulkheads.getStats().stream().filter(s -> s.getBulkhead().equals(key)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void limitCapsRunningJobsThenLaneThenRejects() {
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config(false));
+
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.GRANTED);
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.QUEUED);
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.QUEUED);
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.REJECTED);
+
+        // Other methods are untouched by a full UPI bulkhead
+        assertThat(bulkheads.admit(job(PaymentMethodType.CREDIT_CARD))).isEqualTo(WorkerBulkheads.Admission.GRANTED);
+        assertThat(bulkheads.admit(job(PaymentMethodType.CREDIT_CARD))).isEqualTo(WorkerBulkheads.Admission.GRANTED);
+
+        WorkerBulkheads.BulkheadStats upi = stats(bulkheads, "UPI");
+        assertThat(upi.getInUse()).isEqualTo(1);
+        assertThat(upi.getLaneDepth()).isEqualTo(2);
+        assertThat(upi.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void laneJobsRunInOrderAsPermitsFree() {
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config(false));
+        PaymentJob running = job(PaymentMethodType.UPI);
+        PaymentJob second = job(PaymentMethodType.UPI);
+        PaymentJob third = job(PaymentMethodType.UPI);
+        bulkheads.admit(running);
+        bulkheads.admit(second);
+        bulkheads.admit(third);
+
+        assertThat(bulkheads.pollLane()).isNull();
+
+        bulkheads.release(List.of(running));
+        assertThat(bulkheads.pollLane()).isSameAs(second);
+        assertThat(bulkheads.pollLane()).isNull();
+
+        bulkheads.release(List.of(second));
+        assertThat(bulkheads.pollLane()).isSameAs(third);
+    }
+
+    @Test
+    void queuedJobWaitsBehindTheLaneEvenWhenAPermitIsFree() {
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config(false));
+        PaymentJob running = job(PaymentMethodType.UPI);
+        bulkheads.admit(running);
+        bulkheads.admit(job(PaymentMethodType.UPI));
+        bulkheads.release(List.of(running));
+
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.QUEUED);
+    }
+
+    @Test
+    void fullBulkheadBorrowsFromAnIdleOneUpToMaxBorrow() {
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config(true));
+        PaymentJob own = job(PaymentMethodType.UPI);
+        PaymentJob borrowed = job(PaymentMethodType.UPI);
+
+        assertThat(bulkheads.admit(own)).isEqualTo(WorkerBulkheads.Admission.GRANTED);
+        assertThat(bulkheads.admit(borrowed)).isEqualTo(WorkerBulkheads.Admission.GRANTED);
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.QUEUED);
+
+        WorkerBulkheads.BulkheadStats upi = stats(bulkheads, "UPI");
+        assertThat(upi.getBorrowed()).isEqualTo(1);
+        assertThat(upi.getUtilization()).isEqualTo(2.0);
+        long lentOut = bulkheads.getStats().stream().mapToLong(WorkerBulkheads.BulkheadStats::getLentOut).sum();
+        assertThat(lentOut).isEqualTo(1);
+
+        // The borrowed permit goes back to its lender
+        bulkheads.release(List.of(borrowed));
+        assertThat(stats(bulkheads, "UPI").getBorrowed()).isZero();
+        assertThat(bulkheads.getStats().stream().mapToLong(WorkerBulkheads.BulkheadStats::getLentOut).sum()).isZero();
+    }
+
+    @Test
+    void bulkheadWithWaitingJobsDoesNotLend() {
+        WorkerConfig.Bulkhead config = config(true);
+        // Bulkheads are only created as jobs show up, so CREDIT_CARD is the one possible lender
+        config.setByPriority(true);
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config);
+        PaymentJob finished = job(PaymentMethodType.CREDIT_CARD);
+        PaymentJob waiting = job(PaymentMethodType.CREDIT_CARD);
+        bulkheads.admit(finished);
+        bulkheads.admit(job(PaymentMethodType.CREDIT_CARD));
+        bulkheads.admit(waiting);
+        bulkheads.release(List.of(finished)); // A free permit, but its own job is waiting for it
+
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.GRANTED);
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.QUEUED);
+        assertThat(bulkheads.pollLane()).isSameAs(waiting);
+    }
+
+    @Test
+    void releaseIgnoresJobsWithoutAPermit() {
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config(false));
+        PaymentJob running = job(PaymentMethodType.UPI);
+        bulkheads.admit(running);
+
+        bulkheads.release(List.of(running, job(PaymentMethodType.UPI)));
+        bulkheads.release(List.of(running));
+
+        assertThat(stats(bulkheads, "UPI").getInUse()).isZero();
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.GRANTED);
+        assertThat(bulkheads.admit(job(PaymentMethodType.UPI))).isEqualTo(WorkerBulkheads.Admission.QUEUED);
+    }
+
+    @Test
+    void priorityBulkheadsFallBackToTheMethodLimit() {
+        WorkerConfig.Bulkhead config = config(false);
+        config.setByPriority(true);
+        config.getLimits().put("UPI:CRITICAL", 2);
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config);
+
+        PaymentJob critical = job(PaymentMethodType.UPI);
+        critical.setPriority(PaymentJob.Priority.CRITICAL);
+        bulkheads.admit(critical);
+        bulkheads.admit(job(PaymentMethodType.UPI));
+
+        assertThat(stats(bulkheads, "UPI:CRITICAL").getLimit()).isEqualTo(2);
+        assertThat(stats(bulkheads, "UPI:NORMAL").getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    void drainLanesHandsBackEveryWaitingJob() {
+        WorkerBulkheads bulkheads = new WorkerBulkheads(config(false));
+        bulkheads.admit(job(PaymentMethodType.UPI));
+        PaymentJob waitingUpi = job(PaymentMethodType.UPI);
+        bulkheads.admit(waitingUpi);
+        PaymentJob unknown = job(null);
+        bulkheads.admit(job(null));
+        bulkheads.admit(unknown);
+
+        assertThat(bulkheads.drainLanes()).containsExactlyInAnyOrder(waitingUpi, unknown);
+        assertThat(bulkheads.pollLane()).isNull();
+        assertThat(stats(bulkheads, WorkerBulkheads.UNKNOWN).getLaneDepth()).isZero();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.narayan.paymentsystem.worker;
+
+import com.example.narayan.paymentsystem.actuator.DrainHealthIndicator;
+import com.example.narayan.paymentsystem.queue.InMemoryPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.queue.processor.JobProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WorkerManagerDrainTest {
+
+    private final InMemoryPriorityJobQueue queue = new InMemoryPriorityJobQueue(100, 200);
+    @SuppressWarnings("unchecked")
+    private final JobProcessor<PaymentJob> processor = mock(JobProcessor.class);
+    // Entered by a job once the processor has it; the job then runs until release opens
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WorkerManager manager;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (manager != null) {
+            manager.shutdownWorkers();
+        }
+    }
+
+    /**
+     * One sleep-polling worker with a one-second drain
+     */
+    private WorkerManager manager() {
+        when(processor.process(any())).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+                return new JobResult(JobStatus.COMPLETED, "done");
+            } catch (InterruptedException e) {
+                return new JobResult(JobStatus.FAILED, "interrupted");
+            }
+        });
+
+        manager = new WorkerManager(queue, processor);
+        ReflectionTestUtils.setField(manager, "workerCount", 1);
+        ReflectionTestUtils.setField(manager, "pollingIntervalMs", 10L);
+        ReflectionTestUtils.setField(manager, "errorBackoffMs", 10L);
+        ReflectionTestUtils.setField(manager, "shutdownTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(manager, "interruptedRetryDelayMs", 60_000L);
+        ReflectionTestUtils.setField(manager, "blockingTimeoutMs", 100L);
+        ReflectionTestUtils.setField(manager, "batchSize", 1);
+        ReflectionTestUtils.setField(manager, "executorMode", "platform");
+        ReflectionTestUtils.setField(manager, "maxJobsPerWorker", 0L);
+        ReflectionTestUtils.setField(manager, "maxIdleBackoffMs", 50L);
+        ReflectionTestUtils.setField(manager, "enableStats", false);
+        manager.startWorkers();
+        return manager;
+    }
+
+    private static PaymentJob newJob() {
+        return PaymentJob.of(UUID.randomUUID(), 2500);
+    }
+
+    @Test
+    void jobStillRunningAtTheTimeoutIsScheduledToRunAgain() throws Exception {
+        WorkerManager manager = manager();
+        PaymentJob job = newJob();
+        queue.enqueue(job);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        WorkerManager.DrainReport report = manager.drain();
+
+        assertThat(report.isTimedOut()).isTrue();
+        assertThat(report.getInFlightAtStart()).isEqualTo(1);
+        assertThat(report.getHandedOffJobs()).isZero();
+        assertThat(report.getCheckpointedJobs()).isEqualTo(1);
+        assertThat(report.getDurationMs()).isGreaterThanOrEqualTo(1000);
+        // Parked for interrupted-retry-delay-ms, not back in the ready queue
+        assertThat(queue.delayedSize()).isEqualTo(1);
+        assertThat(queue.size()).isZero();
+        assertThat(manager.getDrainState()).isEqualTo(WorkerManager.DRAIN_DRAINED);
+    }
+
+    @Test
+    void drainThatFinishesInTimeCheckpointsNothing() throws Exception {
+        WorkerManager manager = manager();
+        queue.enqueue(newJob());
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        WorkerManager.DrainReport report = manager.drain();
+
+        assertThat(report.isTimedOut()).isFalse();
+        assertThat(report.getCheckpointedJobs()).isZero();
+        assertThat(queue.delayedSize()).isZero();
+        verify(processor, times(1)).process(any());
+        // Later calls return the same report
+        assertThat(manager.drain()).isSameAs(report);
+    }
+
+    @Test
+    void readinessFollowsTheDrainState() {
+        WorkerManager manager = manager();
+        DrainHealthIndicator indicator = new DrainHealthIndicator();
+        ReflectionTestUtils.setField(indicator, "workerManager", manager);
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+
+        manager.beginDrain();
+        Health draining = indicator.health();
+        assertThat(draining.getStatus()).isEqualTo(new Status(WorkerManager.DRAIN_DRAINING));
+        assertThat(draining.getDetails()).containsEntry("draining_workers", 0);
+
+        WorkerManager.DrainReport report = manager.drain();
+        Health drained = indicator.health();
+        assertThat(drained.getStatus()).isEqualTo(new Status(WorkerManager.DRAIN_DRAINED));
+        assertThat(drained.getDetails()).containsEntry("report", report);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.narayan.paymentsystem.worker;
+
+import com.example.narayan.paymentsystem.queue.InMemoryPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.queue.processor.JobProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkerManagerPoolTest {
+
+    private final InMemoryPriorityJobQueue queue = new InMemoryPriorityJobQueue(100, 200);
+    @SuppressWarnings("unchecked")
+    private final JobProcessor<PaymentJob> processor = mock(JobProcessor.class);
+    // Jobs run until it opens
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WorkerManager manager;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (manager != null) {
+            manager.shutdownWorkers();
+        }
+    }
+
+    private WorkerManager manager(int workers, long maxJobsPerWorker) {
+        when(processor.process(any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return new JobResult(JobStatus.COMPLETED, "done");
+        });
+
+        manager = new WorkerManager(queue, processor);
+        ReflectionTestUtils.setField(manager, "workerCount", workers);
+        ReflectionTestUtils.setField(manager, "pollingIntervalMs", 10L);
+        ReflectionTestUtils.setField(manager, "errorBackoffMs", 10L);
+        ReflectionTestUtils.setField(manager, "shutdownTimeoutSeconds", 1L);
+        ReflectionTestUtils.setField(manager, "blockingTimeoutMs", 100L);
+        ReflectionTestUtils.setField(manager, "batchSize", 1);
+        ReflectionTestUtils.setField(manager, "executorMode", "platform");
+        ReflectionTestUtils.setField(manager, "maxJobsPerWorker", maxJobsPerWorker);
+        ReflectionTestUtils.setField(manager, "maxIdleBackoffMs", 20L);
+        ReflectionTestUtils.setField(manager, "enableStats", false);
+        ReflectionTestUtils.setField(manager, "retainedRetiredWorkers", 10);
+        manager.startWorkers();
+        return manager;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    @Test
+    void removeWorkersTakesIdleOnesFirstAndNeverTheLast() throws Exception {
+        WorkerManager manager = manager(3, 0);
+        queue.enqueue(PaymentJob.of(UUID.randomUUID(), 2500));
+        await(() -> manager.getAllWorkerStats().stream().anyMatch(stats -> stats.inFlightJobs == 1));
+        long busy = manager.getAllWorkerStats().stream()
+                .filter(stats -> stats.inFlightJobs == 1).findFirst().orElseThrow().workerId;
+
+        assertThat(manager.removeWorkers(5)).isEqualTo(2);
+
+        assertThat(manager.getWorkerCount()).isEqualTo(1);
+        assertThat(manager.getAllWorkerStats()).extracting(stats -> stats.workerId).containsExactly(busy);
+        // The idle ones exit and their stats move to the retired list
+        await(() -> manager.getRetiredWorkerStats().size() == 2 && manager.getDrainingWorkerCount() == 0);
+        assertThat(manager.getWorkerTotals().getRetiredWorkers()).isEqualTo(2);
+        assertThat(manager.getWorkerTotals().getRecycledWorkers()).isZero();
+    }
+
+    @Test
+    void workerThatReachesMaxJobsIsReplaced() throws Exception {
+        release.countDown();
+        WorkerManager manager = manager(1, 2);
+        long first = manager.getAllWorkerStats().getFirst().workerId;
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue(PaymentJob.of(UUID.randomUUID(), 2500));
+        }
+
+        await(() -> manager.getWorkerTotals().getProcessedJobs() == 5 && manager.getWorkerTotals().getRecycledWorkers() == 2);
+
+        // Still one live worker, a newer one, and no job counted twice or lost
+        assertThat(manager.getWorkerCount()).isEqualTo(1);
+        assertThat(manager.getAllWorkerStats().getFirst().workerId).isGreaterThan(first);
+        assertThat(manager.getRetiredWorkerStats()).extracting(stats -> stats.processedJobs).containsExactly(2L, 2L);
+        assertThat(queue.size()).isZero();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.narayan.paymentsystem.worker;
+
+import com.example.narayan.paymentsystem.queue.InMemoryPriorityJobQueue;
+import com.example.narayan.paymentsystem.queue.jobs.JobResult;
+import com.example.narayan.paymentsystem.queue.jobs.JobStatus;
+import com.example.narayan.paymentsystem.queue.jobs.PaymentJob;
+import com.example.narayan.paymentsystem.queue.processor.JobProcessor;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkerRegistryTest {
+
+    private final InMemoryPriorityJobQueue queue = new InMemoryPriorityJobQueue(100, 200);
+    @SuppressWarnings("unchecked")
+    private final JobProcessor<PaymentJob> processor = mock(JobProcessor.class);
+
+    private JobWorker idleWorker() {
+        return new JobWorker(queue, processor, 10, 10);
+    }
+
+    /**
+     * A worker that has processed one job and left its loop to be recycled
+     */
+    private JobWorker finishedWorker() {
+        when(processor.process(any())).thenReturn(new JobResult(JobStatus.COMPLETED, "done"));
+        queue.enqueue(PaymentJob.of(UUID.randomUUID(), 2500));
+        JobWorker worker = new JobWorker(queue, processor, 10, 10, 0, 1, 1, 10, null, null);
+        worker.run();
+        return worker;
+    }
+
+    @Test
+    void drainMovesALiveWorkerOnce() {
+        WorkerRegistry registry = new WorkerRegistry(10);
+        JobWorker first = idleWorker();
+        JobWorker second = idleWorker();
+        registry.register(first);
+        registry.register(second);
+
+        assertThat(registry.drain(first)).isTrue();
+        assertThat(registry.drain(first)).isFalse();
+
+        assertThat(registry.liveWorkers()).containsExactly(second);
+        assertThat(registry.drainingWorkers()).containsExactly(first);
+        assertThat(registry.isLive(first)).isFalse();
+        assertThat(registry.totals().getLiveWorkers()).isEqualTo(1);
+        assertThat(registry.totals().getDrainingWorkers()).isEqualTo(1);
+    }
+
+    @Test
+    void retiringKeepsTheCountsButOnlyTheNewestStats() {
+        WorkerRegistry registry = new WorkerRegistry(2);
+        JobWorker oldest = finishedWorker();
+        JobWorker middle = finishedWorker();
+        JobWorker newest = finishedWorker();
+        for (JobWorker worker : new JobWorker[]{oldest, middle, newest}) {
+            registry.register(worker);
+        }
+        assertThat(registry.totals().getProcessedJobs()).isEqualTo(3);
+
+        registry.retired(oldest, true);
+        registry.retired(middle, false);
+        registry.retired(newest, true);
+
+        WorkerRegistry.WorkerTotals totals = registry.totals();
+        assertThat(totals.getLiveWorkers()).isZero();
+        assertThat(totals.getRetiredWorkers()).isEqualTo(3);
+        assertThat(totals.getRecycledWorkers()).isEqualTo(2);
+        // Lifetime counts don't go backwards when workers leave
+        assertThat(totals.getProcessedJobs()).isEqualTo(3);
+        assertThat(registry.latency().summarize().getCount()).isEqualTo(3);
+        assertThat(registry.retiredStats()).extracting(stats -> stats.workerId)
+                .containsExactly(newest.getWorkerId(), middle.getWorkerId());
+    }
+
+    @Test
+    void drainedWorkerThatExitsLeavesTheDrainingSet() {
+        WorkerRegistry registry = new WorkerRegistry(10);
+        JobWorker worker = finishedWorker();
+        registry.register(worker);
+        registry.drain(worker);
+
+        registry.retired(worker, false);
+
+        assertThat(registry.drainingCount()).isZero();
+        assertThat(registry.liveCount()).isZero();
+        assertThat(registry.retiredStats()).hasSize(1);
+    }
+}